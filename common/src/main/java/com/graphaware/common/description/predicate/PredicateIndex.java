@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.description.predicate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static com.graphaware.common.util.ArrayUtils.arrayFriendlyEquals;
+import static com.graphaware.common.util.ArrayUtils.arrayFriendlyHashCode;
+
+/**
+ * An index of {@link Predicate}s (each associated with an item) that finds items whose predicates are satisfied by a
+ * property value without evaluating all the predicates.
+ * <p/>
+ * {@link EqualTo} predicates are kept in a hash map keyed by their value. {@link GreaterThan} and {@link LessThan}
+ * predicates are kept in sorted maps (one per class of their value, since values of different classes are never
+ * comparable), so that all predicates satisfied by a value form a contiguous range of the map. {@link Any} predicates
+ * are satisfied by every value, {@link Or} predicates are indexed as both of their disjuncts, and all other predicates
+ * are evaluated one by one.
+ * <p/>
+ * Only present values are matched, absent properties (i.e. {@link UndefinedValue}) are the concern of the caller. Note
+ * that an item is reported as many times as there are indexed predicates (or disjuncts) it is associated with that are
+ * satisfied by the value.
+ * <p/>
+ * This class is not thread-safe for writes, but can be read concurrently once fully built.
+ *
+ * @param <T> type of items associated with predicates.
+ */
+public final class PredicateIndex<T> {
+
+    private final Map<Value, List<T>> equalTo = new HashMap<>();
+    private final Map<Class<?>, NavigableMap<Comparable, List<T>>> greaterThan = new HashMap<>();
+    private final Map<Class<?>, NavigableMap<Comparable, List<T>>> lessThan = new HashMap<>();
+    private final List<T> any = new ArrayList<>();
+    private final List<Predicate> otherPredicates = new ArrayList<>();
+    private final List<T> otherItems = new ArrayList<>();
+
+    /**
+     * Add a predicate to the index.
+     *
+     * @param predicate to add.
+     * @param item      associated with the predicate, to be reported when the predicate is satisfied.
+     */
+    public void add(Predicate predicate, T item) {
+        if (predicate instanceof Undefined) {
+            //never satisfied by a present value
+            return;
+        }
+
+        if (predicate instanceof Any) {
+            any.add(item);
+        } else if (predicate instanceof Or) {
+            add(((Or) predicate).getFirst(), item);
+            add(((Or) predicate).getSecond(), item);
+        } else if (predicate instanceof EqualTo) {
+            equalTo.computeIfAbsent(new Value(((EqualTo) predicate).getValue()), v -> new ArrayList<>()).add(item);
+        } else if (predicate instanceof GreaterThan) {
+            add(greaterThan, ((GreaterThan) predicate).getValue(), item);
+        } else if (predicate instanceof LessThan) {
+            add(lessThan, ((LessThan) predicate).getValue(), item);
+        } else {
+            otherPredicates.add(predicate);
+            otherItems.add(item);
+        }
+    }
+
+    private void add(Map<Class<?>, NavigableMap<Comparable, List<T>>> index, Comparable value, T item) {
+        index.computeIfAbsent(value.getClass(), c -> new TreeMap<>()).computeIfAbsent(value, v -> new ArrayList<>()).add(item);
+    }
+
+    /**
+     * Find items whose predicates are satisfied by a value.
+     *
+     * @param value    property value, must not be <code>null</code>.
+     * @param consumer of items associated with satisfied predicates.
+     */
+    public void match(Object value, Consumer<? super T> consumer) {
+        any.forEach(consumer);
+
+        List<T> equal = equalTo.get(new Value(value));
+        if (equal != null) {
+            equal.forEach(consumer);
+        }
+
+        if (value instanceof Comparable) {
+            //predicates with a lower value are satisfied by a greater value and vice versa
+            NavigableMap<Comparable, List<T>> lower = greaterThan.get(value.getClass());
+            if (lower != null) {
+                lower.headMap((Comparable) value, false).values().forEach(items -> items.forEach(consumer));
+            }
+
+            NavigableMap<Comparable, List<T>> greater = lessThan.get(value.getClass());
+            if (greater != null) {
+                greater.tailMap((Comparable) value, false).values().forEach(items -> items.forEach(consumer));
+            }
+        }
+
+        for (int i = 0; i < otherPredicates.size(); i++) {
+            if (otherPredicates.get(i).evaluate(value)) {
+                consumer.accept(otherItems.get(i));
+            }
+        }
+    }
+
+    /**
+     * A property value, potentially an array, as a hash map key.
+     */
+    private static final class Value {
+
+        private final Object value;
+        private final int hashCode;
+
+        private Value(Object value) {
+            this.value = value;
+            this.hashCode = arrayFriendlyHashCode(value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            return arrayFriendlyEquals(value, ((Value) o).value);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
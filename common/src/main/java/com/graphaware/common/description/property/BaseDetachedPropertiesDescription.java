@@ -19,18 +19,37 @@ package com.graphaware.common.description.property;
 import com.graphaware.common.description.predicate.Predicate;
 import org.neo4j.graphdb.Entity;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import static com.graphaware.common.description.predicate.Predicates.equalTo;
 
 /**
  * Base class for {@link DetachedPropertiesDescription} implementations.
+ * <p/>
+ * In order to keep large numbers of descriptions cheap, a description is stored as a sorted array of property keys and
+ * a parallel array of predicates. Descriptions derived from each other using {@link #with(String, Predicate)} share
+ * the key array whenever the keys don't change. The hash code is computed once at construction. Callers holding many
+ * descriptions can additionally share key arrays and identical descriptions using a
+ * {@link DetachedPropertiesDescriptionInterner} of their own.
  */
 public abstract class BaseDetachedPropertiesDescription extends BasePropertiesDescription implements DetachedPropertiesDescription {
 
-    protected final Map<String, Predicate> predicates = new TreeMap<>();
+    /**
+     * Read-only view of the predicates, sorted by key.
+     */
+    protected final Map<String, Predicate> predicates = new PredicateMap();
+
+    private final String[] keys;
+    private final Predicate[] values;
+    private final int hashCode;
 
     /**
      * Construct a new properties description as the most specific description of the given entity.
@@ -38,9 +57,13 @@ public abstract class BaseDetachedPropertiesDescription extends BasePropertiesDe
      * @param entity to construct the most specific properties description from.
      */
     protected BaseDetachedPropertiesDescription(Entity entity) {
-        for (String key : entity.getPropertyKeys()) {
-            predicates.put(key, equalTo(entity.getProperty(key)));
-        }
+        this(predicatesOf(entity));
+    }
+
+    private static Map<String, Predicate> predicatesOf(Entity entity) {
+        Map<String, Predicate> predicates = new HashMap<>();
+        entity.getAllProperties().forEach((key, value) -> predicates.put(key, equalTo(value)));
+        return predicates;
     }
 
     /**
@@ -49,14 +72,59 @@ public abstract class BaseDetachedPropertiesDescription extends BasePropertiesDe
      * @param predicates to copy.
      */
     protected BaseDetachedPropertiesDescription(Map<String, Predicate> predicates) {
-        this.predicates.putAll(predicates);
+        this.keys = predicates.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+        this.values = new Predicate[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            this.values[i] = predicates.get(keys[i]);
+        }
+        this.hashCode = computeHashCode();
+    }
+
+    /**
+     * Construct a new properties description from arrays produced by another description, i.e. the ones passed to
+     * {@link #newInstance(String[], Predicate[])}.
+     *
+     * @param keys       sorted keys, not modified and shared with other descriptions.
+     * @param predicates parallel to keys, owned by the new description.
+     */
+    protected BaseDetachedPropertiesDescription(String[] keys, Predicate[] predicates) {
+        this.keys = keys;
+        this.values = predicates;
+        this.hashCode = computeHashCode();
+    }
+
+    private int computeHashCode() {
+        return 31 * Arrays.hashCode(keys) + Arrays.hashCode(values);
     }
 
     @Override
     public DetachedPropertiesDescription with(String propertyKey, Predicate predicate) {
-        Map<String, Predicate> newPredicates = new HashMap<>(predicates);
-        newPredicates.put(propertyKey, predicate);
-        return newInstance(newPredicates);
+        int index = Arrays.binarySearch(keys, propertyKey);
+
+        if (index >= 0) {
+            if (values[index].equals(predicate)) {
+                return this;
+            }
+
+            Predicate[] newValues = values.clone();
+            newValues[index] = predicate;
+            return newInstance(keys, newValues);
+        }
+
+        int insertion = -index - 1;
+
+        String[] newKeys = new String[keys.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, insertion);
+        newKeys[insertion] = propertyKey;
+        System.arraycopy(keys, insertion, newKeys, insertion + 1, keys.length - insertion);
+
+        Predicate[] newValues = new Predicate[values.length + 1];
+        System.arraycopy(values, 0, newValues, 0, insertion);
+        newValues[insertion] = predicate;
+        System.arraycopy(values, insertion, newValues, insertion + 1, values.length - insertion);
+
+        return newInstance(newKeys, newValues);
     }
 
     /**
@@ -67,13 +135,48 @@ public abstract class BaseDetachedPropertiesDescription extends BasePropertiesDe
      */
     protected abstract DetachedPropertiesDescription newInstance(Map<String, Predicate> predicates);
 
+    /**
+     * Create a new instance of this class with the given predicates. Delegates to {@link #newInstance(Map)} by default;
+     * subclasses should override it with a call to {@link #BaseDetachedPropertiesDescription(String[], Predicate[])}
+     * to avoid copying.
+     *
+     * @param keys       sorted keys, shared with other descriptions and must not be modified.
+     * @param predicates parallel to keys.
+     * @return new instance.
+     */
+    protected DetachedPropertiesDescription newInstance(String[] keys, Predicate[] predicates) {
+        Map<String, Predicate> map = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], predicates[i]);
+        }
+        return newInstance(map);
+    }
+
+    /**
+     * @return sorted keys of this description, shared with other descriptions and must not be modified.
+     */
+    final String[] keys() {
+        return keys;
+    }
+
+    /**
+     * Create a copy of this description that uses the given key array.
+     *
+     * @param keys equal to the keys of this description.
+     * @return new instance.
+     */
+    final DetachedPropertiesDescription withKeys(String[] keys) {
+        return newInstance(keys, values);
+    }
+
     @Override
     public Predicate get(String key) {
-        if (!predicates.containsKey(key)) {
+        int index = Arrays.binarySearch(keys, key);
+        if (index < 0) {
             return undefined();
         }
 
-        return predicates.get(key);
+        return values[index];
     }
 
     /**
@@ -85,7 +188,14 @@ public abstract class BaseDetachedPropertiesDescription extends BasePropertiesDe
 
     @Override
     public Iterable<String> getKeys() {
-        return predicates.keySet();
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    /**
+     * @return number of explicitly defined predicates.
+     */
+    protected final int size() {
+        return keys.length;
     }
 
     @Override
@@ -95,13 +205,74 @@ public abstract class BaseDetachedPropertiesDescription extends BasePropertiesDe
 
         BaseDetachedPropertiesDescription that = (BaseDetachedPropertiesDescription) o;
 
-        if (!predicates.equals(that.predicates)) return false;
+        if (hashCode != that.hashCode) return false;
+        if (keys != that.keys && !Arrays.equals(keys, that.keys)) return false;
+        if (!Arrays.equals(values, that.values)) return false;
 
         return true;
     }
 
     @Override
     public int hashCode() {
-        return predicates.hashCode();
+        return hashCode;
+    }
+
+    /**
+     * Map view of the key and predicate arrays.
+     */
+    private class PredicateMap extends AbstractMap<String, Predicate> {
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && Arrays.binarySearch(keys, key) >= 0;
+        }
+
+        @Override
+        public Predicate get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+
+            int index = Arrays.binarySearch(keys, key);
+            return index < 0 ? null : values[index];
+        }
+
+        @Override
+        public Set<Entry<String, Predicate>> entrySet() {
+            return new AbstractSet<Entry<String, Predicate>>() {
+                @Override
+                public Iterator<Entry<String, Predicate>> iterator() {
+                    return new Iterator<Entry<String, Predicate>>() {
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < keys.length;
+                        }
+
+                        @Override
+                        public Entry<String, Predicate> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+
+                            Entry<String, Predicate> entry = new SimpleImmutableEntry<>(keys[index], values[index]);
+                            index++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
     }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.common.description.property;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Replaces {@link BaseDetachedPropertiesDescription}s by canonical instances, so that identical descriptions, as well
+ * as the key arrays of descriptions with the same keys, are shared.
+ * <p/>
+ * An interner holds on to every canonical instance it has handed out, so it should be scoped to whatever holds the
+ * descriptions (e.g. a cache) and discarded together with it.
+ * <p/>
+ * This class is thread-safe.
+ */
+public class DetachedPropertiesDescriptionInterner {
+
+    private final Map<List<String>, String[]> keySets = new ConcurrentHashMap<>();
+    private final Map<DetachedPropertiesDescription, DetachedPropertiesDescription> descriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Get a canonical instance of the given description.
+     *
+     * @param description to intern.
+     * @return canonical instance equal to the given description. Descriptions that don't extend
+     * {@link BaseDetachedPropertiesDescription} are returned as they are.
+     */
+    public DetachedPropertiesDescription intern(DetachedPropertiesDescription description) {
+        if (!(description instanceof BaseDetachedPropertiesDescription)) {
+            return description;
+        }
+
+        DetachedPropertiesDescription canonical = descriptions.get(description);
+        if (canonical != null) {
+            return canonical;
+        }
+
+        BaseDetachedPropertiesDescription base = (BaseDetachedPropertiesDescription) description;
+        String[] keys = keySets.computeIfAbsent(Arrays.asList(base.keys()), k -> base.keys());
+        if (keys != base.keys()) {
+            description = base.withKeys(keys);
+        }
+
+        canonical = descriptions.putIfAbsent(description, description);
+        return canonical != null ? canonical : description;
+    }
+
+    /**
+     * @return number of distinct descriptions interned so far.
+     */
+    public int size() {
+        return descriptions.size();
+    }
+}
@@ -46,11 +46,26 @@ public class LiteralPropertiesDescription extends BaseDetachedPropertiesDescript
         super(predicates);
     }
 
+    /**
+     * Construct a new properties description from arrays produced by another description.
+     *
+     * @param keys       sorted keys, shared with other descriptions.
+     * @param predicates parallel to keys.
+     */
+    LiteralPropertiesDescription(String[] keys, Predicate[] predicates) {
+        super(keys, predicates);
+    }
+
     @Override
     protected LiteralPropertiesDescription newInstance(Map<String, Predicate> predicates) {
         return new LiteralPropertiesDescription(predicates);
     }
 
+    @Override
+    protected LiteralPropertiesDescription newInstance(String[] keys, Predicate[] predicates) {
+        return new LiteralPropertiesDescription(keys, predicates);
+    }
+
     @Override
     protected Predicate undefined() {
         return Predicates.undefined();
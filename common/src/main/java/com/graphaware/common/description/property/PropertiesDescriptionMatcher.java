@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.description.property;
+
+import com.graphaware.common.description.predicate.Predicate;
+import org.neo4j.graphdb.Entity;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.graphaware.common.description.predicate.Predicates.any;
+import static com.graphaware.common.description.predicate.Predicates.undefined;
+
+/**
+ * A {@link DetachedPropertiesDescription} compiled into a matcher of {@link Entity}s. An entity matches iff its
+ * {@link LiteralPropertiesDescription} is more specific than the compiled description, but unlike constructing the
+ * literal description, the matcher only reads the properties the description constrains and stops at the first
+ * predicate that isn't satisfied.
+ * <p/>
+ * For descriptions that don't accept any value for keys they don't explicitly constrain (i.e. other than
+ * {@link WildcardPropertiesDescription}), the remaining properties of the entity have to be checked as well.
+ */
+public final class PropertiesDescriptionMatcher {
+
+    private final DetachedPropertiesDescription description;
+    private final String[] keys;
+    private final Predicate[] predicates;
+    private final boolean[] matchesUndefined;
+    private final Set<String> keySet;
+    private final boolean otherKeysAllowed;
+    private final boolean matchesAnything;
+
+    /**
+     * Compile a properties description.
+     *
+     * @param description to compile.
+     */
+    public PropertiesDescriptionMatcher(DetachedPropertiesDescription description) {
+        this.description = description;
+
+        List<String> keyList = new ArrayList<>();
+        for (String key : description.getKeys()) {
+            keyList.add(key);
+        }
+
+        keys = keyList.toArray(new String[0]);
+        predicates = new Predicate[keys.length];
+        matchesUndefined = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            predicates[i] = description.get(keys[i]);
+            matchesUndefined[i] = predicates[i].isMoreGeneralThan(undefined());
+        }
+
+        keySet = new HashSet<>(keyList);
+        otherKeysAllowed = description instanceof WildcardPropertiesDescription;
+
+        boolean anything = otherKeysAllowed;
+        for (Predicate predicate : predicates) {
+            anything &= any().equals(predicate);
+        }
+        matchesAnything = anything;
+    }
+
+    /**
+     * Check whether all entities match the compiled description, irrespective of their properties.
+     *
+     * @return true iff {@link #matches(Entity)} returns true for any entity.
+     */
+    public boolean matchesAnything() {
+        return matchesAnything;
+    }
+
+    /**
+     * Check whether an entity matches the compiled description.
+     *
+     * @param entity to check.
+     * @return true iff the entity's properties are described by the compiled description.
+     */
+    public boolean matches(Entity entity) {
+        for (int i = 0; i < keys.length; i++) {
+            Object value = entity.getProperty(keys[i], null);
+
+            if (value == null) {
+                if (!matchesUndefined[i]) {
+                    return false;
+                }
+            } else if (!predicates[i].evaluate(value)) {
+                return false;
+            }
+        }
+
+        if (otherKeysAllowed) {
+            return true;
+        }
+
+        for (String key : entity.getPropertyKeys()) {
+            if (!keySet.contains(key) && !description.get(key).evaluate(entity.getProperty(key))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
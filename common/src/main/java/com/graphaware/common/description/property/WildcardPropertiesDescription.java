@@ -47,11 +47,26 @@ public class WildcardPropertiesDescription extends BaseDetachedPropertiesDescrip
         super(predicates);
     }
 
+    /**
+     * Construct a new properties description from arrays produced by another description.
+     *
+     * @param keys       sorted keys, shared with other descriptions.
+     * @param predicates parallel to keys.
+     */
+    WildcardPropertiesDescription(String[] keys, Predicate[] predicates) {
+        super(keys, predicates);
+    }
+
     @Override
     protected DetachedPropertiesDescription newInstance(Map<String, Predicate> predicates) {
         return new WildcardPropertiesDescription(predicates);
     }
 
+    @Override
+    protected DetachedPropertiesDescription newInstance(String[] keys, Predicate[] predicates) {
+        return new WildcardPropertiesDescription(keys, predicates);
+    }
+
     @Override
     protected Predicate undefined() {
         return any();
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.description.relationship;
+
+import com.graphaware.common.description.predicate.Predicate;
+import com.graphaware.common.description.predicate.PredicateIndex;
+import com.graphaware.common.description.property.LiteralPropertiesDescription;
+import com.graphaware.common.description.property.PropertiesDescription;
+import com.graphaware.common.description.property.WildcardPropertiesDescription;
+import com.graphaware.common.util.DirectionUtils;
+import org.eclipse.collections.impl.map.mutable.primitive.IntIntHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static com.graphaware.common.description.predicate.Predicates.equalTo;
+import static com.graphaware.common.description.predicate.Predicates.undefined;
+import static org.neo4j.graphdb.Direction.BOTH;
+
+/**
+ * An index of {@link DetachedRelationshipDescription}s that finds all descriptions that are
+ * {@link RelationshipDescription#isMoreGeneralThan(Object) more general than} the most specific description of a
+ * relationship (i.e. all descriptions matching the relationship), without comparing the relationship to each of them.
+ * <p/>
+ * Descriptions are organised in a discrimination tree keyed by relationship type, direction, and property key. For each
+ * property key, predicates of all descriptions constraining the key are kept in a {@link PredicateIndex}. A
+ * relationship is matched by looking up each of its properties in the indices of its type and direction, and counting
+ * the number of satisfied predicates per description. A description matches when all of its predicates that aren't
+ * satisfied by an absent property have been satisfied, as well as the predicates for all the other keys that are
+ * present, and, unless it is a {@link WildcardPropertiesDescription}, when there are no other properties. The cost of
+ * matching thus depends on the number of properties of the relationship and the number of satisfied predicates, rather
+ * than on the number of indexed descriptions.
+ * <p/>
+ * Descriptions whose properties description is neither a {@link WildcardPropertiesDescription} nor a
+ * {@link LiteralPropertiesDescription} are only indexed by type and direction and compared to the relationship one by
+ * one.
+ * <p/>
+ * This class is not thread-safe for writes, but can be read concurrently once fully built.
+ */
+public final class RelationshipDescriptionIndex {
+
+    private final Map<String, Map<Direction, Bucket>> buckets = new HashMap<>();
+    private int size;
+
+    /**
+     * Add a description to the index.
+     *
+     * @param description to add.
+     */
+    public void add(DetachedRelationshipDescription description) {
+        Bucket bucket = buckets
+                .computeIfAbsent(description.getType(), t -> new EnumMap<>(Direction.class))
+                .computeIfAbsent(description.getDirection(), d -> new Bucket());
+
+        PropertiesDescription properties = description.getPropertiesDescription();
+        boolean wildcard = properties instanceof WildcardPropertiesDescription;
+
+        if (!wildcard && !(properties instanceof LiteralPropertiesDescription)) {
+            bucket.other.add(new Entry(size++, description, 0, false));
+            return;
+        }
+
+        List<String> requiredKeys = new ArrayList<>();
+        List<String> optionalKeys = new ArrayList<>();
+        for (String key : properties.getKeys()) {
+            if (properties.get(key).isMoreGeneralThan(undefined())) {
+                optionalKeys.add(key);
+            } else {
+                requiredKeys.add(key);
+            }
+        }
+
+        Entry entry = new Entry(size++, description, requiredKeys.size(), wildcard);
+
+        for (String key : properties.getKeys()) {
+            bucket.keys.computeIfAbsent(key, k -> new KeyIndex()).predicates.add(properties.get(key), entry);
+        }
+
+        for (String key : optionalKeys) {
+            bucket.keys.get(key).optional.add(entry);
+        }
+
+        if (requiredKeys.isEmpty()) {
+            bucket.unconstrained.add(entry);
+        }
+    }
+
+    /**
+     * @return number of indexed descriptions.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find all indexed descriptions matching a relationship.
+     *
+     * @param relationship to match.
+     * @param pointOfView  node whose point of view the direction of the relationship is resolved from.
+     * @return matching descriptions, in the order in which they have been added to the index.
+     */
+    public List<DetachedRelationshipDescription> match(Relationship relationship, Node pointOfView) {
+        return match(relationship.getType().name(), DirectionUtils.resolveDirection(relationship, pointOfView), relationship.getAllProperties(), () -> new LazyRelationshipDescription(relationship, pointOfView));
+    }
+
+    /**
+     * Find all indexed descriptions matching a relationship given by its type, direction, and properties.
+     *
+     * @param type       of the relationship.
+     * @param direction  of the relationship, {@link Direction#BOTH} for relationships to self.
+     * @param properties of the relationship.
+     * @return matching descriptions, in the order in which they have been added to the index.
+     */
+    public List<DetachedRelationshipDescription> match(String type, Direction direction, Map<String, Object> properties) {
+        return match(type, direction, properties, () -> {
+            Map<String, Predicate> predicates = new HashMap<>();
+            properties.forEach((key, value) -> predicates.put(key, equalTo(value)));
+            return new DetachedRelationshipDescriptionImpl(type, direction, new LiteralPropertiesDescription(predicates));
+        });
+    }
+
+    private List<DetachedRelationshipDescription> match(String type, Direction direction, Map<String, Object> properties, Supplier<RelationshipDescription> mostSpecific) {
+        Map<Direction, Bucket> byDirection = buckets.get(type);
+        if (byDirection == null) {
+            return Collections.emptyList();
+        }
+
+        IntObjectHashMap<Entry> candidates = new IntObjectHashMap<>();
+        IntIntHashMap satisfied = new IntIntHashMap();
+        IntIntHashMap optionalPresent = new IntIntHashMap();
+        IntHashSet satisfiedByKey = new IntHashSet();
+        List<Entry> result = new ArrayList<>();
+        RelationshipDescription specific = null;
+
+        for (Map.Entry<Direction, Bucket> bucket : byDirection.entrySet()) {
+            if (!BOTH.equals(direction) && !BOTH.equals(bucket.getKey()) && !direction.equals(bucket.getKey())) {
+                continue;
+            }
+
+            for (Map.Entry<String, Object> property : properties.entrySet()) {
+                KeyIndex keyIndex = bucket.getValue().keys.get(property.getKey());
+                if (keyIndex == null) {
+                    continue;
+                }
+
+                satisfiedByKey.clear();
+                keyIndex.predicates.match(property.getValue(), entry -> {
+                    //a description with an Or predicate can be reported twice for the same value
+                    if (satisfiedByKey.add(entry.ordinal)) {
+                        satisfied.addToValue(entry.ordinal, 1);
+                        candidates.put(entry.ordinal, entry);
+                    }
+                });
+
+                for (Entry entry : keyIndex.optional) {
+                    optionalPresent.addToValue(entry.ordinal, 1);
+                    candidates.put(entry.ordinal, entry);
+                }
+            }
+
+            for (Entry entry : bucket.getValue().unconstrained) {
+                candidates.put(entry.ordinal, entry);
+            }
+
+            for (Entry entry : bucket.getValue().other) {
+                if (specific == null) {
+                    specific = mostSpecific.get();
+                }
+                if (entry.description.isMoreGeneralThan(specific)) {
+                    result.add(entry);
+                }
+            }
+        }
+
+        for (Entry entry : candidates.values()) {
+            int count = satisfied.get(entry.ordinal);
+            if (count == entry.required + optionalPresent.get(entry.ordinal) && (entry.otherKeysAllowed || count == properties.size())) {
+                result.add(entry);
+            }
+        }
+
+        result.sort((e1, e2) -> Integer.compare(e1.ordinal, e2.ordinal));
+
+        List<DetachedRelationshipDescription> descriptions = new ArrayList<>(result.size());
+        for (Entry entry : result) {
+            descriptions.add(entry.description);
+        }
+        return descriptions;
+    }
+
+    /**
+     * Descriptions of a single type and direction.
+     */
+    private static final class Bucket {
+        private final Map<String, KeyIndex> keys = new HashMap<>();
+        private final List<Entry> unconstrained = new ArrayList<>();
+        private final List<Entry> other = new ArrayList<>();
+    }
+
+    /**
+     * Predicates for a single property key.
+     */
+    private static final class KeyIndex {
+        private final PredicateIndex<Entry> predicates = new PredicateIndex<>();
+        private final List<Entry> optional = new ArrayList<>();
+    }
+
+    /**
+     * An indexed description.
+     */
+    private static final class Entry {
+        private final int ordinal;
+        private final DetachedRelationshipDescription description;
+        private final int required;
+        private final boolean otherKeysAllowed;
+
+        private Entry(int ordinal, DetachedRelationshipDescription description, int required, boolean otherKeysAllowed) {
+            this.ordinal = ordinal;
+            this.description = description;
+            this.required = required;
+            this.otherKeysAllowed = otherKeysAllowed;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.common.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Base class for writers producing the JSON format of a serialized {@link JsonGraph} in a single pass, i.e.
+ * <code>{"nodes":[...],"relationships":[...]}</code>. Keeps track of the section being written, making sure all nodes
+ * are written before the first relationship, and finishes the document when {@link #close() closed}.
+ * <p/>
+ * This class is not thread-safe.
+ */
+abstract class BaseJsonGraphWriter implements Closeable {
+
+    protected enum State {NEW, NODES, RELATIONSHIPS, CLOSED}
+
+    private State state = State.NEW;
+
+    /**
+     * Finish the JSON document and flush the underlying stream. Sections that haven't been written are written empty.
+     */
+    @Override
+    public void close() {
+        if (state == State.CLOSED) {
+            return;
+        }
+
+        startSection(State.RELATIONSHIPS);
+
+        try {
+            writeEnd();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        state = State.CLOSED;
+    }
+
+    /**
+     * Make sure the given section is being written, starting it (and any sections before it) if it hasn't been started yet.
+     *
+     * @param section to write, {@link State#NODES} or {@link State#RELATIONSHIPS}.
+     * @throws IllegalStateException if the writer has been closed or a later section has already been started.
+     */
+    protected final void startSection(State section) {
+        if (state == State.CLOSED) {
+            throw new IllegalStateException("Writer has already been closed");
+        }
+
+        if (state.ordinal() > section.ordinal()) {
+            throw new IllegalStateException("All nodes must be written before relationships");
+        }
+
+        try {
+            while (state.ordinal() < section.ordinal()) {
+                if (state == State.NEW) {
+                    writeStart();
+                    state = State.NODES;
+                } else {
+                    writeRelationshipsStart();
+                    state = State.RELATIONSHIPS;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write the start of the document, up to and including the start of the nodes array.
+     *
+     * @throws IOException if writing fails.
+     */
+    protected abstract void writeStart() throws IOException;
+
+    /**
+     * Write the end of the nodes array and the start of the relationships array.
+     *
+     * @throws IOException if writing fails.
+     */
+    protected abstract void writeRelationshipsStart() throws IOException;
+
+    /**
+     * Write the end of the relationships array and of the document, and flush the underlying stream.
+     *
+     * @throws IOException if writing fails.
+     */
+    protected abstract void writeEnd() throws IOException;
+}
@@ -16,27 +16,44 @@
 
 package com.graphaware.common.json;
 
+import com.graphaware.common.representation.DetachedEntity;
 import com.graphaware.common.representation.SerializableNode;
 import com.graphaware.common.representation.SerializableRelationship;
 import com.graphaware.common.transform.NodeTransformer;
 import com.graphaware.common.transform.RelationshipTransformer;
 import com.graphaware.common.transform.TrivialNodeTransformer;
 import com.graphaware.common.transform.TrivialRelationshipTransformer;
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Abstract base class for convenient JSON-serializable graphs with fluent interface.
+ * <p/>
+ * All nodes and relationships are held in memory until the graph is serialized. Large graphs can be written directly to
+ * an output stream using {@link JsonGraphWriter} instead.
+ * <p/>
+ * Nodes and relationships are kept in insertion order and deduplicated by their graph ID and by their (transformed) ID,
+ * i.e. an entity is not added when another one with the same graph ID or the same ID is already present. Entities
+ * read from the database and deserialized ones (which only have an ID) are thus deduplicated against each other as
+ * long as they were produced by the same ID transformer. Only entities that have neither ID are compared by their
+ * labels, type, and properties. When an entity with the same ID is added twice, the first one is kept.
  *
  * @param <T> type of the concrete class extending this.
  */
 public abstract class JsonGraph<T extends JsonGraph<T>> {
 
-    private Set<SerializableNode> nodes = new HashSet<>();
-    private Set<SerializableRelationship> relationships = new HashSet<>();
+    private Set<SerializableNode> nodes = new EntitySet<>(SerializableNode.class, SerializableNode::getId);
+    private Set<SerializableRelationship> relationships = new EntitySet<>(SerializableRelationship.class, SerializableRelationship::getId);
 
     public T addNode(SerializableNode node) {
         nodes.add(node);
@@ -145,7 +162,8 @@ public abstract class JsonGraph<T extends JsonGraph<T>> {
     }
 
     public void setNodes(Set<SerializableNode> nodes) {
-        this.nodes = nodes;
+        this.nodes = new EntitySet<>(SerializableNode.class, SerializableNode::getId);
+        this.nodes.addAll(nodes);
     }
 
     public Set<SerializableRelationship> getRelationships() {
@@ -153,8 +171,168 @@ public abstract class JsonGraph<T extends JsonGraph<T>> {
     }
 
     public void setRelationships(Set<SerializableRelationship> relationships) {
-        this.relationships = relationships;
+        this.relationships = new EntitySet<>(SerializableRelationship.class, SerializableRelationship::getId);
+        this.relationships.addAll(relationships);
     }
 
     protected abstract T self();
+
+    /**
+     * Insertion-ordered set of entities deduplicated by ID rather than by {@link Object#equals(Object)}, so that
+     * property maps don't have to be hashed and compared.
+     *
+     * @param <E> type of entities.
+     */
+    private static final class EntitySet<E extends DetachedEntity<?, ?>> extends AbstractSet<E> {
+
+        private final Class<E> type;
+        private final Function<E, Object> id;
+        private final List<E> entities = new ArrayList<>();
+        private final MutableLongSet graphIds = new LongHashSet();
+        private final MutableLongSet longIds = new LongHashSet();
+        private final Set<Object> otherIds = new HashSet<>();
+        private final Set<E> withoutIds = new HashSet<>();
+
+        private EntitySet(Class<E> type, Function<E, Object> id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean add(E entity) {
+            if (find(entity)) {
+                return false;
+            }
+
+            register(entity, true);
+            entities.add(entity);
+            return true;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return type.isInstance(o) && find(type.cast(o));
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!contains(o)) {
+                return false;
+            }
+
+            E entity = type.cast(o);
+            Iterator<E> iterator = iterator();
+            while (iterator.hasNext()) {
+                if (matches(iterator.next(), entity)) {
+                    iterator.remove();
+                    return true;
+                }
+            }
+
+            throw new IllegalStateException("Entity " + entity + " is registered, but not present. This is a bug.");
+        }
+
+        @Override
+        public void clear() {
+            entities.clear();
+            graphIds.clear();
+            longIds.clear();
+            otherIds.clear();
+            withoutIds.clear();
+        }
+
+        private boolean find(E entity) {
+            long graphId = entity.getGraphId();
+            Object entityId = id.apply(entity);
+
+            if (graphId != DetachedEntity.NEW && graphIds.contains(graphId)) {
+                return true;
+            }
+            if (entityId instanceof Long) {
+                return longIds.contains((Long) entityId);
+            }
+            if (entityId != null) {
+                return otherIds.contains(entityId);
+            }
+            return graphId == DetachedEntity.NEW && withoutIds.contains(entity);
+        }
+
+        private boolean matches(E candidate, E entity) {
+            if (candidate.getGraphId() != DetachedEntity.NEW && candidate.getGraphId() == entity.getGraphId()) {
+                return true;
+            }
+
+            Object candidateId = id.apply(candidate);
+            if (candidateId != null) {
+                return candidateId.equals(id.apply(entity));
+            }
+
+            return candidate.getGraphId() == DetachedEntity.NEW && candidate.equals(entity);
+        }
+
+        private void register(E entity, boolean add) {
+            long graphId = entity.getGraphId();
+            Object entityId = id.apply(entity);
+
+            if (graphId != DetachedEntity.NEW) {
+                if (add) {
+                    graphIds.add(graphId);
+                } else {
+                    graphIds.remove(graphId);
+                }
+            }
+
+            if (entityId instanceof Long) {
+                if (add) {
+                    longIds.add((Long) entityId);
+                } else {
+                    longIds.remove((Long) entityId);
+                }
+            } else if (entityId != null) {
+                if (add) {
+                    otherIds.add(entityId);
+                } else {
+                    otherIds.remove(entityId);
+                }
+            } else if (graphId == DetachedEntity.NEW) {
+                if (add) {
+                    withoutIds.add(entity);
+                } else {
+                    withoutIds.remove(entity);
+                }
+            }
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            Iterator<E> iterator = entities.iterator();
+
+            return new Iterator<E>() {
+                private E last;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public E next() {
+                    last = iterator.next();
+                    return last;
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                    register(last, false);
+                    last = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return entities.size();
+        }
+    }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.graphaware.common.transform.NodeTransformer;
+import com.graphaware.common.transform.RelationshipTransformer;
+import com.graphaware.common.transform.TrivialNodeTransformer;
+import com.graphaware.common.transform.TrivialRelationshipTransformer;
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Streaming alternative to {@link JsonGraph}, writing nodes and relationships to an {@link OutputStream} as they are
+ * added, in the same JSON format as a serialized {@link JsonGraph}, i.e. <code>{"nodes":[...],"relationships":[...]}</code>.
+ * <p/>
+ * Nodes and relationships are transformed and serialized one at a time and never accumulated, so the only memory that
+ * grows with the size of the graph is a set of graph IDs of written entities (8 bytes per entity), used to write each
+ * node and relationship at most once. Exports of very large numbers of committed entities can be transformed and
+ * serialized in parallel by {@link ParallelJsonGraphWriter}, which produces the same output.
+ * <p/>
+ * Since the JSON is produced in a single pass, all nodes must be written before the first relationship. The writer must
+ * be {@link #close() closed} to finish the JSON document. Closing the writer flushes, but does not close, the underlying
+ * stream.
+ * <p/>
+ * This class is not thread-safe.
+ */
+public class JsonGraphWriter extends BaseJsonGraphWriter {
+
+    private static final ObjectMapper DEFAULT_MAPPER = new ObjectMapper();
+
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+    private final MutableLongSet nodeIds = new LongHashSet();
+    private final MutableLongSet relationshipIds = new LongHashSet();
+
+    /**
+     * Create a new writer.
+     *
+     * @param outputStream to write to.
+     */
+    public JsonGraphWriter(OutputStream outputStream) {
+        this(outputStream, DEFAULT_MAPPER);
+    }
+
+    /**
+     * Create a new writer.
+     *
+     * @param outputStream to write to.
+     * @param mapper       used to serialize individual nodes and relationships.
+     */
+    public JsonGraphWriter(OutputStream outputStream, ObjectMapper mapper) {
+        try {
+            this.generator = mapper.getFactory().createGenerator(outputStream).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public JsonGraphWriter writeNode(Node node) {
+        return writeNode(node, TrivialNodeTransformer.getInstance());
+    }
+
+    public JsonGraphWriter writeNode(Node node, NodeTransformer<?> transformer) {
+        startSection(State.NODES);
+
+        if (nodeIds.add(node.getId())) {
+            write(transformer.transform(node));
+        }
+
+        return this;
+    }
+
+    public JsonGraphWriter writeNodes(Iterable<Node> nodes) {
+        return writeNodes(nodes, TrivialNodeTransformer.getInstance());
+    }
+
+    public JsonGraphWriter writeNodes(Iterable<Node> nodes, NodeTransformer<?> transformer) {
+        for (Node node : nodes) {
+            writeNode(node, transformer);
+        }
+
+        return this;
+    }
+
+    public JsonGraphWriter writeRelationship(Relationship relationship) {
+        return writeRelationship(relationship, TrivialRelationshipTransformer.getInstance());
+    }
+
+    public JsonGraphWriter writeRelationship(Relationship relationship, RelationshipTransformer<?> transformer) {
+        startSection(State.RELATIONSHIPS);
+
+        if (relationshipIds.add(relationship.getId())) {
+            write(transformer.transform(relationship));
+        }
+
+        return this;
+    }
+
+    public JsonGraphWriter writeRelationships(Iterable<Relationship> relationships) {
+        return writeRelationships(relationships, TrivialRelationshipTransformer.getInstance());
+    }
+
+    public JsonGraphWriter writeRelationships(Iterable<Relationship> relationships, RelationshipTransformer<?> transformer) {
+        for (Relationship relationship : relationships) {
+            writeRelationship(relationship, transformer);
+        }
+
+        return this;
+    }
+
+    @Override
+    protected void writeStart() throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("nodes");
+    }
+
+    @Override
+    protected void writeRelationshipsStart() throws IOException {
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("relationships");
+    }
+
+    @Override
+    protected void writeEnd() throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    private void write(Object value) {
+        try {
+            writer.writeValue(generator, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
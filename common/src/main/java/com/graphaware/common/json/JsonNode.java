@@ -18,6 +18,7 @@ package com.graphaware.common.json;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.graphaware.common.representation.PropertyProjection;
 import com.graphaware.common.representation.SerializableNode;
 import com.graphaware.common.transform.NodeIdTransformer;
 import org.neo4j.graphdb.Node;
@@ -43,6 +44,10 @@ public class JsonNode<ID> extends SerializableNode<ID> {
         super(node, properties, transformer);
     }
 
+    public JsonNode(PropertyProjection projection, Node node, NodeIdTransformer<ID> transformer) {
+        super(projection, node, transformer);
+    }
+
     public JsonNode(ID id) {
         super(id);
     }
@@ -18,6 +18,7 @@ package com.graphaware.common.json;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.graphaware.common.representation.PropertyProjection;
 import com.graphaware.common.representation.SerializableRelationship;
 import com.graphaware.common.transform.NodeIdTransformer;
 import com.graphaware.common.transform.RelationshipIdTransformer;
@@ -44,6 +45,10 @@ public class JsonRelationship<ID> extends SerializableRelationship<ID> {
         super(relationship, properties, relationshipIdTransformer, nodeIdTransformer);
     }
 
+    public JsonRelationship(PropertyProjection projection, Relationship relationship, RelationshipIdTransformer<ID> relationshipIdTransformer, NodeIdTransformer<ID> nodeIdTransformer) {
+        super(projection, relationship, relationshipIdTransformer, nodeIdTransformer);
+    }
+
     public JsonRelationship(ID id) {
         super(id);
     }
@@ -16,6 +16,7 @@
 
 package com.graphaware.common.json;
 
+import com.graphaware.common.representation.PropertyProjection;
 import com.graphaware.common.transform.NodeIdTransformer;
 import com.graphaware.common.transform.TrivialNodeIdTransformer;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -50,6 +51,14 @@ public class LongIdJsonNode extends JsonNode<Long> {
         super(node, properties, transformer);
     }
 
+    public LongIdJsonNode(PropertyProjection projection, Node node) {
+        super(projection, node, TrivialNodeIdTransformer.getInstance());
+    }
+
+    public LongIdJsonNode(PropertyProjection projection, Node node, NodeIdTransformer<Long> transformer) {
+        super(projection, node, transformer);
+    }
+
     public LongIdJsonNode(long id) {
         super(id);
     }
@@ -16,6 +16,7 @@
 
 package com.graphaware.common.json;
 
+import com.graphaware.common.representation.PropertyProjection;
 import com.graphaware.common.transform.NodeIdTransformer;
 import com.graphaware.common.transform.RelationshipIdTransformer;
 import com.graphaware.common.transform.TrivialNodeIdTransformer;
@@ -54,6 +55,14 @@ public class LongIdJsonRelationship extends JsonRelationship<Long> {
         super(relationship, properties, TrivialRelationshipIdTransformer.getInstance(), TrivialNodeIdTransformer.getInstance());
     }
 
+    public LongIdJsonRelationship(PropertyProjection projection, Relationship relationship, RelationshipIdTransformer<Long> relationshipIdTransformer, NodeIdTransformer<Long> nodeIdTransformer) {
+        super(projection, relationship, relationshipIdTransformer, nodeIdTransformer);
+    }
+
+    public LongIdJsonRelationship(PropertyProjection projection, Relationship relationship) {
+        super(projection, relationship, TrivialRelationshipIdTransformer.getInstance(), TrivialNodeIdTransformer.getInstance());
+    }
+
     public LongIdJsonRelationship(long id) {
         super(id);
     }
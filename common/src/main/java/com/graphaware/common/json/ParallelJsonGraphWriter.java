@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.graphaware.common.transform.NodeTransformer;
+import com.graphaware.common.transform.RelationshipTransformer;
+import com.graphaware.common.transform.TrivialNodeTransformer;
+import com.graphaware.common.transform.TrivialRelationshipTransformer;
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Parallel alternative to {@link JsonGraphWriter} for exports of large numbers of nodes and relationships, where
+ * transforming and serializing the entities one at a time on a single thread takes too long.
+ * <p/>
+ * Entities are given by their IDs (or as nodes and relationships, whose IDs are used). IDs are deduplicated and split
+ * into chunks on the calling thread. Each chunk is loaded, transformed, and serialized by a task of a fork/join pool in
+ * its own read transaction. Serialized chunks are written to the {@link OutputStream} in the order of the input, so the
+ * output is byte-for-byte the same as the output of a {@link JsonGraphWriter} given the same entities in the same order
+ * and using the same {@link ObjectMapper}. Only a bounded number of chunks are in flight at any time, so the memory used
+ * does not grow with the size of the graph, apart from the set of IDs of written entities.
+ * <p/>
+ * Since every chunk is read in a different transaction, entities are serialized in the state they were last committed
+ * in, changes made by the calling thread's transaction (if any) are not visible, and the result does not represent a
+ * consistent snapshot of the database if it is written to concurrently. Entities that have been deleted by the time their
+ * chunk is read are skipped. Transformers are called concurrently from threads of the pool, so they must be thread-safe.
+ * <p/>
+ * Like with {@link JsonGraphWriter}, all nodes must be written before the first relationship and the writer must be
+ * {@link #close() closed} to finish the JSON document. Closing the writer flushes, but does not close, the underlying
+ * stream.
+ * <p/>
+ * This class is not thread-safe, i.e. it must only be used by a single thread, which must not be a thread of the pool.
+ */
+public class ParallelJsonGraphWriter extends BaseJsonGraphWriter {
+
+    /**
+     * Default number of entities in a chunk serialized in a single transaction.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1_000;
+
+    private static final ObjectMapper DEFAULT_MAPPER = new ObjectMapper();
+
+    private static final byte[] START = "{\"nodes\":[".getBytes(UTF_8);
+    private static final byte[] RELATIONSHIPS = "],\"relationships\":[".getBytes(UTF_8);
+    private static final byte[] END = "]}".getBytes(UTF_8);
+    private static final int SEPARATOR = ',';
+
+    private final OutputStream outputStream;
+    private final GraphDatabaseService database;
+    private final ObjectMapper mapper;
+    private final ObjectWriter writer;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int maxPendingChunks;
+    private final MutableLongSet nodeIds = new LongHashSet();
+    private final MutableLongSet relationshipIds = new LongHashSet();
+    private boolean sectionEmpty = true;
+
+    /**
+     * Create a new writer, serializing chunks of {@link #DEFAULT_CHUNK_SIZE} entities in the common fork/join pool.
+     *
+     * @param outputStream to write to.
+     * @param database     to read entities from.
+     */
+    public ParallelJsonGraphWriter(OutputStream outputStream, GraphDatabaseService database) {
+        this(outputStream, database, DEFAULT_MAPPER, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Create a new writer.
+     *
+     * @param outputStream to write to.
+     * @param database     to read entities from.
+     * @param mapper       used to serialize individual nodes and relationships. Must not produce indented output.
+     * @param pool         to serialize chunks in.
+     * @param chunkSize    number of entities serialized in a single transaction, must be positive.
+     */
+    public ParallelJsonGraphWriter(OutputStream outputStream, GraphDatabaseService database, ObjectMapper mapper, ForkJoinPool pool, int chunkSize) {
+        if (outputStream == null) {
+            throw new IllegalArgumentException("Output stream must not be null");
+        }
+        if (database == null) {
+            throw new IllegalArgumentException("Database must not be null");
+        }
+        if (mapper == null) {
+            throw new IllegalArgumentException("Mapper must not be null");
+        }
+        if (mapper.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+            throw new IllegalArgumentException("Indented output can't be serialized in chunks");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool must not be null");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+
+        this.outputStream = outputStream;
+        this.database = database;
+        this.mapper = mapper;
+        this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.maxPendingChunks = Math.max(2, pool.getParallelism() * 2);
+    }
+
+    public ParallelJsonGraphWriter writeNodes(long... ids) {
+        return writeNodes(Arrays.stream(ids).iterator(), TrivialNodeTransformer.getInstance());
+    }
+
+    public ParallelJsonGraphWriter writeNodes(PrimitiveIterator.OfLong ids, NodeTransformer<?> transformer) {
+        write(State.NODES, ids, nodeIds, Transaction::getNodeById, transformer::transform);
+        return this;
+    }
+
+    public ParallelJsonGraphWriter writeNodes(Iterable<Node> nodes) {
+        return writeNodes(nodes, TrivialNodeTransformer.getInstance());
+    }
+
+    public ParallelJsonGraphWriter writeNodes(Iterable<Node> nodes, NodeTransformer<?> transformer) {
+        return writeNodes(ids(nodes), transformer);
+    }
+
+    public ParallelJsonGraphWriter writeRelationships(long... ids) {
+        return writeRelationships(Arrays.stream(ids).iterator(), TrivialRelationshipTransformer.getInstance());
+    }
+
+    public ParallelJsonGraphWriter writeRelationships(PrimitiveIterator.OfLong ids, RelationshipTransformer<?> transformer) {
+        write(State.RELATIONSHIPS, ids, relationshipIds, Transaction::getRelationshipById, transformer::transform);
+        return this;
+    }
+
+    public ParallelJsonGraphWriter writeRelationships(Iterable<Relationship> relationships) {
+        return writeRelationships(relationships, TrivialRelationshipTransformer.getInstance());
+    }
+
+    public ParallelJsonGraphWriter writeRelationships(Iterable<Relationship> relationships, RelationshipTransformer<?> transformer) {
+        return writeRelationships(ids(relationships), transformer);
+    }
+
+    @Override
+    protected void writeStart() throws IOException {
+        outputStream.write(START);
+        sectionEmpty = true;
+    }
+
+    @Override
+    protected void writeRelationshipsStart() throws IOException {
+        outputStream.write(RELATIONSHIPS);
+        sectionEmpty = true;
+    }
+
+    @Override
+    protected void writeEnd() throws IOException {
+        outputStream.write(END);
+        outputStream.flush();
+    }
+
+    private <T> void write(State section, PrimitiveIterator.OfLong ids, MutableLongSet writtenIds, Loader<T> loader, Function<? super T, ?> transformer) {
+        startSection(section);
+
+        Deque<ForkJoinTask<byte[]>> pending = new ArrayDeque<>();
+        try {
+            long[] chunk = new long[chunkSize];
+            int size = 0;
+            while (ids.hasNext()) {
+                long id = ids.nextLong();
+                if (!writtenIds.add(id)) {
+                    continue;
+                }
+
+                chunk[size++] = id;
+                if (size == chunkSize) {
+                    submit(pending, chunk, loader, transformer);
+                    chunk = new long[chunkSize];
+                    size = 0;
+                }
+            }
+
+            if (size > 0) {
+                submit(pending, Arrays.copyOf(chunk, size), loader, transformer);
+            }
+
+            while (!pending.isEmpty()) {
+                append(pending.poll().join());
+            }
+        } catch (RuntimeException e) {
+            pending.forEach(task -> task.cancel(false));
+            throw e;
+        }
+    }
+
+    private <T> void submit(Deque<ForkJoinTask<byte[]>> pending, long[] chunk, Loader<T> loader, Function<? super T, ?> transformer) {
+        if (pending.size() >= maxPendingChunks) {
+            append(pending.poll().join());
+        }
+
+        pending.add(pool.submit(() -> serialize(chunk, loader, transformer)));
+    }
+
+    /**
+     * Serialize a chunk of entities as a JSON array.
+     *
+     * @param ids         of the entities.
+     * @param loader      of the entities.
+     * @param transformer of the entities to serialized objects.
+     * @return serialized array, including the enclosing brackets.
+     */
+    private <T> byte[] serialize(long[] ids, Loader<T> loader, Function<? super T, ?> transformer) {
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream(ids.length * 128);
+
+        try (Transaction tx = database.beginTx()) {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(chunk)) {
+                generator.writeStartArray();
+                for (long id : ids) {
+                    T entity;
+                    try {
+                        entity = loader.load(tx, id);
+                    } catch (NotFoundException e) {
+                        //deleted concurrently
+                        continue;
+                    }
+                    writer.writeValue(generator, transformer.apply(entity));
+                }
+                generator.writeEndArray();
+            }
+
+            tx.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return chunk.toByteArray();
+    }
+
+    private void append(byte[] chunk) {
+        int length = chunk.length - 2;
+        if (length == 0) {
+            return;
+        }
+
+        try {
+            if (!sectionEmpty) {
+                outputStream.write(SEPARATOR);
+            }
+            outputStream.write(chunk, 1, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        sectionEmpty = false;
+    }
+
+    private static PrimitiveIterator.OfLong ids(Iterable<? extends Entity> entities) {
+        Iterator<? extends Entity> iterator = entities.iterator();
+
+        return new PrimitiveIterator.OfLong() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return iterator.next().getId();
+            }
+        };
+    }
+
+    /**
+     * Loader of a single entity by ID.
+     *
+     * @param <T> type of the loaded entity.
+     */
+    private interface Loader<T> {
+
+        T load(Transaction tx, long id);
+    }
+}
@@ -18,19 +18,27 @@ package com.graphaware.common.policy.inclusion;
 
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.Transaction;
-import org.neo4j.internal.helpers.collection.FilteringIterable;
+import org.neo4j.internal.helpers.collection.PrefetchingIterator;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * Base class for {@link EntityInclusionPolicy} implementations that implement the {@link #getAll(Transaction)}
- * method in a naive way.
+ * method in a naive way, i.e. by filtering all entities of the appropriate type. Entities are filtered in batches
+ * using {@link #includeBatch(List)}.
  *
  * @param <T>
  */
 public abstract class BaseEntityInclusionPolicy<T extends Entity> implements EntityInclusionPolicy<T> {
 
+    private static final int BATCH_SIZE = 1024;
+
     @Override
     public Iterable<T> getAll(Transaction tx) {
-        return new FilteringIterable<>(doGetAll(tx), this::include);
+        return () -> new BatchFilteringIterator(doGetAll(tx).iterator());
     }
 
     /**
@@ -41,4 +49,41 @@ public abstract class BaseEntityInclusionPolicy<T extends Entity> implements Ent
      * @return all entities.
      */
     protected abstract Iterable<T> doGetAll(Transaction tx);
+
+    /**
+     * Iterator reading entities from a source iterator in batches and returning the ones included by this policy.
+     */
+    private class BatchFilteringIterator extends PrefetchingIterator<T> {
+
+        private final Iterator<T> source;
+        private final List<T> batch = new ArrayList<>();
+        private BitSet included = new BitSet();
+        private int position = -1;
+
+        private BatchFilteringIterator(Iterator<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        protected T fetchNextOrNull() {
+            while (true) {
+                int next = included.nextSetBit(position + 1);
+                if (next >= 0) {
+                    position = next;
+                    return batch.get(next);
+                }
+
+                if (!source.hasNext()) {
+                    return null;
+                }
+
+                batch.clear();
+                while (batch.size() < BATCH_SIZE && source.hasNext()) {
+                    batch.add(source.next());
+                }
+                included = includeBatch(batch);
+                position = -1;
+            }
+        }
+    }
 }
@@ -17,7 +17,17 @@
 package com.graphaware.common.policy.inclusion;
 
 /**
- * Marker interface for policies deciding whether to include something or not.
+ * Interface for policies deciding whether to include something or not.
  */
 public interface InclusionPolicy {
+
+    /**
+     * Get the data this policy reads when making its decisions. Policies that do not override this method are assumed
+     * to read anything.
+     *
+     * @return read set.
+     */
+    default ReadSet getReadSet() {
+        return ReadSet.everything();
+    }
 }
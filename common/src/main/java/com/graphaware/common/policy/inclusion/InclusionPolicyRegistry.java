@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion;
+
+import com.graphaware.common.policy.inclusion.composite.EvaluationOrder;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * A registry of canonical {@link InclusionPolicy} instances. Equal policies are interned to a single instance, so that
+ * everything a policy keeps internally (compiled SPEL expressions, evaluation statistics of composite policies,...) is
+ * shared by all its users, and identity-based caches keyed by policies work across modules.
+ * <p/>
+ * Policies can be interned by equality ({@link #intern(InclusionPolicy)}), or by the configuration expression they have
+ * been created from ({@link #intern(Object, String, Function)}), in which case the expression isn't even parsed again
+ * when the same expression (ignoring insignificant whitespace) has already been seen. Only policies whose behaviour is
+ * fully determined by their definition, such as SPEL and fluent policies, should be interned; custom policies may well
+ * keep state of their own. Composite policies are only equal if they evaluate their policies in the same
+ * {@link EvaluationOrder.Mode}.
+ * <p/>
+ * Interned policies are held for the lifetime of the registry, which should therefore be scoped to a single runtime,
+ * i.e. a single database, and discarded with it.
+ * <p/>
+ * This class is thread-safe.
+ */
+public final class InclusionPolicyRegistry {
+
+    private final ConcurrentMap<InclusionPolicy, InclusionPolicy> policies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ExpressionKey, InclusionPolicy> expressions = new ConcurrentHashMap<>();
+
+    /**
+     * Get the canonical instance of a policy.
+     *
+     * @param policy to intern, must not be <code>null</code>.
+     * @param <T>    type of the policy.
+     * @return the first interned policy equal to the given one, or the given policy if there has been none.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends InclusionPolicy> T intern(T policy) {
+        Objects.requireNonNull(policy);
+
+        InclusionPolicy existing = policies.putIfAbsent(policy, policy);
+        return existing != null ? (T) existing : policy;
+    }
+
+    /**
+     * Get the canonical instance of a policy created from a configuration expression (e.g. a SPEL expression), creating it only if no policy has been created from an equivalent expression in the same namespace.
+     *
+     * @param namespace  of the expression, distinguishing expressions that mean different things to different kinds
+     *                   of policies (e.g. the converter creating policies from expressions).
+     * @param expression to create the policy from. Expressions are normalized before lookup, so that expressions that
+     *                   only differ in insignificant whitespace map to the same policy.
+     * @param factory    creating the policy from the expression, only invoked on the first lookup.
+     * @param <T>        type of the policy.
+     * @return canonical policy.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends InclusionPolicy> T intern(Object namespace, String expression, Function<String, T> factory) {
+        Objects.requireNonNull(namespace);
+        Objects.requireNonNull(expression);
+        Objects.requireNonNull(factory);
+
+        ExpressionKey key = new ExpressionKey(namespace, normalize(expression));
+
+        InclusionPolicy existing = expressions.get(key);
+        if (existing != null) {
+            return (T) existing;
+        }
+
+        //not computeIfAbsent, the factory may well use the registry itself
+        T policy = intern(factory.apply(expression));
+        existing = expressions.putIfAbsent(key, policy);
+        return existing != null ? (T) existing : policy;
+    }
+
+    /**
+     * @return number of distinct interned policies.
+     */
+    public int size() {
+        return policies.size();
+    }
+
+    /**
+     * Forget all interned policies.
+     */
+    public void clear() {
+        expressions.clear();
+        policies.clear();
+    }
+
+    /**
+     * Normalize an expression by removing whitespace that can't change its meaning. String literals are kept verbatim,
+     * runs of whitespace are removed next to brackets and commas and between a word (identifier, keyword, or literal)
+     * and an operator, and collapsed to a single space elsewhere. Everything else, including the way literals are
+     * written (e.g. <code>5</code> vs. <code>5L</code>), is kept, so that expressions normalized to the same string
+     * always mean the same thing.
+     *
+     * @param expression to normalize.
+     * @return normalized expression.
+     */
+    static String normalize(String expression) {
+        String trimmed = expression.trim();
+        StringBuilder result = new StringBuilder(trimmed.length());
+
+        char quote = 0;
+        boolean whitespace = false;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+
+            if (quote != 0) {
+                //a doubled quote is an escaped one, it closes the literal and immediately opens it again
+                result.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+
+            if (Character.isWhitespace(c)) {
+                whitespace = true;
+                continue;
+            }
+
+            if (whitespace && needsSpace(result.charAt(result.length() - 1), c)) {
+                result.append(' ');
+            }
+            whitespace = false;
+
+            if (c == '\'' || c == '"') {
+                quote = c;
+            }
+            result.append(c);
+        }
+
+        return result.toString();
+    }
+
+    private static boolean needsSpace(char before, char after) {
+        if (isSeparator(before) || isSeparator(after)) {
+            return false;
+        }
+
+        return isWordCharacter(before) == isWordCharacter(after);
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '(' || c == ')' || c == '[' || c == ']' || c == '{' || c == '}' || c == ',';
+    }
+
+    private static boolean isWordCharacter(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '\'' || c == '"';
+    }
+
+    private static final class ExpressionKey {
+
+        private final Object namespace;
+        private final String expression;
+
+        private ExpressionKey(Object namespace, String expression) {
+            this.namespace = namespace;
+            this.expression = expression;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            ExpressionKey that = (ExpressionKey) o;
+
+            if (!namespace.equals(that.namespace)) return false;
+            if (!expression.equals(that.expression)) return false;
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * namespace.hashCode() + expression.hashCode();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.common.policy.inclusion;
+
+import org.eclipse.collections.api.set.primitive.IntSet;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.TokenSet;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.NodeEntity;
+import org.neo4j.kernel.impl.core.RelationshipEntity;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Labels or relationship types, given by names or by a name prefix, matched against nodes and relationships by their
+ * kernel token IDs, rather than by names.
+ * <p/>
+ * Names are resolved to token IDs once per database. Names that are not (yet) known to the database, as well as
+ * prefixes, are resolved again lazily, once the database has created new tokens since the last resolution.
+ * <p/>
+ * Only entities backed directly by the kernel ({@link NodeEntity}, {@link RelationshipEntity}) are matched by token IDs.
+ * Other entities (snapshots, filtered or detached entities, ...) are matched by names.
+ * <p/>
+ * This class is thread-safe.
+ */
+public final class KernelTokens {
+
+    private final boolean labels;
+    private final Label[] labelTokens;
+    private final Set<String> names;
+    private final String prefix;
+    private final Map<UUID, Resolution> resolutions = new ConcurrentHashMap<>();
+
+    /**
+     * Create tokens representing labels with the given names.
+     *
+     * @param names of labels, must not be <code>null</code>.
+     * @return tokens.
+     */
+    public static KernelTokens labels(String... names) {
+        return new KernelTokens(true, names, null);
+    }
+
+    /**
+     * Create tokens representing all labels with names starting with the given prefix.
+     *
+     * @param prefix of label names, must not be <code>null</code>.
+     * @return tokens.
+     */
+    public static KernelTokens labelsStartingWith(String prefix) {
+        return new KernelTokens(true, null, prefix);
+    }
+
+    /**
+     * Create tokens representing relationship types with the given names.
+     *
+     * @param names of relationship types, must not be <code>null</code>.
+     * @return tokens.
+     */
+    public static KernelTokens relationshipTypes(String... names) {
+        return new KernelTokens(false, names, null);
+    }
+
+    /**
+     * Create tokens representing all relationship types with names starting with the given prefix.
+     *
+     * @param prefix of relationship type names, must not be <code>null</code>.
+     * @return tokens.
+     */
+    public static KernelTokens relationshipTypesStartingWith(String prefix) {
+        return new KernelTokens(false, null, prefix);
+    }
+
+    private KernelTokens(boolean labels, String[] names, String prefix) {
+        if (names == null && prefix == null) {
+            throw new IllegalArgumentException("Names or prefix must not be null");
+        }
+
+        this.labels = labels;
+        this.names = names != null ? new HashSet<>(Arrays.asList(names)) : null;
+        this.labelTokens = labels && names != null ? Arrays.stream(names).map(Label::label).toArray(Label[]::new) : null;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Check whether the given node has any of the labels represented by these tokens.
+     *
+     * @param node to check.
+     * @return true iff the node has at least one of the labels.
+     */
+    public boolean anyLabelOf(Node node) {
+        if (!labels) {
+            throw new IllegalStateException("Tokens do not represent labels");
+        }
+
+        if (!(node instanceof NodeEntity)) {
+            return anyLabelByName(node);
+        }
+
+        InternalTransaction tx = ((NodeEntity) node).getTransaction();
+        KernelTransaction ktx = tx.kernelTransaction();
+        IntSet ids = resolve(tx.getDatabaseId(), ktx.tokenRead());
+        if (ids.isEmpty()) {
+            return false;
+        }
+
+        NodeCursor cursor = ktx.ambientNodeCursor();
+        ktx.dataRead().singleNode(node.getId(), cursor);
+        if (!cursor.next()) {
+            return anyLabelByName(node); //let the node report it does not exist
+        }
+
+        TokenSet nodeLabels = cursor.labels();
+        for (int i = 0; i < nodeLabels.numberOfTokens(); i++) {
+            if (ids.contains(nodeLabels.token(i))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Check whether the given relationship has one of the types represented by these tokens.
+     *
+     * @param relationship to check.
+     * @return true iff the relationship has one of the types.
+     */
+    public boolean typeOf(Relationship relationship) {
+        if (labels) {
+            throw new IllegalStateException("Tokens do not represent relationship types");
+        }
+
+        if (!(relationship instanceof RelationshipEntity)) {
+            return matches(relationship.getType().name());
+        }
+
+        InternalTransaction tx = ((RelationshipEntity) relationship).getTransaction();
+        KernelTransaction ktx = tx.kernelTransaction();
+        IntSet ids = resolve(tx.getDatabaseId(), ktx.tokenRead());
+        if (ids.isEmpty()) {
+            return false;
+        }
+
+        RelationshipScanCursor cursor = ktx.ambientRelationshipCursor();
+        ktx.dataRead().singleRelationship(relationship.getId(), cursor);
+        if (!cursor.next()) {
+            return matches(relationship.getType().name()); //let the relationship report it does not exist
+        }
+
+        return ids.contains(cursor.type());
+    }
+
+    private boolean anyLabelByName(Node node) {
+        if (labelTokens != null) {
+            for (Label label : labelTokens) {
+                if (node.hasLabel(label)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        for (Label label : node.getLabels()) {
+            if (matches(label.name())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean matches(String name) {
+        return names != null ? names.contains(name) : name.startsWith(prefix);
+    }
+
+    private IntSet resolve(UUID database, TokenRead tokenRead) {
+        Resolution resolution = resolutions.get(database);
+
+        if (resolution == null || (!resolution.complete && resolution.tokenCount != tokenCount(tokenRead))) {
+            resolution = resolve(tokenRead);
+            resolutions.put(database, resolution);
+        }
+
+        return resolution.ids;
+    }
+
+    private Resolution resolve(TokenRead tokenRead) {
+        //count first, so that tokens created during the resolution trigger another one
+        int tokenCount = tokenCount(tokenRead);
+        IntHashSet ids = new IntHashSet();
+
+        if (names == null) {
+            (labels ? tokenRead.labelsGetAllTokens() : tokenRead.relationshipTypesGetAllTokens()).forEachRemaining(token -> {
+                if (token.name().startsWith(prefix)) {
+                    ids.add(token.id());
+                }
+            });
+
+            return new Resolution(ids, tokenCount, false);
+        }
+
+        boolean complete = true;
+        for (String name : names) {
+            int id = labels ? tokenRead.nodeLabel(name) : tokenRead.relationshipType(name);
+            if (id == TokenRead.NO_TOKEN) {
+                complete = false;
+            } else {
+                ids.add(id);
+            }
+        }
+
+        return new Resolution(ids, tokenCount, complete);
+    }
+
+    private int tokenCount(TokenRead tokenRead) {
+        return labels ? tokenRead.labelCount() : tokenRead.relationshipTypeCount();
+    }
+
+    /**
+     * Token IDs resolved in a single database.
+     */
+    private static final class Resolution {
+
+        private final IntSet ids;
+        private final int tokenCount;
+        private final boolean complete;
+
+        private Resolution(IntSet ids, int tokenCount, boolean complete) {
+            this.ids = ids;
+            this.tokenCount = tokenCount;
+            this.complete = complete;
+        }
+    }
+}
@@ -16,6 +16,9 @@
 
 package com.graphaware.common.policy.inclusion;
 
+import java.util.BitSet;
+import java.util.List;
+
 /**
  * {@link InclusionPolicy} deciding whether to include an object or not.
  *
@@ -30,4 +33,21 @@ public interface ObjectInclusionPolicy<T> extends InclusionPolicy {
      * @return true iff the given object should be included.
      */
     boolean include(T object);
+
+    /**
+     * Include the given objects? The result is the same as calling {@link #include(Object)} for each of the objects,
+     * but implementations can amortise their set-up costs over the whole batch.
+     *
+     * @param objects to check.
+     * @return bit set, in which the bit at index <code>i</code> is set iff the <code>i</code>-th object should be included.
+     */
+    default BitSet includeBatch(List<? extends T> objects) {
+        BitSet result = new BitSet(objects.size());
+        for (int i = 0; i < objects.size(); i++) {
+            if (include(objects.get(i))) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
 }
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion;
+
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.id.IdGeneratorFactory;
+import org.neo4j.internal.id.IdType;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Parallel scan of all nodes or relationships in the database, finding IDs of the ones included by an
+ * {@link EntityInclusionPolicy}. An alternative to {@link EntityInclusionPolicy#getAll(Transaction)} for large
+ * databases, where evaluating a policy against all entities on a single thread takes too long.
+ * <p/>
+ * The ID space (up to the high ID at the time the scan starts) is split into ranges. Each range is scanned in its own
+ * read transaction, in which the existing entities of the range are evaluated by the policy in a single
+ * {@link ObjectInclusionPolicy#includeBatch(List) batch}. Ranges are scanned in parallel by the fork/join pool that
+ * executes the terminal operation of the stream returned by {@link #ids()}, which is the common pool unless the
+ * operation is run from within a task of another pool; {@link #forEach(ForkJoinPool, LongConsumer)} and
+ * {@link #iterator(ForkJoinPool)} use the given pool explicitly.
+ * <p/>
+ * Since every range is scanned in a different transaction, the result does not represent a consistent snapshot of the
+ * database if it is written to concurrently. Entities created after the scan has started may or may not be included.
+ *
+ * @param <T> type of scanned entities.
+ */
+public final class ParallelScan<T extends Entity> {
+
+    /**
+     * Default number of IDs in a range scanned in a single transaction.
+     */
+    public static final int DEFAULT_RANGE_SIZE = 10_000;
+
+    private static final long[] END = new long[0];
+
+    private final GraphDatabaseService database;
+    private final EntityInclusionPolicy<T> policy;
+    private final EntityAccess<T> access;
+    private final int rangeSize;
+
+    /**
+     * Create a scan of nodes.
+     *
+     * @param database to scan.
+     * @param policy   deciding which nodes to include.
+     * @return scan.
+     */
+    public static ParallelScan<org.neo4j.graphdb.Node> nodes(GraphDatabaseService database, NodeInclusionPolicy policy) {
+        return new ParallelScan<>(database, policy, EntityAccess.NODES, DEFAULT_RANGE_SIZE);
+    }
+
+    /**
+     * Create a scan of relationships.
+     *
+     * @param database to scan.
+     * @param policy   deciding which relationships to include.
+     * @return scan.
+     */
+    public static ParallelScan<org.neo4j.graphdb.Relationship> relationships(GraphDatabaseService database, RelationshipInclusionPolicy policy) {
+        return new ParallelScan<>(database, policy, EntityAccess.RELATIONSHIPS, DEFAULT_RANGE_SIZE);
+    }
+
+    private ParallelScan(GraphDatabaseService database, EntityInclusionPolicy<T> policy, EntityAccess<T> access, int rangeSize) {
+        if (database == null) {
+            throw new IllegalArgumentException("Database must not be null");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy must not be null");
+        }
+        if (rangeSize <= 0) {
+            throw new IllegalArgumentException("Range size must be positive");
+        }
+
+        this.database = database;
+        this.policy = policy;
+        this.access = access;
+        this.rangeSize = rangeSize;
+    }
+
+    /**
+     * Create a new scan from this one with a different number of IDs scanned in a single transaction.
+     *
+     * @param rangeSize number of IDs, must be positive.
+     * @return new scan.
+     */
+    public ParallelScan<T> withRangeSize(int rangeSize) {
+        return new ParallelScan<>(database, policy, access, rangeSize);
+    }
+
+    /**
+     * Scan the database.
+     *
+     * @return parallel stream of IDs of included entities, in no particular order.
+     */
+    public LongStream ids() {
+        return ranges().flatMapToLong(LongStream::of);
+    }
+
+    /**
+     * Scan the database using the given pool and pass IDs of included entities to a consumer. Blocks until the scan
+     * has finished.
+     *
+     * @param pool     to scan the database with.
+     * @param consumer of IDs, called concurrently from threads of the pool, so it must be thread-safe.
+     */
+    public void forEach(ForkJoinPool pool, LongConsumer consumer) {
+        pool.submit(() -> ids().forEach(consumer)).join();
+    }
+
+    /**
+     * Scan the database in the background using the given pool and return an iterator over IDs of included entities
+     * for a single consumer. Scanned ranges are buffered in a bounded queue, so the scan is throttled when the consumer
+     * is slower than the scan. The iterator must not be consumed from a thread of the given pool.
+     * <p/>
+     * The iterator must be {@link ScanIterator#close() closed} when the consumer stops before having consumed all IDs,
+     * so that the scan is cancelled and threads of the pool waiting for space in the queue are released. It is closed
+     * automatically once all IDs have been consumed.
+     *
+     * @param pool to scan the database with.
+     * @return iterator of IDs, in no particular order. Exceptions thrown while scanning are re-thrown by the iterator.
+     */
+    public ScanIterator iterator(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool must not be null");
+        }
+
+        ScanIterator iterator = new ScanIterator(new ArrayBlockingQueue<>(Math.max(2, pool.getParallelism() * 2)));
+
+        pool.execute(() -> {
+            try {
+                ranges(iterator).filter(ids -> ids.length > 0).forEach(iterator::offer);
+            } catch (RuntimeException e) {
+                iterator.failure = e;
+            } finally {
+                iterator.offer(END);
+            }
+        });
+
+        return iterator;
+    }
+
+    private Stream<long[]> ranges() {
+        return ranges(null);
+    }
+
+    private Stream<long[]> ranges(ScanIterator consumer) {
+        long highId = access.highId(database);
+        long ranges = (highId + rangeSize - 1) / rangeSize;
+
+        return LongStream.range(0, ranges)
+                .parallel()
+                .mapToObj(range -> consumer != null && consumer.closed ? END : scan(range * rangeSize, Math.min((range + 1) * rangeSize, highId)));
+    }
+
+    private long[] scan(long from, long to) {
+        try (Transaction tx = database.beginTx()) {
+            Read read = ((InternalTransaction) tx).kernelTransaction().dataRead();
+
+            List<T> entities = new ArrayList<>();
+            for (long id = from; id < to; id++) {
+                if (!access.exists(read, id)) {
+                    continue;
+                }
+
+                try {
+                    entities.add(access.get(tx, id));
+                } catch (NotFoundException e) {
+                    //deleted concurrently
+                }
+            }
+
+            BitSet included = policy.includeBatch(entities);
+            long[] result = new long[included.cardinality()];
+            int j = 0;
+            for (int i = included.nextSetBit(0); i >= 0; i = included.nextSetBit(i + 1)) {
+                result[j++] = entities.get(i).getId();
+            }
+
+            tx.commit();
+            return result;
+        }
+    }
+
+    /**
+     * Iterator taking scanned IDs from a queue filled by the scan running in the background.
+     */
+    public static final class ScanIterator implements PrimitiveIterator.OfLong, AutoCloseable {
+
+        private static final long OFFER_TIMEOUT_MS = 100;
+
+        private final BlockingQueue<long[]> queue;
+        private volatile RuntimeException failure;
+        private volatile boolean closed = false;
+        private long[] current = new long[0];
+        private int position = 0;
+
+        private ScanIterator(BlockingQueue<long[]> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (current != END && position >= current.length) {
+                if (closed) {
+                    current = END;
+                    break;
+                }
+
+                try {
+                    current = queue.take();
+                } catch (InterruptedException e) {
+                    close();
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+                position = 0;
+            }
+
+            if (current == END) {
+                closed = true;
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+
+            return current != END;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current[position++];
+        }
+
+        /**
+         * Stop consuming IDs and cancel the scan. Ranges that haven't been scanned yet are skipped and IDs that haven't
+         * been consumed yet are discarded.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            current = END;
+            queue.clear();
+        }
+
+        /**
+         * Pass scanned IDs to the consumer, waiting for space in the queue for as long as the iterator is open.
+         *
+         * @param ids to pass.
+         */
+        private void offer(long[] ids) {
+            try {
+                while (!closed) {
+                    if (queue.offer(ids, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Access to entities of a certain type.
+     */
+    private interface EntityAccess<T extends Entity> {
+
+        EntityAccess<org.neo4j.graphdb.Node> NODES = new EntityAccess<org.neo4j.graphdb.Node>() {
+            @Override
+            public long highId(GraphDatabaseService database) {
+                return ParallelScan.highId(database, IdType.NODE);
+            }
+
+            @Override
+            public boolean exists(Read read, long id) {
+                return read.nodeExists(id);
+            }
+
+            @Override
+            public org.neo4j.graphdb.Node get(Transaction tx, long id) {
+                return tx.getNodeById(id);
+            }
+        };
+
+        EntityAccess<org.neo4j.graphdb.Relationship> RELATIONSHIPS = new EntityAccess<org.neo4j.graphdb.Relationship>() {
+            @Override
+            public long highId(GraphDatabaseService database) {
+                return ParallelScan.highId(database, IdType.RELATIONSHIP);
+            }
+
+            @Override
+            public boolean exists(Read read, long id) {
+                return read.relationshipExists(id);
+            }
+
+            @Override
+            public org.neo4j.graphdb.Relationship get(Transaction tx, long id) {
+                return tx.getRelationshipById(id);
+            }
+        };
+
+        long highId(GraphDatabaseService database);
+
+        boolean exists(Read read, long id);
+
+        T get(Transaction tx, long id);
+    }
+
+    private static long highId(GraphDatabaseService database, IdType type) {
+        return ((GraphDatabaseAPI) database).getDependencyResolver().resolveDependency(IdGeneratorFactory.class).get(type).getHighId();
+    }
+}
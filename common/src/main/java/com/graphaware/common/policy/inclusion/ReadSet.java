@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Description of the data an {@link InclusionPolicy} reads when making its decisions, i.e. labels, relationship types,
+ * and property keys of the entity it decides about, and whether it reads any other entities (such as relationships of
+ * a node or the start and end nodes of a relationship).
+ * <p/>
+ * A read set is conservative: a policy may read less than its read set says, but never more. When the read set of a
+ * policy does not intersect the mutations performed on an entity in a transaction, the policy is guaranteed to make
+ * the same decision about the entity before and after the transaction.
+ * <p/>
+ * Instances are immutable.
+ */
+public final class ReadSet {
+
+    private static final ReadSet NOTHING = new ReadSet(false, Collections.emptySet(), false, Collections.emptySet(), false, Collections.emptySet(), false);
+    private static final ReadSet EVERYTHING = new ReadSet(true, Collections.emptySet(), true, Collections.emptySet(), true, Collections.emptySet(), true);
+
+    private final boolean allLabels;
+    private final Set<String> labels;
+    private final boolean allRelationshipTypes;
+    private final Set<String> relationshipTypes;
+    private final boolean allPropertyKeys;
+    private final Set<String> propertyKeys;
+    private final boolean relatedEntities;
+
+    /**
+     * @return read set of a policy that does not read anything, i.e. always makes the same decision.
+     */
+    public static ReadSet nothing() {
+        return NOTHING;
+    }
+
+    /**
+     * @return read set of a policy that can read anything. Default for policies that do not declare their read set.
+     */
+    public static ReadSet everything() {
+        return EVERYTHING;
+    }
+
+    private ReadSet(boolean allLabels, Set<String> labels, boolean allRelationshipTypes, Set<String> relationshipTypes, boolean allPropertyKeys, Set<String> propertyKeys, boolean relatedEntities) {
+        this.allLabels = allLabels;
+        this.labels = allLabels ? Collections.emptySet() : labels;
+        this.allRelationshipTypes = allRelationshipTypes;
+        this.relationshipTypes = allRelationshipTypes ? Collections.emptySet() : relationshipTypes;
+        this.allPropertyKeys = allPropertyKeys;
+        this.propertyKeys = allPropertyKeys ? Collections.emptySet() : propertyKeys;
+        this.relatedEntities = relatedEntities;
+    }
+
+    /**
+     * Create a new read set from this one by adding labels.
+     *
+     * @param labels to add.
+     * @return new read set.
+     */
+    public ReadSet withLabels(String... labels) {
+        return new ReadSet(allLabels, plus(this.labels, labels), allRelationshipTypes, relationshipTypes, allPropertyKeys, propertyKeys, relatedEntities);
+    }
+
+    /**
+     * Create a new read set from this one that reads all labels.
+     *
+     * @return new read set.
+     */
+    public ReadSet withAllLabels() {
+        return new ReadSet(true, labels, allRelationshipTypes, relationshipTypes, allPropertyKeys, propertyKeys, relatedEntities);
+    }
+
+    /**
+     * Create a new read set from this one by adding relationship types.
+     *
+     * @param relationshipTypes to add.
+     * @return new read set.
+     */
+    public ReadSet withRelationshipTypes(String... relationshipTypes) {
+        return new ReadSet(allLabels, labels, allRelationshipTypes, plus(this.relationshipTypes, relationshipTypes), allPropertyKeys, propertyKeys, relatedEntities);
+    }
+
+    /**
+     * Create a new read set from this one that reads all relationship types.
+     *
+     * @return new read set.
+     */
+    public ReadSet withAllRelationshipTypes() {
+        return new ReadSet(allLabels, labels, true, relationshipTypes, allPropertyKeys, propertyKeys, relatedEntities);
+    }
+
+    /**
+     * Create a new read set from this one by adding property keys.
+     *
+     * @param propertyKeys to add.
+     * @return new read set.
+     */
+    public ReadSet withPropertyKeys(String... propertyKeys) {
+        return new ReadSet(allLabels, labels, allRelationshipTypes, relationshipTypes, allPropertyKeys, plus(this.propertyKeys, propertyKeys), relatedEntities);
+    }
+
+    /**
+     * Create a new read set from this one that reads all property keys.
+     *
+     * @return new read set.
+     */
+    public ReadSet withAllPropertyKeys() {
+        return new ReadSet(allLabels, labels, allRelationshipTypes, relationshipTypes, true, propertyKeys, relatedEntities);
+    }
+
+    /**
+     * Create a new read set from this one that reads entities other than the one a decision is made about.
+     *
+     * @return new read set.
+     */
+    public ReadSet withRelatedEntities() {
+        return new ReadSet(allLabels, labels, allRelationshipTypes, relationshipTypes, allPropertyKeys, propertyKeys, true);
+    }
+
+    /**
+     * Create a union of this and the given read set.
+     *
+     * @param other read set.
+     * @return union.
+     */
+    public ReadSet union(ReadSet other) {
+        if (this == NOTHING || other == EVERYTHING) {
+            return other;
+        }
+        if (other == NOTHING || this == EVERYTHING) {
+            return this;
+        }
+
+        return new ReadSet(
+                allLabels || other.allLabels, union(labels, other.labels),
+                allRelationshipTypes || other.allRelationshipTypes, union(relationshipTypes, other.relationshipTypes),
+                allPropertyKeys || other.allPropertyKeys, union(propertyKeys, other.propertyKeys),
+                relatedEntities || other.relatedEntities);
+    }
+
+    /**
+     * @param label to check.
+     * @return true iff the label can be read.
+     */
+    public boolean readsLabel(String label) {
+        return allLabels || labels.contains(label);
+    }
+
+    /**
+     * @param relationshipType to check.
+     * @return true iff the relationship type can be read.
+     */
+    public boolean readsRelationshipType(String relationshipType) {
+        return allRelationshipTypes || relationshipTypes.contains(relationshipType);
+    }
+
+    /**
+     * @param propertyKey to check.
+     * @return true iff the property with the given key can be read.
+     */
+    public boolean readsPropertyKey(String propertyKey) {
+        return allPropertyKeys || propertyKeys.contains(propertyKey);
+    }
+
+    /**
+     * @param labels to check.
+     * @return true iff any of the labels can be read.
+     */
+    public boolean readsAnyLabel(Collection<String> labels) {
+        if (labels.isEmpty()) {
+            return false;
+        }
+        return allLabels || !Collections.disjoint(this.labels, labels);
+    }
+
+    /**
+     * @param propertyKeys to check.
+     * @return true iff any of the properties with the given keys can be read.
+     */
+    public boolean readsAnyPropertyKey(Collection<String> propertyKeys) {
+        if (propertyKeys.isEmpty()) {
+            return false;
+        }
+        return allPropertyKeys || !Collections.disjoint(this.propertyKeys, propertyKeys);
+    }
+
+    /**
+     * @return true iff entities other than the one a decision is made about can be read.
+     */
+    public boolean readsRelatedEntities() {
+        return relatedEntities;
+    }
+
+    /**
+     * @return true iff all labels can be read.
+     */
+    public boolean readsAllLabels() {
+        return allLabels;
+    }
+
+    /**
+     * @return true iff all relationship types can be read.
+     */
+    public boolean readsAllRelationshipTypes() {
+        return allRelationshipTypes;
+    }
+
+    /**
+     * @return true iff all property keys can be read.
+     */
+    public boolean readsAllPropertyKeys() {
+        return allPropertyKeys;
+    }
+
+    /**
+     * @return read-only set of explicitly read labels, empty if {@link #readsAllLabels()}.
+     */
+    public Set<String> getLabels() {
+        return labels;
+    }
+
+    /**
+     * @return read-only set of explicitly read relationship types, empty if {@link #readsAllRelationshipTypes()}.
+     */
+    public Set<String> getRelationshipTypes() {
+        return relationshipTypes;
+    }
+
+    /**
+     * @return read-only set of explicitly read property keys, empty if {@link #readsAllPropertyKeys()}.
+     */
+    public Set<String> getPropertyKeys() {
+        return propertyKeys;
+    }
+
+    private static Set<String> plus(Set<String> set, String... values) {
+        Set<String> result = new HashSet<>(set);
+        result.addAll(Arrays.asList(values));
+        return Collections.unmodifiableSet(result);
+    }
+
+    private static Set<String> union(Set<String> set1, Set<String> set2) {
+        Set<String> result = new HashSet<>(set1);
+        result.addAll(set2);
+        return Collections.unmodifiableSet(result);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ReadSet that = (ReadSet) o;
+
+        if (allLabels != that.allLabels) return false;
+        if (allRelationshipTypes != that.allRelationshipTypes) return false;
+        if (allPropertyKeys != that.allPropertyKeys) return false;
+        if (relatedEntities != that.relatedEntities) return false;
+        if (!labels.equals(that.labels)) return false;
+        if (!relationshipTypes.equals(that.relationshipTypes)) return false;
+        if (!propertyKeys.equals(that.propertyKeys)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (allLabels ? 1 : 0);
+        result = 31 * result + labels.hashCode();
+        result = 31 * result + (allRelationshipTypes ? 1 : 0);
+        result = 31 * result + relationshipTypes.hashCode();
+        result = 31 * result + (allPropertyKeys ? 1 : 0);
+        result = 31 * result + propertyKeys.hashCode();
+        result = 31 * result + (relatedEntities ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ReadSet{" +
+                "labels=" + (allLabels ? "*" : labels) +
+                ", relationshipTypes=" + (allRelationshipTypes ? "*" : relationshipTypes) +
+                ", propertyKeys=" + (allPropertyKeys ? "*" : propertyKeys) +
+                ", relatedEntities=" + relatedEntities +
+                '}';
+    }
+}
@@ -17,6 +17,10 @@
 package com.graphaware.common.policy.inclusion.all;
 
 import com.graphaware.common.policy.inclusion.ObjectInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
+
+import java.util.BitSet;
+import java.util.List;
 
 /**
  * {@link ObjectInclusionPolicy} that includes all objects.
@@ -27,4 +31,16 @@ public class IncludeAll<T> implements ObjectInclusionPolicy<T> {
     public boolean include(T object) {
         return true;
     }
+
+    @Override
+    public BitSet includeBatch(List<? extends T> objects) {
+        BitSet result = new BitSet(objects.size());
+        result.set(0, objects.size());
+        return result;
+    }
+
+    @Override
+    public ReadSet getReadSet() {
+        return ReadSet.nothing();
+    }
 }
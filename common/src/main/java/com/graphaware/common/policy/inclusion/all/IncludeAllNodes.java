@@ -19,8 +19,12 @@ package com.graphaware.common.policy.inclusion.all;
 
 import com.graphaware.common.policy.inclusion.BaseNodeInclusionPolicy;
 import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import org.neo4j.graphdb.Node;
 
+import java.util.BitSet;
+import java.util.List;
+
 /**
  * {@link NodeInclusionPolicy} that includes all nodes. Singleton.
  */
@@ -39,4 +43,16 @@ public final class IncludeAllNodes extends BaseNodeInclusionPolicy {
     public boolean include(Node object) {
         return true;
     }
+
+    @Override
+    public BitSet includeBatch(List<? extends Node> objects) {
+        BitSet result = new BitSet(objects.size());
+        result.set(0, objects.size());
+        return result;
+    }
+
+    @Override
+    public ReadSet getReadSet() {
+        return ReadSet.nothing();
+    }
 }
@@ -17,6 +17,7 @@
 package com.graphaware.common.policy.inclusion.all;
 
 import com.graphaware.common.policy.inclusion.PropertyInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import org.neo4j.graphdb.Entity;
 
 /**
@@ -31,4 +32,9 @@ public abstract class IncludeAllProperties<T extends Entity> implements Property
     public boolean include(String key, T t) {
         return true;
     }
+
+    @Override
+    public ReadSet getReadSet() {
+        return ReadSet.nothing();
+    }
 }
@@ -16,9 +16,13 @@
 
 package com.graphaware.common.policy.inclusion.all;
 
+import com.graphaware.common.policy.inclusion.ReadSet;
 import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
 import org.neo4j.graphdb.Relationship;
 
+import java.util.BitSet;
+import java.util.List;
+
 /**
  * {@link RelationshipInclusionPolicy} that includes all relationships. Singleton.
  */
@@ -37,4 +41,16 @@ public final class IncludeAllRelationships extends RelationshipInclusionPolicy.A
     public boolean include(Relationship object) {
         return true;
     }
+
+    @Override
+    public BitSet includeBatch(List<? extends Relationship> objects) {
+        BitSet result = new BitSet(objects.size());
+        result.set(0, objects.size());
+        return result;
+    }
+
+    @Override
+    public ReadSet getReadSet() {
+        return ReadSet.nothing();
+    }
 }
@@ -18,30 +18,61 @@ package com.graphaware.common.policy.inclusion.composite;
 
 import com.graphaware.common.policy.inclusion.BaseEntityInclusionPolicy;
 import com.graphaware.common.policy.inclusion.EntityInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import org.neo4j.graphdb.Entity;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 
 /**
  * {@link EntityInclusionPolicy} composed of multiple other policies.
  * All contained policies must "vote" <code>true</code> to {@link #include(org.neo4j.graphdb.Entity)} in
- * order for this policy to return <code>true</code>.
+ * order for this policy to return <code>true</code>. The order in which the contained policies are evaluated is
+ * governed by an {@link EvaluationOrder}; policies are evaluated in the declared order unless another
+ * {@link EvaluationOrder.Mode} is explicitly requested.
  */
 public abstract class CompositeEntityInclusionPolicy<E extends Entity, T extends EntityInclusionPolicy<E>> extends BaseEntityInclusionPolicy<E> implements EntityInclusionPolicy<E> {
 
     protected final T[] policies;
+    protected final EvaluationOrder evaluationOrder;
 
     protected CompositeEntityInclusionPolicy(T[] policies) {
+        this(EvaluationOrder.Mode.DECLARED, policies);
+    }
+
+    protected CompositeEntityInclusionPolicy(EvaluationOrder.Mode mode, T[] policies) {
         if (policies == null || policies.length < 1) {
             throw new IllegalArgumentException("There must be at least one wrapped policy in composite policy");
         }
         this.policies = policies;
+        this.evaluationOrder = new EvaluationOrder(mode, policies.length);
+    }
+
+    /**
+     * Get the order in which the contained policies are evaluated, including evaluation statistics.
+     *
+     * @return evaluation order.
+     */
+    public EvaluationOrder getEvaluationOrder() {
+        return evaluationOrder;
     }
 
     @Override
     public boolean include(E object) {
-        for (T policy : policies) {
-            if (!policy.include(object)) {
+        int sampled = evaluationOrder.sample();
+        if (sampled >= 0) {
+            long start = evaluationOrder.start();
+            boolean included = policies[sampled].include(object);
+            evaluationOrder.record(sampled, start, !included);
+            if (!included) {
+                return false;
+            }
+        }
+
+        for (int i : evaluationOrder.order()) {
+            if (i != sampled && !policies[i].include(object)) {
                 return false;
             }
         }
@@ -49,6 +80,60 @@ public abstract class CompositeEntityInclusionPolicy<E extends Entity, T extends
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Contained policies are evaluated one by one in the current evaluation order, each against the whole batch of
+     * entities included by all the previously evaluated policies. Batches aren't sampled for the purposes of ordering.
+     */
+    @Override
+    public BitSet includeBatch(List<? extends E> entities) {
+        List<? extends E> candidates = entities;
+        int[] indices = null; //null means candidates are all the entities
+
+        for (int p : evaluationOrder.order()) {
+            if (candidates.isEmpty()) {
+                break;
+            }
+
+            BitSet included = policies[p].includeBatch(candidates);
+            int count = included.cardinality();
+            if (count == candidates.size()) {
+                continue;
+            }
+
+            List<E> survivors = new ArrayList<>(count);
+            int[] survivorIndices = new int[count];
+            int j = 0;
+            for (int i = included.nextSetBit(0); i >= 0; i = included.nextSetBit(i + 1)) {
+                survivors.add(candidates.get(i));
+                survivorIndices[j++] = indices == null ? i : indices[i];
+            }
+
+            candidates = survivors;
+            indices = survivorIndices;
+        }
+
+        BitSet result = new BitSet(entities.size());
+        if (indices == null) {
+            result.set(0, entities.size());
+        } else {
+            for (int index : indices) {
+                result.set(index);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ReadSet getReadSet() {
+        ReadSet result = ReadSet.nothing();
+        for (T policy : policies) {
+            result = result.union(policy.getReadSet());
+        }
+        return result;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -57,12 +142,18 @@ public abstract class CompositeEntityInclusionPolicy<E extends Entity, T extends
         CompositeEntityInclusionPolicy that = (CompositeEntityInclusionPolicy) o;
 
         if (!Arrays.equals(policies, that.policies)) return false;
+        if (evaluationOrder.getMode() != that.evaluationOrder.getMode()) return false;
 
         return true;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(policies);
+        return 31 * Arrays.hashCode(policies) + evaluationOrder.getMode().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + Arrays.toString(policies);
     }
 }
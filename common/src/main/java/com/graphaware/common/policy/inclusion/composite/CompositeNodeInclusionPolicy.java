@@ -27,11 +27,15 @@ import org.neo4j.graphdb.Transaction;
 public final class CompositeNodeInclusionPolicy extends CompositeEntityInclusionPolicy<Node, NodeInclusionPolicy> implements NodeInclusionPolicy {
 
     public static CompositeNodeInclusionPolicy of(NodeInclusionPolicy... policies) {
-        return new CompositeNodeInclusionPolicy(policies);
+        return new CompositeNodeInclusionPolicy(EvaluationOrder.Mode.DECLARED, policies);
     }
 
-    private CompositeNodeInclusionPolicy(NodeInclusionPolicy[] policies) {
-        super(policies);
+    public static CompositeNodeInclusionPolicy of(EvaluationOrder.Mode mode, NodeInclusionPolicy... policies) {
+        return new CompositeNodeInclusionPolicy(mode, policies);
+    }
+
+    private CompositeNodeInclusionPolicy(EvaluationOrder.Mode mode, NodeInclusionPolicy[] policies) {
+        super(mode, policies);
     }
 
     @Override
@@ -25,10 +25,14 @@ import org.neo4j.graphdb.Node;
 public final class CompositeNodePropertyInclusionPolicy extends CompositePropertyInclusionPolicy<Node> implements NodePropertyInclusionPolicy {
 
     public static CompositeNodePropertyInclusionPolicy of(NodePropertyInclusionPolicy... policies) {
-        return new CompositeNodePropertyInclusionPolicy(policies);
+        return new CompositeNodePropertyInclusionPolicy(EvaluationOrder.Mode.DECLARED, policies);
     }
 
-    private CompositeNodePropertyInclusionPolicy(NodePropertyInclusionPolicy[] policies) {
-        super(policies);
+    public static CompositeNodePropertyInclusionPolicy of(EvaluationOrder.Mode mode, NodePropertyInclusionPolicy... policies) {
+        return new CompositeNodePropertyInclusionPolicy(mode, policies);
+    }
+
+    private CompositeNodePropertyInclusionPolicy(EvaluationOrder.Mode mode, NodePropertyInclusionPolicy[] policies) {
+        super(mode, policies);
     }
 }
@@ -17,6 +17,7 @@
 package com.graphaware.common.policy.inclusion.composite;
 
 import com.graphaware.common.policy.inclusion.PropertyInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import org.neo4j.graphdb.Entity;
 
 import java.util.Arrays;
@@ -24,13 +25,20 @@ import java.util.Arrays;
 /**
  * {@link PropertyInclusionPolicy} composed of multiple other policies. All contained policies must "vote"
  * <code>true</code> to {@link #include(String, org.neo4j.graphdb.Entity)} in order for this policy to
- * return <code>true</code>.
+ * return <code>true</code>. The order in which the contained policies are evaluated is governed by an
+ * {@link EvaluationOrder}; policies are evaluated in the declared order unless another {@link EvaluationOrder.Mode}
+ * is explicitly requested.
  */
 public abstract class CompositePropertyInclusionPolicy<T extends Entity> implements PropertyInclusionPolicy<T> {
 
     private final PropertyInclusionPolicy<T>[] policies;
+    private final EvaluationOrder evaluationOrder;
 
     protected CompositePropertyInclusionPolicy(PropertyInclusionPolicy<T>[] policies) {
+        this(EvaluationOrder.Mode.DECLARED, policies);
+    }
+
+    protected CompositePropertyInclusionPolicy(EvaluationOrder.Mode mode, PropertyInclusionPolicy<T>[] policies) {
         if (policies == null || policies.length < 1) {
             throw new IllegalArgumentException("There must be at least one wrapped policy in composite policy");
         }
@@ -40,12 +48,32 @@ public abstract class CompositePropertyInclusionPolicy<T extends Entity> impleme
             }
         }
         this.policies = policies;
+        this.evaluationOrder = new EvaluationOrder(mode, policies.length);
+    }
+
+    /**
+     * Get the order in which the contained policies are evaluated, including evaluation statistics.
+     *
+     * @return evaluation order.
+     */
+    public EvaluationOrder getEvaluationOrder() {
+        return evaluationOrder;
     }
 
     @Override
     public boolean include(String key, T object) {
-        for (PropertyInclusionPolicy<T> policy : policies) {
-            if (!policy.include(key, object)) {
+        int sampled = evaluationOrder.sample();
+        if (sampled >= 0) {
+            long start = evaluationOrder.start();
+            boolean included = policies[sampled].include(key, object);
+            evaluationOrder.record(sampled, start, !included);
+            if (!included) {
+                return false;
+            }
+        }
+
+        for (int i : evaluationOrder.order()) {
+            if (i != sampled && !policies[i].include(key, object)) {
                 return false;
             }
         }
@@ -53,6 +81,15 @@ public abstract class CompositePropertyInclusionPolicy<T extends Entity> impleme
         return true;
     }
 
+    @Override
+    public ReadSet getReadSet() {
+        ReadSet result = ReadSet.nothing();
+        for (PropertyInclusionPolicy<T> policy : policies) {
+            result = result.union(policy.getReadSet());
+        }
+        return result;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -67,12 +104,15 @@ public abstract class CompositePropertyInclusionPolicy<T extends Entity> impleme
         if (!Arrays.equals(policies, that.policies)) {
             return false;
         }
+        if (evaluationOrder.getMode() != that.evaluationOrder.getMode()) {
+            return false;
+        }
 
         return true;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(policies);
+        return 31 * Arrays.hashCode(policies) + evaluationOrder.getMode().hashCode();
     }
 }
@@ -28,17 +28,21 @@ import org.neo4j.graphdb.Transaction;
 public final class CompositeRelationshipInclusionPolicy extends CompositeEntityInclusionPolicy<Relationship, RelationshipInclusionPolicy> implements RelationshipInclusionPolicy {
 
     public static CompositeRelationshipInclusionPolicy of(RelationshipInclusionPolicy... policies) {
-        return new CompositeRelationshipInclusionPolicy(policies);
+        return new CompositeRelationshipInclusionPolicy(EvaluationOrder.Mode.DECLARED, policies);
     }
 
-    private CompositeRelationshipInclusionPolicy(RelationshipInclusionPolicy[] policies) {
-        super(policies);
+    public static CompositeRelationshipInclusionPolicy of(EvaluationOrder.Mode mode, RelationshipInclusionPolicy... policies) {
+        return new CompositeRelationshipInclusionPolicy(mode, policies);
+    }
+
+    private CompositeRelationshipInclusionPolicy(EvaluationOrder.Mode mode, RelationshipInclusionPolicy[] policies) {
+        super(mode, policies);
     }
 
     @Override
     public boolean include(Relationship relationship, Node pointOfView) {
-        for (RelationshipInclusionPolicy policy : policies) {
-            if (!policy.include(relationship, pointOfView)) {
+        for (int i : evaluationOrder.order()) {
+            if (!policies[i].include(relationship, pointOfView)) {
                 return false;
             }
         }
@@ -25,10 +25,14 @@ import org.neo4j.graphdb.Relationship;
 public final class CompositeRelationshipPropertyInclusionPolicy extends CompositePropertyInclusionPolicy<Relationship> implements RelationshipPropertyInclusionPolicy {
 
     public static CompositeRelationshipPropertyInclusionPolicy of(RelationshipPropertyInclusionPolicy... policies) {
-        return new CompositeRelationshipPropertyInclusionPolicy(policies);
+        return new CompositeRelationshipPropertyInclusionPolicy(EvaluationOrder.Mode.DECLARED, policies);
     }
 
-    private CompositeRelationshipPropertyInclusionPolicy(RelationshipPropertyInclusionPolicy[] policies) {
-        super(policies);
+    public static CompositeRelationshipPropertyInclusionPolicy of(EvaluationOrder.Mode mode, RelationshipPropertyInclusionPolicy... policies) {
+        return new CompositeRelationshipPropertyInclusionPolicy(mode, policies);
+    }
+
+    private CompositeRelationshipPropertyInclusionPolicy(EvaluationOrder.Mode mode, RelationshipPropertyInclusionPolicy[] policies) {
+        super(mode, policies);
     }
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion.composite;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Order in which a composite policy evaluates the policies it is composed of.
+ * <p/>
+ * Since all contained policies must vote <code>true</code> for a composite policy to include an entity/property, the
+ * evaluation stops at the first policy that votes <code>false</code>. The expected cost of an evaluation is thus
+ * minimal when policies are ordered by their average cost divided by the probability that they reject. In
+ * {@link Mode#ADAPTIVE} mode, a randomly picked contained policy is evaluated first in a sample of evaluations,
+ * recording how long it took and whether it rejected, and the order is periodically re-computed from these
+ * statistics. Since the measured policy is evaluated before any other, its statistics don't depend on the rest of the
+ * policies, which are then evaluated in the current order, still stopping at the first rejection. In
+ * {@link Mode#DETERMINISTIC} mode, every n-th evaluation is sampled, the measured policy is picked in turn and the
+ * cost of each policy is assumed to be the same, so the order only depends on the rejection rates and the sequence of
+ * evaluated entities, which is useful for tests.
+ * In {@link Mode#DECLARED} mode, policies are always evaluated in the order in which they were declared.
+ * <p/>
+ * Ties are resolved in favour of the declared order. Statistics are kept for the lifetime of the composite policy and
+ * are updated concurrently without locking.
+ */
+public final class EvaluationOrder {
+
+    /**
+     * Mode of ordering of the contained policies.
+     */
+    public enum Mode {
+        /**
+         * Always evaluate policies in the declared order. This is the default mode of composite policies.
+         */
+        DECLARED,
+
+        /**
+         * Sample a fraction of evaluations including their duration and re-order policies periodically.
+         */
+        ADAPTIVE,
+
+        /**
+         * Sample every n-th evaluation assuming equal costs of all policies and re-order policies periodically.
+         */
+        DETERMINISTIC
+    }
+
+    static final int SAMPLING_RATE = 64;
+    static final int REORDER_INTERVAL = 128;
+
+    private final Mode mode;
+    private final int size;
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicLongArray policySamples;
+    private final AtomicLongArray costs;
+    private final AtomicLongArray rejections;
+    private volatile int[] order;
+
+    EvaluationOrder(Mode mode, int size) {
+        if (mode == null) {
+            throw new IllegalArgumentException("Mode must not be null");
+        }
+
+        this.mode = mode;
+        this.size = size;
+        this.policySamples = new AtomicLongArray(size);
+        this.costs = new AtomicLongArray(size);
+        this.rejections = new AtomicLongArray(size);
+        this.order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+    }
+
+    /**
+     * @return mode of this order.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return indices of the contained policies (in the declared order) in the order in which they are evaluated.
+     */
+    public int[] getOrder() {
+        return order.clone();
+    }
+
+    /**
+     * Get evaluation statistics of the contained policies.
+     *
+     * @return statistics in the declared order of policies.
+     */
+    public List<Statistics> getStatistics() {
+        List<Statistics> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new Statistics(policySamples.get(i), costs.get(i), rejections.get(i)));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    int[] order() {
+        return order;
+    }
+
+    /**
+     * Decide whether an evaluation should be sampled.
+     *
+     * @return index of the policy to measure by evaluating it first, -1 if the evaluation isn't sampled.
+     */
+    int sample() {
+        switch (mode) {
+            case DECLARED:
+                return -1;
+            case DETERMINISTIC:
+                long evaluation = evaluations.getAndIncrement();
+                return evaluation % SAMPLING_RATE == 0 ? (int) ((evaluation / SAMPLING_RATE) % size) : -1;
+            default:
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                return random.nextInt(SAMPLING_RATE) == 0 ? random.nextInt(size) : -1;
+        }
+    }
+
+    long start() {
+        return mode == Mode.ADAPTIVE ? System.nanoTime() : 0;
+    }
+
+    void record(int policy, long start, boolean rejected) {
+        costs.addAndGet(policy, mode == Mode.ADAPTIVE ? Math.max(1, System.nanoTime() - start) : 1);
+        if (rejected) {
+            rejections.incrementAndGet(policy);
+        }
+        policySamples.incrementAndGet(policy);
+
+        if (samples.incrementAndGet() % REORDER_INTERVAL == 0) {
+            reorder();
+        }
+    }
+
+    private void reorder() {
+        final double[] ranks = new double[size];
+        Integer[] newOrder = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            long rejected = rejections.get(i);
+            ranks[i] = rejected == 0 ? Double.POSITIVE_INFINITY : (double) costs.get(i) / rejected;
+            newOrder[i] = i;
+        }
+
+        Arrays.sort(newOrder, Comparator.comparingDouble(i -> ranks[i]));
+
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = newOrder[i];
+        }
+        order = result;
+    }
+
+    @Override
+    public String toString() {
+        return mode + Arrays.toString(order);
+    }
+
+    /**
+     * Evaluation statistics of a single contained policy.
+     */
+    public static final class Statistics {
+
+        private final long samples;
+        private final long cost;
+        private final long rejections;
+
+        private Statistics(long samples, long cost, long rejections) {
+            this.samples = samples;
+            this.cost = cost;
+            this.rejections = rejections;
+        }
+
+        /**
+         * @return number of sampled evaluations, in which the policy was measured.
+         */
+        public long getSamples() {
+            return samples;
+        }
+
+        /**
+         * @return average cost of the policy per sampled evaluation, in nanoseconds in {@link Mode#ADAPTIVE} mode.
+         */
+        public double getAverageCost() {
+            return samples == 0 ? 0 : (double) cost / samples;
+        }
+
+        /**
+         * @return fraction of sampled evaluations, in which the policy voted <code>false</code>.
+         */
+        public double getRejectionRate() {
+            return samples == 0 ? 0 : (double) rejections / samples;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{samples=" + samples + ", averageCost=" + getAverageCost() + ", rejectionRate=" + getRejectionRate() + "}";
+        }
+    }
+}
@@ -17,7 +17,9 @@
 package com.graphaware.common.policy.inclusion.fluent;
 
 import com.graphaware.common.description.property.DetachedPropertiesDescription;
+import com.graphaware.common.policy.inclusion.KernelTokens;
 import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import org.apache.commons.lang3.StringUtils;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
@@ -29,6 +31,7 @@ import org.neo4j.graphdb.Node;
 public abstract class BaseIncludeNodes<T extends BaseIncludeNodes<T>> extends IncludeEntities<T, Node> implements NodeInclusionPolicy {
 
     private final String label;
+    private final KernelTokens labelTokens;
 
     /**
      * Create a new policy.
@@ -39,6 +42,7 @@ public abstract class BaseIncludeNodes<T extends BaseIncludeNodes<T>> extends In
     public BaseIncludeNodes(String label, DetachedPropertiesDescription propertiesDescription) {
         super(propertiesDescription);
         this.label = label;
+        this.labelTokens = label != null ? KernelTokens.labels(label) : null;
     }
 
     /**
@@ -83,7 +87,17 @@ public abstract class BaseIncludeNodes<T extends BaseIncludeNodes<T>> extends In
 
     @Override
     public boolean include(Node node) {
-        return !(label != null && !node.hasLabel(Label.label(label))) && super.include(node);
+        return includeStructure(node) && super.include(node);
+    }
+
+    @Override
+    protected boolean includeStructure(Node node) {
+        return labelTokens == null || labelTokens.anyLabelOf(node);
+    }
+
+    @Override
+    public ReadSet getReadSet() {
+        return label == null ? super.getReadSet() : super.getReadSet().withLabels(label);
     }
 
     /**
@@ -114,4 +128,9 @@ public abstract class BaseIncludeNodes<T extends BaseIncludeNodes<T>> extends In
         result = 31 * result + (label != null ? label.hashCode() : 0);
         return result;
     }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{label=" + label + ", properties=" + getPropertiesDescription() + "}";
+    }
 }
@@ -17,6 +17,7 @@
 package com.graphaware.common.policy.inclusion.fluent;
 
 import com.graphaware.common.policy.inclusion.PropertyInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import org.apache.commons.lang3.StringUtils;
 import org.neo4j.graphdb.Entity;
 
@@ -68,6 +69,11 @@ public abstract class BaseIncludeProperties<T extends BaseIncludeProperties<T, E
         return this.key == null || this.key.equals(key);
     }
 
+    @Override
+    public ReadSet getReadSet() {
+        return ReadSet.nothing();
+    }
+
     public String getKey() {
         return key;
     }
@@ -17,6 +17,8 @@
 package com.graphaware.common.policy.inclusion.fluent;
 
 import com.graphaware.common.description.property.DetachedPropertiesDescription;
+import com.graphaware.common.policy.inclusion.KernelTokens;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
 import com.graphaware.common.util.DirectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -34,6 +36,7 @@ public abstract class BaseIncludeRelationships<T extends BaseIncludeRelationship
 
     private final Direction direction;
     private final String[] relationshipTypes;
+    private final KernelTokens relationshipTypeTokens;
 
     /**
      * Create a new policy.
@@ -55,6 +58,7 @@ public abstract class BaseIncludeRelationships<T extends BaseIncludeRelationship
 
         this.direction = direction;
         this.relationshipTypes = relationshipTypes;
+        this.relationshipTypeTokens = relationshipTypes.length > 0 ? KernelTokens.relationshipTypes(relationshipTypes) : null;
     }
 
     /**
@@ -134,23 +138,27 @@ public abstract class BaseIncludeRelationships<T extends BaseIncludeRelationship
 
     @Override
     public boolean include(Relationship relationship) {
-        if (relationshipTypes == null || relationshipTypes.length == 0) {
-            return super.include(relationship);
-        }
+        return includeStructure(relationship) && super.include(relationship);
+    }
 
-        for (String type : relationshipTypes) {
-            if (relationship.isType(RelationshipType.withName(type))) {
-                return super.include(relationship);
-            }
-        }
+    @Override
+    protected boolean includeStructure(Relationship relationship) {
+        return relationshipTypeTokens == null || relationshipTypeTokens.typeOf(relationship);
+    }
 
-        return false;
+    @Override
+    public ReadSet getReadSet() {
+        return super.getReadSet().withRelationshipTypes(relationshipTypes);
     }
 
     @Override
     public boolean include(Relationship relationship, Node pointOfView) {
-        return include(relationship)
-                && DirectionUtils.matches(this.direction, DirectionUtils.resolveDirection(relationship, pointOfView));
+        //direction is resolved from node IDs, which is cheaper than checking the type and properties
+        if (direction != Direction.BOTH && !DirectionUtils.matches(direction, DirectionUtils.resolveDirection(relationship, pointOfView))) {
+            return false;
+        }
+
+        return include(relationship);
     }
 
     /**
@@ -212,4 +220,9 @@ public abstract class BaseIncludeRelationships<T extends BaseIncludeRelationship
         result = 31 * result + Arrays.hashCode(relationshipTypes);
         return result;
     }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{direction=" + direction + ", types=" + Arrays.toString(relationshipTypes) + ", properties=" + getPropertiesDescription() + "}";
+    }
 }
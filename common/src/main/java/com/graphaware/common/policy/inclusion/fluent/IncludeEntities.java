@@ -19,10 +19,16 @@ package com.graphaware.common.policy.inclusion.fluent;
 import com.graphaware.common.description.predicate.Predicate;
 import com.graphaware.common.description.property.DetachedPropertiesDescription;
 import com.graphaware.common.description.property.LiteralPropertiesDescription;
+import com.graphaware.common.description.property.PropertiesDescriptionMatcher;
+import com.graphaware.common.description.property.WildcardPropertiesDescription;
 import com.graphaware.common.policy.inclusion.BaseEntityInclusionPolicy;
 import com.graphaware.common.policy.inclusion.EntityInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import org.neo4j.graphdb.Entity;
 
+import java.util.BitSet;
+import java.util.List;
+
 /**
  * An abstract base-class for {@link EntityInclusionPolicy} implementations that are based on property
  * value {@link Predicate}s. In other words, the implementations can be used to specify, which {@link Entity}s
@@ -31,6 +37,7 @@ import org.neo4j.graphdb.Entity;
 public abstract class IncludeEntities<C extends IncludeEntities<?, T>, T extends Entity> extends BaseEntityInclusionPolicy<T> implements EntityInclusionPolicy<T> {
 
     private final DetachedPropertiesDescription propertiesDescription;
+    private final PropertiesDescriptionMatcher matcher;
 
     /**
      * Construct a new policy.
@@ -41,6 +48,7 @@ public abstract class IncludeEntities<C extends IncludeEntities<?, T>, T extends
      */
     protected IncludeEntities(DetachedPropertiesDescription propertiesDescription) {
         this.propertiesDescription = propertiesDescription;
+        this.matcher = new PropertiesDescriptionMatcher(propertiesDescription);
     }
 
     /**
@@ -73,7 +81,56 @@ public abstract class IncludeEntities<C extends IncludeEntities<?, T>, T extends
 
     @Override
     public boolean include(T entity) {
-        return new LiteralPropertiesDescription(entity).isMoreSpecificThan(propertiesDescription);
+        return matcher.matches(entity);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The properties description isn't evaluated at all when it matches any entity.
+     */
+    @Override
+    public BitSet includeBatch(List<? extends T> entities) {
+        boolean matchesAnything = matcher.matchesAnything();
+
+        BitSet result = new BitSet(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            T entity = entities.get(i);
+            if (includeStructure(entity) && (matchesAnything || matcher.matches(entity))) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check whether the structure of the entity (e.g. its labels or relationship type) complies with this policy,
+     * irrespective of the entity's properties.
+     *
+     * @param entity to check.
+     * @return true iff the entity's structure complies with this policy.
+     */
+    protected boolean includeStructure(T entity) {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Reads the properties with keys explicitly mentioned in the properties description, or all properties if the
+     * description isn't a {@link WildcardPropertiesDescription}.
+     */
+    @Override
+    public ReadSet getReadSet() {
+        if (!(propertiesDescription instanceof WildcardPropertiesDescription)) {
+            return ReadSet.nothing().withAllPropertyKeys();
+        }
+
+        ReadSet result = ReadSet.nothing();
+        for (String key : propertiesDescription.getKeys()) {
+            result = result.withPropertyKeys(key);
+        }
+        return result;
     }
 
     @Override
@@ -21,6 +21,7 @@ import com.graphaware.common.description.property.DetachedPropertiesDescription;
 import com.graphaware.common.description.property.WildcardPropertiesDescription;
 import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
 
@@ -64,6 +65,9 @@ public class IncludeNodes extends BaseIncludeNodes<IncludeNodes> {
 
     @Override
     protected Iterable<Node> doGetAll(Transaction tx) {
+        if (getLabel() != null) {
+            return () -> tx.findNodes(Label.label(getLabel()));
+        }
         return tx.getAllNodes();
     }
 }
@@ -18,11 +18,15 @@ package com.graphaware.common.policy.inclusion.none;
 
 import com.graphaware.common.policy.inclusion.BaseEntityInclusionPolicy;
 import com.graphaware.common.policy.inclusion.EntityInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.internal.helpers.collection.Iterables;
 
+import java.util.BitSet;
+import java.util.List;
+
 /**
  * {@link EntityInclusionPolicy} that ignores all entities.
  */
@@ -36,6 +40,16 @@ public abstract class IncludeNoEntities<T extends Entity> extends BaseEntityIncl
         return false;
     }
 
+    @Override
+    public BitSet includeBatch(List<? extends T> objects) {
+        return new BitSet();
+    }
+
+    @Override
+    public ReadSet getReadSet() {
+        return ReadSet.nothing();
+    }
+
     @Override
     protected Iterable<T> doGetAll(Transaction tx) {
         return Iterables.empty();
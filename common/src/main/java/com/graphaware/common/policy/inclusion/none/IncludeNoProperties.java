@@ -18,6 +18,7 @@ package com.graphaware.common.policy.inclusion.none;
 
 
 import com.graphaware.common.policy.inclusion.PropertyInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import org.neo4j.graphdb.Entity;
 
 /**
@@ -32,4 +33,9 @@ public abstract class IncludeNoProperties<T extends Entity> implements PropertyI
     public final boolean include(String key, T entity) {
         return false;
     }
+
+    @Override
+    public ReadSet getReadSet() {
+        return ReadSet.nothing();
+    }
 }
@@ -18,6 +18,10 @@ package com.graphaware.common.policy.inclusion.none;
 
 
 import com.graphaware.common.policy.inclusion.ObjectInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
+
+import java.util.BitSet;
+import java.util.List;
 
 /**
  * {@link ObjectInclusionPolicy} that excludes everything.
@@ -31,4 +35,14 @@ public abstract class IncludeNone<T> implements ObjectInclusionPolicy<T> {
     public final boolean include(T t) {
         return false;
     }
+
+    @Override
+    public BitSet includeBatch(List<? extends T> objects) {
+        return new BitSet();
+    }
+
+    @Override
+    public ReadSet getReadSet() {
+        return ReadSet.nothing();
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.common.policy.inclusion.spel;
+
+import com.graphaware.common.representation.AttachedNode;
+import com.graphaware.common.representation.AttachedNodeProperty;
+import org.neo4j.graphdb.Node;
+
+/**
+ * Re-attachable {@link AttachedNodeProperty}, used as the root object of SPEL expressions, so that no wrappers are
+ * allocated per evaluated property. It extends {@link AttachedNodeProperty} only so that compiled expressions can call
+ * its methods through a public class.
+ * <p/>
+ * Instances are only valid until re-attached and must not be shared between threads or leak out of an evaluation.
+ */
+class NodePropertyRoot extends AttachedNodeProperty {
+
+    private final NodeRoot node = new NodeRoot();
+    private String key;
+
+    NodePropertyRoot() {
+        super(null, null);
+    }
+
+    /**
+     * Point this root to a different property.
+     *
+     * @param key  of the property.
+     * @param node to which the property belongs, can be <code>null</code> to release the previously represented one.
+     */
+    void attach(String key, Node node) {
+        this.key = key;
+        this.node.attach(node);
+    }
+
+    /**
+     * @return true iff this root currently represents a property.
+     */
+    boolean isAttached() {
+        return node.isAttached();
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public AttachedNode getNode() {
+        return node;
+    }
+}
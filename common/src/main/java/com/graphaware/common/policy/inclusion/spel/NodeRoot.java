@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.common.policy.inclusion.spel;
+
+import com.graphaware.common.representation.AttachedNode;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static org.neo4j.graphdb.Direction.valueOf;
+import static org.neo4j.graphdb.RelationshipType.withName;
+
+/**
+ * Re-attachable {@link AttachedNode}, used as the root object (or a part of it) of SPEL expressions, so that no wrapper
+ * is allocated per evaluated node. It extends {@link AttachedNode} only so that compiled expressions can call its
+ * methods through a public class; all of them are overridden to read the currently attached node.
+ * <p/>
+ * Instances are only valid until re-attached and must not be shared between threads or leak out of an evaluation.
+ */
+class NodeRoot extends AttachedNode {
+
+    private Node node;
+
+    NodeRoot() {
+        super(null);
+    }
+
+    /**
+     * Point this root to a different node.
+     *
+     * @param node to represent, can be <code>null</code> to release the previously represented node.
+     */
+    void attach(Node node) {
+        this.node = node;
+    }
+
+    /**
+     * @return true iff this root currently represents a node.
+     */
+    boolean isAttached() {
+        return node != null;
+    }
+
+    @Override
+    public int getDegree() {
+        return node.getDegree();
+    }
+
+    @Override
+    public int getDegree(String typeOrDirection) {
+        try {
+            return node.getDegree(valueOf(typeOrDirection.toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            return node.getDegree(withName(typeOrDirection));
+        }
+    }
+
+    @Override
+    public int getDegree(String type, String direction) {
+        return node.getDegree(withName(type), valueOf(direction.toUpperCase()));
+    }
+
+    @Override
+    public boolean hasLabel(String label) {
+        return node.hasLabel(Label.label(label));
+    }
+
+    @Override
+    public String[] getLabels() {
+        List<String> labels = new LinkedList<>();
+        for (Label label : node.getLabels()) {
+            labels.add(label.name());
+        }
+        return labels.toArray(new String[0]);
+    }
+
+    @Override
+    public Map<String, Object> getProperties() {
+        return node.getAllProperties();
+    }
+
+    @Override
+    public boolean hasProperty(String key) {
+        return node.hasProperty(key);
+    }
+
+    @Override
+    public Object getProperty(String key) {
+        return node.getProperty(key, null);
+    }
+
+    @Override
+    public Object getProperty(String key, Object defaultValue) {
+        return node.getProperty(key, defaultValue);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        NodeRoot that = (NodeRoot) o;
+
+        return node != null ? node.equals(that.node) : that.node == null;
+    }
+
+    @Override
+    public int hashCode() {
+        return node != null ? node.hashCode() : 0;
+    }
+}
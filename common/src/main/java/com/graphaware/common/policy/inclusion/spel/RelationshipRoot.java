@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.common.policy.inclusion.spel;
+
+import com.graphaware.common.representation.AttachedNode;
+import com.graphaware.common.representation.AttachedRelationship;
+import com.graphaware.common.util.DirectionUtils;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.Map;
+
+import static org.neo4j.graphdb.Direction.INCOMING;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+
+/**
+ * Re-attachable {@link AttachedRelationship}, optionally looked at from the point of view of one of its nodes, used as
+ * the root object (or a part of it) of SPEL expressions, so that no wrappers are allocated per evaluated relationship.
+ * It extends {@link AttachedRelationship} only so that compiled expressions can call its methods through a public class;
+ * all of them are overridden to read the currently attached relationship.
+ * <p/>
+ * Start, end, other and point-of-view nodes are {@link NodeRoot}s owned by this root and re-attached on every call,
+ * and the direction of the relationship from the point of view is resolved at most once per attached relationship.
+ * Like this root, they are only valid until it is re-attached and must not be shared between threads or leak out of an
+ * evaluation.
+ */
+class RelationshipRoot extends AttachedRelationship {
+
+    private static final String NO_POINT_OF_VIEW = "Relationship expression contains a direction, but no information is available as to which node is looking.";
+
+    private Relationship relationship;
+    private Node pointOfView;
+    private Direction direction;
+
+    private final NodeRoot startNode = new NodeRoot();
+    private final NodeRoot endNode = new NodeRoot();
+    private final NodeRoot pointOfViewNode = new NodeRoot();
+
+    RelationshipRoot() {
+        super(null);
+    }
+
+    /**
+     * Point this root to a different relationship.
+     *
+     * @param relationship to represent, can be <code>null</code> to release the previously represented relationship.
+     * @param pointOfView  node from whose point of view the relationship is being looked at, can be <code>null</code>.
+     */
+    void attach(Relationship relationship, Node pointOfView) {
+        this.relationship = relationship;
+        this.pointOfView = pointOfView;
+        this.direction = null;
+
+        if (relationship == null) {
+            startNode.attach(null);
+            endNode.attach(null);
+            pointOfViewNode.attach(null);
+        }
+    }
+
+    /**
+     * @return true iff this root currently represents a relationship.
+     */
+    boolean isAttached() {
+        return relationship != null;
+    }
+
+    @Override
+    public String getType() {
+        return relationship.getType().name();
+    }
+
+    @Override
+    public boolean isType(String type) {
+        return type.equals(relationship.getType().name());
+    }
+
+    @Override
+    public AttachedNode getStartNode() {
+        startNode.attach(relationship.getStartNode());
+        return startNode;
+    }
+
+    @Override
+    public AttachedNode getEndNode() {
+        endNode.attach(relationship.getEndNode());
+        return endNode;
+    }
+
+    @Override
+    public AttachedNode pointOfView() {
+        pointOfViewNode.attach(pointOfView);
+        return pointOfViewNode;
+    }
+
+    @Override
+    public AttachedNode getOtherNode() {
+        return direction("Relationship expression contains a reference to other node, but no reference is provided to this node.") == INCOMING ? getStartNode() : getEndNode();
+    }
+
+    @Override
+    public boolean isOutgoing() {
+        return direction(NO_POINT_OF_VIEW) == OUTGOING;
+    }
+
+    @Override
+    public boolean isIncoming() {
+        return direction(NO_POINT_OF_VIEW) == INCOMING;
+    }
+
+    @Override
+    public Map<String, Object> getProperties() {
+        return relationship.getAllProperties();
+    }
+
+    @Override
+    public boolean hasProperty(String key) {
+        return relationship.hasProperty(key);
+    }
+
+    @Override
+    public Object getProperty(String key) {
+        return relationship.getProperty(key, null);
+    }
+
+    @Override
+    public Object getProperty(String key, Object defaultValue) {
+        return relationship.getProperty(key, defaultValue);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        RelationshipRoot that = (RelationshipRoot) o;
+
+        return relationship != null ? relationship.equals(that.relationship) : that.relationship == null;
+    }
+
+    @Override
+    public int hashCode() {
+        return relationship != null ? relationship.hashCode() : 0;
+    }
+
+    /**
+     * Resolve the direction of the represented relationship from the point of view, {@link Direction#OUTGOING} for
+     * relationships to self.
+     *
+     * @param noPointOfView message of the exception thrown when there is no point of view.
+     * @return direction.
+     * @throws IllegalStateException if there is no point of view or it isn't on either end of the relationship.
+     */
+    private Direction direction(String noPointOfView) {
+        if (direction == null) {
+            if (pointOfView == null) {
+                throw new IllegalStateException(noPointOfView);
+            }
+            try {
+                direction = DirectionUtils.resolveDirection(relationship, pointOfView, OUTGOING);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Neither start node nor end node are the point of view. This is a bug", e);
+            }
+        }
+        return direction;
+    }
+}
@@ -0,0 +1,629 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion.spel;
+
+import org.eclipse.collections.api.iterator.LongIterator;
+import org.eclipse.collections.api.list.primitive.MutableLongList;
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.graphdb.schema.IndexType;
+import org.neo4j.graphdb.schema.Schema;
+import org.neo4j.internal.helpers.collection.FilteringIterator;
+import org.neo4j.internal.helpers.collection.Iterables;
+import org.neo4j.internal.helpers.collection.Iterators;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.Literal;
+import org.springframework.expression.spel.ast.MethodReference;
+import org.springframework.expression.spel.ast.OpAnd;
+import org.springframework.expression.spel.ast.OpEQ;
+import org.springframework.expression.spel.ast.OpGE;
+import org.springframework.expression.spel.ast.OpGT;
+import org.springframework.expression.spel.ast.OpLE;
+import org.springframework.expression.spel.ast.OpLT;
+import org.springframework.expression.spel.ast.OpMinus;
+import org.springframework.expression.spel.ast.OpOr;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.StringLiteral;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Collections.singletonMap;
+
+/**
+ * Analyses the AST of SPEL expressions used by {@link SpelNodeInclusionPolicy} and {@link SpelRelationshipInclusionPolicy}
+ * and works out the cheapest way of finding candidate entities in the database, so that policies don't have to
+ * evaluate their expressions against every single entity in the database in their <code>getAll</code> methods.
+ * <p>
+ * Planned access paths always return a superset of the entities included by the expression; the expression itself
+ * must be applied as a residual predicate on top, unless the path is {@link NodeAccessPath#isExact() exact}.
+ */
+final class SpelAccessPlanner {
+
+    private SpelAccessPlanner() {
+    }
+
+    /**
+     * Plan access to nodes included by an expression. Recognised are <code>hasLabel('L')</code> (label scan),
+     * <code>hasLabel('L') && getProperty('p') == 'v'</code> (index seek or label scan filtered by Neo4j),
+     * comparisons of property values with literals using <code>&gt;, &gt;=, &lt;, &lt;=</code> combined with a label
+     * (index range seek if a suitable index exists, label scan otherwise), conjunctions (the cheapest of the conjuncts'
+     * paths at the time of execution) and disjunctions (union of the disjuncts' paths) of the above.
+     *
+     * @param expression root of the expression's AST.
+     * @return access path, <code>null</code> if there is no better way than scanning all nodes.
+     */
+    static NodeAccessPath planNodes(SpelNode expression) {
+        if (expression instanceof OpOr) {
+            List<NodeAccessPath> paths = new ArrayList<>();
+            for (SpelNode disjunct : flatten(expression, OpOr.class)) {
+                NodeAccessPath path = planNodes(disjunct);
+                if (path == null) {
+                    return null;
+                }
+                paths.add(path);
+            }
+            return new Union(paths);
+        }
+
+        if (expression instanceof OpAnd) {
+            List<SpelNode> conjuncts = flatten(expression, OpAnd.class);
+            List<NodeAccessPath> candidates = new ArrayList<>();
+            List<String> labels = new ArrayList<>();
+
+            for (SpelNode conjunct : conjuncts) {
+                String label = label(conjunct);
+                if (label != null) {
+                    labels.add(label);
+                }
+
+                NodeAccessPath path = planNodes(conjunct);
+                if (path != null) {
+                    candidates.add(path);
+                }
+            }
+
+            for (SpelNode conjunct : conjuncts) {
+                PropertyPredicate predicate = PropertyPredicate.parse(conjunct);
+                if (predicate != null) {
+                    for (String label : labels) {
+                        candidates.add(predicate.operator == Operator.EQ ? new IndexSeek(label, predicate) : new RangeSeek(label, predicate));
+                    }
+                }
+            }
+
+            if (candidates.isEmpty()) {
+                return null;
+            }
+
+            return new Intersection(candidates);
+        }
+
+        String label = label(expression);
+        if (label != null) {
+            return new LabelScan(label);
+        }
+
+        return null;
+    }
+
+    /**
+     * Plan access to relationships included by an expression. Recognised are <code>isType('T')</code>,
+     * <code>type == 'T'</code> and <code>getType() == 'T'</code>, as well as conjunctions and disjunctions of those.
+     *
+     * @param expression root of the expression's AST.
+     * @return names of relationship types at least one of which an included relationship must have, <code>null</code>
+     * if the expression does not restrict relationship types.
+     */
+    static Set<String> planRelationshipTypes(SpelNode expression) {
+        if (expression instanceof OpOr) {
+            Set<String> result = new HashSet<>();
+            for (SpelNode disjunct : flatten(expression, OpOr.class)) {
+                Set<String> types = planRelationshipTypes(disjunct);
+                if (types == null) {
+                    return null;
+                }
+                result.addAll(types);
+            }
+            return result;
+        }
+
+        if (expression instanceof OpAnd) {
+            Set<String> result = null;
+            for (SpelNode conjunct : flatten(expression, OpAnd.class)) {
+                Set<String> types = planRelationshipTypes(conjunct);
+                if (types != null) {
+                    if (result == null) {
+                        result = new HashSet<>(types);
+                    } else {
+                        result.retainAll(types);
+                    }
+                }
+            }
+            return result;
+        }
+
+        if (isMethod(expression, "isType", 1) && expression.getChild(0) instanceof StringLiteral) {
+            return Collections.singleton(string(expression.getChild(0)));
+        }
+
+        if (expression instanceof OpEQ) {
+            for (int i = 0; i < 2; i++) {
+                SpelNode type = expression.getChild(i);
+                SpelNode literal = expression.getChild(1 - i);
+                if ((isMethod(type, "getType", 0) || isProperty(type, "type")) && literal instanceof StringLiteral) {
+                    return Collections.singleton(string(literal));
+                }
+            }
+        }
+
+        return null;
+    }
+
+    static List<SpelNode> flatten(SpelNode expression, Class<? extends SpelNode> operator) {
+        List<SpelNode> result = new ArrayList<>();
+        for (int i = 0; i < expression.getChildCount(); i++) {
+            SpelNode child = expression.getChild(i);
+            if (operator.isInstance(child)) {
+                result.addAll(flatten(child, operator));
+            } else {
+                result.add(child);
+            }
+        }
+        return result;
+    }
+
+    private static String label(SpelNode expression) {
+        if (isMethod(expression, "hasLabel", 1) && expression.getChild(0) instanceof StringLiteral) {
+            return string(expression.getChild(0));
+        }
+        return null;
+    }
+
+    static boolean isMethod(SpelNode node, String name, int arguments) {
+        return node instanceof MethodReference && ((MethodReference) node).getName().equals(name) && node.getChildCount() == arguments;
+    }
+
+    static boolean isProperty(SpelNode node, String name) {
+        return node instanceof PropertyOrFieldReference && ((PropertyOrFieldReference) node).getName().equals(name);
+    }
+
+    static String string(SpelNode literal) {
+        return (String) ((StringLiteral) literal).getLiteralValue().getValue();
+    }
+
+    static final Object NOT_A_LITERAL = new Object();
+
+    static Object literal(SpelNode node) {
+        if (node instanceof Literal) {
+            return ((Literal) node).getLiteralValue().getValue();
+        }
+
+        //negative numbers are represented as unary minus
+        if (node instanceof OpMinus && node.getChildCount() == 1 && node.getChild(0) instanceof Literal) {
+            Object value = literal(node.getChild(0));
+            if (value instanceof Integer) {
+                return -(Integer) value;
+            }
+            if (value instanceof Long) {
+                return -(Long) value;
+            }
+            if (value instanceof Double) {
+                return -(Double) value;
+            }
+            if (value instanceof Float) {
+                return -(Float) value;
+            }
+        }
+
+        return NOT_A_LITERAL;
+    }
+
+    private static String escape(String name) {
+        return "`" + name.replace("`", "``") + "`";
+    }
+
+    private static boolean hasOnlineIndex(Transaction tx, String label, String key) {
+        Schema schema = tx.schema();
+        for (IndexDefinition index : schema.getIndexes(Label.label(label))) {
+            if (index.getIndexType() == IndexType.BTREE
+                    && !index.isMultiTokenIndex()
+                    && Iterables.asList(index.getPropertyKeys()).equals(Collections.singletonList(key))
+                    && schema.getIndexState(index) == Schema.IndexState.ONLINE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long countNodes(Transaction tx, String label) {
+        //served from the counts store, no scan involved
+        try (Result result = tx.execute("MATCH (n:" + escape(label) + ") RETURN count(n) AS c")) {
+            return (Long) Iterators.single(result.columnAs("c"));
+        }
+    }
+
+    /**
+     * Comparison operators recognised by the planner.
+     */
+    enum Operator {
+        EQ("="), GT(">"), GE(">="), LT("<"), LE("<=");
+
+        final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Operator of(SpelNode node) {
+            if (node instanceof OpEQ) return EQ;
+            if (node instanceof OpGT) return GT;
+            if (node instanceof OpGE) return GE;
+            if (node instanceof OpLT) return LT;
+            if (node instanceof OpLE) return LE;
+            return null;
+        }
+
+        Operator flip() {
+            switch (this) {
+                case GT:
+                    return LT;
+                case GE:
+                    return LE;
+                case LT:
+                    return GT;
+                case LE:
+                    return GE;
+                default:
+                    return this;
+            }
+        }
+
+        /**
+         * Evaluate the operator the way SPEL does for the values the planner deals with.
+         *
+         * @return result of the comparison, <code>null</code> if unknown.
+         */
+        Boolean test(Object left, Object right) {
+            if (right == null) {
+                return null;
+            }
+
+            int comparison;
+            if (left == null) {
+                comparison = -1; //SPEL considers null smaller than anything
+            } else if (left instanceof Number && right instanceof Number) {
+                comparison = Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+            } else if (left instanceof String && right instanceof String) {
+                comparison = ((String) left).compareTo((String) right);
+            } else {
+                return null;
+            }
+
+            switch (this) {
+                case EQ:
+                    return comparison == 0;
+                case GT:
+                    return comparison > 0;
+                case GE:
+                    return comparison >= 0;
+                case LT:
+                    return comparison < 0;
+                default:
+                    return comparison <= 0;
+            }
+        }
+    }
+
+    /**
+     * A comparison of a property value with a literal, such as <code>getProperty('age', 0) &gt; 18</code>, that can
+     * only be true for nodes that have the property.
+     */
+    static class PropertyPredicate {
+
+        private final String key;
+        private final Operator operator;
+        private final Object value;
+
+        private PropertyPredicate(String key, Operator operator, Object value) {
+            this.key = key;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        static PropertyPredicate parse(SpelNode node) {
+            Operator operator = Operator.of(node);
+            if (operator == null) {
+                return null;
+            }
+
+            for (int i = 0; i < 2; i++) {
+                SpelNode property = node.getChild(i);
+                Object value = literal(node.getChild(1 - i));
+
+                if (value == NOT_A_LITERAL || !(property instanceof MethodReference) || !((MethodReference) property).getName().equals("getProperty")) {
+                    continue;
+                }
+
+                if (property.getChildCount() < 1 || property.getChildCount() > 2 || !(property.getChild(0) instanceof StringLiteral)) {
+                    return null;
+                }
+
+                Operator actualOperator = i == 0 ? operator : operator.flip();
+
+                //value used for nodes without the property must not satisfy the predicate
+                Object absentValue = property.getChildCount() == 2 ? literal(property.getChild(1)) : null;
+                if (absentValue == NOT_A_LITERAL || !Boolean.FALSE.equals(actualOperator.test(absentValue, value))) {
+                    return null;
+                }
+
+                return new PropertyPredicate(string(property.getChild(0)), actualOperator, value);
+            }
+
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return key + " " + operator.symbol + " " + value;
+        }
+    }
+
+    /**
+     * A way of finding candidate nodes.
+     */
+    interface NodeAccessPath {
+
+        /**
+         * @param tx transaction.
+         * @return candidate nodes.
+         */
+        Iterable<Node> nodes(Transaction tx);
+
+        /**
+         * @param tx transaction.
+         * @return rough estimate of the number of nodes that will be returned.
+         */
+        long estimate(Transaction tx);
+
+        /**
+         * @return true iff the returned nodes are exactly those included by the planned expression.
+         */
+        boolean isExact();
+    }
+
+    static class LabelScan implements NodeAccessPath {
+
+        private final String label;
+
+        LabelScan(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public Iterable<Node> nodes(Transaction tx) {
+            return () -> tx.findNodes(Label.label(label));
+        }
+
+        @Override
+        public long estimate(Transaction tx) {
+            return countNodes(tx, label);
+        }
+
+        @Override
+        public boolean isExact() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "LabelScan(" + label + ")";
+        }
+    }
+
+    static class IndexSeek implements NodeAccessPath {
+
+        private final String label;
+        private final PropertyPredicate predicate;
+
+        IndexSeek(String label, PropertyPredicate predicate) {
+            this.label = label;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public Iterable<Node> nodes(Transaction tx) {
+            //Neo4j uses an index if there is one, otherwise it filters the label scan without us loading the nodes
+            return () -> tx.findNodes(Label.label(label), predicate.key, predicate.value);
+        }
+
+        @Override
+        public long estimate(Transaction tx) {
+            return hasOnlineIndex(tx, label, predicate.key) ? 1 : countNodes(tx, label);
+        }
+
+        @Override
+        public boolean isExact() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "IndexSeek(" + label + ", " + predicate + ")";
+        }
+    }
+
+    static class RangeSeek implements NodeAccessPath {
+
+        private final String label;
+        private final PropertyPredicate predicate;
+
+        RangeSeek(String label, PropertyPredicate predicate) {
+            this.label = label;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public Iterable<Node> nodes(Transaction tx) {
+            if (!hasOnlineIndex(tx, label, predicate.key)) {
+                return () -> tx.findNodes(Label.label(label));
+            }
+
+            //IDs are read eagerly, so that the result is closed even if the returned nodes aren't fully iterated
+            String query = "MATCH (n:" + escape(label) + ") WHERE n." + escape(predicate.key) + " " + predicate.operator.symbol + " $value RETURN id(n) AS id";
+            return () -> {
+                MutableLongList ids = new LongArrayList();
+                try (Result result = tx.execute(query, singletonMap("value", predicate.value))) {
+                    result.<Long>columnAs("id").forEachRemaining(ids::add);
+                }
+                LongIterator iterator = ids.longIterator();
+                return new Iterator<Node>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Node next() {
+                        return tx.getNodeById(iterator.next());
+                    }
+                };
+            };
+        }
+
+        @Override
+        public long estimate(Transaction tx) {
+            long count = countNodes(tx, label);
+            return hasOnlineIndex(tx, label, predicate.key) ? count / 3 : count;
+        }
+
+        @Override
+        public boolean isExact() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "RangeSeek(" + label + ", " + predicate + ")";
+        }
+    }
+
+    /**
+     * Union of access paths, each node returned at most once.
+     */
+    static class Union implements NodeAccessPath {
+
+        private final List<NodeAccessPath> paths;
+
+        Union(List<NodeAccessPath> paths) {
+            this.paths = paths;
+        }
+
+        @Override
+        public Iterable<Node> nodes(Transaction tx) {
+            return () -> {
+                List<Iterator<Node>> iterators = new ArrayList<>();
+                for (NodeAccessPath path : paths) {
+                    iterators.add(path.nodes(tx).iterator());
+                }
+                MutableLongSet seen = new LongHashSet();
+                return new FilteringIterator<>(Iterators.concat(iterators.iterator()), node -> seen.add(node.getId()));
+            };
+        }
+
+        @Override
+        public long estimate(Transaction tx) {
+            long result = 0;
+            for (NodeAccessPath path : paths) {
+                result += path.estimate(tx);
+            }
+            return result;
+        }
+
+        @Override
+        public boolean isExact() {
+            for (NodeAccessPath path : paths) {
+                if (!path.isExact()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "Union" + paths;
+        }
+    }
+
+    /**
+     * Intersection of access paths. Since the residual predicate is applied anyway, only the path estimated to be the
+     * cheapest is used. Estimates are computed every time the plan is executed, since plans are shared across databases
+     * and the availability of indexes changes over time.
+     */
+    static class Intersection implements NodeAccessPath {
+
+        private final List<NodeAccessPath> paths;
+
+        Intersection(List<NodeAccessPath> paths) {
+            this.paths = paths;
+        }
+
+        @Override
+        public Iterable<Node> nodes(Transaction tx) {
+            NodeAccessPath cheapest = null;
+            long lowest = Long.MAX_VALUE;
+            for (NodeAccessPath path : paths) {
+                long estimate = path.estimate(tx);
+                if (cheapest == null || estimate < lowest) {
+                    lowest = estimate;
+                    cheapest = path;
+                }
+            }
+            return cheapest.nodes(tx);
+        }
+
+        @Override
+        public long estimate(Transaction tx) {
+            long lowest = Long.MAX_VALUE;
+            for (NodeAccessPath path : paths) {
+                lowest = Math.min(lowest, path.estimate(tx));
+            }
+            return lowest;
+        }
+
+        @Override
+        public boolean isExact() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "Intersection" + paths;
+        }
+    }
+}
@@ -17,26 +17,73 @@
 package com.graphaware.common.policy.inclusion.spel;
 
 import com.graphaware.common.policy.inclusion.ObjectInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
 import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 
 /**
  * Abstract base-class for {@link ObjectInclusionPolicy} implementations that are based on
  * SPEL expressions.
+ * <p>
+ * Expressions are evaluated in {@link SpelCompilerMode#MIXED} mode, i.e. they are interpreted at first and compiled to
+ * bytecode once they have been evaluated a number of times. Should compilation fail (e.g. because the expression
+ * compares untyped property values), or should a compiled expression fail at runtime, evaluation falls back to
+ * interpretation. Should the compiled class fail to load (a {@link LinkageError}, which the SpEL compiler produces for
+ * some expressions), the expression is interpreted from then on. Subclasses evaluate expressions against per-thread
+ * root objects that are re-used across calls, so that no wrappers are allocated per evaluated entity.
  */
 public abstract class SpelInclusionPolicy {
 
+    private static final SpelParserConfiguration CONFIGURATION = new SpelParserConfiguration(SpelCompilerMode.MIXED, SpelInclusionPolicy.class.getClassLoader());
+
     protected transient final Expression exp;
     protected transient final SpelNode expressionNode;
+    private transient final ReadSet readSet;
+    private transient volatile Expression interpreted;
 
     private final String expression;
 
     protected SpelInclusionPolicy(String expression) {
-        SpelExpressionParser parser = new SpelExpressionParser();
+        SpelExpressionParser parser = new SpelExpressionParser(CONFIGURATION);
         this.expression = expression;
         this.expressionNode = parser.parseRaw(expression).getAST();
         this.exp = parser.parseExpression(expression);
+        this.readSet = SpelReadSetAnalyzer.analyze(expressionNode);
+    }
+
+    /**
+     * Get the data the expression reads, worked out by analysing the expression.
+     *
+     * @return read set.
+     */
+    public ReadSet getReadSet() {
+        return readSet;
+    }
+
+    /**
+     * Evaluate the expression.
+     *
+     * @param root object to evaluate the expression against.
+     * @return result of the evaluation.
+     */
+    protected boolean evaluate(Object root) {
+        if (interpreted != null) {
+            return (Boolean) interpreted.getValue(root);
+        }
+
+        try {
+            return (Boolean) exp.getValue(root);
+        } catch (IllegalStateException e) {
+            if (!(e.getCause() instanceof LinkageError)) {
+                throw e;
+            }
+
+            interpreted = new SpelExpressionParser().parseExpression(expression);
+            return (Boolean) interpreted.getValue(root);
+        }
     }
 
     @Override
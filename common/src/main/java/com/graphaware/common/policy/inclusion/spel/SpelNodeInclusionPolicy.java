@@ -19,41 +19,78 @@ package com.graphaware.common.policy.inclusion.spel;
 import com.graphaware.common.expression.AttachedNodeExpressions;
 import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
 import com.graphaware.common.representation.AttachedNode;
-import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.internal.helpers.collection.FilteringIterable;
+import org.neo4j.internal.helpers.collection.FilteringIterator;
+
+import java.util.BitSet;
+import java.util.List;
 
 /**
  * {@link NodeInclusionPolicy} based on a SPEL expression. The expression can use methods defined in {@link AttachedNodeExpressions}.
+ * <p>
+ * {@link #getAll(Transaction)} uses labels and property comparisons found in the expression to find candidate nodes
+ * using label scans and index seeks where possible, rather than evaluating the expression against all nodes.
  */
 public class SpelNodeInclusionPolicy extends SpelInclusionPolicy implements NodeInclusionPolicy {
 
+    private static final ThreadLocal<NodeRoot> ROOT = ThreadLocal.withInitial(NodeRoot::new);
+
+    private transient final SpelAccessPlanner.NodeAccessPath accessPath;
+
     public SpelNodeInclusionPolicy(String expression) {
         super(expression);
+        accessPath = SpelAccessPlanner.planNodes(expressionNode);
     }
 
     @Override
     public boolean include(Node node) {
-        return (Boolean) exp.getValue(new AttachedNode(node));
+        NodeRoot root = ROOT.get();
+        if (root.isAttached()) {
+            //re-entrant evaluation (e.g. the entity itself applies inclusion policies), cannot re-use the root
+            return evaluate(new AttachedNode(node));
+        }
+
+        root.attach(node);
+        try {
+            return evaluate(root);
+        } finally {
+            root.attach(null);
+        }
     }
 
     @Override
-    public Iterable<Node> getAll(Transaction tx) {
-        //In simple cases, we can fetch nodes using more efficient native syntax
-        if(expressionNode.toStringAST().startsWith("hasLabel")) {
-            String labelName = stripWrappingQuotes(expressionNode.getChild(0).toStringAST());
-            return () -> tx.findNodes(Label.label(labelName));
+    public BitSet includeBatch(List<? extends Node> nodes) {
+        NodeRoot root = ROOT.get();
+        if (root.isAttached()) {
+            return NodeInclusionPolicy.super.includeBatch(nodes);
         }
 
-        return new FilteringIterable<>(tx.getAllNodes(), this::include);
+        BitSet result = new BitSet(nodes.size());
+        try {
+            for (int i = 0; i < nodes.size(); i++) {
+                root.attach(nodes.get(i));
+                if (evaluate(root)) {
+                    result.set(i);
+                }
+            }
+        } finally {
+            root.attach(null);
+        }
+        return result;
     }
 
-    private String stripWrappingQuotes(String s) {
-        if(s.startsWith("\"") || s.startsWith("\'")) {
-            return s.substring(1, s.length() - 1);
+    @Override
+    public Iterable<Node> getAll(Transaction tx) {
+        if (accessPath == null) {
+            return new FilteringIterable<>(tx.getAllNodes(), this::include);
+        }
+
+        if (accessPath.isExact()) {
+            return accessPath.nodes(tx);
         }
-        return s;
+
+        return () -> new FilteringIterator<>(accessPath.nodes(tx).iterator(), this::include);
     }
 }
@@ -28,12 +28,25 @@ import org.neo4j.graphdb.Node;
  */
 public class SpelNodePropertyInclusionPolicy extends SpelInclusionPolicy implements NodePropertyInclusionPolicy {
 
+    private static final ThreadLocal<NodePropertyRoot> ROOT = ThreadLocal.withInitial(NodePropertyRoot::new);
+
     public SpelNodePropertyInclusionPolicy(String expression) {
         super(expression);
     }
 
     @Override
     public boolean include(String key, Node node) {
-        return (Boolean) exp.getValue(new AttachedNodeProperty(key, new AttachedNode(node)));
+        NodePropertyRoot root = ROOT.get();
+        if (root.isAttached()) {
+            //re-entrant evaluation (e.g. the entity itself applies inclusion policies), cannot re-use the root
+            return evaluate(new AttachedNodeProperty(key, new AttachedNode(node)));
+        }
+
+        root.attach(key, node);
+        try {
+            return evaluate(root);
+        } finally {
+            root.attach(null, null);
+        }
     }
 }
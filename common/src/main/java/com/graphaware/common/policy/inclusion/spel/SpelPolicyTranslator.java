@@ -0,0 +1,669 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion.spel;
+
+import com.graphaware.common.description.predicate.Predicate;
+import com.graphaware.common.policy.inclusion.BaseNodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.BaseRelationshipInclusionPolicy;
+import com.graphaware.common.policy.inclusion.InclusionPolicy;
+import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
+import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
+import com.graphaware.common.policy.inclusion.composite.CompositeNodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.composite.CompositeRelationshipInclusionPolicy;
+import com.graphaware.common.policy.inclusion.fluent.IncludeNodes;
+import com.graphaware.common.policy.inclusion.fluent.IncludeRelationships;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.OpAnd;
+import org.springframework.expression.spel.ast.OpEQ;
+import org.springframework.expression.spel.ast.OpOr;
+import org.springframework.expression.spel.ast.StringLiteral;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.graphaware.common.description.predicate.Predicates.equalTo;
+import static com.graphaware.common.description.predicate.Predicates.greaterThan;
+import static com.graphaware.common.description.predicate.Predicates.greaterThanOrEqualTo;
+import static com.graphaware.common.policy.inclusion.spel.SpelAccessPlanner.NOT_A_LITERAL;
+import static com.graphaware.common.policy.inclusion.spel.SpelAccessPlanner.flatten;
+import static com.graphaware.common.policy.inclusion.spel.SpelAccessPlanner.isMethod;
+import static com.graphaware.common.policy.inclusion.spel.SpelAccessPlanner.isProperty;
+import static com.graphaware.common.policy.inclusion.spel.SpelAccessPlanner.literal;
+import static com.graphaware.common.policy.inclusion.spel.SpelAccessPlanner.string;
+
+/**
+ * Translates simple SPEL expressions, which would otherwise be used by {@link SpelNodeInclusionPolicy} and
+ * {@link SpelRelationshipInclusionPolicy}, into equivalent native (fluent and composite) policies that don't need
+ * to evaluate any SPEL.
+ * <p>
+ * Recognised are <code>hasLabel('L')</code> for nodes; <code>isType('T')</code>, <code>type == 'T'</code> and
+ * <code>getType() == 'T'</code> for relationships; <code>getProperty('p') == 'v'</code> with a String or boolean
+ * literal, <code>getProperty('p') &gt; 'v'</code> and <code>getProperty('p') &gt;= 'v'</code> with a String literal
+ * (or the same with operands swapped) for both; comparisons of <code>degree</code>, <code>getDegree()</code>,
+ * <code>getDegree('typeOrDirection')</code> and <code>getDegree('type', 'direction')</code> with integer literals for
+ * nodes; and conjunctions and disjunctions of all of the above.
+ * <p>
+ * Comparisons of property values with numeric literals are deliberately not translated, because SPEL compares numbers
+ * of different types (e.g. an <code>int</code> literal and a <code>long</code> property) by value, whereas property
+ * value predicates don't. Neither are comparisons that are true for entities without the property in question
+ * (<code>&lt;</code>, <code>&lt;=</code>, <code>!=</code>). Translated policies include exactly the same entities as
+ * the expressions they were translated from, except that where evaluating the expression would fail (e.g. comparing
+ * a String with a number), the entity is simply not included. Property values that property value predicates don't
+ * support (e.g. temporal or spatial values) never satisfy a translated comparison, just like they are never equal to
+ * a String or boolean literal in SPEL.
+ */
+public final class SpelPolicyTranslator {
+
+    private SpelPolicyTranslator() {
+    }
+
+    /**
+     * Translate a SPEL expression for nodes into a native policy.
+     *
+     * @param expression to translate.
+     * @return equivalent native policy, <code>null</code> if the expression can't be translated.
+     */
+    public static NodeInclusionPolicy translateNodePolicy(String expression) {
+        SpelNode ast = parse(expression);
+        return ast == null ? null : node(ast);
+    }
+
+    /**
+     * Translate a SPEL expression for relationships into a native policy.
+     *
+     * @param expression to translate.
+     * @return equivalent native policy, <code>null</code> if the expression can't be translated.
+     */
+    public static RelationshipInclusionPolicy translateRelationshipPolicy(String expression) {
+        SpelNode ast = parse(expression);
+        return ast == null ? null : relationship(ast);
+    }
+
+    private static SpelNode parse(String expression) {
+        try {
+            return new SpelExpressionParser().parseRaw(expression).getAST();
+        } catch (ParseException e) {
+            //leave it to the SPEL policy to report the problem
+            return null;
+        }
+    }
+
+    private static NodeInclusionPolicy node(SpelNode expression) {
+        if (expression instanceof OpOr) {
+            List<NodeInclusionPolicy> disjuncts = new ArrayList<>();
+            for (SpelNode disjunct : flatten(expression, OpOr.class)) {
+                NodeInclusionPolicy policy = node(disjunct);
+                if (policy == null) {
+                    return null;
+                }
+                disjuncts.add(policy);
+            }
+            return new AnyNodeInclusionPolicy(disjuncts.toArray(new NodeInclusionPolicy[0]));
+        }
+
+        if (expression instanceof OpAnd) {
+            List<NodeInclusionPolicy> conjuncts = new ArrayList<>();
+            for (SpelNode conjunct : flatten(expression, OpAnd.class)) {
+                NodeInclusionPolicy policy = node(conjunct);
+                if (policy == null) {
+                    return null;
+                }
+                conjuncts.add(policy);
+            }
+            return nodeConjunction(conjuncts);
+        }
+
+        if (isMethod(expression, "hasLabel", 1) && expression.getChild(0) instanceof StringLiteral) {
+            return IncludeNodes.all().with(string(expression.getChild(0)));
+        }
+
+        PropertyCondition condition = PropertyCondition.parse(expression);
+        if (condition != null) {
+            return IncludeNodes.all().with(condition.key, condition.predicate);
+        }
+
+        return DegreeInclusionPolicy.parse(expression);
+    }
+
+    private static NodeInclusionPolicy nodeConjunction(List<NodeInclusionPolicy> conjuncts) {
+        IncludeNodes merged = null;
+        List<NodeInclusionPolicy> others = new ArrayList<>();
+
+        for (NodeInclusionPolicy conjunct : conjuncts) {
+            if (conjunct instanceof IncludeNodes && canMerge(merged, (IncludeNodes) conjunct)) {
+                merged = merge(merged, (IncludeNodes) conjunct);
+            } else {
+                others.add(conjunct);
+            }
+        }
+
+        if (others.isEmpty()) {
+            return merged;
+        }
+
+        if (merged != null) {
+            others.add(0, merged);
+        }
+
+        return CompositeNodeInclusionPolicy.of(others.toArray(new NodeInclusionPolicy[0]));
+    }
+
+    private static boolean canMerge(IncludeNodes merged, IncludeNodes policy) {
+        if (merged == null) {
+            return true;
+        }
+
+        if (merged.getLabel() != null && policy.getLabel() != null && !merged.getLabel().equals(policy.getLabel())) {
+            return false;
+        }
+
+        return disjointKeys(merged.getPropertiesDescription().getKeys(), policy.getPropertiesDescription().getKeys());
+    }
+
+    private static IncludeNodes merge(IncludeNodes merged, IncludeNodes policy) {
+        if (merged == null) {
+            return policy;
+        }
+
+        IncludeNodes result = policy.getLabel() != null ? merged.with(policy.getLabel()) : merged;
+        for (String key : policy.getPropertiesDescription().getKeys()) {
+            result = result.with(key, policy.getPropertiesDescription().get(key));
+        }
+        return result;
+    }
+
+    private static RelationshipInclusionPolicy relationship(SpelNode expression) {
+        if (expression instanceof OpOr) {
+            List<RelationshipInclusionPolicy> disjuncts = new ArrayList<>();
+            for (SpelNode disjunct : flatten(expression, OpOr.class)) {
+                RelationshipInclusionPolicy policy = relationship(disjunct);
+                if (policy == null) {
+                    return null;
+                }
+                disjuncts.add(policy);
+            }
+            return relationshipDisjunction(disjuncts);
+        }
+
+        if (expression instanceof OpAnd) {
+            List<RelationshipInclusionPolicy> conjuncts = new ArrayList<>();
+            for (SpelNode conjunct : flatten(expression, OpAnd.class)) {
+                RelationshipInclusionPolicy policy = relationship(conjunct);
+                if (policy == null) {
+                    return null;
+                }
+                conjuncts.add(policy);
+            }
+            return relationshipConjunction(conjuncts);
+        }
+
+        String type = type(expression);
+        if (type != null) {
+            return IncludeRelationships.all().with(type);
+        }
+
+        PropertyCondition condition = PropertyCondition.parse(expression);
+        if (condition != null) {
+            return IncludeRelationships.all().with(condition.key, condition.predicate);
+        }
+
+        return null;
+    }
+
+    private static RelationshipInclusionPolicy relationshipDisjunction(List<RelationshipInclusionPolicy> disjuncts) {
+        //a disjunction of type checks is a single policy with multiple types
+        Set<String> types = new LinkedHashSet<>();
+        for (RelationshipInclusionPolicy disjunct : disjuncts) {
+            if (!isTypeCheck(disjunct)) {
+                return new AnyRelationshipInclusionPolicy(disjuncts.toArray(new RelationshipInclusionPolicy[0]));
+            }
+            types.addAll(Arrays.asList(((IncludeRelationships) disjunct).getRelationshipTypes()));
+        }
+
+        return IncludeRelationships.all().with(types.toArray(new String[0]));
+    }
+
+    private static boolean isTypeCheck(RelationshipInclusionPolicy policy) {
+        return policy instanceof IncludeRelationships
+                && ((IncludeRelationships) policy).getRelationshipTypes().length > 0
+                && !((IncludeRelationships) policy).getPropertiesDescription().getKeys().iterator().hasNext();
+    }
+
+    private static RelationshipInclusionPolicy relationshipConjunction(List<RelationshipInclusionPolicy> conjuncts) {
+        IncludeRelationships merged = null;
+        List<RelationshipInclusionPolicy> others = new ArrayList<>();
+
+        for (RelationshipInclusionPolicy conjunct : conjuncts) {
+            if (conjunct instanceof IncludeRelationships && canMerge(merged, (IncludeRelationships) conjunct)) {
+                merged = merge(merged, (IncludeRelationships) conjunct);
+            } else {
+                others.add(conjunct);
+            }
+        }
+
+        if (others.isEmpty()) {
+            return merged;
+        }
+
+        if (merged != null) {
+            others.add(0, merged);
+        }
+
+        return CompositeRelationshipInclusionPolicy.of(others.toArray(new RelationshipInclusionPolicy[0]));
+    }
+
+    private static boolean canMerge(IncludeRelationships merged, IncludeRelationships policy) {
+        if (merged == null) {
+            return true;
+        }
+
+        if (merged.getRelationshipTypes().length > 0 && policy.getRelationshipTypes().length > 0) {
+            return false;
+        }
+
+        return disjointKeys(merged.getPropertiesDescription().getKeys(), policy.getPropertiesDescription().getKeys());
+    }
+
+    private static IncludeRelationships merge(IncludeRelationships merged, IncludeRelationships policy) {
+        if (merged == null) {
+            return policy;
+        }
+
+        IncludeRelationships result = policy.getRelationshipTypes().length > 0 ? merged.with(policy.getRelationshipTypes()) : merged;
+        for (String key : policy.getPropertiesDescription().getKeys()) {
+            result = result.with(key, policy.getPropertiesDescription().get(key));
+        }
+        return result;
+    }
+
+    private static String type(SpelNode expression) {
+        if (isMethod(expression, "isType", 1) && expression.getChild(0) instanceof StringLiteral) {
+            return string(expression.getChild(0));
+        }
+
+        if (expression instanceof OpEQ) {
+            for (int i = 0; i < 2; i++) {
+                SpelNode type = expression.getChild(i);
+                SpelNode literal = expression.getChild(1 - i);
+                if ((isMethod(type, "getType", 0) || isProperty(type, "type")) && literal instanceof StringLiteral) {
+                    return string(literal);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean disjointKeys(Iterable<String> keys1, Iterable<String> keys2) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String key : keys1) {
+            keys.add(key);
+        }
+        for (String key : keys2) {
+            if (keys.contains(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A comparison of a property value with a literal that is false for entities without the property and can be
+     * expressed as a property value {@link Predicate}.
+     */
+    private static final class PropertyCondition {
+
+        private final String key;
+        private final Predicate predicate;
+
+        private PropertyCondition(String key, Predicate predicate) {
+            this.key = key;
+            this.predicate = predicate;
+        }
+
+        private static PropertyCondition parse(SpelNode node) {
+            SpelAccessPlanner.Operator operator = SpelAccessPlanner.Operator.of(node);
+            if (operator == null) {
+                return null;
+            }
+
+            for (int i = 0; i < 2; i++) {
+                SpelNode property = node.getChild(i);
+                Object value = literal(node.getChild(1 - i));
+
+                if (value == NOT_A_LITERAL || !isMethod(property, "getProperty", 1) || !(property.getChild(0) instanceof StringLiteral)) {
+                    continue;
+                }
+
+                String key = string(property.getChild(0));
+                SpelAccessPlanner.Operator actualOperator = i == 0 ? operator : operator.flip();
+
+                if (value instanceof Boolean && actualOperator == SpelAccessPlanner.Operator.EQ) {
+                    return new PropertyCondition(key, lenient(equalTo(value)));
+                }
+
+                if (value instanceof String) {
+                    switch (actualOperator) {
+                        case EQ:
+                            return new PropertyCondition(key, lenient(equalTo(value)));
+                        case GT:
+                            return new PropertyCondition(key, lenient(greaterThan((String) value)));
+                        case GE:
+                            return new PropertyCondition(key, lenient(greaterThanOrEqualTo((String) value)));
+                        default:
+                            return null;
+                    }
+                }
+
+                return null;
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Make a property value predicate evaluate to <code>false</code> for values it doesn't support, rather than
+     * throwing an exception.
+     *
+     * @param predicate to wrap.
+     * @return lenient predicate.
+     */
+    static Predicate lenient(Predicate predicate) {
+        return new LenientPredicate(predicate);
+    }
+
+    /**
+     * {@link Predicate} that isn't satisfied by values the wrapped predicate refuses to evaluate.
+     */
+    private static final class LenientPredicate implements Predicate {
+
+        private final Predicate predicate;
+
+        private LenientPredicate(Predicate predicate) {
+            this.predicate = predicate;
+        }
+
+        private static Predicate unwrap(Predicate other) {
+            return other instanceof LenientPredicate ? ((LenientPredicate) other).predicate : other;
+        }
+
+        @Override
+        public boolean evaluate(Object beta) {
+            try {
+                return predicate.evaluate(beta);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public boolean isMoreGeneralThan(Predicate other) {
+            return predicate.isMoreGeneralThan(unwrap(other));
+        }
+
+        @Override
+        public boolean isMoreSpecificThan(Predicate other) {
+            return predicate.isMoreSpecificThan(unwrap(other));
+        }
+
+        @Override
+        public boolean isMutuallyExclusive(Predicate other) {
+            return predicate.isMutuallyExclusive(unwrap(other));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            return predicate.equals(((LenientPredicate) o).predicate);
+        }
+
+        @Override
+        public int hashCode() {
+            return predicate.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return predicate.toString();
+        }
+    }
+
+    /**
+     * {@link NodeInclusionPolicy} comparing the degree of nodes with a constant.
+     */
+    private static final class DegreeInclusionPolicy extends BaseNodeInclusionPolicy {
+
+        private final RelationshipType type;
+        private final Direction direction;
+        private final SpelAccessPlanner.Operator operator;
+        private final long value;
+
+        private DegreeInclusionPolicy(RelationshipType type, Direction direction, SpelAccessPlanner.Operator operator, long value) {
+            this.type = type;
+            this.direction = direction;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        private static DegreeInclusionPolicy parse(SpelNode node) {
+            SpelAccessPlanner.Operator operator = SpelAccessPlanner.Operator.of(node);
+            if (operator == null) {
+                return null;
+            }
+
+            for (int i = 0; i < 2; i++) {
+                SpelNode degree = node.getChild(i);
+                Object value = literal(node.getChild(1 - i));
+
+                if (!(value instanceof Integer) && !(value instanceof Long)) {
+                    continue;
+                }
+
+                SpelAccessPlanner.Operator actualOperator = i == 0 ? operator : operator.flip();
+                long longValue = ((Number) value).longValue();
+
+                if (isProperty(degree, "degree") || isMethod(degree, "getDegree", 0)) {
+                    return new DegreeInclusionPolicy(null, Direction.BOTH, actualOperator, longValue);
+                }
+
+                if (isMethod(degree, "getDegree", 1) && degree.getChild(0) instanceof StringLiteral) {
+                    String typeOrDirection = string(degree.getChild(0));
+                    Direction direction = direction(typeOrDirection);
+                    if (direction != null) {
+                        return new DegreeInclusionPolicy(null, direction, actualOperator, longValue);
+                    }
+                    return new DegreeInclusionPolicy(RelationshipType.withName(typeOrDirection), Direction.BOTH, actualOperator, longValue);
+                }
+
+                if (isMethod(degree, "getDegree", 2) && degree.getChild(0) instanceof StringLiteral && degree.getChild(1) instanceof StringLiteral) {
+                    Direction direction = direction(string(degree.getChild(1)));
+                    if (direction != null) {
+                        return new DegreeInclusionPolicy(RelationshipType.withName(string(degree.getChild(0))), direction, actualOperator, longValue);
+                    }
+                }
+
+                return null;
+            }
+
+            return null;
+        }
+
+        private static Direction direction(String direction) {
+            try {
+                return Direction.valueOf(direction.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean include(Node node) {
+            int degree = type == null ? node.getDegree(direction) : node.getDegree(type, direction);
+            return operator.test(degree, value);
+        }
+
+        @Override
+        public ReadSet getReadSet() {
+            return ReadSet.nothing().withRelatedEntities();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            DegreeInclusionPolicy that = (DegreeInclusionPolicy) o;
+
+            if (value != that.value) return false;
+            if (!Objects.equals(type, that.type)) return false;
+            if (direction != that.direction) return false;
+            return operator == that.operator;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, direction, operator, value);
+        }
+
+        @Override
+        public String toString() {
+            return "degree(" + (type == null ? "" : type.name() + ",") + direction + ") " + operator.symbol + " " + value;
+        }
+    }
+
+    /**
+     * {@link NodeInclusionPolicy} including nodes included by any of the contained policies.
+     */
+    private static final class AnyNodeInclusionPolicy extends BaseNodeInclusionPolicy {
+
+        private final NodeInclusionPolicy[] policies;
+
+        private AnyNodeInclusionPolicy(NodeInclusionPolicy[] policies) {
+            this.policies = policies;
+        }
+
+        @Override
+        public boolean include(Node node) {
+            for (NodeInclusionPolicy policy : policies) {
+                if (policy.include(node)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public ReadSet getReadSet() {
+            return readSet(policies);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            return Arrays.equals(policies, ((AnyNodeInclusionPolicy) o).policies);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(policies);
+        }
+
+        @Override
+        public String toString() {
+            return "Any" + Arrays.toString(policies);
+        }
+    }
+
+    /**
+     * {@link RelationshipInclusionPolicy} including relationships included by any of the contained policies.
+     */
+    private static final class AnyRelationshipInclusionPolicy extends BaseRelationshipInclusionPolicy {
+
+        private final RelationshipInclusionPolicy[] policies;
+
+        private AnyRelationshipInclusionPolicy(RelationshipInclusionPolicy[] policies) {
+            this.policies = policies;
+        }
+
+        @Override
+        public boolean include(Relationship relationship) {
+            for (RelationshipInclusionPolicy policy : policies) {
+                if (policy.include(relationship)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean include(Relationship relationship, Node pointOfView) {
+            for (RelationshipInclusionPolicy policy : policies) {
+                if (policy.include(relationship, pointOfView)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public ReadSet getReadSet() {
+            return readSet(policies);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            return Arrays.equals(policies, ((AnyRelationshipInclusionPolicy) o).policies);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(policies);
+        }
+
+        @Override
+        public String toString() {
+            return "Any" + Arrays.toString(policies);
+        }
+    }
+
+    private static ReadSet readSet(InclusionPolicy[] policies) {
+        ReadSet result = ReadSet.nothing();
+        for (InclusionPolicy policy : policies) {
+            result = result.union(policy.getReadSet());
+        }
+        return result;
+    }
+}
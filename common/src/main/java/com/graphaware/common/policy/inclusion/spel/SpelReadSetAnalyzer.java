@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion.spel;
+
+import com.graphaware.common.policy.inclusion.ReadSet;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.Elvis;
+import org.springframework.expression.spel.ast.Indexer;
+import org.springframework.expression.spel.ast.InlineList;
+import org.springframework.expression.spel.ast.InlineMap;
+import org.springframework.expression.spel.ast.Literal;
+import org.springframework.expression.spel.ast.MethodReference;
+import org.springframework.expression.spel.ast.Operator;
+import org.springframework.expression.spel.ast.OperatorNot;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.StringLiteral;
+import org.springframework.expression.spel.ast.Ternary;
+
+/**
+ * Works out the {@link ReadSet} of SPEL expressions used by SPEL-based inclusion policies by walking their AST.
+ * <p>
+ * Recognised are the methods (and corresponding properties) exposed to expressions by
+ * {@link com.graphaware.common.representation.AttachedNode}, {@link com.graphaware.common.representation.AttachedRelationship}
+ * and their property counterparts, called on the root object: <code>hasLabel('L')</code>, <code>hasProperty('p')</code>,
+ * <code>getProperty('p')</code> and <code>isType('T')</code> with literal arguments read the label, property, and
+ * relationship type in question, respectively; <code>labels</code>, <code>properties</code> and <code>type</code>
+ * (or the same with non-literal arguments) read all of them; degrees, start/end/other nodes and the point of view read
+ * related entities. Methods called on values of properties are assumed not to read anything. Anything else (variables,
+ * types, bean references, collection selections and projections, unknown methods,...) is assumed to read everything.
+ */
+final class SpelReadSetAnalyzer {
+
+    private SpelReadSetAnalyzer() {
+    }
+
+    /**
+     * Work out the read set of an expression.
+     *
+     * @param expression root of the expression's AST.
+     * @return read set.
+     */
+    static ReadSet analyze(SpelNode expression) {
+        if (expression instanceof CompoundExpression) {
+            return chain(expression, 0);
+        }
+
+        if (expression instanceof MethodReference || expression instanceof PropertyOrFieldReference) {
+            return member(expression);
+        }
+
+        if (expression instanceof Literal
+                || expression instanceof Operator
+                || expression instanceof OperatorNot
+                || expression instanceof Ternary
+                || expression instanceof Elvis
+                || expression instanceof InlineList
+                || expression instanceof InlineMap) {
+            return children(expression, 0);
+        }
+
+        return ReadSet.everything();
+    }
+
+    /**
+     * Work out the read set of a chain of member accesses (<code>a.b().c</code>), starting at the given element, which
+     * is applied to the root object.
+     */
+    private static ReadSet chain(SpelNode compound, int start) {
+        SpelNode head = compound.getChild(start);
+
+        if (start + 1 < compound.getChildCount() && (is(head, "node") || is(head, "relationship"))) {
+            //the entity whose property is being decided about, same as the root for our purposes
+            return chain(compound, start + 1);
+        }
+
+        ReadSet result = analyze(head);
+        for (int i = start + 1; i < compound.getChildCount(); i++) {
+            SpelNode element = compound.getChild(i);
+            if (element instanceof MethodReference || element instanceof Indexer) {
+                //called on a value, arguments are evaluated against the root object
+                result = result.union(children(element, 0));
+            } else if (!(element instanceof PropertyOrFieldReference)) {
+                return ReadSet.everything();
+            }
+        }
+        return result;
+    }
+
+    private static ReadSet member(SpelNode member) {
+        if (is(member, "hasLabel")) {
+            return literalArgument(member) ? ReadSet.nothing().withLabels(string(member.getChild(0))) : ReadSet.nothing().withAllLabels().union(children(member, 0));
+        }
+
+        if (is(member, "labels")) {
+            return ReadSet.nothing().withAllLabels();
+        }
+
+        if (is(member, "hasProperty") || is(member, "property")) {
+            if (literalArgument(member)) {
+                return ReadSet.nothing().withPropertyKeys(string(member.getChild(0))).union(children(member, 1));
+            }
+            return ReadSet.nothing().withAllPropertyKeys().union(children(member, 0));
+        }
+
+        if (is(member, "properties")) {
+            return ReadSet.nothing().withAllPropertyKeys();
+        }
+
+        if (is(member, "isType") || is(member, "type")) {
+            return literalArgument(member) ? ReadSet.nothing().withRelationshipTypes(string(member.getChild(0))) : ReadSet.nothing().withAllRelationshipTypes().union(children(member, 0));
+        }
+
+        if (is(member, "key") || is(member, "outgoing") || is(member, "incoming")) {
+            //the key of the property being decided about and the direction of the relationship do not change
+            return ReadSet.nothing();
+        }
+
+        if (is(member, "degree") || is(member, "startNode") || is(member, "endNode") || is(member, "otherNode") || is(member, "pointOfView")) {
+            return ReadSet.nothing().withRelatedEntities().union(children(member, 0));
+        }
+
+        return ReadSet.everything();
+    }
+
+    private static ReadSet children(SpelNode node, int start) {
+        ReadSet result = ReadSet.nothing();
+        for (int i = start; i < node.getChildCount(); i++) {
+            result = result.union(analyze(node.getChild(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Is the given node a reference to a member with the given name? A member is either a method called
+     * <code>name</code>, <code>getName</code>, <code>isName</code>, or a property called <code>name</code>.
+     */
+    private static boolean is(SpelNode node, String name) {
+        if (node instanceof PropertyOrFieldReference) {
+            return ((PropertyOrFieldReference) node).getName().equals(name);
+        }
+
+        if (node instanceof MethodReference) {
+            String method = ((MethodReference) node).getName();
+            if (method.equals(name)) {
+                return true;
+            }
+            String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            return method.equals("get" + capitalized) || method.equals("is" + capitalized);
+        }
+
+        return false;
+    }
+
+    private static boolean literalArgument(SpelNode member) {
+        return member instanceof MethodReference && member.getChildCount() > 0 && member.getChild(0) instanceof StringLiteral;
+    }
+
+    private static String string(SpelNode literal) {
+        return (String) ((StringLiteral) literal).getLiteralValue().getValue();
+    }
+}
@@ -19,12 +19,15 @@ package com.graphaware.common.policy.inclusion.spel;
 import com.graphaware.common.expression.AttachedRelationshipExpressions;
 import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
 import com.graphaware.common.representation.AttachedRelationship;
-import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.internal.helpers.collection.FilteringIterable;
 
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * {@link RelationshipInclusionPolicy} based on a SPEL expression. The expression can use methods defined in
  * {@link AttachedRelationshipExpressions}.
@@ -32,26 +35,77 @@ import org.neo4j.internal.helpers.collection.FilteringIterable;
  * Note that there are certain methods (like {@link AttachedRelationshipExpressions#getOtherNode()}
  * or {@link AttachedRelationshipExpressions#isOutgoing()}) that rely on providing
  * a node whose point of view the call is being made. These methods only work when calling {@link #include(org.neo4j.graphdb.Relationship, org.neo4j.graphdb.Node)}.
- * {@link IllegalArgumentException} is thrown when an incompatible method is invoked.
+ * {@link IllegalStateException} is thrown when an incompatible method is invoked.
  */
 public class SpelRelationshipInclusionPolicy extends SpelInclusionPolicy implements RelationshipInclusionPolicy {
 
+    private static final ThreadLocal<RelationshipRoot> ROOT = ThreadLocal.withInitial(RelationshipRoot::new);
+
+    private transient final Set<String> types;
+
     public SpelRelationshipInclusionPolicy(String expression) {
         super(expression);
+        types = SpelAccessPlanner.planRelationshipTypes(expressionNode);
     }
 
     @Override
     public boolean include(Relationship relationship) {
-        return (Boolean) exp.getValue(new AttachedRelationship(relationship));
+        return include(relationship, null);
     }
 
     @Override
     public boolean include(Relationship relationship, Node pointOfView) {
-        return (Boolean) exp.getValue(new AttachedRelationship(relationship, pointOfView));
+        if (types != null && !types.contains(relationship.getType().name())) {
+            return false;
+        }
+
+        RelationshipRoot root = ROOT.get();
+        if (root.isAttached()) {
+            //re-entrant evaluation (e.g. the entity itself applies inclusion policies), cannot re-use the root
+            return evaluate(new AttachedRelationship(relationship, pointOfView));
+        }
+
+        root.attach(relationship, pointOfView);
+        try {
+            return evaluate(root);
+        } finally {
+            root.attach(null, null);
+        }
+    }
+
+    @Override
+    public BitSet includeBatch(List<? extends Relationship> relationships) {
+        RelationshipRoot root = ROOT.get();
+        if (root.isAttached()) {
+            return RelationshipInclusionPolicy.super.includeBatch(relationships);
+        }
+
+        BitSet result = new BitSet(relationships.size());
+        try {
+            for (int i = 0; i < relationships.size(); i++) {
+                Relationship relationship = relationships.get(i);
+                if (types != null && !types.contains(relationship.getType().name())) {
+                    continue;
+                }
+
+                root.attach(relationship, null);
+                if (evaluate(root)) {
+                    result.set(i);
+                }
+            }
+        } finally {
+            root.attach(null, null);
+        }
+        return result;
     }
 
     @Override
     public Iterable<Relationship> getAll(Transaction tx) {
-        return new FilteringIterable<>(tx.getAllRelationships(), this::include);
+        if (types == null) {
+            return new FilteringIterable<>(tx.getAllRelationships(), this::include);
+        }
+
+        //there is no relationship type index in Neo4j 4.2, but checking the type is much cheaper than evaluating the expression
+        return new FilteringIterable<>(tx.getAllRelationships(), r -> types.contains(r.getType().name()) && include(r));
     }
 }
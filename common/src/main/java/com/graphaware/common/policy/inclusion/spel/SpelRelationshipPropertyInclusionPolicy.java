@@ -28,12 +28,25 @@ import org.neo4j.graphdb.Relationship;
  */
 public class SpelRelationshipPropertyInclusionPolicy extends SpelInclusionPolicy implements RelationshipPropertyInclusionPolicy {
 
+    private static final ThreadLocal<RelationshipPropertyRoot> ROOT = ThreadLocal.withInitial(RelationshipPropertyRoot::new);
+
     public SpelRelationshipPropertyInclusionPolicy(String expression) {
         super(expression);
     }
 
     @Override
     public boolean include(String key, Relationship relationship) {
-        return (Boolean) exp.getValue(new AttachedRelationshipProperty(key, new AttachedRelationship(relationship)));
+        RelationshipPropertyRoot root = ROOT.get();
+        if (root.isAttached()) {
+            //re-entrant evaluation (e.g. the entity itself applies inclusion policies), cannot re-use the root
+            return evaluate(new AttachedRelationshipProperty(key, new AttachedRelationship(relationship)));
+        }
+
+        root.attach(key, relationship);
+        try {
+            return evaluate(root);
+        } finally {
+            root.attach(null, null);
+        }
     }
 }
@@ -28,11 +28,27 @@ public abstract class AttachedEntity<T extends Entity> implements EntityExpressi
     public AttachedEntity(T entity) {
         this.entity = entity;
     }
+
     @Override
     public Map<String, Object> getProperties() {
         return entity.getAllProperties();
     }
 
+    @Override
+    public boolean hasProperty(String key) {
+        return entity.hasProperty(key);
+    }
+
+    @Override
+    public Object getProperty(String key) {
+        return entity.getProperty(key, null);
+    }
+
+    @Override
+    public Object getProperty(String key, Object defaultValue) {
+        return entity.getProperty(key, defaultValue);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -17,11 +17,22 @@
 package com.graphaware.common.representation;
 
 import com.graphaware.common.expression.AttachedRelationshipExpressions;
+import com.graphaware.common.util.DirectionUtils;
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 
+import static org.neo4j.graphdb.Direction.INCOMING;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+
+/**
+ * {@link AttachedEntity} representing a {@link Relationship}, optionally looked at from the point of view of one of its
+ * nodes. The direction of the relationship from the point of view is resolved from node IDs.
+ */
 public class AttachedRelationship extends AttachedEntity<Relationship> implements AttachedRelationshipExpressions<AttachedNode> {
 
+    private static final String NO_POINT_OF_VIEW = "Relationship expression contains a direction, but no information is available as to which node is looking.";
+
     private final Node pointOfView;
 
     public AttachedRelationship(Relationship entity) {
@@ -38,6 +49,11 @@ public class AttachedRelationship extends AttachedEntity<Relationship> implement
         return entity.getType().name();
     }
 
+    @Override
+    public boolean isType(String type) {
+        return type.equals(entity.getType().name());
+    }
+
     @Override
     public AttachedNode getStartNode() {
         return new AttachedNode(entity.getStartNode());
@@ -52,4 +68,39 @@ public class AttachedRelationship extends AttachedEntity<Relationship> implement
     public AttachedNode pointOfView() {
         return new AttachedNode(pointOfView);
     }
+
+    @Override
+    public AttachedNode getOtherNode() {
+        return direction(entity, pointOfView, "Relationship expression contains a reference to other node, but no reference is provided to this node.") == INCOMING ? getStartNode() : getEndNode();
+    }
+
+    @Override
+    public boolean isOutgoing() {
+        return direction(entity, pointOfView, NO_POINT_OF_VIEW) == OUTGOING;
+    }
+
+    @Override
+    public boolean isIncoming() {
+        return direction(entity, pointOfView, NO_POINT_OF_VIEW) == INCOMING;
+    }
+
+    /**
+     * Resolve the direction of a relationship from a point of view, {@link Direction#OUTGOING} for relationships to self.
+     *
+     * @param relationship  to resolve the direction of.
+     * @param pointOfView   node from whose point of view the relationship is being looked at, can be <code>null</code>.
+     * @param noPointOfView message of the exception thrown when there is no point of view.
+     * @return direction.
+     * @throws IllegalStateException if there is no point of view or it isn't on either end of the relationship.
+     */
+    private static Direction direction(Relationship relationship, Node pointOfView, String noPointOfView) {
+        if (pointOfView == null) {
+            throw new IllegalStateException(noPointOfView);
+        }
+        try {
+            return DirectionUtils.resolveDirection(relationship, pointOfView, OUTGOING);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Neither start node nor end node are the point of view. This is a bug", e);
+        }
+    }
 }
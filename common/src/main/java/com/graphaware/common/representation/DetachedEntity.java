@@ -16,15 +16,17 @@
 
 package com.graphaware.common.representation;
 
+import com.fasterxml.jackson.annotation.JsonSetter;
 import com.graphaware.common.expression.EntityExpressions;
 import com.graphaware.common.util.EntityUtils;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.Transaction;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -41,6 +43,8 @@ public abstract class DetachedEntity<ID, T extends Entity> implements Serializab
     private long graphId = NEW;
     //perhaps not the right thing from software design perspective, but: null properties means not hydrated, empty means no properties
     private Map<String, Object> properties;
+    //populates the representation when its state is first accessed, null once populated
+    private transient volatile Runnable hydrator;
 
     /**
      * No-arg constructor (for Jackson et al).
@@ -60,18 +64,20 @@ public abstract class DetachedEntity<ID, T extends Entity> implements Serializab
     protected DetachedEntity(T entity, String[] properties) {
         this(entity.getId());
 
-        initPropsIfNeeded();
-        if (properties != null) {
-            for (String property : properties) {
-                if (entity.hasProperty(property)) {
-                    putProperty(property, entity.getProperty(property));
-                }
-            }
-        } else {
-            for (String property : entity.getPropertyKeys()) {
-                putProperty(property, entity.getProperty(property));
-            }
-        }
+        this.properties = PropertyProjection.project(entity, properties);
+    }
+
+    /**
+     * Construct a new representation from a entity.
+     *
+     * @param projection of properties to be included in the representation. Must not be <code>null</code>.
+     * @param entity     to construct a representation from. Must not be <code>null</code>.
+     */
+    protected DetachedEntity(PropertyProjection projection, T entity) {
+        this(entity.getId());
+
+        notNull(projection);
+        properties = projection.project(entity);
     }
 
     /**
@@ -114,13 +120,14 @@ public abstract class DetachedEntity<ID, T extends Entity> implements Serializab
      * @param value value. Must not be <code>null</code>.
      */
     public void putProperty(String key, Object value) {
+        hydrate();
         initPropsIfNeeded();
         properties.put(key, value);
     }
 
     private void initPropsIfNeeded() {
         if (properties == null) {
-            properties = new HashMap<>();
+            properties = new PropertyMap();
         }
     }
 
@@ -173,6 +180,7 @@ public abstract class DetachedEntity<ID, T extends Entity> implements Serializab
      * @param t to populate from.
      */
     protected void populate(T t) {
+        hydrate();
         setGraphId(t.getId());
         if (properties != null) {
             for (Map.Entry<String, Object> entry : properties.entrySet()) {
@@ -215,6 +223,7 @@ public abstract class DetachedEntity<ID, T extends Entity> implements Serializab
      * @return properties. Can be <code>null</code>.
      */
     public Map<String, Object> getProperties() {
+        hydrate();
         return properties;
     }
 
@@ -225,10 +234,63 @@ public abstract class DetachedEntity<ID, T extends Entity> implements Serializab
      */
     public void setProperties(Map<String, Object> properties) {
         notNull(properties, "Properties must not be null");
+        hydrate();
         initPropsIfNeeded();
         this.properties.putAll(properties);
     }
 
+    /**
+     * Set properties read from JSON, with keys interned in the {@link NameDictionary}, since each deserialized key is a
+     * new String.
+     *
+     * @param properties Must not be <code>null</code>, but can be empty.
+     */
+    @JsonSetter("properties")
+    private void setDeserializedProperties(Map<String, Object> properties) {
+        notNull(properties, "Properties must not be null");
+        hydrate();
+        initPropsIfNeeded();
+        NameDictionary dictionary = NameDictionary.getInstance();
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            this.properties.put(dictionary.intern(property.getKey()), property.getValue());
+        }
+    }
+
+    /**
+     * Defer populating this representation until its state (other than IDs) is first accessed, so that work is not
+     * done for representations whose state is never read. The hydrator is run at most once, after which it is
+     * discarded. Representations are hydrated before they are serialized.
+     *
+     * @param hydrator populating this representation using its setters. Must not be <code>null</code>.
+     */
+    protected void setHydrator(Runnable hydrator) {
+        notNull(hydrator);
+        this.hydrator = hydrator;
+    }
+
+    /**
+     * Populate this representation by its hydrator, if there is one that hasn't run yet. Must be called before
+     * accessing the state of this representation directly, rather than through getters.
+     */
+    protected final void hydrate() {
+        if (hydrator == null) {
+            return;
+        }
+
+        synchronized (this) {
+            Runnable hydrator = this.hydrator;
+            if (hydrator != null) {
+                this.hydrator = null;
+                hydrator.run();
+            }
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        hydrate();
+        out.defaultWriteObject();
+    }
+
     /**
      * Returns a properties keyset from a graph object to a string array
      *
@@ -253,6 +315,8 @@ public abstract class DetachedEntity<ID, T extends Entity> implements Serializab
         }
 
         DetachedEntity<?, ?> that = (DetachedEntity<?, ?>) o;
+        hydrate();
+        that.hydrate();
 
         if (graphId != that.graphId) {
             return false;
@@ -263,6 +327,7 @@ public abstract class DetachedEntity<ID, T extends Entity> implements Serializab
 
     @Override
     public int hashCode() {
+        hydrate();
         int result = (int) (graphId ^ (graphId >>> 32));
         result = 31 * result + (properties != null ? properties.hashCode() : 0);
         return result;
@@ -0,0 +1,423 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.representation;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.graphaware.common.representation.DetachedEntityFormat.*;
+
+/**
+ * Decoder of {@link DetachedNode}s and {@link DetachedRelationship}s written by {@link DetachedEntityEncoder}. Things
+ * must be read in the same order as they were written.
+ * <p/>
+ * Streams may come from untrusted sources, so lengths of strings, arrays, and collections are checked against a
+ * maximum before anything is allocated, and values and entities that have been Java-serialized are only deserialized
+ * if they pass an {@link ObjectInputFilter}. By default, only classes from <code>java.lang</code>,
+ * <code>java.util</code>, <code>java.time</code>, <code>java.math</code>, and the GraphAware and Neo4j packages are
+ * accepted.
+ * <p/>
+ * This class is not thread-safe.
+ */
+public class DetachedEntityDecoder implements Closeable {
+
+    /**
+     * Default maximum length of strings, arrays, and collections.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * Default filter of Java-serialized objects.
+     */
+    public static final ObjectInputFilter DEFAULT_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=100;java.lang.*;java.util.*;java.time.*;java.math.*;com.graphaware.**;org.neo4j.**;!*");
+
+    private final DataInputStream in;
+    private final int maxLength;
+    private final ObjectInputFilter filter;
+    private final List<String> symbols = new ArrayList<>();
+
+    /**
+     * Create a new decoder with {@link #DEFAULT_MAX_LENGTH} and {@link #DEFAULT_FILTER} and read the format header from
+     * the stream.
+     *
+     * @param inputStream to read from.
+     * @throws IOException in case of failure to read, or when the stream hasn't been written by
+     *                     {@link DetachedEntityEncoder}.
+     */
+    public DetachedEntityDecoder(InputStream inputStream) throws IOException {
+        this(inputStream, DEFAULT_MAX_LENGTH, DEFAULT_FILTER);
+    }
+
+    /**
+     * Create a new decoder and read the format header from the stream.
+     *
+     * @param inputStream to read from.
+     * @param maxLength   maximum length of strings, arrays, and collections. Longer ones are rejected.
+     * @param filter      of Java-serialized objects. Must not be <code>null</code>.
+     * @throws IOException in case of failure to read, or when the stream hasn't been written by
+     *                     {@link DetachedEntityEncoder}.
+     */
+    public DetachedEntityDecoder(InputStream inputStream, int maxLength, ObjectInputFilter filter) throws IOException {
+        if (maxLength < 0) {
+            throw new IllegalArgumentException("Maximum length must not be negative");
+        }
+        if (filter == null) {
+            throw new IllegalArgumentException("Filter must not be null");
+        }
+
+        this.maxLength = maxLength;
+        this.filter = filter;
+        this.in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a stream of detached entities");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported format version " + version);
+        }
+    }
+
+    /**
+     * Read a node.
+     *
+     * @param <ID> type of the node's custom ID.
+     * @return node, can be <code>null</code> if <code>null</code> was written.
+     * @throws IOException in case of failure to read.
+     */
+    @SuppressWarnings("unchecked")
+    public <ID> DetachedNode<ID> readNode() throws IOException {
+        byte kind = in.readByte();
+
+        if (kind == NO_ENTITY) {
+            return null;
+        }
+
+        if (kind == SERIALIZED_ENTITY) {
+            return (DetachedNode<ID>) readSerialized();
+        }
+
+        if (!isNode(kind)) {
+            throw new IOException("Expected a node, found entity kind " + kind);
+        }
+
+        DetachedNode<ID> node = (DetachedNode<ID>) newInstance(kind);
+        node.setGraphId(readSignedVarLong());
+        if (hasCustomId(kind)) {
+            ((SerializableNode<ID>) node).setId((ID) readValue());
+        }
+
+        int labelCount = readLength() - 1;
+        if (labelCount >= 0) {
+            String[] labels = new String[labelCount];
+            for (int i = 0; i < labelCount; i++) {
+                labels[i] = readSymbol();
+            }
+            node.setLabels(labels);
+        }
+
+        readProperties(node);
+
+        return node;
+    }
+
+    /**
+     * Read a relationship.
+     *
+     * @param <ID> type of the relationship's custom ID.
+     * @return relationship, can be <code>null</code> if <code>null</code> was written.
+     * @throws IOException in case of failure to read.
+     */
+    @SuppressWarnings("unchecked")
+    public <ID> DetachedRelationship<ID, ? extends DetachedNode<ID>> readRelationship() throws IOException {
+        byte kind = in.readByte();
+
+        if (kind == NO_ENTITY) {
+            return null;
+        }
+
+        if (kind == SERIALIZED_ENTITY) {
+            return (DetachedRelationship<ID, ? extends DetachedNode<ID>>) readSerialized();
+        }
+
+        if (isNode(kind)) {
+            throw new IOException("Expected a relationship, found entity kind " + kind);
+        }
+
+        DetachedRelationship<ID, DetachedNode<ID>> relationship = (DetachedRelationship<ID, DetachedNode<ID>>) newInstance(kind);
+        relationship.setGraphId(readSignedVarLong());
+        relationship.setStartNodeGraphId(readSignedVarLong());
+        relationship.setEndNodeGraphId(readSignedVarLong());
+
+        String type = readSymbol();
+        if (type != null) {
+            relationship.setType(type);
+        }
+
+        if (hasCustomId(kind)) {
+            SerializableRelationship<ID> serializable = (SerializableRelationship<ID>) (DetachedRelationship) relationship;
+            serializable.setId((ID) readValue());
+            serializable.setStartNodeId((ID) readValue());
+            serializable.setEndNodeId((ID) readValue());
+        }
+
+        readProperties(relationship);
+        relationship.setStartNode(readNode());
+        relationship.setEndNode(readNode());
+
+        return relationship;
+    }
+
+    private void readProperties(DetachedEntity<?, ?> entity) throws IOException {
+        int count = readLength() - 1;
+        if (count < 0) {
+            return;
+        }
+
+        entity.setProperties(Collections.emptyMap());
+        for (int i = 0; i < count; i++) {
+            String key = readSymbol();
+            entity.putProperty(key, readValue());
+        }
+    }
+
+    /**
+     * Read a property value or an ID.
+     *
+     * @return value, can be <code>null</code>.
+     * @throws IOException in case of failure to read.
+     */
+    public Object readValue() throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return true;
+            case FALSE:
+                return false;
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return in.readShort();
+            case CHAR:
+                return in.readChar();
+            case INT:
+                return (int) readSignedVarLong();
+            case LONG:
+                return readSignedVarLong();
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case STRING:
+                return readString();
+            case BOOLEAN_ARRAY: {
+                boolean[] array = new boolean[readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readBoolean();
+                }
+                return array;
+            }
+            case BYTE_ARRAY: {
+                byte[] array = new byte[readLength()];
+                in.readFully(array);
+                return array;
+            }
+            case SHORT_ARRAY: {
+                short[] array = new short[readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readShort();
+                }
+                return array;
+            }
+            case CHAR_ARRAY: {
+                char[] array = new char[readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readChar();
+                }
+                return array;
+            }
+            case INT_ARRAY: {
+                int[] array = new int[readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = (int) readSignedVarLong();
+                }
+                return array;
+            }
+            case LONG_ARRAY: {
+                long[] array = new long[readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = readSignedVarLong();
+                }
+                return array;
+            }
+            case FLOAT_ARRAY: {
+                float[] array = new float[readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readFloat();
+                }
+                return array;
+            }
+            case DOUBLE_ARRAY: {
+                double[] array = new double[readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readDouble();
+                }
+                return array;
+            }
+            case STRING_ARRAY: {
+                String[] array = new String[readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = (String) readValue();
+                }
+                return array;
+            }
+            case SERIALIZED:
+                return readSerialized();
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * Read a symbol written by {@link DetachedEntityEncoder#writeSymbol(String)}.
+     *
+     * @return symbol, can be <code>null</code>.
+     * @throws IOException in case of failure to read.
+     */
+    public String readSymbol() throws IOException {
+        int code = readVarInt();
+        switch (code) {
+            case SYMBOL_NULL:
+                return null;
+            case SYMBOL_NEW:
+                String symbol = NameDictionary.getInstance().intern(readString());
+                symbols.add(symbol);
+                return symbol;
+            case SYMBOL_LITERAL:
+                return readString();
+            default:
+                int index = code - SYMBOL_OFFSET;
+                if (index >= symbols.size()) {
+                    throw new IOException("Unknown symbol " + index);
+                }
+                return symbols.get(index);
+        }
+    }
+
+    private String readString() throws IOException {
+        byte[] bytes = new byte[readLength()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Object readSerialized() throws IOException {
+        byte[] bytes = new byte[readLength()];
+        in.readFully(bytes);
+        try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            objectIn.setObjectInputFilter(filter);
+            return objectIn.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Read a non-negative int written by {@link DetachedEntityEncoder#writeVarInt(int)}.
+     *
+     * @return value.
+     * @throws IOException in case of failure to read.
+     */
+    public int readVarInt() throws IOException {
+        long value = readVarLong();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Malformed variable-length int " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Read the length of a string, array, or collection written by {@link DetachedEntityEncoder#writeVarInt(int)},
+     * checking that it doesn't exceed the maximum length this decoder has been created with.
+     *
+     * @return length.
+     * @throws IOException in case of failure to read, or when the length exceeds the maximum.
+     */
+    public int readLength() throws IOException {
+        int length = readVarInt();
+        if (length > maxLength) {
+            throw new IOException("Length " + length + " exceeds the maximum of " + maxLength);
+        }
+        return length;
+    }
+
+    /**
+     * Read a byte.
+     *
+     * @return value.
+     * @throws IOException in case of failure to read.
+     */
+    public byte readByte() throws IOException {
+        return in.readByte();
+    }
+
+    /**
+     * Check whether there is more data to read, blocking if necessary.
+     *
+     * @return true iff the end of the stream hasn't been reached.
+     * @throws IOException in case of failure to read.
+     */
+    public boolean hasMore() throws IOException {
+        in.mark(1);
+        int next = in.read();
+        in.reset();
+        return next != -1;
+    }
+
+    private long readSignedVarLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length number");
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
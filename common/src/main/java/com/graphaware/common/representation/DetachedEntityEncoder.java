@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.representation;
+
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static com.graphaware.common.representation.DetachedEntityFormat.*;
+
+/**
+ * Encoder of {@link DetachedNode}s and {@link DetachedRelationship}s into a compact binary format, a faster and
+ * smaller alternative to Java serialization for streams of many entities. Decoded by {@link DetachedEntityDecoder}.
+ * <p/>
+ * Property values that Neo4j supports natively (primitives, Strings, and arrays thereof) are written in a type-tagged
+ * binary form, integers as variable-length numbers. Labels, relationship types, and property keys are written in full
+ * only the first time they occur in the stream and referred to by a number afterwards. Entities of the classes provided
+ * by the framework are written field by field, including the IDs of {@link SerializableNode}s and
+ * {@link SerializableRelationship}s, which can be {@link Long}s, {@link String}s, or any other of the above values.
+ * Entities of other classes, as well as property values and IDs of other types, are Java-serialized as a fallback.
+ * <p/>
+ * The encoder buffers its output, it has to be {@link #flush() flushed} or {@link #close() closed} for the data to
+ * reach the underlying stream. This class is not thread-safe.
+ */
+public class DetachedEntityEncoder implements Flushable, Closeable {
+
+    private final DataOutputStream out;
+    private final ObjectIntHashMap<String> symbols = new ObjectIntHashMap<>();
+
+    /**
+     * Create a new encoder and write the format header to the stream.
+     *
+     * @param outputStream to write to.
+     * @throws IOException in case of failure to write.
+     */
+    public DetachedEntityEncoder(OutputStream outputStream) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    /**
+     * Write a node.
+     *
+     * @param node to write, can be <code>null</code>.
+     * @throws IOException in case of failure to write.
+     */
+    public void writeNode(DetachedNode<?> node) throws IOException {
+        if (node == null) {
+            out.writeByte(NO_ENTITY);
+            return;
+        }
+
+        byte kind = kindOf(node);
+        out.writeByte(kind);
+
+        if (kind == SERIALIZED_ENTITY) {
+            writeSerialized(node);
+            return;
+        }
+
+        writeSignedVarLong(node.getGraphId());
+        if (hasCustomId(kind)) {
+            writeValue(node.getId());
+        }
+
+        String[] labels = node.getLabels();
+        if (labels == null) {
+            writeVarInt(0);
+        } else {
+            writeVarInt(labels.length + 1);
+            for (String label : labels) {
+                writeSymbol(label);
+            }
+        }
+
+        writeProperties(node.getProperties());
+    }
+
+    /**
+     * Write a relationship.
+     *
+     * @param relationship to write, can be <code>null</code>.
+     * @throws IOException in case of failure to write.
+     */
+    public void writeRelationship(DetachedRelationship<?, ?> relationship) throws IOException {
+        if (relationship == null) {
+            out.writeByte(NO_ENTITY);
+            return;
+        }
+
+        byte kind = kindOf(relationship);
+        out.writeByte(kind);
+
+        if (kind == SERIALIZED_ENTITY) {
+            writeSerialized(relationship);
+            return;
+        }
+
+        writeSignedVarLong(relationship.getGraphId());
+        writeSignedVarLong(relationship.getStartNodeGraphId());
+        writeSignedVarLong(relationship.getEndNodeGraphId());
+        writeSymbol(relationship.getType());
+
+        if (hasCustomId(kind)) {
+            SerializableRelationship<?> serializable = (SerializableRelationship<?>) relationship;
+            writeValue(serializable.getId());
+            writeValue(serializable.getStartNodeId());
+            writeValue(serializable.getEndNodeId());
+        }
+
+        writeProperties(relationship.getProperties());
+        writeNode(relationship.getStartNode());
+        writeNode(relationship.getEndNode());
+    }
+
+    private void writeProperties(Map<String, Object> properties) throws IOException {
+        if (properties == null) {
+            writeVarInt(0);
+            return;
+        }
+
+        writeVarInt(properties.size() + 1);
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            writeSymbol(property.getKey());
+            writeValue(property.getValue());
+        }
+    }
+
+    /**
+     * Write a property value or an ID.
+     *
+     * @param value to write, can be <code>null</code>.
+     * @throws IOException in case of failure to write.
+     */
+    public void writeValue(Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString((String) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            writeSignedVarLong((Long) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            writeSignedVarLong((Integer) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Character) {
+            out.writeByte(CHAR);
+            out.writeChar((Character) value);
+        } else if (value instanceof String[]) {
+            String[] array = (String[]) value;
+            out.writeByte(STRING_ARRAY);
+            writeVarInt(array.length);
+            for (String element : array) {
+                writeValue(element);
+            }
+        } else if (value instanceof long[]) {
+            long[] array = (long[]) value;
+            out.writeByte(LONG_ARRAY);
+            writeVarInt(array.length);
+            for (long element : array) {
+                writeSignedVarLong(element);
+            }
+        } else if (value instanceof int[]) {
+            int[] array = (int[]) value;
+            out.writeByte(INT_ARRAY);
+            writeVarInt(array.length);
+            for (int element : array) {
+                writeSignedVarLong(element);
+            }
+        } else if (value instanceof double[]) {
+            double[] array = (double[]) value;
+            out.writeByte(DOUBLE_ARRAY);
+            writeVarInt(array.length);
+            for (double element : array) {
+                out.writeDouble(element);
+            }
+        } else if (value instanceof float[]) {
+            float[] array = (float[]) value;
+            out.writeByte(FLOAT_ARRAY);
+            writeVarInt(array.length);
+            for (float element : array) {
+                out.writeFloat(element);
+            }
+        } else if (value instanceof boolean[]) {
+            boolean[] array = (boolean[]) value;
+            out.writeByte(BOOLEAN_ARRAY);
+            writeVarInt(array.length);
+            for (boolean element : array) {
+                out.writeBoolean(element);
+            }
+        } else if (value instanceof byte[]) {
+            byte[] array = (byte[]) value;
+            out.writeByte(BYTE_ARRAY);
+            writeVarInt(array.length);
+            out.write(array);
+        } else if (value instanceof short[]) {
+            short[] array = (short[]) value;
+            out.writeByte(SHORT_ARRAY);
+            writeVarInt(array.length);
+            for (short element : array) {
+                out.writeShort(element);
+            }
+        } else if (value instanceof char[]) {
+            char[] array = (char[]) value;
+            out.writeByte(CHAR_ARRAY);
+            writeVarInt(array.length);
+            for (char element : array) {
+                out.writeChar(element);
+            }
+        } else {
+            out.writeByte(SERIALIZED);
+            writeSerialized(value);
+        }
+    }
+
+    /**
+     * Write a label, relationship type, or property key, i.e. a String that is likely to repeat in the stream.
+     *
+     * @param symbol to write, can be <code>null</code>.
+     * @throws IOException in case of failure to write.
+     */
+    public void writeSymbol(String symbol) throws IOException {
+        if (symbol == null) {
+            writeVarInt(SYMBOL_NULL);
+            return;
+        }
+
+        int index = symbols.getIfAbsent(symbol, -1);
+        if (index >= 0) {
+            writeVarInt(index + SYMBOL_OFFSET);
+            return;
+        }
+
+        if (symbols.size() < MAX_SYMBOLS) {
+            symbols.put(symbol, symbols.size());
+            writeVarInt(SYMBOL_NEW);
+        } else {
+            writeVarInt(SYMBOL_LITERAL);
+        }
+        writeString(symbol);
+    }
+
+    private void writeString(String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeSerialized(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+            objectOut.writeObject(object);
+        }
+        writeVarInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    /**
+     * Write a non-negative int in a variable-length format, using fewer bytes for smaller numbers.
+     *
+     * @param value to write.
+     * @throws IOException in case of failure to write.
+     */
+    public void writeVarInt(int value) throws IOException {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Write a byte.
+     *
+     * @param value to write.
+     * @throws IOException in case of failure to write.
+     */
+    public void writeByte(int value) throws IOException {
+        out.writeByte(value);
+    }
+
+    private void writeSignedVarLong(long value) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Flush and close the encoder, including the underlying stream.
+     *
+     * @throws IOException in case of failure to write.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
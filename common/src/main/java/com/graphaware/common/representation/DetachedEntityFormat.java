@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.representation;
+
+import com.graphaware.common.json.JsonNode;
+import com.graphaware.common.json.JsonRelationship;
+import com.graphaware.common.json.LongIdJsonNode;
+import com.graphaware.common.json.LongIdJsonRelationship;
+import com.graphaware.common.json.StringIdJsonNode;
+import com.graphaware.common.json.StringIdJsonRelationship;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Constants of the binary format written by {@link DetachedEntityEncoder} and read by {@link DetachedEntityDecoder}.
+ */
+final class DetachedEntityFormat {
+
+    private DetachedEntityFormat() {
+    }
+
+    static final int MAGIC = 0x47414445;
+    static final byte VERSION = 1;
+
+    /**
+     * Upper bound on the number of distinct labels, types, and property keys remembered by a single stream.
+     */
+    static final int MAX_SYMBOLS = 1 << 16;
+
+    //symbols
+    static final int SYMBOL_NULL = 0;
+    static final int SYMBOL_NEW = 1;
+    static final int SYMBOL_LITERAL = 2;
+    static final int SYMBOL_OFFSET = 3;
+
+    //values
+    static final byte NULL = 0;
+    static final byte TRUE = 1;
+    static final byte FALSE = 2;
+    static final byte BYTE = 3;
+    static final byte SHORT = 4;
+    static final byte CHAR = 5;
+    static final byte INT = 6;
+    static final byte LONG = 7;
+    static final byte FLOAT = 8;
+    static final byte DOUBLE = 9;
+    static final byte STRING = 10;
+    static final byte BOOLEAN_ARRAY = 11;
+    static final byte BYTE_ARRAY = 12;
+    static final byte SHORT_ARRAY = 13;
+    static final byte CHAR_ARRAY = 14;
+    static final byte INT_ARRAY = 15;
+    static final byte LONG_ARRAY = 16;
+    static final byte FLOAT_ARRAY = 17;
+    static final byte DOUBLE_ARRAY = 18;
+    static final byte STRING_ARRAY = 19;
+    static final byte SERIALIZED = 20;
+
+    //entity classes, anything else is Java-serialized
+    static final byte NO_ENTITY = 0;
+    static final byte SERIALIZED_ENTITY = 1;
+    static final byte GRAPH_DETACHED_NODE = 2;
+    static final byte SERIALIZABLE_NODE = 3;
+    static final byte JSON_NODE = 4;
+    static final byte LONG_ID_JSON_NODE = 5;
+    static final byte STRING_ID_JSON_NODE = 6;
+    static final byte GRAPH_DETACHED_RELATIONSHIP = 7;
+    static final byte SERIALIZABLE_RELATIONSHIP = 8;
+    static final byte JSON_RELATIONSHIP = 9;
+    static final byte LONG_ID_JSON_RELATIONSHIP = 10;
+    static final byte STRING_ID_JSON_RELATIONSHIP = 11;
+
+    private static final Map<Class<?>, Byte> KINDS = new HashMap<>();
+    private static final Supplier<?>[] FACTORIES = new Supplier<?>[STRING_ID_JSON_RELATIONSHIP + 1];
+
+    static {
+        register(GRAPH_DETACHED_NODE, GraphDetachedNode.class, GraphDetachedNode::new);
+        register(SERIALIZABLE_NODE, SerializableNode.class, SerializableNode::new);
+        register(JSON_NODE, JsonNode.class, JsonNode::new);
+        register(LONG_ID_JSON_NODE, LongIdJsonNode.class, LongIdJsonNode::new);
+        register(STRING_ID_JSON_NODE, StringIdJsonNode.class, StringIdJsonNode::new);
+        register(GRAPH_DETACHED_RELATIONSHIP, GraphDetachedRelationship.class, GraphDetachedRelationship::new);
+        register(SERIALIZABLE_RELATIONSHIP, SerializableRelationship.class, SerializableRelationship::new);
+        register(JSON_RELATIONSHIP, JsonRelationship.class, JsonRelationship::new);
+        register(LONG_ID_JSON_RELATIONSHIP, LongIdJsonRelationship.class, LongIdJsonRelationship::new);
+        register(STRING_ID_JSON_RELATIONSHIP, StringIdJsonRelationship.class, StringIdJsonRelationship::new);
+    }
+
+    private static void register(byte kind, Class<?> type, Supplier<?> factory) {
+        KINDS.put(type, kind);
+        FACTORIES[kind] = factory;
+    }
+
+    /**
+     * @param entity to encode.
+     * @return kind of the entity, {@link #SERIALIZED_ENTITY} for classes not known to the format.
+     */
+    static byte kindOf(DetachedEntity<?, ?> entity) {
+        return KINDS.getOrDefault(entity.getClass(), SERIALIZED_ENTITY);
+    }
+
+    /**
+     * @param kind of an entity known to the format.
+     * @return new empty instance of the entity.
+     */
+    static Object newInstance(byte kind) {
+        if (kind < GRAPH_DETACHED_NODE || kind >= FACTORIES.length) {
+            throw new IllegalStateException("Unknown entity kind " + kind);
+        }
+        return FACTORIES[kind].get();
+    }
+
+    /**
+     * @param kind of an entity.
+     * @return true iff entities of the kind have a custom ID, i.e. one that isn't the graph ID.
+     */
+    static boolean hasCustomId(byte kind) {
+        return kind != GRAPH_DETACHED_NODE && kind != GRAPH_DETACHED_RELATIONSHIP;
+    }
+
+    /**
+     * @param kind of an entity.
+     * @return true iff the kind represents a node.
+     */
+    static boolean isNode(byte kind) {
+        return kind >= GRAPH_DETACHED_NODE && kind <= STRING_ID_JSON_NODE;
+    }
+}
@@ -16,16 +16,17 @@
 
 package com.graphaware.common.representation;
 
+import com.fasterxml.jackson.annotation.JsonSetter;
 import com.graphaware.common.expression.DetachedNodeExpressions;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
-import org.neo4j.internal.helpers.collection.Iterables;
 
 import java.util.Arrays;
 import java.util.Map;
 
+import static com.graphaware.common.util.EntityUtils.labelNames;
 import static org.springframework.util.Assert.notNull;
 
 /**
@@ -47,7 +48,7 @@ public abstract class DetachedNode<ID> extends DetachedEntity<ID, Node> implemen
      * @param node node to create the representation from. Must not be <code>null</code>.
      */
     protected DetachedNode(Node node) {
-        this(node, null);
+        this(PropertyProjection.all(), node);
     }
 
     /**
@@ -59,7 +60,18 @@ public abstract class DetachedNode<ID> extends DetachedEntity<ID, Node> implemen
      */
     protected DetachedNode(Node node, String[] properties) {
         super(node, properties);
-        setLabels(Iterables.asArray(String.class, Iterables.map(Label::name, node.getLabels())));
+        setLabels(labelNames(node));
+    }
+
+    /**
+     * Construct a representation from a Neo4j node.
+     *
+     * @param projection of properties to be included in the representation. Must not be <code>null</code>.
+     * @param node       node to create the representation from. Must not be <code>null</code>.
+     */
+    protected DetachedNode(PropertyProjection projection, Node node) {
+        super(projection, node);
+        setLabels(labelNames(node));
     }
 
     /**
@@ -133,15 +145,30 @@ public abstract class DetachedNode<ID> extends DetachedEntity<ID, Node> implemen
     //getters and setters
 
     public String[] getLabels() {
+        hydrate();
         return labels;
     }
 
     public void setLabels(String[] labels) {
         notNull(labels);
+        hydrate();
         this.labels = labels;
     }
 
-    //helpers
+    /**
+     * Set labels read from JSON, interned in the {@link NameDictionary}, since each deserialized label name is a new String.
+     *
+     * @param labels to set. Must not be <code>null</code>.
+     */
+    @JsonSetter("labels")
+    private void setDeserializedLabels(String[] labels) {
+        notNull(labels);
+        NameDictionary dictionary = NameDictionary.getInstance();
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = dictionary.intern(labels[i]);
+        }
+        setLabels(labels);
+    }
 
     @Override
     public boolean equals(Object o) {
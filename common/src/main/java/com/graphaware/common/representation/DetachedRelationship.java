@@ -17,6 +17,7 @@
 package com.graphaware.common.representation;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonSetter;
 import com.graphaware.common.expression.DetachedRelationshipExpressions;
 import com.graphaware.common.transform.NodeIdTransformer;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -51,7 +52,7 @@ public abstract class DetachedRelationship<ID, N extends DetachedNode<ID>> exten
      * @param relationship to create the representation from. Must not be <code>null</code>.
      */
     protected DetachedRelationship(Relationship relationship, NodeIdTransformer<ID> nodeIdTransformer) {
-        this(relationship, null, nodeIdTransformer);
+        this(PropertyProjection.all(), relationship, nodeIdTransformer);
 
         startNode = startNode(relationship, nodeIdTransformer);
         endNode = endNode(relationship, nodeIdTransformer);
@@ -66,6 +67,21 @@ public abstract class DetachedRelationship<ID, N extends DetachedNode<ID>> exten
      */
     protected DetachedRelationship(Relationship relationship, String[] properties, NodeIdTransformer<ID> nodeIdTransformer) {
         super(relationship, properties);
+        init(relationship, nodeIdTransformer);
+    }
+
+    /**
+     * Construct a representation from a Neo4j relationship.
+     *
+     * @param projection   of properties to be included in the representation. Must not be <code>null</code>.
+     * @param relationship to create the representation from. Must not be <code>null</code>.
+     */
+    protected DetachedRelationship(PropertyProjection projection, Relationship relationship, NodeIdTransformer<ID> nodeIdTransformer) {
+        super(projection, relationship);
+        init(relationship, nodeIdTransformer);
+    }
+
+    private void init(Relationship relationship, NodeIdTransformer<ID> nodeIdTransformer) {
         startNodeGraphId = relationship.getStartNode().getId();
         endNodeGraphId = relationship.getEndNode().getId();
         setType(relationship.getType().name());
@@ -165,6 +181,17 @@ public abstract class DetachedRelationship<ID, N extends DetachedNode<ID>> exten
         this.type = type;
     }
 
+    /**
+     * Set a type read from JSON, interned in the {@link NameDictionary}, since each deserialized type is a new String.
+     *
+     * @param type to set. Must not be <code>null</code> or empty.
+     */
+    @JsonSetter("type")
+    private void setDeserializedType(String type) {
+        hasLength(type);
+        setType(NameDictionary.getInstance().intern(type));
+    }
+
     public long getStartNodeGraphId() {
         return startNodeGraphId;
     }
@@ -191,6 +218,14 @@ public abstract class DetachedRelationship<ID, N extends DetachedNode<ID>> exten
         return endNode;
     }
 
+    void setStartNode(N startNode) {
+        this.startNode = startNode;
+    }
+
+    void setEndNode(N endNode) {
+        this.endNode = endNode;
+    }
+
     protected abstract N startNode(Relationship relationship, NodeIdTransformer<ID> nodeIdTransformer);
 
     protected abstract N endNode(Relationship relationship, NodeIdTransformer<ID> nodeIdTransformer);
@@ -20,6 +20,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.neo4j.graphdb.Node;
 
 import java.util.Map;
+import java.util.function.Consumer;
 
 public class GraphDetachedNode extends DetachedNode<Long> {
 
@@ -34,6 +35,10 @@ public class GraphDetachedNode extends DetachedNode<Long> {
         super(node, properties);
     }
 
+    public GraphDetachedNode(PropertyProjection projection, Node node) {
+        super(projection, node);
+    }
+
     public GraphDetachedNode(long graphId) {
         super(graphId);
     }
@@ -46,6 +51,20 @@ public class GraphDetachedNode extends DetachedNode<Long> {
         super(graphId, labels, properties);
     }
 
+    /**
+     * Create a representation of a node, whose labels and properties are populated by the given hydrator when first
+     * accessed.
+     *
+     * @param graphId  ID of the node.
+     * @param hydrator populating labels and properties of the representation. Must not be <code>null</code>.
+     * @return representation.
+     */
+    public static GraphDetachedNode lazy(long graphId, Consumer<? super GraphDetachedNode> hydrator) {
+        GraphDetachedNode node = new GraphDetachedNode(graphId);
+        node.setHydrator(() -> hydrator.accept(node));
+        return node;
+    }
+
     @JsonIgnore
     @Override
     public Long getId() {
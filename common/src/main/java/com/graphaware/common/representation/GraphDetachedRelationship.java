@@ -22,6 +22,7 @@ import com.graphaware.common.transform.TrivialNodeIdTransformer;
 import org.neo4j.graphdb.Relationship;
 
 import java.util.Map;
+import java.util.function.Consumer;
 
 public class GraphDetachedRelationship extends DetachedRelationship<Long, GraphDetachedNode> {
 
@@ -36,6 +37,10 @@ public class GraphDetachedRelationship extends DetachedRelationship<Long, GraphD
         super(relationship, properties, TrivialNodeIdTransformer.getInstance());
     }
 
+    public GraphDetachedRelationship(PropertyProjection projection, Relationship relationship) {
+        super(projection, relationship, TrivialNodeIdTransformer.getInstance());
+    }
+
     public GraphDetachedRelationship(long graphId) {
         super(graphId);
     }
@@ -48,6 +53,28 @@ public class GraphDetachedRelationship extends DetachedRelationship<Long, GraphD
         super(graphId, startNodeGraphId, endNodeGraphId, type, properties);
     }
 
+    /**
+     * Create a representation of a relationship, whose properties are populated by the given hydrator when first
+     * accessed.
+     *
+     * @param graphId   ID of the relationship.
+     * @param startNode representation of the start node. Must not be <code>null</code>.
+     * @param endNode   representation of the end node. Must not be <code>null</code>.
+     * @param type      of the relationship. Must not be <code>null</code> or empty.
+     * @param hydrator  populating properties of the representation. Must not be <code>null</code>.
+     * @return representation.
+     */
+    public static GraphDetachedRelationship lazy(long graphId, GraphDetachedNode startNode, GraphDetachedNode endNode, String type, Consumer<? super GraphDetachedRelationship> hydrator) {
+        GraphDetachedRelationship relationship = new GraphDetachedRelationship(graphId);
+        relationship.setStartNodeGraphId(startNode.getGraphId());
+        relationship.setEndNodeGraphId(endNode.getGraphId());
+        relationship.setType(type);
+        relationship.setStartNode(startNode);
+        relationship.setEndNode(endNode);
+        relationship.setHydrator(() -> hydrator.accept(relationship));
+        return relationship;
+    }
+
     @Override
     protected GraphDetachedNode startNode(Relationship relationship, NodeIdTransformer<Long> nodeIdTransformer) {
         return new GraphDetachedNode(relationship.getStartNode());
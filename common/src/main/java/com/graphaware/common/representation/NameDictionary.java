@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.representation;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A shared, bounded dictionary of names used by detached representations of entities, i.e. labels, relationship types,
+ * and property keys. There are usually few distinct names in a database, but every detached entity read from a stream
+ * (JSON or {@link DetachedEntityDecoder}) would otherwise hold its own copies of them. Names read from Neo4j entities are
+ * already shared by Neo4j and aren't interned.
+ * <p/>
+ * Names are {@link #intern(String) interned}, so that equal names share a single String instance, and assigned small,
+ * dense integer {@link #code(String) codes}, which can be used in place of the names in compact representations. Once
+ * the dictionary is full, new names are no longer interned and get no code.
+ * <p/>
+ * This class is thread-safe.
+ */
+public final class NameDictionary {
+
+    /**
+     * Default maximum number of names in the dictionary.
+     */
+    public static final int DEFAULT_MAX_SIZE = 1 << 16;
+
+    /**
+     * Code of names that aren't in the dictionary.
+     */
+    public static final int NO_CODE = -1;
+
+    private static final NameDictionary INSTANCE = new NameDictionary(DEFAULT_MAX_SIZE);
+
+    private final int maxSize;
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+
+    /**
+     * Get the shared instance of the dictionary.
+     *
+     * @return instance.
+     */
+    public static NameDictionary getInstance() {
+        return INSTANCE;
+    }
+
+    NameDictionary(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Intern a name.
+     *
+     * @param name to intern, can be <code>null</code>.
+     * @return an instance equal to the name, shared by all interned equal names, unless the dictionary is full.
+     */
+    public String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        int code = code(name);
+        return code == NO_CODE ? name : names[code];
+    }
+
+    /**
+     * Intern names in place.
+     *
+     * @param names to intern, can be <code>null</code>.
+     * @return the same array.
+     */
+    public String[] intern(String[] names) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                names[i] = intern(names[i]);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Get the code of a name, adding the name to the dictionary if needed.
+     *
+     * @param name to get the code for. Must not be <code>null</code>.
+     * @return code, {@link #NO_CODE} if the name isn't in the dictionary and the dictionary is full.
+     */
+    public int code(String name) {
+        Integer code = codes.get(name);
+        if (code != null) {
+            return code;
+        }
+
+        synchronized (this) {
+            code = codes.get(name);
+            if (code != null) {
+                return code;
+            }
+
+            int size = codes.size();
+            if (size >= maxSize) {
+                return NO_CODE;
+            }
+
+            String[] names = this.names;
+            if (size == names.length) {
+                names = Arrays.copyOf(names, Math.min(size * 2, maxSize));
+            }
+
+            //publish the name before the code, so that readers that see the code also see the name
+            names[size] = name;
+            this.names = names;
+            codes.put(name, size);
+            return size;
+        }
+    }
+
+    /**
+     * Get the name for a code.
+     *
+     * @param code obtained from {@link #code(String)}.
+     * @return name.
+     * @throws IllegalArgumentException if there is no name with the given code.
+     */
+    public String name(int code) {
+        String[] names = this.names;
+        if (code < 0 || code >= names.length || names[code] == null) {
+            throw new IllegalArgumentException("Unknown name code " + code);
+        }
+        return names[code];
+    }
+
+    /**
+     * @return number of names in the dictionary.
+     */
+    public int size() {
+        return codes.size();
+    }
+}
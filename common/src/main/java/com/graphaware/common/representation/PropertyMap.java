@@ -0,0 +1,627 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.representation;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * {@link Map} of properties of a {@link DetachedEntity}, storing values of primitive types unboxed in typed slots.
+ * Boxing only happens when a value is first read through the {@link Map} API, e.g. by {@link #get(Object)} or by SPEL
+ * expressions; the boxed value is kept for subsequent reads until the property is updated. Values are never boxed when
+ * properties are stored, compared, hashed, or serialized.
+ * <p/>
+ * The type of each value is determined once, when it is stored. Two property maps are compared slot by slot using the
+ * recorded types, with arrays compared by content rather than by reference, which is what Neo4j property semantics
+ * require; the hash code is computed from array contents accordingly. Compared with any other {@link Map}, a property
+ * map follows the general {@link Map} contract, i.e. arrays are compared by reference, so that equality with
+ * {@link java.util.HashMap}s and the like is symmetric. However, such a map only has the same hash code as an equal
+ * property map, and equality is only transitive across property maps and other maps, if no arrays are held.
+ * <p/>
+ * Keys read by {@link #readExternal(ObjectInput)} are interned in the {@link NameDictionary}; keys of Neo4j entities are
+ * already shared by Neo4j. Lookups scan the keys linearly, comparing references first, which is faster than hashing
+ * for the handful of properties entities usually have; a hash index is built for larger maps.
+ * <p/>
+ * This class is not thread-safe.
+ */
+public final class PropertyMap extends AbstractMap<String, Object> implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final byte OBJECT = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte BYTE = 2;
+    private static final byte SHORT = 3;
+    private static final byte CHAR = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte STRING = 9;
+    private static final byte BOOLEAN_ARRAY = 10;
+    private static final byte BYTE_ARRAY = 11;
+    private static final byte SHORT_ARRAY = 12;
+    private static final byte CHAR_ARRAY = 13;
+    private static final byte INT_ARRAY = 14;
+    private static final byte LONG_ARRAY = 15;
+    private static final byte FLOAT_ARRAY = 16;
+    private static final byte DOUBLE_ARRAY = 17;
+    private static final byte STRING_ARRAY = 18;
+
+    private static final int INDEX_THRESHOLD = 8;
+    private static final String[] NO_KEYS = new String[0];
+    private static final byte[] NO_TYPES = new byte[0];
+    private static final long[] NO_PRIMITIVES = new long[0];
+    private static final Object[] NO_OBJECTS = new Object[0];
+
+    private int size;
+    private String[] keys = NO_KEYS;
+    private byte[] types = NO_TYPES;
+    private long[] primitives = NO_PRIMITIVES;
+    private Object[] objects = NO_OBJECTS;
+
+    //open-addressing hash index of slots (slot + 1, 0 means empty), only for maps larger than INDEX_THRESHOLD
+    private int[] index;
+    private int modifications;
+
+    private transient EntrySet entrySet;
+
+    /**
+     * Create an empty map.
+     */
+    public PropertyMap() {
+    }
+
+    /**
+     * Create an empty map.
+     *
+     * @param expectedSize expected number of properties.
+     */
+    public PropertyMap(int expectedSize) {
+        ensureCapacity(expectedSize);
+    }
+
+    /**
+     * Create a map with the given properties.
+     *
+     * @param properties to copy. Must not be <code>null</code>.
+     */
+    public PropertyMap(Map<String, ?> properties) {
+        this(properties.size());
+        putAll(properties);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && slot((String) key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+
+        int slot = slot((String) key);
+        return slot < 0 ? null : value(slot);
+    }
+
+    /**
+     * Get a property of a numeric primitive type without boxing it.
+     *
+     * @param key          of the property.
+     * @param defaultValue returned when there is no such property or it isn't an integral number.
+     * @return value.
+     */
+    public long getLong(String key, long defaultValue) {
+        int slot = slot(key);
+        if (slot < 0) {
+            return defaultValue;
+        }
+
+        switch (types[slot]) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                return primitives[slot];
+            default:
+                return defaultValue;
+        }
+    }
+
+    /**
+     * Get a property of a floating point primitive type without boxing it.
+     *
+     * @param key          of the property.
+     * @param defaultValue returned when there is no such property or it isn't a floating point number.
+     * @return value.
+     */
+    public double getDouble(String key, double defaultValue) {
+        int slot = slot(key);
+        if (slot < 0) {
+            return defaultValue;
+        }
+
+        switch (types[slot]) {
+            case FLOAT:
+                return Float.intBitsToFloat((int) primitives[slot]);
+            case DOUBLE:
+                return Double.longBitsToDouble(primitives[slot]);
+            default:
+                return defaultValue;
+        }
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Objects.requireNonNull(key, "Key must not be null");
+
+        int slot = slot(key);
+        Object previous = null;
+
+        if (slot < 0) {
+            ensureCapacity(size + 1);
+            slot = size++;
+            keys[slot] = key;
+            modifications++;
+            if (index != null && size * 2 <= index.length) {
+                addToIndex(index, slot);
+            } else if (size > INDEX_THRESHOLD) {
+                rebuildIndex();
+            }
+        } else {
+            previous = value(slot);
+        }
+
+        store(slot, value);
+        return previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+
+        int slot = slot((String) key);
+        if (slot < 0) {
+            return null;
+        }
+
+        Object previous = value(slot);
+        removeSlot(slot);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+        index = null;
+        modifications++;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof PropertyMap)) {
+            return super.equals(o);
+        }
+
+        PropertyMap that = (PropertyMap) o;
+        if (size != that.size) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            int thatSlot = that.slot(keys[i]);
+            if (thatSlot < 0 || types[i] != that.types[thatSlot]) {
+                return false;
+            }
+
+            if (isPrimitive(types[i])) {
+                if (primitives[i] != that.primitives[thatSlot]) {
+                    return false;
+                }
+            } else if (!valueEquals(types[i], objects[i], that.objects[thatSlot])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (int i = 0; i < size; i++) {
+            result += keys[i].hashCode() ^ valueHashCode(i);
+        }
+        return result;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeUTF(keys[i]);
+            out.writeByte(types[i]);
+            if (isPrimitive(types[i])) {
+                out.writeLong(primitives[i]);
+            } else {
+                out.writeObject(objects[i]);
+            }
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        clear();
+
+        int size = in.readInt();
+        ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            keys[i] = NameDictionary.getInstance().intern(in.readUTF());
+            types[i] = in.readByte();
+            if (isPrimitive(types[i])) {
+                primitives[i] = in.readLong();
+            } else {
+                objects[i] = in.readObject();
+            }
+        }
+        this.size = size;
+
+        if (size > INDEX_THRESHOLD) {
+            rebuildIndex();
+        }
+    }
+
+    private int slot(String key) {
+        if (index != null) {
+            int mask = index.length - 1;
+            for (int i = key.hashCode() & mask; index[i] != 0; i = (i + 1) & mask) {
+                int slot = index[i] - 1;
+                if (keys[slot] == key || keys[slot].equals(key)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeSlot(int slot) {
+        int last = size - 1;
+        if (slot != last) {
+            keys[slot] = keys[last];
+            types[slot] = types[last];
+            primitives[slot] = primitives[last];
+            objects[slot] = objects[last];
+        }
+        keys[last] = null;
+        objects[last] = null;
+        size--;
+        modifications++;
+
+        if (index != null) {
+            if (size > INDEX_THRESHOLD) {
+                rebuildIndex();
+            } else {
+                index = null;
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= keys.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, Math.max(4, keys.length + (keys.length >> 1)));
+        keys = Arrays.copyOf(keys, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        primitives = Arrays.copyOf(primitives, newCapacity);
+        objects = Arrays.copyOf(objects, newCapacity);
+    }
+
+    private void rebuildIndex() {
+        int length = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+        int[] index = new int[length];
+        for (int slot = 0; slot < size; slot++) {
+            addToIndex(index, slot);
+        }
+        this.index = index;
+    }
+
+    private void addToIndex(int[] index, int slot) {
+        int mask = index.length - 1;
+        int i = keys[slot].hashCode() & mask;
+        while (index[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        index[i] = slot + 1;
+    }
+
+    private void store(int slot, Object value) {
+        objects[slot] = null;
+        primitives[slot] = 0;
+
+        if (value instanceof String) {
+            types[slot] = STRING;
+            objects[slot] = value;
+        } else if (value instanceof Long) {
+            types[slot] = LONG;
+            primitives[slot] = (Long) value;
+        } else if (value instanceof Integer) {
+            types[slot] = INT;
+            primitives[slot] = (Integer) value;
+        } else if (value instanceof Boolean) {
+            types[slot] = BOOLEAN;
+            primitives[slot] = (Boolean) value ? 1 : 0;
+        } else if (value instanceof Double) {
+            types[slot] = DOUBLE;
+            primitives[slot] = Double.doubleToLongBits((Double) value);
+        } else if (value instanceof Float) {
+            types[slot] = FLOAT;
+            primitives[slot] = Float.floatToIntBits((Float) value);
+        } else if (value instanceof Byte) {
+            types[slot] = BYTE;
+            primitives[slot] = (Byte) value;
+        } else if (value instanceof Short) {
+            types[slot] = SHORT;
+            primitives[slot] = (Short) value;
+        } else if (value instanceof Character) {
+            types[slot] = CHAR;
+            primitives[slot] = (Character) value;
+        } else {
+            types[slot] = arrayType(value);
+            objects[slot] = value;
+        }
+    }
+
+    private static byte arrayType(Object value) {
+        if (value instanceof String[]) {
+            return STRING_ARRAY;
+        } else if (value instanceof long[]) {
+            return LONG_ARRAY;
+        } else if (value instanceof int[]) {
+            return INT_ARRAY;
+        } else if (value instanceof double[]) {
+            return DOUBLE_ARRAY;
+        } else if (value instanceof float[]) {
+            return FLOAT_ARRAY;
+        } else if (value instanceof boolean[]) {
+            return BOOLEAN_ARRAY;
+        } else if (value instanceof byte[]) {
+            return BYTE_ARRAY;
+        } else if (value instanceof short[]) {
+            return SHORT_ARRAY;
+        } else if (value instanceof char[]) {
+            return CHAR_ARRAY;
+        }
+        return OBJECT;
+    }
+
+    private static boolean isPrimitive(byte type) {
+        return type >= BOOLEAN && type <= DOUBLE;
+    }
+
+    private Object value(int slot) {
+        if (!isPrimitive(types[slot])) {
+            return objects[slot];
+        }
+
+        Object boxed = objects[slot];
+        if (boxed == null) {
+            boxed = box(types[slot], primitives[slot]);
+            objects[slot] = boxed;
+        }
+        return boxed;
+    }
+
+    private static Object box(byte type, long primitive) {
+        switch (type) {
+            case BOOLEAN:
+                return primitive != 0;
+            case BYTE:
+                return (byte) primitive;
+            case SHORT:
+                return (short) primitive;
+            case CHAR:
+                return (char) primitive;
+            case INT:
+                return (int) primitive;
+            case LONG:
+                return primitive;
+            case FLOAT:
+                return Float.intBitsToFloat((int) primitive);
+            case DOUBLE:
+                return Double.longBitsToDouble(primitive);
+            default:
+                throw new IllegalArgumentException("Not a primitive type: " + type);
+        }
+    }
+
+    private int valueHashCode(int slot) {
+        long primitive = primitives[slot];
+        Object object = objects[slot];
+        switch (types[slot]) {
+            case BOOLEAN:
+                return Boolean.hashCode(primitive != 0);
+            case BYTE:
+                return Byte.hashCode((byte) primitive);
+            case SHORT:
+                return Short.hashCode((short) primitive);
+            case CHAR:
+                return Character.hashCode((char) primitive);
+            case INT:
+                return Integer.hashCode((int) primitive);
+            case LONG:
+                return Long.hashCode(primitive);
+            case FLOAT:
+                return Float.hashCode(Float.intBitsToFloat((int) primitive));
+            case DOUBLE:
+                return Double.hashCode(Double.longBitsToDouble(primitive));
+            case BOOLEAN_ARRAY:
+                return Arrays.hashCode((boolean[]) object);
+            case BYTE_ARRAY:
+                return Arrays.hashCode((byte[]) object);
+            case SHORT_ARRAY:
+                return Arrays.hashCode((short[]) object);
+            case CHAR_ARRAY:
+                return Arrays.hashCode((char[]) object);
+            case INT_ARRAY:
+                return Arrays.hashCode((int[]) object);
+            case LONG_ARRAY:
+                return Arrays.hashCode((long[]) object);
+            case FLOAT_ARRAY:
+                return Arrays.hashCode((float[]) object);
+            case DOUBLE_ARRAY:
+                return Arrays.hashCode((double[]) object);
+            case STRING_ARRAY:
+                return Arrays.hashCode((String[]) object);
+            default:
+                return Objects.hashCode(object);
+        }
+    }
+
+    private static boolean valueEquals(byte type, Object o1, Object o2) {
+        switch (type) {
+            case BOOLEAN_ARRAY:
+                return Arrays.equals((boolean[]) o1, (boolean[]) o2);
+            case BYTE_ARRAY:
+                return Arrays.equals((byte[]) o1, (byte[]) o2);
+            case SHORT_ARRAY:
+                return Arrays.equals((short[]) o1, (short[]) o2);
+            case CHAR_ARRAY:
+                return Arrays.equals((char[]) o1, (char[]) o2);
+            case INT_ARRAY:
+                return Arrays.equals((int[]) o1, (int[]) o2);
+            case LONG_ARRAY:
+                return Arrays.equals((long[]) o1, (long[]) o2);
+            case FLOAT_ARRAY:
+                return Arrays.equals((float[]) o1, (float[]) o2);
+            case DOUBLE_ARRAY:
+                return Arrays.equals((double[]) o1, (double[]) o2);
+            case STRING_ARRAY:
+                return Arrays.equals((String[]) o1, (String[]) o2);
+            default:
+                return Objects.equals(o1, o2);
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            PropertyMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+            return new Iterator<Entry<String, Object>>() {
+
+                private int next = 0;
+                private int last = -1;
+                private int expectedModifications = modifications;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public Entry<String, Object> next() {
+                    if (modifications != expectedModifications) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (next >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    last = next++;
+                    return new SimpleEntry<String, Object>(keys[last], value(last)) {
+                        @Override
+                        public Object setValue(Object value) {
+                            super.setValue(value);
+                            return put(getKey(), value);
+                        }
+                    };
+                }
+
+                @Override
+                public void remove() {
+                    if (last < 0) {
+                        throw new IllegalStateException();
+                    }
+                    if (modifications != expectedModifications) {
+                        throw new ConcurrentModificationException();
+                    }
+                    //the last slot is moved into the removed one, so it has to be visited again
+                    removeSlot(last);
+                    next = last;
+                    last = -1;
+                    expectedModifications = modifications;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.representation;
+
+import org.neo4j.graphdb.Entity;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled selection of properties to be included in a {@link DetachedEntity}, e.g. from a
+ * {@link SerializationSpecification}. Property keys are de-duplicated and interned in the {@link NameDictionary} once,
+ * when the projection is compiled, so that projecting an entity is a single read of the requested properties into a
+ * {@link PropertyMap} sized upfront.
+ * <p/>
+ * Instances are immutable and thread-safe, meant to be compiled once and reused for many entities, e.g. by obtaining
+ * them from {@link SerializationSpecification#getNodeProjection()} and
+ * {@link SerializationSpecification#getRelationshipProjection()}.
+ */
+public final class PropertyProjection {
+
+    private static final PropertyProjection ALL = new PropertyProjection(null);
+    private static final PropertyProjection NONE = new PropertyProjection(new String[0]);
+
+    private final String[] keys;
+
+    /**
+     * Get a projection of all properties.
+     *
+     * @return projection.
+     */
+    public static PropertyProjection all() {
+        return ALL;
+    }
+
+    /**
+     * Get a projection of no properties.
+     *
+     * @return projection.
+     */
+    public static PropertyProjection none() {
+        return NONE;
+    }
+
+    /**
+     * Compile a projection. Compilation de-duplicates and interns the keys, so the returned projection should be held
+     * on to and reused rather than compiled for every entity.
+     *
+     * @param keys keys of properties to be included. <code>null</code> means all, empty array means none.
+     * @return projection.
+     */
+    public static PropertyProjection of(String... keys) {
+        if (keys == null) {
+            return ALL;
+        }
+
+        if (keys.length == 0) {
+            return NONE;
+        }
+
+        return new PropertyProjection(compile(keys));
+    }
+
+    /**
+     * Read properties from an entity without compiling a projection, for one-off representations constructed from
+     * an array of keys.
+     *
+     * @param entity to read properties from. Must not be <code>null</code>.
+     * @param keys   keys of properties to be included. <code>null</code> means all, empty array means none.
+     * @return new mutable map of properties.
+     */
+    static Map<String, Object> project(Entity entity, String[] keys) {
+        if (keys == null) {
+            return ALL.project(entity);
+        }
+
+        for (String key : keys) {
+            if (key == null) {
+                return of(keys).project(entity);
+            }
+        }
+
+        return read(entity, keys);
+    }
+
+    private static String[] compile(String[] keys) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String key : keys) {
+            if (key != null) {
+                unique.add(NameDictionary.getInstance().intern(key));
+            }
+        }
+        return unique.toArray(new String[0]);
+    }
+
+    private PropertyProjection(String[] keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * @return <code>true</code> iff this projection includes all properties.
+     */
+    public boolean includesAll() {
+        return keys == null;
+    }
+
+    /**
+     * Get the keys of properties included by this projection.
+     *
+     * @return copy of the keys, <code>null</code> if all properties are included.
+     */
+    public String[] getKeys() {
+        return keys == null ? null : keys.clone();
+    }
+
+    /**
+     * Read the properties included by this projection from an entity. Properties the entity doesn't have are left out.
+     *
+     * @param entity to read properties from. Must not be <code>null</code>.
+     * @return new mutable map of properties.
+     */
+    public Map<String, Object> project(Entity entity) {
+        if (keys == null) {
+            return new PropertyMap(entity.getAllProperties());
+        }
+
+        return read(entity, keys);
+    }
+
+    private static Map<String, Object> read(Entity entity, String[] keys) {
+        PropertyMap result = new PropertyMap(keys.length);
+        if (keys.length == 0) {
+            return result;
+        }
+
+        if (keys.length == 1) {
+            Object value = entity.getProperty(keys[0], null);
+            if (value != null) {
+                result.put(keys[0], value);
+            }
+            return result;
+        }
+
+        Map<String, Object> properties = entity.getProperties(keys);
+        for (String key : keys) {
+            Object value = properties.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        return Arrays.equals(keys, ((PropertyProjection) o).keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(keys);
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyProjection{keys=" + (keys == null ? "all" : Arrays.toString(keys)) + "}";
+    }
+}
@@ -45,7 +45,7 @@ public class SerializableNode<ID> extends DetachedNode<ID> {
      * @param transformer ID transformer.
      */
     public SerializableNode(Node node, NodeIdTransformer<ID> transformer) {
-        this(node, null, transformer);
+        this(PropertyProjection.all(), node, transformer);
     }
 
     /**
@@ -61,6 +61,18 @@ public class SerializableNode<ID> extends DetachedNode<ID> {
         setId(transformer.fromEntity(node));
     }
 
+    /**
+     * Create a Serializable {@link DetachedNode} from a Neo4j node.
+     *
+     * @param projection  of properties to be included in the representation. Must not be <code>null</code>.
+     * @param node        node to create the representation from. Must not be <code>null</code>.
+     * @param transformer ID transformer.
+     */
+    public SerializableNode(PropertyProjection projection, Node node, NodeIdTransformer<ID> transformer) {
+        super(projection, node);
+        setId(transformer.fromEntity(node));
+    }
+
     /**
      * Create a Serializable {@link DetachedNode} from custom node ID.
      *
@@ -49,7 +49,7 @@ public class SerializableRelationship<ID> extends DetachedRelationship<ID, Seria
      * @param nodeIdTransformer         ID transformer for node IDs.
      */
     public SerializableRelationship(Relationship relationship, RelationshipIdTransformer<ID> relationshipIdTransformer, NodeIdTransformer<ID> nodeIdTransformer) {
-        this(relationship, null, relationshipIdTransformer, nodeIdTransformer);
+        this(PropertyProjection.all(), relationship, relationshipIdTransformer, nodeIdTransformer);
     }
 
     /**
@@ -69,6 +69,22 @@ public class SerializableRelationship<ID> extends DetachedRelationship<ID, Seria
         setEndNodeId(nodeIdTransformer.fromEntity(relationship.getEndNode()));
     }
 
+    /**
+     * Create a Serializable {@link DetachedRelationship} from a Neo4j relationship.
+     *
+     * @param projection                of properties to be included in the representation. Must not be <code>null</code>.
+     * @param relationship              relationship to create the representation from.
+     * @param relationshipIdTransformer ID transformer for relationship IDs.
+     * @param nodeIdTransformer         ID transformer for node IDs.
+     */
+    public SerializableRelationship(PropertyProjection projection, Relationship relationship, RelationshipIdTransformer<ID> relationshipIdTransformer, NodeIdTransformer<ID> nodeIdTransformer) {
+        super(projection, relationship, nodeIdTransformer);
+
+        setId(relationshipIdTransformer.fromEntity(relationship));
+        setStartNodeId(nodeIdTransformer.fromEntity(relationship.getStartNode()));
+        setEndNodeId(nodeIdTransformer.fromEntity(relationship.getEndNode()));
+    }
+
     /**
      * Create a Serializable {@link DetachedRelationship} from own relationship ID.
      *
@@ -16,14 +16,22 @@
 
 package com.graphaware.common.representation;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * Specification of what to include an API output.
+ * <p/>
+ * The specification is compiled into {@link PropertyProjection}s, which should be used when many entities are
+ * serialized according to the same specification.
  */
 public class SerializationSpecification {
 
     private String[] nodeProperties;
     private String[] relationshipProperties;
 
+    private volatile PropertyProjection nodeProjection;
+    private volatile PropertyProjection relationshipProjection;
+
     /**
      * Construct a new spec: Return all node and relationship properties.
      */
@@ -64,6 +72,7 @@ public class SerializationSpecification {
      */
     public void setNodeProperties(String[] nodeProperties) {
         this.nodeProperties = nodeProperties;
+        this.nodeProjection = null;
     }
 
     /**
@@ -85,5 +94,40 @@ public class SerializationSpecification {
      */
     public void setRelationshipProperties(String[] relationshipProperties) {
         this.relationshipProperties = relationshipProperties;
+        this.relationshipProjection = null;
+    }
+
+    /**
+     * Get the node properties to be included in the output, compiled into a projection. The projection is compiled
+     * once and reused until {@link #setNodeProperties(String[])} is called. Changes made to the array returned by
+     * {@link #getNodeProperties()} are not reflected in the projection.
+     *
+     * @return projection of node properties.
+     */
+    @JsonIgnore
+    public PropertyProjection getNodeProjection() {
+        PropertyProjection projection = nodeProjection;
+        if (projection == null) {
+            projection = PropertyProjection.of(nodeProperties);
+            nodeProjection = projection;
+        }
+        return projection;
+    }
+
+    /**
+     * Get the relationship properties to be included in the output, compiled into a projection. The projection is
+     * compiled once and reused until {@link #setRelationshipProperties(String[])} is called. Changes made to the array
+     * returned by {@link #getRelationshipProperties()} are not reflected in the projection.
+     *
+     * @return projection of relationship properties.
+     */
+    @JsonIgnore
+    public PropertyProjection getRelationshipProjection() {
+        PropertyProjection projection = relationshipProjection;
+        if (projection == null) {
+            projection = PropertyProjection.of(relationshipProperties);
+            relationshipProjection = projection;
+        }
+        return projection;
     }
 }
@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.transform;
+
+import com.graphaware.common.representation.DetachedEntity;
+import com.graphaware.common.wrapper.Wrapper;
+import org.eclipse.collections.api.map.primitive.MutableLongIntMap;
+import org.eclipse.collections.api.map.primitive.MutableLongObjectMap;
+import org.eclipse.collections.api.map.primitive.MutableObjectLongMap;
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectLongHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListener;
+import org.neo4j.kernel.impl.core.NodeEntity;
+import org.neo4j.kernel.impl.core.RelationshipEntity;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.springframework.util.Assert.hasLength;
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * {@link IdTransformer} decorating another one, typically one that derives custom IDs from a property of the entities
+ * (such as a UUID), with a bounded cache of mappings between internal Neo4j IDs and custom IDs, so that repeated
+ * transformations in either direction don't have to read the property or look the entity up in an index.
+ * <p/>
+ * The cache is bidirectional: a mapping learned by {@link #fromEntity(Entity)} serves {@link #toGraphId(Object)} and vice
+ * versa. It holds at most a configured number of mappings and evicts the ones that have been cached first when full.
+ * Lookups can run concurrently; the cache is only locked exclusively when mappings are added or removed, which only
+ * happens on misses and invalidations. Only existing mappings are cached, failed lookups are not.
+ * <p/>
+ * For the cache to stay consistent with the database, this transformer must be registered as a
+ * {@link TransactionEventListener} with the database it transforms IDs of. Mappings of entities that have been deleted or
+ * whose property holding the custom ID has changed are then invalidated before and again after each transaction commits,
+ * and mappings of all entities created, deleted, or with a changed ID property are invalidated when a commit fails.
+ * A mapping learned by a lookup that was running while any mappings were being invalidated is not cached, so that a
+ * value read before a commit can't be cached after it.
+ * <p/>
+ * {@link #fromEntity(Entity)} doesn't cache mappings of entities read in transactions that have uncommitted changes,
+ * since these can be rolled back without a commit ever being attempted, in which case no transaction event is fired.
+ * For the same reason, delegates should perform {@link #toGraphId(Object)} lookups in a transaction of their own (or
+ * one without changes), because the transaction they read in can't be checked. Until a transaction commits, the cache
+ * serves the mappings that were last committed, including to the transaction that changes them.
+ * <p/>
+ * Numbers of cache hits and misses are available for monitoring.
+ *
+ * @param <ID> custom ID type.
+ * @param <E>  entity type.
+ */
+public abstract class CachingIdTransformer<ID, E extends Entity> extends BaseIdTransformer<ID, E> implements TransactionEventListener<long[]> {
+
+    /**
+     * Default maximum number of cached mappings.
+     */
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private static final int NO_SLOT = -1;
+
+    private final IdTransformer<ID, E> delegate;
+    private final String idProperty;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final MutableLongObjectMap<ID> customIds = new LongObjectHashMap<>();
+    private final MutableObjectLongMap<ID> graphIds = new ObjectLongHashMap<>();
+
+    /**
+     * Internal IDs in the order they have been cached in, a circular buffer. Slots of mappings that have been removed
+     * other than by eviction hold {@link DetachedEntity#NEW} until they are reused.
+     */
+    private final long[] cached;
+    private final MutableLongIntMap slots = new LongIntHashMap();
+    private int oldest = 0;
+    private int count = 0;
+
+    /**
+     * Incremented whenever mappings are invalidated.
+     */
+    private volatile long generation = 0;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create a new transformer.
+     *
+     * @param delegate   transformer performing the actual transformations on cache misses. Must not be <code>null</code>.
+     * @param idProperty key of the property the custom ID is derived from. Must not be <code>null</code> or empty.
+     * @param capacity   maximum number of cached mappings. Must be positive.
+     */
+    protected CachingIdTransformer(IdTransformer<ID, E> delegate, String idProperty, int capacity) {
+        notNull(delegate, "Delegate transformer must not be null");
+        hasLength(idProperty, "ID property must not be null or empty");
+        isTrue(capacity > 0, "Capacity must be positive");
+
+        this.delegate = delegate;
+        this.idProperty = idProperty;
+        this.cached = new long[capacity];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected long toExistingGraphId(ID id) {
+        long graphId;
+
+        lock.readLock().lock();
+        try {
+            graphId = graphIds.getIfAbsent(id, DetachedEntity.NEW);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (graphId != DetachedEntity.NEW) {
+            hits.increment();
+            return graphId;
+        }
+
+        misses.increment();
+        long sampledGeneration = generation;
+        graphId = delegate.toGraphId(id);
+        if (graphId != DetachedEntity.NEW) {
+            cache(graphId, id, sampledGeneration);
+        }
+
+        return graphId;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ID fromEntity(E entity) {
+        notNull(entity, "Entity must not be null");
+
+        long graphId = entity.getId();
+        ID id;
+
+        lock.readLock().lock();
+        try {
+            id = customIds.get(graphId);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (id != null) {
+            hits.increment();
+            return id;
+        }
+
+        misses.increment();
+        long sampledGeneration = generation;
+        id = delegate.fromEntity(entity);
+        if (isCommitted(entity)) {
+            cache(graphId, id, sampledGeneration);
+        }
+
+        return id;
+    }
+
+    /**
+     * Remove the mapping of an entity from the cache.
+     *
+     * @param graphId internal ID of the entity.
+     */
+    public void invalidate(long graphId) {
+        invalidate(new long[]{graphId});
+    }
+
+    /**
+     * Remove all mappings from the cache.
+     */
+    public void invalidateAll() {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            customIds.clear();
+            graphIds.clear();
+            slots.clear();
+            oldest = 0;
+            count = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of mappings currently cached.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return customIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of transformations served from the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of transformations that had to be performed by the delegate transformer.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return ratio of transformations served from the cache to all transformations, 0 if there have been none.
+     */
+    public double getHitRatio() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public long[] beforeCommit(TransactionData data, Transaction transaction, GraphDatabaseService databaseService) {
+        long[] invalidated = invalidatedIds(data);
+        invalidate(invalidated);
+        return invalidated;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Invalidates the mappings again, in case they have been cached by another transaction reading the previously
+     * committed state while this one was committing.
+     */
+    @Override
+    public void afterCommit(TransactionData data, long[] invalidated, GraphDatabaseService databaseService) {
+        if (invalidated != null) {
+            invalidate(invalidated);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Invalidates mappings of all entities that the transaction created, deleted, or changed the ID property of, in
+     * case any of them have been cached while the transaction was committing.
+     */
+    @Override
+    public void afterRollback(TransactionData data, long[] invalidated, GraphDatabaseService databaseService) {
+        MutableLongSet ids = newIdSet();
+        collectCreated(data, ids);
+        if (invalidated != null) {
+            ids.addAll(invalidated);
+        } else {
+            ids.addAll(invalidatedIds(data));
+        }
+        invalidate(ids.toArray());
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{idProperty=" + idProperty + ", size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses() + "}";
+    }
+
+    /**
+     * Find internal IDs of entities whose mappings must be invalidated, because the entities have been deleted or the
+     * property the custom ID is derived from has changed, in a transaction.
+     *
+     * @param data about the transaction.
+     * @return IDs of entities to invalidate.
+     */
+    protected abstract long[] invalidatedIds(TransactionData data);
+
+    /**
+     * Collect internal IDs of entities created in a transaction.
+     *
+     * @param data about the transaction.
+     * @param ids  to add the IDs to.
+     */
+    protected abstract void collectCreated(TransactionData data, MutableLongSet ids);
+
+    /**
+     * Collect internal IDs of entities whose property the custom ID is derived from has been assigned or removed.
+     *
+     * @param entries of assigned or removed properties.
+     * @param ids     to add the IDs to.
+     */
+    protected final void collectChanged(Iterable<PropertyEntry<E>> entries, MutableLongSet ids) {
+        for (PropertyEntry<E> entry : entries) {
+            if (idProperty.equals(entry.key())) {
+                ids.add(entry.entity().getId());
+            }
+        }
+    }
+
+    /**
+     * Create a set of internal IDs for {@link #invalidatedIds(TransactionData)}.
+     *
+     * @return empty set.
+     */
+    protected static MutableLongSet newIdSet() {
+        return new LongHashSet();
+    }
+
+    /**
+     * Find out whether the state of an entity as it has been read is committed, i.e. the transaction it has been read
+     * in has no changes. Entities of unknown implementations are considered uncommitted.
+     *
+     * @param entity to check.
+     * @return true iff the state of the entity is known to be committed.
+     */
+    private static boolean isCommitted(Entity entity) {
+        Object current = entity;
+        while (current instanceof Wrapper) {
+            current = ((Wrapper<?>) current).getWrapped();
+        }
+
+        InternalTransaction transaction;
+        if (current instanceof NodeEntity) {
+            transaction = ((NodeEntity) current).getTransaction();
+        } else if (current instanceof RelationshipEntity) {
+            transaction = ((RelationshipEntity) current).getTransaction();
+        } else {
+            return false;
+        }
+
+        return !transaction.kernelTransaction().dataRead().transactionStateHasChanges();
+    }
+
+    private void invalidate(long[] graphIds) {
+        if (graphIds.length == 0) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            generation++;
+            for (long graphId : graphIds) {
+                remove(graphId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void cache(long graphId, ID id, long sampledGeneration) {
+        if (id == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (generation != sampledGeneration) {
+                //invalidated while the delegate was reading, what it read may be stale
+                return;
+            }
+
+            ID previousId = customIds.get(graphId);
+            if (id.equals(previousId)) {
+                return;
+            }
+
+            remove(graphId);
+            remove(graphIds.getIfAbsent(id, DetachedEntity.NEW));
+
+            if (count == cached.length) {
+                long evicted = cached[oldest];
+                if (evicted != DetachedEntity.NEW) {
+                    remove(evicted);
+                }
+                oldest = (oldest + 1) % cached.length;
+                count--;
+            }
+
+            int slot = (oldest + count) % cached.length;
+            cached[slot] = graphId;
+            slots.put(graphId, slot);
+            count++;
+
+            customIds.put(graphId, id);
+            graphIds.put(id, graphId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(long graphId) {
+        if (graphId == DetachedEntity.NEW) {
+            return;
+        }
+
+        ID id = customIds.removeKey(graphId);
+        if (id != null) {
+            graphIds.remove(id);
+        }
+
+        int slot = slots.removeKeyIfAbsent(graphId, NO_SLOT);
+        if (slot != NO_SLOT) {
+            cached[slot] = DetachedEntity.NEW;
+        }
+    }
+}
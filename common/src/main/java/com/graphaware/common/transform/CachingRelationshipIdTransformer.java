@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.transform;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.event.TransactionData;
+
+/**
+ * {@link CachingIdTransformer} for {@link Relationship}s.
+ *
+ * @param <ID> custom ID type.
+ */
+public class CachingRelationshipIdTransformer<ID> extends CachingIdTransformer<ID, Relationship> implements RelationshipIdTransformer<ID> {
+
+    /**
+     * Create a new transformer caching at most {@link #DEFAULT_CAPACITY} mappings.
+     *
+     * @param delegate   transformer performing the actual transformations on cache misses.
+     * @param idProperty key of the relationship property the custom ID is derived from.
+     */
+    public CachingRelationshipIdTransformer(RelationshipIdTransformer<ID> delegate, String idProperty) {
+        this(delegate, idProperty, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a new transformer.
+     *
+     * @param delegate   transformer performing the actual transformations on cache misses.
+     * @param idProperty key of the relationship property the custom ID is derived from.
+     * @param capacity   maximum number of cached mappings.
+     */
+    public CachingRelationshipIdTransformer(RelationshipIdTransformer<ID> delegate, String idProperty, int capacity) {
+        super(delegate, idProperty, capacity);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected long[] invalidatedIds(TransactionData data) {
+        MutableLongSet ids = newIdSet();
+
+        for (Relationship relationship : data.deletedRelationships()) {
+            ids.add(relationship.getId());
+        }
+        collectChanged(data.assignedRelationshipProperties(), ids);
+        collectChanged(data.removedRelationshipProperties(), ids);
+
+        return ids.toArray();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void collectCreated(TransactionData data, MutableLongSet ids) {
+        for (Relationship relationship : data.createdRelationships()) {
+            ids.add(relationship.getId());
+        }
+    }
+}
@@ -18,21 +18,49 @@ package com.graphaware.common.transform;
 
 import com.graphaware.common.json.JsonNode;
 import com.graphaware.common.json.LongIdJsonNode;
+import com.graphaware.common.representation.PropertyProjection;
+import com.graphaware.common.representation.SerializationSpecification;
 import org.neo4j.graphdb.Node;
 
 public class TrivialNodeTransformer implements NodeTransformer<JsonNode> {
 
-    public static final TrivialNodeTransformer INSTANCE = new TrivialNodeTransformer();
+    public static final TrivialNodeTransformer INSTANCE = new TrivialNodeTransformer(PropertyProjection.all());
+
+    private final PropertyProjection projection;
 
     public static TrivialNodeTransformer getInstance() {
         return INSTANCE;
     }
 
-    private TrivialNodeTransformer() {
+    /**
+     * Get a transformer that only includes the node properties selected by the given specification.
+     *
+     * @param specification of the output. Must not be <code>null</code>.
+     * @return transformer.
+     */
+    public static TrivialNodeTransformer of(SerializationSpecification specification) {
+        return of(specification.getNodeProjection());
+    }
+
+    /**
+     * Get a transformer that only includes the node properties selected by the given projection.
+     *
+     * @param projection of node properties. Must not be <code>null</code>.
+     * @return transformer.
+     */
+    public static TrivialNodeTransformer of(PropertyProjection projection) {
+        if (projection.includesAll()) {
+            return INSTANCE;
+        }
+        return new TrivialNodeTransformer(projection);
+    }
+
+    private TrivialNodeTransformer(PropertyProjection projection) {
+        this.projection = projection;
     }
 
     @Override
     public JsonNode transform(Node node) {
-        return new LongIdJsonNode(node);
+        return new LongIdJsonNode(projection, node);
     }
 }
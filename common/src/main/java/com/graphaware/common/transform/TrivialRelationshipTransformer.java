@@ -18,21 +18,49 @@ package com.graphaware.common.transform;
 
 import com.graphaware.common.json.JsonRelationship;
 import com.graphaware.common.json.LongIdJsonRelationship;
+import com.graphaware.common.representation.PropertyProjection;
+import com.graphaware.common.representation.SerializationSpecification;
 import org.neo4j.graphdb.Relationship;
 
 public class TrivialRelationshipTransformer implements RelationshipTransformer<JsonRelationship> {
 
-    public static final TrivialRelationshipTransformer INSTANCE = new TrivialRelationshipTransformer();
+    public static final TrivialRelationshipTransformer INSTANCE = new TrivialRelationshipTransformer(PropertyProjection.all());
+
+    private final PropertyProjection projection;
 
     public static TrivialRelationshipTransformer getInstance() {
         return INSTANCE;
     }
 
-    private TrivialRelationshipTransformer() {
+    /**
+     * Get a transformer that only includes the relationship properties selected by the given specification.
+     *
+     * @param specification of the output. Must not be <code>null</code>.
+     * @return transformer.
+     */
+    public static TrivialRelationshipTransformer of(SerializationSpecification specification) {
+        return of(specification.getRelationshipProjection());
+    }
+
+    /**
+     * Get a transformer that only includes the relationship properties selected by the given projection.
+     *
+     * @param projection of relationship properties. Must not be <code>null</code>.
+     * @return transformer.
+     */
+    public static TrivialRelationshipTransformer of(PropertyProjection projection) {
+        if (projection.includesAll()) {
+            return INSTANCE;
+        }
+        return new TrivialRelationshipTransformer(projection);
+    }
+
+    private TrivialRelationshipTransformer(PropertyProjection projection) {
+        this.projection = projection;
     }
 
     @Override
     public JsonRelationship transform(Relationship relationship) {
-        return new LongIdJsonRelationship(relationship);
+        return new LongIdJsonRelationship(projection, relationship);
     }
 }
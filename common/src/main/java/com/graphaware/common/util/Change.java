@@ -18,6 +18,7 @@ package com.graphaware.common.util;
 
 import org.neo4j.graphdb.Entity;
 
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -25,7 +26,7 @@ import java.util.Map;
 /**
  * Change in the state of an object, encapsulating the old (previous) and the new (current).
  */
-public class Change<T> {
+public class Change<T> implements Serializable {
 
     private final T previous;
     private final T current;
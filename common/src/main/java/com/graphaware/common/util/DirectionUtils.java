@@ -54,17 +54,21 @@ public final class DirectionUtils {
      * @return direction of the relationship from the given node's point of view.
      */
     public static Direction resolveDirection(Relationship relationship, Node pointOfView, Direction defaultDirection) {
-        if (relationship.getEndNode().getId() != pointOfView.getId() && relationship.getStartNode().getId() != pointOfView.getId()) {
-            String message = "Provided relationship (" + relationship.getId() + ") does not have node (" + pointOfView.getId() + ") on either of its ends!";
+        long startNodeId = relationship.getStartNodeId();
+        long endNodeId = relationship.getEndNodeId();
+        long pointOfViewId = pointOfView.getId();
+
+        if (endNodeId != pointOfViewId && startNodeId != pointOfViewId) {
+            String message = "Provided relationship (" + relationship.getId() + ") does not have node (" + pointOfViewId + ") on either of its ends!";
             LOG.error(message);
             throw new IllegalArgumentException(message);
         }
 
-        if (relationship.getEndNode().getId() == relationship.getStartNode().getId()) {
+        if (endNodeId == startNodeId) {
             return defaultDirection;
         }
 
-        return ((relationship.getStartNode().getId() == pointOfView.getId()) ? OUTGOING : INCOMING);
+        return startNodeId == pointOfViewId ? OUTGOING : INCOMING;
     }
 
     /**
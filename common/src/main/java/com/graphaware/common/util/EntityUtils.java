@@ -68,6 +68,32 @@ public final class EntityUtils {
         return result.toArray(new Long[result.size()]);
     }
 
+    /**
+     * Get names of labels of a {@link Node}. No intermediate collection is allocated when the node's labels are a
+     * {@link Collection}, which is the case for nodes read from the database.
+     *
+     * @param node to get label names of.
+     * @return label names, in the order returned by {@link Node#getLabels()}.
+     */
+    public static String[] labelNames(Node node) {
+        Iterable<Label> labels = node.getLabels();
+
+        if (labels instanceof Collection) {
+            String[] result = new String[((Collection<?>) labels).size()];
+            int i = 0;
+            for (Label label : labels) {
+                result[i++] = label.name();
+            }
+            return result;
+        }
+
+        List<String> result = new ArrayList<>();
+        for (Label label : labels) {
+            result.add(label.name());
+        }
+        return result.toArray(new String[0]);
+    }
+
     /**
      * Convert a property value to String. If the value is <code>null</code>, then it will be converted to an empty String.
      *
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.description.property;
+
+import com.graphaware.common.description.predicate.Predicate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.graphaware.common.description.predicate.Predicates.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for {@link BaseDetachedPropertiesDescription}.
+ */
+public class BaseDetachedPropertiesDescriptionTest {
+
+    private final DetachedPropertiesDescription wildcard = new WildcardPropertiesDescription(Collections.<String, Predicate>emptyMap());
+    private final DetachedPropertiesDescription literal = new LiteralPropertiesDescription(Collections.<String, Predicate>emptyMap());
+
+    @Test
+    public void shouldKeepKeysSorted() {
+        DetachedPropertiesDescription description = wildcard.with("c", equalTo(3)).with("a", equalTo(1)).with("b", equalTo(2)).with("a", equalTo(4));
+
+        assertEquals(Arrays.asList("a", "b", "c"), description.getKeys());
+        assertEquals(equalTo(4), description.get("a"));
+        assertEquals(equalTo(2), description.get("b"));
+        assertEquals(equalTo(3), description.get("c"));
+        assertEquals(any(), description.get("d"));
+        assertEquals(undefined(), literal.with("a", equalTo(1)).get("d"));
+    }
+
+    @Test
+    public void shouldNotModifyOriginalDescription() {
+        DetachedPropertiesDescription original = wildcard.with("a", equalTo(1));
+        original.with("a", equalTo(2));
+        original.with("b", equalTo(2));
+
+        assertEquals(Collections.singletonList("a"), original.getKeys());
+        assertEquals(equalTo(1), original.get("a"));
+    }
+
+    @Test
+    public void equalDescriptionsShouldHaveEqualHashCodes() {
+        Map<String, Predicate> predicates = new HashMap<>();
+        predicates.put("b", greaterThan(2));
+        predicates.put("a", equalTo(new int[]{1, 2}));
+
+        DetachedPropertiesDescription fromMap = new WildcardPropertiesDescription(predicates);
+        DetachedPropertiesDescription fromWith = wildcard.with("b", greaterThan(2)).with("a", equalTo(new int[]{1, 2}));
+
+        assertEquals(fromMap, fromWith);
+        assertEquals(fromMap.hashCode(), fromWith.hashCode());
+        assertNotEquals(fromMap, new LiteralPropertiesDescription(predicates));
+        assertNotEquals(fromMap, fromWith.with("b", greaterThan(3)));
+    }
+
+    @Test
+    public void subclassesImplementingOnlyMapBasedNewInstanceShouldBeSupported() {
+        DetachedPropertiesDescription description = new MapBasedDescription(Collections.<String, Predicate>emptyMap())
+                .with("b", equalTo(2))
+                .with("a", equalTo(1))
+                .with("b", equalTo(3));
+
+        assertTrue(description instanceof MapBasedDescription);
+        assertEquals(Arrays.asList("a", "b"), description.getKeys());
+        assertEquals(equalTo(1), description.get("a"));
+        assertEquals(equalTo(3), description.get("b"));
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(((MapBasedDescription) description).predicates.keySet()));
+        assertEquals(equalTo(3), ((MapBasedDescription) description).predicates.get("b"));
+    }
+
+    private static class MapBasedDescription extends BaseDetachedPropertiesDescription {
+
+        MapBasedDescription(Map<String, Predicate> predicates) {
+            super(predicates);
+        }
+
+        @Override
+        protected DetachedPropertiesDescription newInstance(Map<String, Predicate> predicates) {
+            return new MapBasedDescription(predicates);
+        }
+
+        @Override
+        protected Predicate undefined() {
+            return any();
+        }
+    }
+}
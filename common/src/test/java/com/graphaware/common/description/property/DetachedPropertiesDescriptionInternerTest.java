@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.description.property;
+
+import com.graphaware.common.description.predicate.Predicate;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static com.graphaware.common.description.predicate.Predicates.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for {@link DetachedPropertiesDescriptionInterner}.
+ */
+public class DetachedPropertiesDescriptionInternerTest {
+
+    private final DetachedPropertiesDescription wildcard = new WildcardPropertiesDescription(Collections.<String, Predicate>emptyMap());
+    private final DetachedPropertiesDescription literal = new LiteralPropertiesDescription(Collections.<String, Predicate>emptyMap());
+
+    @Test
+    public void shouldInternDescriptions() {
+        DetachedPropertiesDescriptionInterner interner = new DetachedPropertiesDescriptionInterner();
+
+        DetachedPropertiesDescription description1 = wildcard.with("a", equalTo(1)).with("b", lessThan(2));
+        DetachedPropertiesDescription description2 = wildcard.with("b", lessThan(2)).with("a", equalTo(1));
+        DetachedPropertiesDescription description3 = literal.with("b", lessThan(2)).with("a", equalTo(1));
+
+        assertNotSame(description1, description2);
+        assertSame(interner.intern(description1), interner.intern(description2));
+        assertSame(interner.intern(description1), interner.intern(description1));
+        assertNotSame(interner.intern(description1), interner.intern(description3));
+        assertEquals(2, interner.size());
+    }
+
+    @Test
+    public void descriptionsWithSameKeysShouldShareKeys() {
+        DetachedPropertiesDescriptionInterner interner = new DetachedPropertiesDescriptionInterner();
+
+        Iterable<String> keys1 = interner.intern(wildcard.with(new String("a"), equalTo(1)).with("b", equalTo(2))).getKeys();
+        Iterable<String> keys2 = interner.intern(literal.with("b", equalTo(3)).with(new String("a"), equalTo(4))).getKeys();
+
+        assertSame(keys1.iterator().next(), keys2.iterator().next());
+    }
+
+    @Test
+    public void internersShouldBeIndependent() {
+        DetachedPropertiesDescription description1 = wildcard.with("a", equalTo(1));
+        DetachedPropertiesDescription description2 = wildcard.with("a", equalTo(1));
+
+        assertSame(description1, new DetachedPropertiesDescriptionInterner().intern(description1));
+        assertSame(description2, new DetachedPropertiesDescriptionInterner().intern(description2));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.description.property;
+
+import com.graphaware.common.description.predicate.Predicate;
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.graphaware.common.description.predicate.Predicates.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test for {@link PropertiesDescriptionMatcher}.
+ */
+@ExtendWith(Neo4jExtension.class)
+public class PropertiesDescriptionMatcherTest {
+
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    @Test
+    public void shouldMatchEntitiesTheSameWayAsLiteralDescriptions() {
+        DetachedPropertiesDescription wildcard = new WildcardPropertiesDescription(Collections.<String, Predicate>emptyMap());
+        DetachedPropertiesDescription literal = new LiteralPropertiesDescription(Collections.<String, Predicate>emptyMap());
+
+        List<DetachedPropertiesDescription> descriptions = Arrays.asList(
+                wildcard,
+                wildcard.with("name", equalTo("Michal")),
+                wildcard.with("name", equalTo("Daniela")),
+                wildcard.with("name", any()).with("age", greaterThan(30)),
+                wildcard.with("age", lessThan(40)),
+                wildcard.with("age", undefined()),
+                wildcard.with("age", greaterThanOrEqualTo(35)),
+                wildcard.with("tags", equalTo(new String[]{"a", "b"})),
+                literal,
+                literal.with("name", equalTo("Michal")),
+                literal.with("name", equalTo("Michal")).with("age", greaterThan(18)).with("tags", any()),
+                literal.with("name", any()).with("age", any()).with("tags", any()),
+                literal.with("age", undefined())
+        );
+
+        try (Transaction tx = database.beginTx()) {
+            Node michal = tx.createNode();
+            michal.setProperty("name", "Michal");
+            michal.setProperty("age", 35);
+            michal.setProperty("tags", new String[]{"a", "b"});
+
+            Node daniela = tx.createNode();
+            daniela.setProperty("name", "Daniela");
+
+            Node empty = tx.createNode();
+
+            for (Node node : Arrays.asList(michal, daniela, empty)) {
+                for (DetachedPropertiesDescription description : descriptions) {
+                    assertEquals(new LiteralPropertiesDescription(node).isMoreSpecificThan(description),
+                            new PropertiesDescriptionMatcher(description).matches(node),
+                            description + " " + node.getAllProperties());
+                }
+            }
+
+            assertTrue(new PropertiesDescriptionMatcher(wildcard.with("age", greaterThan(30))).matches(michal));
+            assertFalse(new PropertiesDescriptionMatcher(wildcard.with("age", greaterThan(30))).matches(daniela));
+            assertTrue(new PropertiesDescriptionMatcher(literal).matches(empty));
+            assertFalse(new PropertiesDescriptionMatcher(literal).matches(daniela));
+
+            tx.commit();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.description.relationship;
+
+import com.graphaware.common.description.predicate.Predicate;
+import com.graphaware.common.description.property.LiteralPropertiesDescription;
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.graphaware.common.description.predicate.Predicates.*;
+import static com.graphaware.common.description.relationship.RelationshipDescriptionFactory.literal;
+import static com.graphaware.common.description.relationship.RelationshipDescriptionFactory.wildcard;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.neo4j.graphdb.Direction.*;
+import static org.neo4j.graphdb.RelationshipType.withName;
+
+/**
+ * Unit test for {@link RelationshipDescriptionIndex}.
+ */
+@ExtendWith(Neo4jExtension.class)
+public class RelationshipDescriptionIndexTest {
+
+    private static final String[] TYPES = {"R1", "R2"};
+    private static final Direction[] DIRECTIONS = {INCOMING, OUTGOING, BOTH};
+    private static final String[] KEYS = {"k1", "k2", "k3"};
+
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    @Test
+    public void shouldMatchRelationships() {
+        DetachedRelationshipDescription anyR1 = wildcard("R1", BOTH);
+        DetachedRelationshipDescription outgoingR1 = wildcard("R1", OUTGOING);
+        DetachedRelationshipDescription incomingR1 = wildcard("R1", INCOMING);
+        DetachedRelationshipDescription senior = wildcard("R1", OUTGOING).with("since", lessThan(2014));
+        DetachedRelationshipDescription director = literal("R1", OUTGOING).with("since", any()).with("role", equalTo("Director"));
+        DetachedRelationshipDescription noRole = wildcard("R1", BOTH).with("role", undefined());
+        DetachedRelationshipDescription r2 = wildcard("R2", BOTH);
+
+        RelationshipDescriptionIndex index = new RelationshipDescriptionIndex();
+        for (DetachedRelationshipDescription description : Arrays.asList(anyR1, outgoingR1, incomingR1, senior, director, noRole, r2)) {
+            index.add(description);
+        }
+
+        assertEquals(7, index.size());
+
+        try (Transaction tx = database.beginTx()) {
+            Node michal = tx.createNode();
+            Node graphaware = tx.createNode();
+
+            Relationship worksFor = michal.createRelationshipTo(graphaware, withName("R1"));
+            worksFor.setProperty("since", 2013);
+            worksFor.setProperty("role", "Director");
+
+            Relationship self = michal.createRelationshipTo(michal, withName("R1"));
+
+            assertEquals(Arrays.asList(anyR1, outgoingR1, senior, director), index.match(worksFor, michal));
+            assertEquals(Arrays.asList(anyR1, incomingR1), index.match(worksFor, graphaware));
+            assertEquals(Arrays.asList(anyR1, outgoingR1, incomingR1, noRole), index.match(self, michal));
+            assertEquals(emptyList(), index.match("R3", OUTGOING, new HashMap<>()));
+
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldMatchTheSameDescriptionsAsLinearSearch() {
+        Random random = new Random(42);
+
+        List<DetachedRelationshipDescription> descriptions = new ArrayList<>();
+        RelationshipDescriptionIndex index = new RelationshipDescriptionIndex();
+        for (int i = 0; i < 500; i++) {
+            DetachedRelationshipDescription description = randomDescription(random);
+            descriptions.add(description);
+            index.add(description);
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            String type = TYPES[random.nextInt(TYPES.length)];
+            Direction direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+            Map<String, Object> properties = new HashMap<>();
+            for (String key : KEYS) {
+                if (random.nextInt(3) > 0) {
+                    properties.put(key, randomValue(random));
+                }
+            }
+
+            Map<String, Predicate> predicates = new HashMap<>();
+            properties.forEach((key, value) -> predicates.put(key, equalTo(value)));
+            RelationshipDescription relationship = new DetachedRelationshipDescriptionImpl(type, direction, new LiteralPropertiesDescription(predicates));
+
+            List<DetachedRelationshipDescription> expected = new ArrayList<>();
+            for (DetachedRelationshipDescription description : descriptions) {
+                if (description.isMoreGeneralThan(relationship)) {
+                    expected.add(description);
+                }
+            }
+
+            assertEquals(expected, index.match(type, direction, properties), relationship.toString());
+        }
+    }
+
+    private DetachedRelationshipDescription randomDescription(Random random) {
+        String type = TYPES[random.nextInt(TYPES.length)];
+        Direction direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+        DetachedRelationshipDescription description = random.nextBoolean() ? wildcard(type, direction) : literal(type, direction);
+
+        for (String key : KEYS) {
+            if (random.nextBoolean()) {
+                description = description.with(key, randomPredicate(random));
+            }
+        }
+
+        return description;
+    }
+
+    private Predicate randomPredicate(Random random) {
+        int value = random.nextInt(5);
+        switch (random.nextInt(8)) {
+            case 0:
+                return any();
+            case 1:
+                return undefined();
+            case 2:
+                return greaterThan(value);
+            case 3:
+                return lessThan(value);
+            case 4:
+                return greaterThanOrEqualTo(value);
+            case 5:
+                return lessThanOrEqualTo(value);
+            case 6:
+                return equalTo(new int[]{value});
+            default:
+                return equalTo(value);
+        }
+    }
+
+    private Object randomValue(Random random) {
+        int value = random.nextInt(5);
+        return random.nextInt(10) == 0 ? new int[]{value} : value;
+    }
+}
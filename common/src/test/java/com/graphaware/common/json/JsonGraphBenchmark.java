@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.json;
+
+import com.graphaware.common.junit.Benchmark;
+import com.graphaware.common.junit.BenchmarkReport;
+import com.graphaware.common.representation.SerializableNode;
+import com.graphaware.common.representation.SerializableRelationship;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.graphaware.common.junit.BenchmarkReport.measure;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark of building and merging {@link JsonGraph}s with many elements that have large properties, comparing the
+ * ID-based deduplication to hash sets of entities (the way graphs used to be built). Both must end up with the same
+ * nodes and relationships.
+ */
+@Benchmark
+public class JsonGraphBenchmark {
+
+    private static final int ELEMENTS = 100_000;
+    private static final int PROPERTIES = 20;
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 10;
+
+    private static final BenchmarkReport REPORT = new BenchmarkReport(JsonGraphBenchmark.class);
+
+    @Test
+    public void benchmarkBuildingAndMerging() {
+        List<SerializableNode> nodes = new ArrayList<>();
+        List<SerializableRelationship> relationships = new ArrayList<>();
+        for (int i = 0; i < ELEMENTS; i++) {
+            Map<String, Object> properties = new HashMap<>();
+            for (int j = 0; j < PROPERTIES; j++) {
+                properties.put("property" + j, "a reasonably long value of property " + j + " of element " + i);
+            }
+            properties.put("numbers", new long[]{i, i + 1, i + 2, i + 3});
+
+            nodes.add(new LongIdJsonNode(i, new String[]{"Person", "Employee"}, properties));
+            relationships.add(new LongIdJsonRelationship(i, i, (i + 1) % ELEMENTS, "KNOWS", properties));
+        }
+
+        Graph merged = buildAndMerge(nodes, relationships);
+        assertEquals(ELEMENTS, merged.getNodes().size());
+        assertEquals(ELEMENTS, merged.getRelationships().size());
+        assertEquals(new HashSet<>(nodes), new HashSet<>(merged.getNodes()));
+        assertEquals(new HashSet<>(relationships), new HashSet<>(merged.getRelationships()));
+
+        long idTime = measure(WARMUP, ROUNDS, () -> buildAndMerge(nodes, relationships));
+
+        long hashTime = measure(WARMUP, ROUNDS, () -> {
+            Set<SerializableNode> firstNodes = new HashSet<>();
+            Set<SerializableRelationship> firstRelationships = new HashSet<>();
+            Set<SerializableNode> secondNodes = new HashSet<>();
+            Set<SerializableRelationship> secondRelationships = new HashSet<>();
+            for (int i = 0; i < ELEMENTS; i++) {
+                firstNodes.add(nodes.get(i));
+                firstRelationships.add(relationships.get(i));
+                secondNodes.add(nodes.get(ELEMENTS - i - 1));
+                secondRelationships.add(relationships.get(ELEMENTS - i - 1));
+            }
+            firstNodes.addAll(secondNodes);
+            firstRelationships.addAll(secondRelationships);
+        });
+
+        String scenario = "build and merge " + ELEMENTS + " nodes and relationships";
+        REPORT.record(scenario, "id", (long) ELEMENTS * ROUNDS, idTime);
+        REPORT.record(scenario, "hash", (long) ELEMENTS * ROUNDS, hashTime);
+    }
+
+    private Graph buildAndMerge(List<SerializableNode> nodes, List<SerializableRelationship> relationships) {
+        Graph first = new Graph();
+        Graph second = new Graph();
+        for (int i = 0; i < ELEMENTS; i++) {
+            first.addNode(nodes.get(i)).addRelationship(relationships.get(i));
+            second.addNode(nodes.get(ELEMENTS - i - 1)).addRelationship(relationships.get(ELEMENTS - i - 1));
+        }
+        return first.merge(second);
+    }
+
+    private static class Graph extends JsonGraph<Graph> {
+
+        @Override
+        protected Graph self() {
+            return this;
+        }
+    }
+}
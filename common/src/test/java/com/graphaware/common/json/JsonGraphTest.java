@@ -20,6 +20,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.graphaware.common.junit.InjectNeo4j;
 import com.graphaware.common.junit.Neo4jExtension;
+import com.graphaware.common.representation.SerializableNode;
+import com.graphaware.common.representation.SerializableRelationship;
 import org.json.JSONException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -27,6 +29,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.neo4j.graphdb.*;
 import org.skyscreamer.jsonassert.JSONAssert;
 
+import java.util.Collections;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 @ExtendWith(Neo4jExtension.class)
 public class JsonGraphTest {
 
@@ -102,6 +111,110 @@ public class JsonGraphTest {
                 "{\"properties\":{\"k1\":\"v2\",\"k2\":4},\"type\":\"R2\",\"id\":" + r2 + ",\"startNodeId\":" + a + ",\"endNodeId\":" + b + "}]}", mapper.writeValueAsString(g), false);
     }
 
+    @Test
+    public void shouldDeduplicateByIdAndKeepInsertionOrder() {
+        Graph g = new Graph();
+
+        try (Transaction tx = database.beginTx()) {
+            g.addNode(tx.getNodeById(b));
+            g.addNode(tx.getNodeById(a));
+            g.addNode(new LongIdJsonNode(tx.getNodeById(a), new String[]{"k1"}));
+            g.addRelationship(tx.getRelationshipById(r2));
+            g.addRelationship(new LongIdJsonRelationship(tx.getRelationshipById(r2), new String[0]));
+            g.addRelationship(tx.getRelationshipById(r1));
+            tx.commit();
+        }
+
+        g.addNode(new StringIdJsonNode("x", new String[0], Collections.singletonMap("k", "v1")));
+        g.addNode(new StringIdJsonNode("x", new String[]{"L"}, Collections.singletonMap("k", "v2")));
+        g.addNode(new LongIdJsonNode(new String[0], Collections.singletonMap("k", "v")));
+        g.addNode(new LongIdJsonNode(new String[0], Collections.singletonMap("k", "v")));
+
+        assertEquals(4, g.getNodes().size());
+        Iterator<SerializableNode> nodes = g.getNodes().iterator();
+        assertEquals(b, nodes.next().getGraphId());
+        SerializableNode first = nodes.next();
+        assertEquals(a, first.getGraphId());
+        assertEquals(2, first.getProperties().size());
+        assertEquals("v1", nodes.next().getProperties().get("k"));
+
+        assertEquals(2, g.getRelationships().size());
+        Iterator<SerializableRelationship> relationships = g.getRelationships().iterator();
+        assertEquals(r2, relationships.next().getGraphId());
+        assertEquals(r1, relationships.next().getGraphId());
+    }
+
+    @Test
+    public void shouldMergeGraphs() {
+        Graph g1 = new Graph();
+        Graph g2 = new Graph();
+
+        try (Transaction tx = database.beginTx()) {
+            g1.addNode(tx.getNodeById(a));
+            g1.addRelationship(tx.getRelationshipById(r1));
+            g2.addNodes(tx.getNodeById(b), tx.getNodeById(a));
+            g2.addRelationships(tx.getRelationshipById(r2), tx.getRelationshipById(r1));
+            tx.commit();
+        }
+
+        g1.merge(g2);
+
+        assertEquals(2, g1.getNodes().size());
+        assertEquals(2, g1.getRelationships().size());
+        assertTrue(g1.getNodes().containsAll(g2.getNodes()));
+        assertTrue(g1.getRelationships().containsAll(g2.getRelationships()));
+    }
+
+    @Test
+    public void shouldDeduplicateDeserializedEntitiesAgainstLoadedOnes() {
+        Graph g = new Graph();
+
+        try (Transaction tx = database.beginTx()) {
+            g.addNode(tx.getNodeById(a));
+            g.addRelationship(tx.getRelationshipById(r1));
+            tx.commit();
+        }
+
+        g.addNode(new LongIdJsonNode(a, new String[0], Collections.emptyMap()));
+        g.addNode(new LongIdJsonNode(b, new String[0], Collections.emptyMap()));
+        g.addRelationship(new LongIdJsonRelationship(r1, a, b, "R", Collections.emptyMap()));
+
+        assertEquals(2, g.getNodes().size());
+        assertEquals(1, g.getRelationships().size());
+        assertEquals(a, g.getNodes().iterator().next().getGraphId());
+    }
+
+    @Test
+    public void removedEntitiesShouldBeAddableAgain() {
+        Graph g = new Graph();
+
+        try (Transaction tx = database.beginTx()) {
+            g.addNodes(tx.getNodeById(a), tx.getNodeById(b));
+            g.addRelationships(tx.getRelationshipById(r1), tx.getRelationshipById(r2));
+
+            assertTrue(g.getNodes().remove(new LongIdJsonNode(a, new String[0], Collections.emptyMap())));
+            assertFalse(g.getNodes().remove(new LongIdJsonNode(a, new String[0], Collections.emptyMap())));
+            assertEquals(1, g.getNodes().size());
+            assertEquals(b, g.getNodes().iterator().next().getGraphId());
+
+            g.addNode(tx.getNodeById(a));
+            assertEquals(2, g.getNodes().size());
+
+            assertTrue(g.getRelationships().removeIf(relationship -> relationship.getGraphId() == r1));
+            assertEquals(1, g.getRelationships().size());
+            assertFalse(g.getRelationships().contains(new LongIdJsonRelationship(tx.getRelationshipById(r1))));
+            g.addRelationship(tx.getRelationshipById(r1));
+            assertEquals(2, g.getRelationships().size());
+
+            g.getNodes().clear();
+            assertTrue(g.getNodes().isEmpty());
+            g.addNode(tx.getNodeById(b));
+            assertEquals(1, g.getNodes().size());
+
+            tx.commit();
+        }
+    }
+
     private class Graph extends JsonGraph<Graph> {
 
     @Override
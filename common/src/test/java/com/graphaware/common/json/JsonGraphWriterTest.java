@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import org.json.JSONException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.*;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(Neo4jExtension.class)
+public class JsonGraphWriterTest {
+
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    private long a, b, r1, r2;
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeEach
+    protected void populate() {
+        try (Transaction tx = database.beginTx()) {
+            Node node1 = tx.createNode(Label.label("L1"), Label.label("L2"));
+            Node node2 = tx.createNode();
+
+            node1.setProperty("k1", "v1");
+            node1.setProperty("k2", 2);
+
+            Relationship r = node1.createRelationshipTo(node2, RelationshipType.withName("R"));
+            r.setProperty("k1", "v1");
+            r.setProperty("k2", 2);
+
+            Relationship rel2 = node1.createRelationshipTo(node2, RelationshipType.withName("R2"));
+            rel2.setProperty("k1", "v2");
+            rel2.setProperty("k2", 4);
+
+            a = node1.getId();
+            b = node2.getId();
+            r1 = r.getId();
+            r2 = rel2.getId();
+
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldProduceSameJsonAsJsonGraph() throws Exception {
+        Graph graph = new Graph();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        try (Transaction tx = database.beginTx()) {
+            graph.addNodes(tx.getNodeById(a), tx.getNodeById(b));
+            graph.addRelationships(tx.getRelationshipById(r1), tx.getRelationshipById(r2));
+
+            try (JsonGraphWriter writer = new JsonGraphWriter(stream)) {
+                writer.writeNodes(Arrays.asList(tx.getNodeById(a), tx.getNodeById(b), tx.getNodeById(a)));
+                writer.writeNode(tx.getNodeById(b));
+                writer.writeRelationships(Arrays.asList(tx.getRelationshipById(r1), tx.getRelationshipById(r2)));
+                writer.writeRelationship(tx.getRelationshipById(r1));
+            }
+
+            tx.commit();
+        }
+
+        JSONAssert.assertEquals(mapper.writeValueAsString(graph), stream.toString(StandardCharsets.UTF_8.name()), JSONCompareMode.NON_EXTENSIBLE);
+    }
+
+    @Test
+    public void shouldProduceEmptyGraph() throws JSONException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        new JsonGraphWriter(stream).close();
+
+        JSONAssert.assertEquals("{\"nodes\":[],\"relationships\":[]}", new String(stream.toByteArray(), StandardCharsets.UTF_8), true);
+    }
+
+    @Test
+    public void shouldNotWriteNodesAfterRelationships() {
+        try (Transaction tx = database.beginTx()) {
+            JsonGraphWriter writer = new JsonGraphWriter(new ByteArrayOutputStream());
+            writer.writeRelationship(tx.getRelationshipById(r1));
+
+            assertThrows(IllegalStateException.class, () -> writer.writeNode(tx.getNodeById(a)));
+
+            writer.close();
+            assertThrows(IllegalStateException.class, () -> writer.writeRelationship(tx.getRelationshipById(r2)));
+
+            tx.commit();
+        }
+    }
+
+    private class Graph extends JsonGraph<Graph> {
+
+        @Override
+        protected Graph self() {
+            return this;
+        }
+    }
+}
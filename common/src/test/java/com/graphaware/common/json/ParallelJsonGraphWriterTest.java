@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import com.graphaware.common.transform.NodeTransformer;
+import org.json.JSONException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(Neo4jExtension.class)
+public class ParallelJsonGraphWriterTest {
+
+    private static final int NODES = 100;
+
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ForkJoinPool pool;
+    private final List<Long> nodeIds = new ArrayList<>();
+    private final List<Long> relationshipIds = new ArrayList<>();
+
+    @BeforeEach
+    protected void populate() {
+        pool = new ForkJoinPool(4);
+
+        try (Transaction tx = database.beginTx()) {
+            Node previous = null;
+            for (int i = 0; i < NODES; i++) {
+                Node node = tx.createNode(Label.label("L" + (i % 3)));
+                node.setProperty("name", "node " + i);
+                node.setProperty("values", new long[]{i, i * 2});
+                if (i % 2 == 0) {
+                    node.setProperty("score", i / 3.0);
+                }
+                nodeIds.add(node.getId());
+
+                if (previous != null) {
+                    Relationship relationship = previous.createRelationshipTo(node, RelationshipType.withName("NEXT"));
+                    relationship.setProperty("weight", i);
+                    relationshipIds.add(relationship.getId());
+                }
+                previous = node;
+            }
+
+            tx.commit();
+        }
+    }
+
+    @AfterEach
+    public void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void shouldProduceSameBytesAsSequentialWriter() {
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+
+        try (Transaction tx = database.beginTx()) {
+            List<Node> nodes = new ArrayList<>();
+            for (int i = nodeIds.size() - 1; i >= 0; i--) {
+                nodes.add(tx.getNodeById(nodeIds.get(i)));
+            }
+            nodes.add(tx.getNodeById(nodeIds.get(5)));
+
+            List<Relationship> relationships = new ArrayList<>();
+            for (long id : relationshipIds) {
+                relationships.add(tx.getRelationshipById(id));
+            }
+            relationships.addAll(relationships.subList(0, 10));
+
+            try (JsonGraphWriter writer = new JsonGraphWriter(sequential, mapper)) {
+                writer.writeNodes(nodes).writeRelationships(relationships);
+            }
+
+            try (ParallelJsonGraphWriter writer = new ParallelJsonGraphWriter(parallel, database, mapper, pool, 7)) {
+                writer.writeNodes(nodes.subList(0, 50)).writeNodes(nodes.subList(50, nodes.size())).writeRelationships(relationships);
+            }
+
+            tx.commit();
+        }
+
+        assertEquals(new String(sequential.toByteArray(), UTF_8), new String(parallel.toByteArray(), UTF_8));
+    }
+
+    @Test
+    public void shouldProduceEmptyGraph() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        new ParallelJsonGraphWriter(stream, database).writeNodes().close();
+
+        assertEquals("{\"nodes\":[],\"relationships\":[]}", new String(stream.toByteArray(), UTF_8));
+    }
+
+    @Test
+    public void shouldSkipDeletedEntities() throws JSONException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        try (ParallelJsonGraphWriter writer = new ParallelJsonGraphWriter(stream, database, mapper, pool, 1)) {
+            writer.writeNodes(Long.MAX_VALUE - 1, nodeIds.get(0), Long.MAX_VALUE);
+        }
+
+        JSONAssert.assertEquals("{\"nodes\":[{\"id\":" + nodeIds.get(0) + ",\"labels\":[\"L0\"],\"properties\":{\"name\":\"node 0\",\"values\":[0,0],\"score\":0.0}}],\"relationships\":[]}",
+                new String(stream.toByteArray(), UTF_8), true);
+    }
+
+    @Test
+    public void shouldNotSkipEntitiesWhoseTransformationFails() {
+        ParallelJsonGraphWriter writer = new ParallelJsonGraphWriter(new ByteArrayOutputStream(), database, mapper, pool, 1);
+        NodeTransformer<LongIdJsonNode> failing = node -> new LongIdJsonNode(node.getId(), new String[0], Collections.singletonMap("missing", node.getProperty("missing")));
+
+        assertThrows(NotFoundException.class, () -> writer.writeNodes(Arrays.stream(new long[]{nodeIds.get(0)}).iterator(), failing));
+    }
+
+    @Test
+    public void shouldNotWriteNodesAfterRelationships() {
+        ParallelJsonGraphWriter writer = new ParallelJsonGraphWriter(new ByteArrayOutputStream(), database);
+        writer.writeRelationships(relationshipIds.get(0));
+
+        assertThrows(IllegalStateException.class, () -> writer.writeNodes(nodeIds.get(0)));
+
+        writer.close();
+        assertThrows(IllegalStateException.class, () -> writer.writeRelationships(relationshipIds.get(1)));
+    }
+
+    @Test
+    public void shouldRejectIndentedOutput() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelJsonGraphWriter(new ByteArrayOutputStream(), database, new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT), pool, 10));
+    }
+}
@@ -0,0 +1,16 @@
+package com.graphaware.common.junit;
+
+import org.junit.jupiter.api.Tag;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a benchmark, i.e. a test class measuring performance rather than verifying behaviour. Benchmarks are excluded
+ * from the build, run them with <code>mvn test -Pbenchmark</code>. Results are written by {@link BenchmarkReport}.
+ */
+@Inherited
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Tag("benchmark")
+public @interface Benchmark {
+}
@@ -0,0 +1,81 @@
+package com.graphaware.common.junit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+/**
+ * Results of a {@link Benchmark}, written as CSV to <code>target/benchmarks/&lt;benchmark class&gt;.csv</code> (and
+ * to standard output), one line per measured scenario and variant, so that runs can be compared by tools.
+ * <p/>
+ * This class is not thread-safe.
+ */
+public final class BenchmarkReport {
+
+    private static final String HEADER = "scenario,variant,operations,nanos,operationsPerSecond";
+
+    private final Path file;
+
+    /**
+     * Create a new report, replacing results of previous runs of the same benchmark.
+     *
+     * @param benchmark class of the benchmark.
+     */
+    public BenchmarkReport(Class<?> benchmark) {
+        this.file = Paths.get("target", "benchmarks", benchmark.getSimpleName() + ".csv");
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, Collections.singletonList(HEADER), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Measure how long it takes to run a round of a benchmark.
+     *
+     * @param warmup number of rounds to run before measuring.
+     * @param rounds number of measured rounds.
+     * @param round  to run.
+     * @return total time of the measured rounds in nanoseconds.
+     */
+    public static long measure(int warmup, int rounds, Runnable round) {
+        for (int i = 0; i < warmup; i++) {
+            round.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            round.run();
+        }
+        return Math.max(1, System.nanoTime() - start);
+    }
+
+    /**
+     * Record a result.
+     *
+     * @param scenario   what has been measured, e.g. an expression. Must not contain double quotes.
+     * @param variant    how it has been done, e.g. "compiled" or "interpreted".
+     * @param operations number of operations performed in the measured time.
+     * @param nanos      measured time in nanoseconds.
+     * @return operations per second.
+     */
+    public long record(String scenario, String variant, long operations, long nanos) {
+        long operationsPerSecond = (long) (operations * 1_000_000_000d / nanos);
+        String line = "\"" + scenario + "\"," + variant + "," + operations + "," + nanos + "," + operationsPerSecond;
+
+        System.out.println(line);
+        try {
+            Files.write(file, Collections.singletonList(line), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return operationsPerSecond;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy;
+
+import com.graphaware.common.description.property.LiteralPropertiesDescription;
+import com.graphaware.common.junit.Benchmark;
+import com.graphaware.common.junit.BenchmarkReport;
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import com.graphaware.common.policy.inclusion.fluent.IncludeNodes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.helpers.collection.Iterables;
+
+import java.util.List;
+
+import static com.graphaware.common.description.predicate.Predicates.equalTo;
+import static com.graphaware.common.description.predicate.Predicates.greaterThan;
+import static com.graphaware.common.junit.BenchmarkReport.measure;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark of fluent {@link com.graphaware.common.policy.inclusion.fluent.IncludeEntities} policies, comparing the
+ * compiled matcher to constructing a {@link LiteralPropertiesDescription} of each entity (the way policies used to
+ * be evaluated). Both must agree on every entity.
+ */
+@Benchmark
+@ExtendWith(Neo4jExtension.class)
+public class IncludeEntitiesBenchmark {
+
+    private static final int NODES = 1000;
+    private static final int PROPERTIES = 20;
+    private static final int WARMUP = 100;
+    private static final int ROUNDS = 500;
+
+    private static final BenchmarkReport REPORT = new BenchmarkReport(IncludeEntitiesBenchmark.class);
+
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    @BeforeEach
+    public void populate() {
+        StringBuilder properties = new StringBuilder("n.age = i % 50");
+        for (int i = 0; i < PROPERTIES; i++) {
+            properties.append(", n.p").append(i).append(" = 'value ' + i");
+        }
+        database.executeTransactionally("UNWIND range(1, " + NODES + ") AS i CREATE (n:Person) SET " + properties);
+    }
+
+    @Test
+    public void benchmarkPropertyPredicates() {
+        benchmark(IncludeNodes.all().with("age", greaterThan(18L)));
+        benchmark(IncludeNodes.all().with("age", greaterThan(18L)).with("p0", equalTo("value 0")));
+        benchmark(IncludeNodes.all().with("Person").with("p5", equalTo("nope")).with("age", greaterThan(18L)));
+    }
+
+    private void benchmark(IncludeNodes policy) {
+        try (Transaction tx = database.beginTx()) {
+            List<Node> nodes = Iterables.asList(tx.getAllNodes());
+
+            for (Node node : nodes) {
+                assertEquals(new LiteralPropertiesDescription(node).isMoreSpecificThan(policy.getPropertiesDescription()), policy.include(node), policy.toString());
+            }
+
+            long compiledTime = measure(WARMUP, ROUNDS, () -> {
+                for (Node node : nodes) {
+                    policy.include(node);
+                }
+            });
+
+            long literalTime = measure(WARMUP, ROUNDS, () -> {
+                for (Node node : nodes) {
+                    new LiteralPropertiesDescription(node).isMoreSpecificThan(policy.getPropertiesDescription());
+                }
+            });
+
+            long evaluations = (long) nodes.size() * ROUNDS;
+            REPORT.record(policy.getPropertiesDescription().toString(), "compiled", evaluations, compiledTime);
+            REPORT.record(policy.getPropertiesDescription().toString(), "literal", evaluations, literalTime);
+
+            tx.commit();
+        }
+    }
+}
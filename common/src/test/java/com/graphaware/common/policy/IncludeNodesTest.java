@@ -26,9 +26,11 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.helpers.collection.Iterables;
 
 import static com.graphaware.common.description.predicate.Predicates.equalTo;
 import static com.graphaware.common.description.predicate.Predicates.undefined;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
@@ -72,4 +74,34 @@ public class IncludeNodesTest {
             tx.commit();
         }
     }
+
+    @Test
+    public void shouldOnlyGetNodesWithLabel() {
+        try (Transaction tx = database.beginTx()) {
+            tx.createNode(label("Scanned")).setProperty("test", "test");
+            tx.createNode(label("Scanned")).setProperty("test", "test2");
+            tx.createNode(label("Other")).setProperty("test", "test");
+            tx.createNode();
+
+            assertEquals(2, Iterables.count(IncludeNodes.all().with("Scanned").getAll(tx)));
+            assertEquals(1, Iterables.count(IncludeNodes.all().with("Scanned").with("test", equalTo("test")).getAll(tx)));
+            assertEquals(0, Iterables.count(IncludeNodes.all().with("Missing").getAll(tx)));
+        }
+    }
+
+    @Test
+    public void shouldIncludeNodesWithLabelsCreatedAfterFirstUse() {
+        IncludeNodes policy = IncludeNodes.all().with("CreatedLater");
+
+        try (Transaction tx = database.beginTx()) {
+            assertFalse(policy.include(tx.createNode(label("CreatedEarlier"))));
+            tx.commit();
+        }
+
+        try (Transaction tx = database.beginTx()) {
+            assertTrue(policy.include(tx.createNode(label("CreatedLater"))));
+            assertFalse(policy.include(tx.createNode(label("CreatedEarlier"))));
+            tx.commit();
+        }
+    }
 }
@@ -89,4 +89,20 @@ public class IncludeRelationshipsTest {
             tx.commit();
         }
     }
+
+    @Test
+    public void shouldIncludeRelationshipsWithTypesCreatedAfterFirstUse() {
+        IncludeRelationships policy = IncludeRelationships.all().with("CREATED_LATER");
+
+        try (Transaction tx = database.beginTx()) {
+            assertFalse(policy.include(tx.createNode().createRelationshipTo(tx.createNode(), withName("CREATED_EARLIER"))));
+            tx.commit();
+        }
+
+        try (Transaction tx = database.beginTx()) {
+            assertTrue(policy.include(tx.createNode().createRelationshipTo(tx.createNode(), withName("CREATED_LATER"))));
+            assertFalse(policy.include(tx.createNode().createRelationshipTo(tx.createNode(), withName("CREATED_EARLIER"))));
+            tx.commit();
+        }
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion;
+
+import com.graphaware.common.policy.inclusion.composite.CompositeNodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.composite.EvaluationOrder;
+import com.graphaware.common.policy.inclusion.fluent.IncludeNodes;
+import com.graphaware.common.policy.inclusion.spel.SpelNodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.spel.SpelRelationshipInclusionPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit test for {@link InclusionPolicyRegistry}.
+ */
+public class InclusionPolicyRegistryTest {
+
+    private final InclusionPolicyRegistry registry = new InclusionPolicyRegistry();
+
+    @Test
+    public void equalPoliciesShouldBeInterned() {
+        IncludeNodes policy1 = IncludeNodes.all().with("Person");
+        IncludeNodes policy2 = IncludeNodes.all().with("Person");
+
+        assertNotSame(policy1, policy2);
+        assertSame(policy1, registry.intern(policy1));
+        assertSame(policy1, registry.intern(policy2));
+        assertNotSame(policy1, registry.intern(IncludeNodes.all()));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void compositesWithDifferentEvaluationOrderShouldNotBeInterned() {
+        CompositeNodeInclusionPolicy declared = CompositeNodeInclusionPolicy.of(IncludeNodes.all().with("Person"), new SpelNodeInclusionPolicy("hasLabel('Employee')"));
+        CompositeNodeInclusionPolicy adaptive = CompositeNodeInclusionPolicy.of(EvaluationOrder.Mode.ADAPTIVE, IncludeNodes.all().with("Person"), new SpelNodeInclusionPolicy("hasLabel('Employee')"));
+
+        assertSame(declared, registry.intern(declared));
+        assertSame(adaptive, registry.intern(adaptive));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void equivalentExpressionsShouldBeParsedOnce() {
+        AtomicInteger created = new AtomicInteger();
+
+        NodeInclusionPolicy policy1 = registry.intern("nodes", "hasLabel('Person')  &&  getProperty('age', 0) > 18", s -> {
+            created.incrementAndGet();
+            return new SpelNodeInclusionPolicy(s);
+        });
+        NodeInclusionPolicy policy2 = registry.intern("nodes", " hasLabel('Person') && getProperty('age',0)>18", s -> {
+            created.incrementAndGet();
+            return new SpelNodeInclusionPolicy(s);
+        });
+
+        assertSame(policy1, policy2);
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void sameExpressionsInDifferentNamespacesShouldNotBeShared() {
+        NodeInclusionPolicy policy1 = registry.intern("nodes", "getProperty('age', 0) > 18", SpelNodeInclusionPolicy::new);
+        RelationshipInclusionPolicy policy2 = registry.intern("relationships", "getProperty('age', 0) > 18", SpelRelationshipInclusionPolicy::new);
+
+        assertNotSame(policy1, policy2);
+        assertEquals(2, registry.size());
+
+        registry.clear();
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void expressionsWithDifferentLiteralsShouldNotBeShared() {
+        assertNotEquals(InclusionPolicyRegistry.normalize("getProperty('w', 0) > 1.0f"), InclusionPolicyRegistry.normalize("getProperty('w', 0) > 1.0"));
+        assertNotEquals(InclusionPolicyRegistry.normalize("getProperty('w', 0) > 5"), InclusionPolicyRegistry.normalize("getProperty('w', 0) > 5L"));
+        assertNotEquals(InclusionPolicyRegistry.normalize("getProperty('name', '') == 'it''s'"), InclusionPolicyRegistry.normalize("getProperty('name', '') == 'it''  s'"));
+        assertNotEquals(InclusionPolicyRegistry.normalize("a and b"), InclusionPolicyRegistry.normalize("aandb"));
+        assertNotEquals(InclusionPolicyRegistry.normalize("a - -1"), InclusionPolicyRegistry.normalize("a--1"));
+
+        assertEquals("getProperty('name','')=='it''s'", InclusionPolicyRegistry.normalize(" getProperty( 'name' , '' ) == 'it''s' "));
+        assertEquals("hasLabel('A B')and getDegree()>1", InclusionPolicyRegistry.normalize("hasLabel('A B')   and getDegree() > 1"));
+    }
+
+    @Test
+    public void unparseableExpressionsShouldBeTrimmed() {
+        assertEquals("com.graphaware.Policy", InclusionPolicyRegistry.normalize("  com.graphaware.Policy "));
+        assertEquals("hasLabel('A", InclusionPolicyRegistry.normalize(" hasLabel('A"));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion;
+
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import com.graphaware.common.policy.inclusion.fluent.IncludeNodes;
+import com.graphaware.common.policy.inclusion.fluent.IncludeRelationships;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link ParallelScan}.
+ */
+@ExtendWith(Neo4jExtension.class)
+public class ParallelScanTest {
+
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    private final Set<Long> people = new HashSet<>();
+    private final Set<Long> friendships = new HashSet<>();
+    private final List<Long> all = new ArrayList<>();
+
+    @BeforeEach
+    public void populate() {
+        try (Transaction tx = database.beginTx()) {
+            Node previous = null;
+            for (int i = 0; i < 1000; i++) {
+                Node node = tx.createNode(Label.label(i % 2 == 0 ? "Person" : "Company"));
+                all.add(node.getId());
+                if (i % 2 == 0) {
+                    people.add(node.getId());
+                }
+                if (previous != null) {
+                    Relationship relationship = previous.createRelationshipTo(node, RelationshipType.withName(i % 3 == 0 ? "FRIEND_OF" : "WORKS_FOR"));
+                    if (i % 3 == 0) {
+                        friendships.add(relationship.getId());
+                    }
+                }
+                previous = node;
+            }
+            tx.commit();
+        }
+
+        //leave holes in the ID space
+        try (Transaction tx = database.beginTx()) {
+            for (long id : all.subList(100, 200)) {
+                Node node = tx.getNodeById(id);
+                node.getRelationships().forEach(r -> {
+                    friendships.remove(r.getId());
+                    r.delete();
+                });
+                people.remove(id);
+                node.delete();
+            }
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void shouldFindIncludedNodes() {
+        ParallelScan<Node> scan = ParallelScan.nodes(database, IncludeNodes.all().with("Person")).withRangeSize(64);
+
+        assertEquals(people, scan.ids().boxed().collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void shouldFindIncludedRelationships() {
+        ParallelScan<Relationship> scan = ParallelScan.relationships(database, IncludeRelationships.all().with("FRIEND_OF")).withRangeSize(100);
+
+        assertEquals(friendships, scan.ids().boxed().collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void shouldScanInGivenPool() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            ParallelScan<Node> scan = ParallelScan.nodes(database, IncludeNodes.all().with("Person")).withRangeSize(10);
+
+            Set<Long> ids = ConcurrentHashMap.newKeySet();
+            scan.forEach(pool, ids::add);
+            assertEquals(people, ids);
+
+            Set<Long> iterated = new HashSet<>();
+            PrimitiveIterator.OfLong iterator = scan.iterator(pool);
+            while (iterator.hasNext()) {
+                iterated.add(iterator.nextLong());
+            }
+            assertEquals(people, iterated);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReleasePoolWhenIteratorIsClosed() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            ParallelScan<Node> scan = ParallelScan.nodes(database, IncludeNodes.all().with("Person")).withRangeSize(1);
+
+            try (ParallelScan.ScanIterator iterator = scan.iterator(pool)) {
+                assertTrue(iterator.hasNext());
+                iterator.nextLong();
+            }
+
+            assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldRejectInvalidRangeSize() {
+        assertThrows(IllegalArgumentException.class, () -> ParallelScan.nodes(database, IncludeNodes.all()).withRangeSize(0));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion;
+
+import com.graphaware.common.policy.inclusion.all.IncludeAllNodes;
+import com.graphaware.common.policy.inclusion.composite.CompositeNodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.fluent.IncludeNodeProperties;
+import com.graphaware.common.policy.inclusion.fluent.IncludeNodes;
+import com.graphaware.common.policy.inclusion.fluent.IncludeRelationships;
+import com.graphaware.common.policy.inclusion.none.IncludeNoNodes;
+import com.graphaware.common.policy.inclusion.spel.SpelNodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.spel.SpelNodePropertyInclusionPolicy;
+import com.graphaware.common.policy.inclusion.spel.SpelRelationshipInclusionPolicy;
+import org.junit.jupiter.api.Test;
+
+import static com.graphaware.common.description.predicate.Predicates.equalTo;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for {@link ReadSet} and read sets of the framework's {@link InclusionPolicy} implementations.
+ */
+public class ReadSetTest {
+
+    @Test
+    public void unionShouldContainBothReadSets() {
+        ReadSet union = ReadSet.nothing().withLabels("Person").union(ReadSet.nothing().withPropertyKeys("name").withAllRelationshipTypes());
+
+        assertTrue(union.readsLabel("Person"));
+        assertFalse(union.readsLabel("Company"));
+        assertTrue(union.readsPropertyKey("name"));
+        assertTrue(union.readsRelationshipType("ANY"));
+        assertFalse(union.readsRelatedEntities());
+        assertEquals(ReadSet.everything(), union.union(ReadSet.everything()));
+        assertSame(union, union.union(ReadSet.nothing()));
+    }
+
+    @Test
+    public void trivialAndCustomPoliciesShouldDeclareReadSets() {
+        assertEquals(ReadSet.nothing(), IncludeAllNodes.getInstance().getReadSet());
+        assertEquals(ReadSet.nothing(), IncludeNoNodes.getInstance().getReadSet());
+        assertEquals(ReadSet.everything(), new BaseNodeInclusionPolicy() {
+            @Override
+            public boolean include(org.neo4j.graphdb.Node node) {
+                return true;
+            }
+        }.getReadSet());
+    }
+
+    @Test
+    public void fluentPoliciesShouldReportExactReadSets() {
+        ReadSet readSet = IncludeNodes.all().with("Person").with("name", equalTo("Michal")).getReadSet();
+        assertEquals(ReadSet.nothing().withLabels("Person").withPropertyKeys("name"), readSet);
+
+        readSet = IncludeRelationships.all().with("WORKS_FOR", "LIVES_IN").getReadSet();
+        assertEquals(ReadSet.nothing().withRelationshipTypes("WORKS_FOR", "LIVES_IN"), readSet);
+
+        assertEquals(ReadSet.nothing(), IncludeNodeProperties.all().with("name").getReadSet());
+    }
+
+    @Test
+    public void compositePoliciesShouldReportUnionOfReadSets() {
+        ReadSet readSet = CompositeNodeInclusionPolicy.of(IncludeNodes.all().with("Person"), new SpelNodeInclusionPolicy("hasProperty('age')")).getReadSet();
+
+        assertEquals(ReadSet.nothing().withLabels("Person").withPropertyKeys("age"), readSet);
+    }
+
+    @Test
+    public void spelPoliciesShouldReportReadSetsFromExpressions() {
+        assertEquals(ReadSet.nothing().withLabels("Person").withPropertyKeys("age", "name"),
+                new SpelNodeInclusionPolicy("hasLabel('Person') && (getProperty('age', 0) > 18 || getProperty('name').startsWith('M'))").getReadSet());
+
+        assertEquals(ReadSet.nothing().withAllLabels(), new SpelNodeInclusionPolicy("labels.length > 1").getReadSet());
+        assertEquals(ReadSet.nothing().withAllPropertyKeys().withAllLabels(), new SpelNodeInclusionPolicy("getProperty(getLabels()[0]) != null").getReadSet());
+        assertTrue(new SpelNodeInclusionPolicy("getDegree('FRIEND_OF') > 1").getReadSet().readsRelatedEntities());
+        assertEquals(ReadSet.everything(), new SpelNodeInclusionPolicy("T(java.lang.Math).random() > 0.5").getReadSet());
+
+        assertEquals(ReadSet.nothing().withRelationshipTypes("WORKS_FOR").withPropertyKeys("since"),
+                new SpelRelationshipInclusionPolicy("isType('WORKS_FOR') && getProperty('since', 0) > 2010").getReadSet());
+        assertTrue(new SpelRelationshipInclusionPolicy("startNode.hasLabel('Person')").getReadSet().readsRelatedEntities());
+
+        assertEquals(ReadSet.nothing().withLabels("Person"), new SpelNodePropertyInclusionPolicy("key != 'age' && node.hasLabel('Person')").getReadSet());
+    }
+}
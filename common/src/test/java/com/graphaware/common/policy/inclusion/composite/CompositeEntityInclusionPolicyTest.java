@@ -16,6 +16,7 @@
 
 package com.graphaware.common.policy.inclusion.composite;
 
+import com.graphaware.common.policy.inclusion.BaseNodeInclusionPolicy;
 import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
 import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
 import com.graphaware.common.policy.inclusion.all.IncludeAllNodes;
@@ -23,8 +24,17 @@ import com.graphaware.common.policy.inclusion.all.IncludeAllRelationships;
 import com.graphaware.common.policy.inclusion.none.IncludeNoNodes;
 import com.graphaware.common.policy.inclusion.none.IncludeNoRelationships;
 import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Node;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -63,4 +73,86 @@ public class CompositeEntityInclusionPolicyTest {
         assertFalse(CompositeNodeInclusionPolicy.of(IncludeNoNodes.getInstance(), IncludeAllNodes.getInstance()).include(null));
         assertFalse(CompositeRelationshipInclusionPolicy.of(IncludeAllRelationships.getInstance(), IncludeNoRelationships.getInstance()).include(null));
     }
+
+    @Test
+    public void mostSelectivePolicyShouldBeEvaluatedFirstInDeterministicMode() {
+        CompositeNodeInclusionPolicy policy = CompositeNodeInclusionPolicy.of(EvaluationOrder.Mode.DETERMINISTIC, IncludeAllNodes.getInstance(), IncludeAllNodes.getInstance(), IncludeNoNodes.getInstance());
+
+        assertArrayEquals(new int[]{0, 1, 2}, policy.getEvaluationOrder().getOrder());
+
+        for (int i = 0; i < EvaluationOrder.SAMPLING_RATE * EvaluationOrder.REORDER_INTERVAL; i++) {
+            assertFalse(policy.include(null));
+        }
+
+        assertArrayEquals(new int[]{2, 0, 1}, policy.getEvaluationOrder().getOrder());
+        long samples = 0;
+        for (EvaluationOrder.Statistics statistics : policy.getEvaluationOrder().getStatistics()) {
+            samples += statistics.getSamples();
+        }
+        assertEquals(EvaluationOrder.REORDER_INTERVAL, samples);
+        assertEquals(0.0, policy.getEvaluationOrder().getStatistics().get(0).getRejectionRate());
+        assertEquals(1.0, policy.getEvaluationOrder().getStatistics().get(2).getRejectionRate());
+        assertEquals(1.0, policy.getEvaluationOrder().getStatistics().get(2).getAverageCost());
+        assertFalse(policy.include(null));
+    }
+
+    @Test
+    public void sampledEvaluationsShouldStopAtFirstRejection() {
+        AtomicInteger evaluations = new AtomicInteger();
+        NodeInclusionPolicy counting = new BaseNodeInclusionPolicy() {
+            @Override
+            public boolean include(Node node) {
+                evaluations.incrementAndGet();
+                return true;
+            }
+        };
+
+        CompositeNodeInclusionPolicy policy = CompositeNodeInclusionPolicy.of(EvaluationOrder.Mode.DETERMINISTIC, IncludeNoNodes.getInstance(), counting);
+
+        for (int i = 0; i < EvaluationOrder.SAMPLING_RATE * EvaluationOrder.REORDER_INTERVAL; i++) {
+            assertFalse(policy.include(null));
+        }
+
+        //the counting policy is only evaluated when it is the one being measured
+        assertEquals(EvaluationOrder.REORDER_INTERVAL / 2, evaluations.get());
+        assertEquals(EvaluationOrder.REORDER_INTERVAL / 2, policy.getEvaluationOrder().getStatistics().get(1).getSamples());
+        assertEquals(0.0, policy.getEvaluationOrder().getStatistics().get(1).getRejectionRate());
+        assertEquals(1.0, policy.getEvaluationOrder().getStatistics().get(0).getRejectionRate());
+    }
+
+    @Test
+    public void declaredOrderShouldBeKeptByDefault() {
+        CompositeRelationshipInclusionPolicy policy = CompositeRelationshipInclusionPolicy.of(IncludeAllRelationships.getInstance(), IncludeNoRelationships.getInstance());
+
+        assertEquals(EvaluationOrder.Mode.DECLARED, policy.getEvaluationOrder().getMode());
+
+        for (int i = 0; i < EvaluationOrder.SAMPLING_RATE * EvaluationOrder.REORDER_INTERVAL; i++) {
+            assertFalse(policy.include(null));
+        }
+
+        assertArrayEquals(new int[]{0, 1}, policy.getEvaluationOrder().getOrder());
+        assertEquals(0, policy.getEvaluationOrder().getStatistics().get(1).getSamples());
+    }
+
+    @Test
+    public void evaluationOrderModeShouldAffectEquality() {
+        CompositeNodeInclusionPolicy declared = CompositeNodeInclusionPolicy.of(IncludeAllNodes.getInstance(), IncludeNoNodes.getInstance());
+        CompositeNodeInclusionPolicy adaptive = CompositeNodeInclusionPolicy.of(EvaluationOrder.Mode.ADAPTIVE, IncludeAllNodes.getInstance(), IncludeNoNodes.getInstance());
+        CompositeNodeInclusionPolicy deterministic = CompositeNodeInclusionPolicy.of(EvaluationOrder.Mode.DETERMINISTIC, IncludeAllNodes.getInstance(), IncludeNoNodes.getInstance());
+
+        assertNotEquals(declared, adaptive);
+        assertNotEquals(adaptive, deterministic);
+        assertNotEquals(declared, deterministic);
+        assertEquals(declared, CompositeNodeInclusionPolicy.of(IncludeAllNodes.getInstance(), IncludeNoNodes.getInstance()));
+        assertEquals(declared.hashCode(), CompositeNodeInclusionPolicy.of(IncludeAllNodes.getInstance(), IncludeNoNodes.getInstance()).hashCode());
+    }
+
+    @Test
+    public void batchShouldOnlyIncludeEntitiesIncludedByAllPolicies() {
+        List<Node> nodes = Arrays.asList(null, null, null);
+
+        assertEquals(3, CompositeNodeInclusionPolicy.of(IncludeAllNodes.getInstance(), IncludeAllNodes.getInstance()).includeBatch(nodes).cardinality());
+        assertTrue(CompositeNodeInclusionPolicy.of(IncludeAllNodes.getInstance(), IncludeNoNodes.getInstance()).includeBatch(nodes).isEmpty());
+        assertTrue(CompositeNodeInclusionPolicy.of(IncludeAllNodes.getInstance()).includeBatch(Collections.emptyList()).isEmpty());
+    }
 }
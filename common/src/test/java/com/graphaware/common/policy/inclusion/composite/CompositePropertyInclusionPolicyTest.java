@@ -61,4 +61,16 @@ public class CompositePropertyInclusionPolicyTest {
         assertFalse(CompositeNodePropertyInclusionPolicy.of(IncludeNoNodeProperties.getInstance(), IncludeAllNodeProperties.getInstance()).include("test", null));
         assertFalse(CompositeRelationshipPropertyInclusionPolicy.of(IncludeAllRelationshipProperties.getInstance(), IncludeNoRelationshipProperties.getInstance()).include("test", null));
     }
+
+    @Test
+    public void mostSelectivePolicyShouldBeEvaluatedFirstInDeterministicMode() {
+        CompositeNodePropertyInclusionPolicy policy = CompositeNodePropertyInclusionPolicy.of(EvaluationOrder.Mode.DETERMINISTIC, IncludeAllNodeProperties.getInstance(), IncludeNoNodeProperties.getInstance());
+
+        for (int i = 0; i < EvaluationOrder.SAMPLING_RATE * EvaluationOrder.REORDER_INTERVAL; i++) {
+            assertFalse(policy.include("test", null));
+        }
+
+        assertArrayEquals(new int[]{1, 0}, policy.getEvaluationOrder().getOrder());
+        assertEquals(1.0, policy.getEvaluationOrder().getStatistics().get(1).getRejectionRate());
+    }
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion.spel;
+
+import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.helpers.collection.Iterables;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static com.graphaware.common.policy.inclusion.spel.SpelAccessPlanner.planNodes;
+import static com.graphaware.common.policy.inclusion.spel.SpelAccessPlanner.planRelationshipTypes;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for {@link SpelAccessPlanner}.
+ */
+public class SpelAccessPlannerTest extends SpelInclusionPolicyTest {
+
+    private static final String[] NODE_EXPRESSIONS = {
+            "hasLabel('Employee')",
+            "hasLabel('Employee') || hasLabel('Intern')",
+            "hasLabel('Employee') && hasLabel('Intern')",
+            "hasLabel('Intern') && getProperty('age') == 25",
+            "hasLabel('Intern') && getProperty('age') == 26",
+            "getProperty('name') == 'London' && hasLabel('Place')",
+            "hasLabel('Intern') && getProperty('age', 0) > 18",
+            "hasLabel('Intern') && 30 > getProperty('age', 0)",
+            "hasLabel('Intern') && getProperty('age', 0) >= 25",
+            "hasLabel('Intern') && getProperty('age') < 18",
+            "(hasLabel('Intern') && getProperty('age', 0) > 18) || hasLabel('Company')",
+            "hasLabel('Employee') || hasProperty('form')",
+            "!hasLabel('Employee')",
+    };
+
+    private static final String[] RELATIONSHIP_EXPRESSIONS = {
+            "isType('WORKS_FOR')",
+            "type == 'LIVES_IN'",
+            "isType('WORKS_FOR') || isType('LIVES_IN')",
+            "isType('WORKS_FOR') && getProperty('since', 0) > 2013",
+            "isType('WORKS_FOR') && isType('LIVES_IN')",
+            "getProperty('since', 0) > 2013",
+    };
+
+    @Test
+    public void shouldPlanNodeAccess() {
+        assertEquals("LabelScan(A)", plan("hasLabel('A')").toString());
+        assertTrue(plan("hasLabel('A')").isExact());
+
+        assertEquals("Union[LabelScan(A), LabelScan(B), LabelScan(C)]", plan("hasLabel('A') || hasLabel('B') || hasLabel('C')").toString());
+        assertTrue(plan("hasLabel('A') || hasLabel('B')").isExact());
+
+        assertEquals("Intersection[LabelScan(A), LabelScan(B)]", plan("hasLabel('A') && hasLabel('B')").toString());
+        assertFalse(plan("hasLabel('A') && hasLabel('B')").isExact());
+        assertEquals("Intersection[LabelScan(A)]", plan("hasLabel('A') && hasProperty('x')").toString());
+
+        assertEquals("Intersection[LabelScan(A), IndexSeek(A, x = 5)]", plan("hasLabel('A') && getProperty('x') == 5").toString());
+        assertEquals("Intersection[LabelScan(A), IndexSeek(A, x = abc)]", plan("getProperty('x', 'def') == 'abc' && hasLabel('A')").toString());
+        assertEquals("Intersection[LabelScan(A)]", plan("hasLabel('A') && getProperty('x', 5) == 5").toString());
+
+        assertEquals("Intersection[LabelScan(A), RangeSeek(A, x > 18)]", plan("hasLabel('A') && getProperty('x', 0) > 18").toString());
+        assertEquals("Intersection[LabelScan(A), RangeSeek(A, x > 18)]", plan("hasLabel('A') && 18 < getProperty('x')").toString());
+        assertEquals("Intersection[LabelScan(A), RangeSeek(A, x >= -5)]", plan("hasLabel('A') && getProperty('x', -10) >= -5").toString());
+        assertEquals("Intersection[LabelScan(A), RangeSeek(A, x < 18)]", plan("hasLabel('A') && getProperty('x', 20) < 18").toString());
+        assertEquals("Intersection[LabelScan(A)]", plan("hasLabel('A') && getProperty('x') < 18").toString());
+        assertEquals("Intersection[LabelScan(A)]", plan("hasLabel('A') && getProperty('x', 0) < 18").toString());
+
+        assertEquals("Union[Intersection[LabelScan(A), IndexSeek(A, x = 5)], LabelScan(B)]", plan("(hasLabel('A') && getProperty('x') == 5) || hasLabel('B')").toString());
+
+        assertNull(plan("getProperty('x') == 5"));
+        assertNull(plan("!hasLabel('A')"));
+        assertNull(plan("hasLabel('A') || hasProperty('x')"));
+        assertNull(plan("getDegree() > 2"));
+    }
+
+    @Test
+    public void shouldPlanRelationshipAccess() {
+        assertEquals(Collections.singleton("A"), types("isType('A')"));
+        assertEquals(Collections.singleton("A"), types("type == 'A'"));
+        assertEquals(Collections.singleton("A"), types("'A' == getType()"));
+        assertEquals(new HashSet<>(Arrays.asList("A", "B")), types("isType('A') || type == 'B'"));
+        assertEquals(Collections.singleton("A"), types("isType('A') && getProperty('x') == 1"));
+        assertEquals(Collections.emptySet(), types("isType('A') && isType('B')"));
+
+        assertNull(types("getProperty('x') == 1"));
+        assertNull(types("isType('A') || getProperty('x') == 1"));
+        assertNull(types("!isType('A')"));
+    }
+
+    @Test
+    public void getAllShouldReturnTheSameNodesAsFullScan() {
+        verifyNodes();
+    }
+
+    @Test
+    public void getAllShouldReturnTheSameNodesAsFullScanWhenIndexesExist() {
+        database.executeTransactionally("CREATE INDEX FOR (n:Intern) ON (n.age)");
+        database.executeTransactionally("CREATE INDEX FOR (n:Place) ON (n.name)");
+
+        try (Transaction tx = database.beginTx()) {
+            tx.schema().awaitIndexesOnline(10, TimeUnit.SECONDS);
+        }
+
+        verifyNodes();
+    }
+
+    @Test
+    public void getAllShouldReturnTheSameRelationshipsAsFullScan() {
+        try (Transaction tx = database.beginTx()) {
+            for (String expression : RELATIONSHIP_EXPRESSIONS) {
+                RelationshipInclusionPolicy policy = new SpelRelationshipInclusionPolicy(expression);
+                assertEquals(ids(Iterables.filter(policy::include, tx.getAllRelationships())), ids(policy.getAll(tx)), expression);
+            }
+
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void intersectionShouldBeReEstimatedOnEveryExecution() {
+        long[] estimates = {30, 10, 20};
+        List<Iterable<Node>> results = new ArrayList<>();
+        List<SpelAccessPlanner.NodeAccessPath> paths = new ArrayList<>();
+        for (int i = 0; i < estimates.length; i++) {
+            int index = i;
+            Iterable<Node> result = new ArrayList<>();
+            results.add(result);
+            paths.add(new SpelAccessPlanner.NodeAccessPath() {
+                @Override
+                public Iterable<Node> nodes(Transaction tx) {
+                    return result;
+                }
+
+                @Override
+                public long estimate(Transaction tx) {
+                    return estimates[index];
+                }
+
+                @Override
+                public boolean isExact() {
+                    return true;
+                }
+            });
+        }
+
+        SpelAccessPlanner.Intersection intersection = new SpelAccessPlanner.Intersection(paths);
+        try (Transaction tx = database.beginTx()) {
+            assertSame(results.get(1), intersection.nodes(tx));
+            assertEquals(10, intersection.estimate(tx));
+
+            //e.g. an index has come online
+            estimates[2] = 1;
+
+            assertSame(results.get(2), intersection.nodes(tx));
+            assertEquals(1, intersection.estimate(tx));
+        }
+    }
+
+    private void verifyNodes() {
+        try (Transaction tx = database.beginTx()) {
+            for (String expression : NODE_EXPRESSIONS) {
+                NodeInclusionPolicy policy = new SpelNodeInclusionPolicy(expression);
+                assertEquals(ids(Iterables.filter(policy::include, tx.getAllNodes())), ids(policy.getAll(tx)), expression);
+                assertEquals(Iterables.count(policy.getAll(tx)), ids(policy.getAll(tx)).size(), expression);
+            }
+
+            tx.commit();
+        }
+    }
+
+    private SpelAccessPlanner.NodeAccessPath plan(String expression) {
+        return planNodes(ast(expression));
+    }
+
+    private Set<String> types(String expression) {
+        return planRelationshipTypes(ast(expression));
+    }
+
+    private SpelNode ast(String expression) {
+        return new SpelExpressionParser().parseRaw(expression).getAST();
+    }
+
+    private Set<Long> ids(Iterable<? extends Entity> entities) {
+        return StreamSupport.stream(entities.spliterator(), false).map(Entity::getId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion.spel;
+
+import com.graphaware.common.junit.Benchmark;
+import com.graphaware.common.junit.BenchmarkReport;
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.NodePropertyInclusionPolicy;
+import com.graphaware.common.representation.AttachedNode;
+import com.graphaware.common.representation.AttachedNodeProperty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.helpers.collection.Iterables;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.List;
+
+import static com.graphaware.common.junit.BenchmarkReport.measure;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark of {@link SpelInclusionPolicy} evaluation, comparing the compiled evaluation with re-used roots to plain
+ * interpretation with a new root object per evaluation (the way policies used to be evaluated). Both must agree on
+ * every entity.
+ */
+@Benchmark
+@ExtendWith(Neo4jExtension.class)
+public class SpelInclusionPolicyBenchmark {
+
+    private static final int NODES = 1000;
+    private static final int WARMUP = 200;
+    private static final int ROUNDS = 1000;
+
+    private static final String[] NODE_EXPRESSIONS = {
+            "hasLabel('Person')",
+            "hasLabel('Person') && getProperty('age', 0) > 18",
+            "hasLabel('Person') && hasProperty('name') && !hasLabel('Intern')",
+    };
+
+    private static final String[] NODE_PROPERTY_EXPRESSIONS = {
+            "key != 'secret'",
+            "key == 'name' && node.hasLabel('Person')",
+    };
+
+    private static final BenchmarkReport REPORT = new BenchmarkReport(SpelInclusionPolicyBenchmark.class);
+
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    @BeforeEach
+    public void populate() {
+        database.executeTransactionally("UNWIND range(1, " + NODES + ") AS i CREATE (p:Person {name: 'Person ' + i, age: i % 50, secret: i})");
+    }
+
+    @Test
+    public void benchmarkNodeInclusionPolicies() {
+        try (Transaction tx = database.beginTx()) {
+            List<Node> nodes = Iterables.asList(tx.getAllNodes());
+
+            for (String expression : NODE_EXPRESSIONS) {
+                NodeInclusionPolicy policy = new SpelNodeInclusionPolicy(expression);
+                Expression interpreted = new SpelExpressionParser().parseExpression(expression);
+
+                for (Node node : nodes) {
+                    assertEquals(interpreted.getValue(new AttachedNode(node), Boolean.class), policy.include(node), expression);
+                }
+
+                long compiledTime = measure(WARMUP, ROUNDS, () -> {
+                    for (Node node : nodes) {
+                        policy.include(node);
+                    }
+                });
+
+                long interpretedTime = measure(WARMUP, ROUNDS, () -> {
+                    for (Node node : nodes) {
+                        interpreted.getValue(new AttachedNode(node));
+                    }
+                });
+
+                report(expression, compiledTime, interpretedTime, nodes.size());
+            }
+
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void benchmarkNodePropertyInclusionPolicies() {
+        try (Transaction tx = database.beginTx()) {
+            List<Node> nodes = Iterables.asList(tx.getAllNodes());
+
+            for (String expression : NODE_PROPERTY_EXPRESSIONS) {
+                NodePropertyInclusionPolicy policy = new SpelNodePropertyInclusionPolicy(expression);
+                Expression interpreted = new SpelExpressionParser().parseExpression(expression);
+
+                for (Node node : nodes) {
+                    for (String key : node.getPropertyKeys()) {
+                        assertEquals(interpreted.getValue(new AttachedNodeProperty(key, new AttachedNode(node)), Boolean.class), policy.include(key, node), expression);
+                    }
+                }
+
+                long compiledTime = measure(WARMUP, ROUNDS, () -> {
+                    for (Node node : nodes) {
+                        for (String key : node.getPropertyKeys()) {
+                            policy.include(key, node);
+                        }
+                    }
+                });
+
+                long interpretedTime = measure(WARMUP, ROUNDS, () -> {
+                    for (Node node : nodes) {
+                        for (String key : node.getPropertyKeys()) {
+                            interpreted.getValue(new AttachedNodeProperty(key, new AttachedNode(node)));
+                        }
+                    }
+                });
+
+                report(expression, compiledTime, interpretedTime, nodes.size() * 3);
+            }
+
+            tx.commit();
+        }
+    }
+
+    private void report(String expression, long compiledTime, long interpretedTime, int evaluationsPerRound) {
+        long evaluations = (long) evaluationsPerRound * ROUNDS;
+        REPORT.record(expression, "compiled", evaluations, compiledTime);
+        REPORT.record(expression, "interpreted", evaluations, interpretedTime);
+    }
+}
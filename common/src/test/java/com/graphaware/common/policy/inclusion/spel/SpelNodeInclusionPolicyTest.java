@@ -17,12 +17,20 @@
 package com.graphaware.common.policy.inclusion.spel;
 
 import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.composite.CompositeNodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.fluent.IncludeNodes;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.internal.helpers.collection.Iterables;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static com.graphaware.common.description.predicate.Predicates.any;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -55,6 +63,27 @@ public class SpelNodeInclusionPolicyTest extends SpelInclusionPolicyTest {
         policy7 = new SpelNodeInclusionPolicy("hasLabel('Intern') || hasLabel('Employee')");
     }
 
+    @Test
+    public void batchEvaluationShouldMatchSingleEvaluation() {
+        try (Transaction tx = database.beginTx()) {
+            List<Node> nodes = Arrays.asList(michal(tx), graphaware(tx), vojta(tx), london(tx), michal(tx));
+
+            for (NodeInclusionPolicy policy : Arrays.asList(simplePolicy1, simplePolicy2, policy1, policy2, policy5, policy6,
+                    CompositeNodeInclusionPolicy.of(policy1, simplePolicy2, IncludeNodes.all().with("name", any())))) {
+                BitSet expected = new BitSet();
+                for (int i = 0; i < nodes.size(); i++) {
+                    if (policy.include(nodes.get(i))) {
+                        expected.set(i);
+                    }
+                }
+
+                assertEquals(expected, policy.includeBatch(nodes), policy.toString());
+            }
+
+            tx.commit();
+        }
+    }
+
     @Test
     public void shouldIncludeCorrectNodes() {
         try (Transaction tx = database.beginTx()) {
@@ -123,4 +152,22 @@ public class SpelNodeInclusionPolicyTest extends SpelInclusionPolicyTest {
             tx.commit();
         }
     }
+
+    @Test
+    public void shouldIncludeCorrectNodesOnceExpressionsAreCompiled() {
+        try (Transaction tx = database.beginTx()) {
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(simplePolicy1.include(michal(tx)));
+                assertFalse(simplePolicy1.include(vojta(tx)));
+
+                assertTrue(policy1.include(vojta(tx)));
+                assertFalse(policy1.include(london(tx)));
+
+                assertTrue(policy6.include(vojta(tx)));
+                assertFalse(policy6.include(graphaware(tx)));
+            }
+
+            tx.commit();
+        }
+    }
 }
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion.spel;
+
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
+import com.graphaware.common.policy.inclusion.fluent.IncludeNodes;
+import com.graphaware.common.policy.inclusion.fluent.IncludeRelationships;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.helpers.collection.Iterables;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static com.graphaware.common.description.predicate.Predicates.equalTo;
+import static com.graphaware.common.description.predicate.Predicates.greaterThan;
+import static com.graphaware.common.policy.inclusion.spel.SpelPolicyTranslator.lenient;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.graphdb.Label.label;
+import static org.neo4j.graphdb.RelationshipType.withName;
+import static org.neo4j.values.storable.CoordinateReferenceSystem.Cartesian;
+import static org.neo4j.values.storable.Values.pointValue;
+
+/**
+ * Unit test for {@link SpelPolicyTranslator}. Equivalence of translated policies with the SPEL ones is checked on
+ * randomly generated expressions and graphs.
+ */
+@ExtendWith(Neo4jExtension.class)
+public class SpelPolicyTranslatorTest {
+
+    private static final int EXPRESSIONS = 500;
+
+    private static final String[] LABELS = {"A", "B", "C"};
+    private static final String[] TYPES = {"X", "Y", "Z"};
+    private static final String[] VALUES = {"a", "b", "c"};
+    private static final String[] DIRECTIONS = {"OUTGOING", "incoming", "Both"};
+    private static final String[] OPERATORS = {"==", ">", ">=", "<", "<="};
+
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    private final Random random = new Random(42);
+
+    @BeforeEach
+    public void populate() {
+        try (Transaction tx = database.beginTx()) {
+            Node[] nodes = new Node[50];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = tx.createNode();
+                for (String label : LABELS) {
+                    if (random.nextBoolean()) {
+                        nodes[i].addLabel(label(label));
+                    }
+                }
+                populateProperties(nodes[i]);
+            }
+
+            for (int i = 0; i < 150; i++) {
+                Relationship relationship = nodes[random.nextInt(nodes.length)].createRelationshipTo(nodes[random.nextInt(nodes.length)], withName(pick(TYPES)));
+                populateProperties(relationship);
+            }
+
+            tx.commit();
+        }
+    }
+
+    private void populateProperties(org.neo4j.graphdb.Entity entity) {
+        if (random.nextInt(4) > 0) {
+            entity.setProperty("name", pick(VALUES));
+        }
+        switch (random.nextInt(4)) {
+            case 0:
+                entity.setProperty("flag", random.nextBoolean());
+                break;
+            case 1:
+                entity.setProperty("flag", pick(VALUES));
+                break;
+            case 2:
+                //values property value predicates don't support
+                entity.setProperty("flag", random.nextBoolean() ? LocalDate.of(2020, 1, random.nextInt(28) + 1) : pointValue(Cartesian, 1, 2));
+                break;
+            default:
+        }
+    }
+
+    @Test
+    public void shouldTranslateSimpleExpressions() {
+        assertEquals(IncludeNodes.all().with("A"), SpelPolicyTranslator.translateNodePolicy("hasLabel('A')"));
+        assertEquals(IncludeNodes.all().with("A").with("name", lenient(equalTo("b"))), SpelPolicyTranslator.translateNodePolicy("hasLabel('A') && getProperty('name') == 'b'"));
+        assertEquals(IncludeNodes.all().with("name", lenient(greaterThan("b"))), SpelPolicyTranslator.translateNodePolicy("'b' < getProperty('name')"));
+        assertEquals(IncludeRelationships.all().with("X"), SpelPolicyTranslator.translateRelationshipPolicy("isType('X')"));
+        assertEquals(IncludeRelationships.all().with("X", "Y"), SpelPolicyTranslator.translateRelationshipPolicy("type == 'X' || getType() == 'Y'"));
+        assertEquals(IncludeRelationships.all().with("X").with("flag", lenient(equalTo(true))), SpelPolicyTranslator.translateRelationshipPolicy("getProperty('flag') == true && isType('X')"));
+    }
+
+    @Test
+    public void shouldNotTranslateOtherExpressions() {
+        assertNull(SpelPolicyTranslator.translateNodePolicy("!hasLabel('A')"));
+        assertNull(SpelPolicyTranslator.translateNodePolicy("hasProperty('name')"));
+        assertNull(SpelPolicyTranslator.translateNodePolicy("getProperty('name') < 'b'"));
+        assertNull(SpelPolicyTranslator.translateNodePolicy("getProperty('age') == 5"));
+        assertNull(SpelPolicyTranslator.translateNodePolicy("getProperty('age', 0) > 20"));
+        assertNull(SpelPolicyTranslator.translateNodePolicy("hasLabel('A') || getDegree('X', 'sideways') > 1"));
+        assertNull(SpelPolicyTranslator.translateNodePolicy("hasLabel('A"));
+        assertNull(SpelPolicyTranslator.translateRelationshipPolicy("startNode.hasLabel('A')"));
+        assertNull(SpelPolicyTranslator.translateRelationshipPolicy("isType('X') && isOutgoing()"));
+    }
+
+    @Test
+    public void unsupportedPropertyValuesShouldNotSatisfyTranslatedComparisons() {
+        try (Transaction tx = database.beginTx()) {
+            Node date = tx.createNode(label("D"));
+            date.setProperty("flag", LocalDate.of(2020, 1, 1));
+            Node point = tx.createNode(label("D"));
+            point.setProperty("flag", pointValue(Cartesian, 1, 2));
+
+            for (String expression : new String[]{"getProperty('flag') == true", "'a' == getProperty('flag')", "getProperty('flag') > 'a'"}) {
+                NodeInclusionPolicy translated = SpelPolicyTranslator.translateNodePolicy(expression);
+                assertFalse(translated.include(date), expression);
+                assertFalse(translated.include(point), expression);
+            }
+
+            NodeInclusionPolicy disjunction = SpelPolicyTranslator.translateNodePolicy("getProperty('flag') == true || hasLabel('D')");
+            assertTrue(disjunction.include(date));
+            assertTrue(disjunction.include(point));
+
+            tx.rollback();
+        }
+    }
+
+    @Test
+    public void translatedNodePoliciesShouldBeEquivalent() {
+        try (Transaction tx = database.beginTx()) {
+            List<Node> nodes = Iterables.asList(tx.getAllNodes());
+
+            for (int i = 0; i < EXPRESSIONS; i++) {
+                String expression = nodeExpression(3);
+                NodeInclusionPolicy spel = new SpelNodeInclusionPolicy(expression);
+                NodeInclusionPolicy translated = SpelPolicyTranslator.translateNodePolicy(expression);
+
+                assertNotNull(translated, expression);
+                for (Node node : nodes) {
+                    assertEquals(spel.include(node), translated.include(node), expression + " -> " + translated);
+                }
+                assertEquals(spel.includeBatch(nodes), translated.includeBatch(nodes), expression + " -> " + translated);
+            }
+
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void translatedRelationshipPoliciesShouldBeEquivalent() {
+        try (Transaction tx = database.beginTx()) {
+            List<Relationship> relationships = Iterables.asList(tx.getAllRelationships());
+
+            for (int i = 0; i < EXPRESSIONS; i++) {
+                String expression = relationshipExpression(3);
+                RelationshipInclusionPolicy spel = new SpelRelationshipInclusionPolicy(expression);
+                RelationshipInclusionPolicy translated = SpelPolicyTranslator.translateRelationshipPolicy(expression);
+
+                assertNotNull(translated, expression);
+                for (Relationship relationship : relationships) {
+                    assertEquals(spel.include(relationship), translated.include(relationship), expression + " -> " + translated);
+                    assertEquals(spel.include(relationship, relationship.getEndNode()), translated.include(relationship, relationship.getEndNode()), expression + " -> " + translated);
+                }
+                assertEquals(spel.includeBatch(relationships), translated.includeBatch(relationships), expression + " -> " + translated);
+            }
+
+            tx.commit();
+        }
+    }
+
+    private String nodeExpression(int depth) {
+        if (depth > 0 && random.nextInt(3) > 0) {
+            return "(" + nodeExpression(depth - 1) + (random.nextBoolean() ? " && " : " || ") + nodeExpression(depth - 1) + ")";
+        }
+
+        switch (random.nextInt(4)) {
+            case 0:
+                return "hasLabel('" + pick(LABELS) + "')";
+            case 1:
+                return propertyExpression();
+            case 2:
+                return degreeExpression();
+            default:
+                return random.nextBoolean() ? "getProperty('flag') == " + random.nextBoolean() : "true == getProperty('flag')";
+        }
+    }
+
+    private String relationshipExpression(int depth) {
+        if (depth > 0 && random.nextInt(3) > 0) {
+            return "(" + relationshipExpression(depth - 1) + (random.nextBoolean() ? " && " : " || ") + relationshipExpression(depth - 1) + ")";
+        }
+
+        switch (random.nextInt(5)) {
+            case 0:
+                return "isType('" + pick(TYPES) + "')";
+            case 1:
+                return "type == '" + pick(TYPES) + "'";
+            case 2:
+                return "'" + pick(TYPES) + "' == getType()";
+            case 3:
+                return propertyExpression();
+            default:
+                return "getProperty('flag') == " + random.nextBoolean();
+        }
+    }
+
+    private String propertyExpression() {
+        //only comparisons that are false for missing properties are translated
+        switch (random.nextInt(5)) {
+            case 0:
+                return "getProperty('name') == '" + pick(VALUES) + "'";
+            case 1:
+                return "'" + pick(VALUES) + "' == getProperty('flag')";
+            case 2:
+                return "getProperty('name') " + pick(new String[]{">", ">="}) + " '" + pick(VALUES) + "'";
+            default:
+                return "'" + pick(VALUES) + "' " + pick(new String[]{"<", "<="}) + " getProperty('name')";
+        }
+    }
+
+    private String degreeExpression() {
+        String degree;
+        switch (random.nextInt(4)) {
+            case 0:
+                degree = "degree";
+                break;
+            case 1:
+                degree = "getDegree()";
+                break;
+            case 2:
+                degree = "getDegree('" + (random.nextBoolean() ? pick(TYPES) : pick(DIRECTIONS)) + "')";
+                break;
+            default:
+                degree = "getDegree('" + pick(TYPES) + "', '" + pick(DIRECTIONS) + "')";
+        }
+
+        String value = random.nextInt(5) + (random.nextBoolean() ? "" : "L");
+        return random.nextBoolean() ? degree + " " + pick(OPERATORS) + " " + value : value + " " + pick(OPERATORS) + " " + degree;
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
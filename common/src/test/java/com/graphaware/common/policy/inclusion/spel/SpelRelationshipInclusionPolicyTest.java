@@ -17,11 +17,14 @@
 package com.graphaware.common.policy.inclusion.spel;
 
 import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
+import com.graphaware.common.representation.AttachedNode;
 import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.internal.helpers.collection.Iterables;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.neo4j.graphdb.RelationshipType.withName;
 
 /**
  * Unit test for {@link com.graphaware.common.policy.inclusion.spel.SpelRelationshipInclusionPolicy}.
@@ -88,6 +91,24 @@ public class SpelRelationshipInclusionPolicyTest extends SpelInclusionPolicyTest
         }
     }
 
+    @Test
+    public void shouldResolveDirectionOfRelationshipsToSelf() {
+        RelationshipInclusionPolicy outgoing = new SpelRelationshipInclusionPolicy("isOutgoing() && otherNode.hasLabel('Employee') && startNode == endNode");
+        RelationshipInclusionPolicy incoming = new SpelRelationshipInclusionPolicy("isIncoming()");
+
+        try (Transaction tx = database.beginTx()) {
+            Relationship self = michal(tx).createRelationshipTo(michal(tx), withName("KNOWS"));
+
+            assertTrue(outgoing.include(self, michal(tx)));
+            assertFalse(incoming.include(self, michal(tx)));
+            assertFalse(outgoing.include(michalWorksFor(tx), michal(tx)));
+            assertTrue(incoming.include(michalWorksFor(tx), graphaware(tx)));
+            assertFalse(incoming.include(michalWorksFor(tx), michal(tx)));
+
+            tx.rollback();
+        }
+    }
+
     @Test
     public void shouldComplainAboutIncorrectUsage1() {
         assertThrows(Exception.class, () -> {
@@ -126,4 +147,27 @@ public class SpelRelationshipInclusionPolicyTest extends SpelInclusionPolicyTest
             tx.commit();
         }
     }
+
+    @Test
+    public void rootShouldReleaseNodesWhenDetached() {
+        try (Transaction tx = database.beginTx()) {
+            RelationshipRoot root = new RelationshipRoot();
+            root.attach(michalWorksFor(tx), michal(tx));
+
+            AttachedNode startNode = root.getStartNode();
+            AttachedNode endNode = root.getEndNode();
+            AttachedNode pointOfView = root.pointOfView();
+            assertSame(endNode, root.getOtherNode());
+            assertEquals(pointOfView, startNode);
+
+            root.attach(null, null);
+
+            assertFalse(root.isAttached());
+            assertFalse(((NodeRoot) startNode).isAttached());
+            assertFalse(((NodeRoot) endNode).isAttached());
+            assertFalse(((NodeRoot) pointOfView).isAttached());
+
+            tx.rollback();
+        }
+    }
 }
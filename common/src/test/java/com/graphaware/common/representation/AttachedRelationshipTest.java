@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.common.representation;
+
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.neo4j.graphdb.RelationshipType.withName;
+
+/**
+ * Unit test for {@link AttachedRelationship}.
+ */
+@ExtendWith(Neo4jExtension.class)
+public class AttachedRelationshipTest {
+
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    @Test
+    public void shouldComplainAboutMissingOrWrongPointOfView() {
+        try (Transaction tx = database.beginTx()) {
+            Node start = tx.createNode();
+            Node end = tx.createNode();
+            Relationship relationship = start.createRelationshipTo(end, withName("TEST"));
+
+            AttachedRelationship withoutPointOfView = new AttachedRelationship(relationship);
+            assertThrows(IllegalStateException.class, withoutPointOfView::getOtherNode);
+            assertThrows(IllegalStateException.class, withoutPointOfView::isOutgoing);
+            assertThrows(IllegalStateException.class, withoutPointOfView::isIncoming);
+
+            AttachedRelationship wrongPointOfView = new AttachedRelationship(relationship, tx.createNode());
+            assertThrows(IllegalStateException.class, wrongPointOfView::getOtherNode);
+
+            tx.rollback();
+        }
+    }
+
+    @Test
+    public void shouldReturnNewNodesOnEveryCall() {
+        try (Transaction tx = database.beginTx()) {
+            Node start = tx.createNode();
+            Node end = tx.createNode();
+            AttachedRelationship relationship = new AttachedRelationship(start.createRelationshipTo(end, withName("TEST")), end);
+
+            AttachedNode startNode = relationship.getStartNode();
+            AttachedNode otherNode = relationship.getOtherNode();
+
+            assertNotSame(startNode, otherNode);
+            assertEquals(startNode, otherNode);
+            assertEquals(new AttachedNode(start), startNode);
+            assertEquals(new AttachedNode(end), relationship.pointOfView());
+            assertEquals(new AttachedNode(end), relationship.getEndNode());
+
+            tx.rollback();
+        }
+    }
+}
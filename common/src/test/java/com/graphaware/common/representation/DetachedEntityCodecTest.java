@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.representation;
+
+import com.graphaware.common.json.LongIdJsonNode;
+import com.graphaware.common.json.LongIdJsonRelationship;
+import com.graphaware.common.json.StringIdJsonNode;
+import com.graphaware.common.json.StringIdJsonRelationship;
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import com.graphaware.common.transform.NodeIdTransformer;
+import com.graphaware.common.transform.RelationshipIdTransformer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.graphaware.common.util.ArrayUtils.arrayFriendlyMapEquals;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.neo4j.graphdb.Label.label;
+import static org.neo4j.graphdb.RelationshipType.withName;
+
+/**
+ * Unit test for {@link DetachedEntityEncoder} and {@link DetachedEntityDecoder}.
+ */
+@ExtendWith(Neo4jExtension.class)
+public class DetachedEntityCodecTest {
+
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    @Test
+    public void shouldRoundTripPropertyValues() throws IOException {
+        Object[] values = {null, true, false, (byte) -3, (short) 300, 'c', 0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                0L, Long.MAX_VALUE, Long.MIN_VALUE, 1.5f, Double.NaN, -0.0, "", "žluťoučký kůň", "x\u0000y",
+                new boolean[]{true, false}, new byte[]{1, -1}, new short[]{-5, 5}, new char[]{'a', 'ř'}, new int[]{1, -1, 1 << 30},
+                new long[]{Long.MIN_VALUE, 0, Long.MAX_VALUE}, new float[]{0.1f}, new double[]{Double.MIN_VALUE, 1e300},
+                new String[]{"a", null, "c"}, new String[0], LocalDate.of(2020, 1, 1)};
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DetachedEntityEncoder encoder = new DetachedEntityEncoder(bytes)) {
+            for (Object value : values) {
+                encoder.writeValue(value);
+            }
+        }
+
+        try (DetachedEntityDecoder decoder = new DetachedEntityDecoder(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (Object value : values) {
+                Object decoded = decoder.readValue();
+                if (value == null) {
+                    assertNull(decoded);
+                } else {
+                    assertEquals(value.getClass(), decoded.getClass());
+                    assertTrue(arrayFriendlyMapEquals(Collections.singletonMap("v", value), Collections.singletonMap("v", decoded)), String.valueOf(value));
+                }
+            }
+            assertFalse(decoder.hasMore());
+        }
+    }
+
+    @Test
+    public void shouldRoundTripNodes() throws IOException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("name", "Michal");
+        properties.put("age", 35);
+        properties.put("scores", new long[]{1, 2, 3});
+
+        DetachedNode<?>[] nodes = {
+                new GraphDetachedNode(5, new String[]{"Person", "Employee"}, properties),
+                new GraphDetachedNode(6),
+                new GraphDetachedNode(new String[0], Collections.emptyMap()),
+                new SerializableNode<>(7L, new String[]{"Person"}, properties),
+                new LongIdJsonNode(8, new String[]{"Employee", "Person"}, properties),
+                new StringIdJsonNode("uuid-1", new String[]{"Person"}, Collections.singletonMap("tags", new String[]{"a", "b"})),
+                new StringIdJsonNode(null, new String[0], Collections.emptyMap()),
+                new CustomNode(9, "custom"),
+                null
+        };
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DetachedEntityEncoder encoder = new DetachedEntityEncoder(bytes)) {
+            for (DetachedNode<?> node : nodes) {
+                encoder.writeNode(node);
+            }
+        }
+
+        try (DetachedEntityDecoder decoder = new DetachedEntityDecoder(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (DetachedNode<?> node : nodes) {
+                DetachedNode<?> decoded = decoder.readNode();
+                assertNodeEquals(node, decoded);
+                if (node instanceof CustomNode) {
+                    assertEquals(node, decoded);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldRoundTripRelationships() throws IOException {
+        DetachedRelationship<?, ?>[] relationships = new DetachedRelationship[5];
+
+        try (Transaction tx = database.beginTx()) {
+            Node michal = tx.createNode(label("Person"));
+            michal.setProperty("name", "Michal");
+            Node graphaware = tx.createNode(label("Company"));
+            Relationship worksFor = michal.createRelationshipTo(graphaware, withName("WORKS_FOR"));
+            worksFor.setProperty("since", 2013);
+            worksFor.setProperty("roles", new String[]{"Director", "Developer"});
+
+            relationships[0] = new GraphDetachedRelationship(worksFor);
+            relationships[1] = new LongIdJsonRelationship(worksFor);
+            relationships[2] = new StringIdJsonRelationship(worksFor, new String[]{"since"}, new StringRelationshipIds(), new StringNodeIds());
+            relationships[3] = new GraphDetachedRelationship(3);
+            relationships[4] = new LongIdJsonRelationship(1, 2, "KNOWS", Collections.singletonMap("weight", 0.5));
+
+            tx.commit();
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DetachedEntityEncoder encoder = new DetachedEntityEncoder(bytes)) {
+            for (DetachedRelationship<?, ?> relationship : relationships) {
+                encoder.writeRelationship(relationship);
+            }
+        }
+
+        try (DetachedEntityDecoder decoder = new DetachedEntityDecoder(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (DetachedRelationship<?, ?> relationship : relationships) {
+                DetachedRelationship<?, ?> decoded = decoder.readRelationship();
+
+                assertEquals(relationship.getClass(), decoded.getClass());
+                assertEquals(relationship.getGraphId(), decoded.getGraphId());
+                assertEquals(relationship.getStartNodeGraphId(), decoded.getStartNodeGraphId());
+                assertEquals(relationship.getEndNodeGraphId(), decoded.getEndNodeGraphId());
+                assertEquals(relationship.getType(), decoded.getType());
+                assertEquals(relationship.getId(), decoded.getId());
+                assertPropertiesEqual(relationship.getProperties(), decoded.getProperties());
+                assertNodeEquals(relationship.getStartNode(), decoded.getStartNode());
+                assertNodeEquals(relationship.getEndNode(), decoded.getEndNode());
+
+                if (relationship instanceof SerializableRelationship) {
+                    assertEquals(((SerializableRelationship<?>) relationship).getStartNodeId(), ((SerializableRelationship<?>) decoded).getStartNodeId());
+                    assertEquals(((SerializableRelationship<?>) relationship).getEndNodeId(), ((SerializableRelationship<?>) decoded).getEndNodeId());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldWriteRepeatedSymbolsOnce() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DetachedEntityEncoder encoder = new DetachedEntityEncoder(bytes)) {
+            encoder.writeNode(new GraphDetachedNode(1, new String[]{"AVeryLongLabelIndeed"}, Collections.singletonMap("aVeryLongPropertyKeyIndeed", 1)));
+            encoder.flush();
+            int first = bytes.size();
+
+            encoder.writeNode(new GraphDetachedNode(1, new String[]{"AVeryLongLabelIndeed"}, Collections.singletonMap("aVeryLongPropertyKeyIndeed", 1)));
+            encoder.flush();
+
+            assertTrue(bytes.size() - first < 10);
+        }
+    }
+
+    @Test
+    public void shouldRejectOtherStreams() {
+        assertThrows(IOException.class, () -> new DetachedEntityDecoder(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5})));
+    }
+
+    @Test
+    public void shouldRejectMalformedLengths() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DetachedEntityEncoder encoder = new DetachedEntityEncoder(bytes)) {
+            encoder.writeValue(new long[]{1, 2, 3});
+            encoder.writeValue("four");
+            encoder.writeByte(DetachedEntityFormat.LONG_ARRAY);
+            encoder.writeByte(0xFF);
+            encoder.writeByte(0xFF);
+            encoder.writeByte(0xFF);
+            encoder.writeByte(0xFF);
+            encoder.writeByte(0x7F);
+        }
+
+        try (DetachedEntityDecoder decoder = new DetachedEntityDecoder(new ByteArrayInputStream(bytes.toByteArray()), 3, DetachedEntityDecoder.DEFAULT_FILTER)) {
+            assertArrayEquals(new long[]{1, 2, 3}, (long[]) decoder.readValue());
+            assertThrows(IOException.class, decoder::readValue);
+            assertThrows(IOException.class, decoder::readValue);
+        }
+    }
+
+    @Test
+    public void shouldOnlyDeserializeAcceptedClasses() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DetachedEntityEncoder encoder = new DetachedEntityEncoder(bytes)) {
+            encoder.writeValue(LocalDate.of(2020, 1, 1));
+            encoder.writeValue(new java.awt.Point(1, 2));
+        }
+
+        try (DetachedEntityDecoder decoder = new DetachedEntityDecoder(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(LocalDate.of(2020, 1, 1), decoder.readValue());
+            assertThrows(IOException.class, decoder::readValue);
+        }
+    }
+
+    private void assertNodeEquals(DetachedNode<?> expected, DetachedNode<?> actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.getGraphId(), actual.getGraphId());
+        assertEquals(expected.getId(), actual.getId());
+        assertArrayEquals(expected.getLabels(), actual.getLabels());
+        assertPropertiesEqual(expected.getProperties(), actual.getProperties());
+    }
+
+    private void assertPropertiesEqual(Map<String, Object> expected, Map<String, Object> actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+
+        assertTrue(arrayFriendlyMapEquals(expected, actual), expected + " vs " + actual);
+    }
+
+    private static class StringRelationshipIds implements RelationshipIdTransformer<String> {
+
+        @Override
+        public String fromEntity(Relationship entity) {
+            return "r" + entity.getId();
+        }
+
+        @Override
+        public long toGraphId(String id) {
+            return Long.parseLong(id.substring(1));
+        }
+    }
+
+    private static class StringNodeIds implements NodeIdTransformer<String> {
+
+        @Override
+        public String fromEntity(Node entity) {
+            return "n" + entity.getId();
+        }
+
+        @Override
+        public long toGraphId(String id) {
+            return Long.parseLong(id.substring(1));
+        }
+    }
+
+    private static class CustomNode extends GraphDetachedNode {
+
+        private String extra;
+
+        private CustomNode(long graphId, String extra) {
+            super(graphId, new String[]{"Custom"}, Collections.emptyMap());
+            this.extra = extra;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return super.equals(o) && extra.equals(((CustomNode) o).extra);
+        }
+    }
+}
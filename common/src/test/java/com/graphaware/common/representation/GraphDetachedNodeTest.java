@@ -23,8 +23,13 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -45,4 +50,45 @@ public class GraphDetachedNodeTest {
         String json = "{\"graphId\":0,\"properties\":{\"key\":\"value\"},\"labels\":[\"Label1, Label2\"]}";
         assertEquals(new GraphDetachedNode(0, new String[]{"Label1, Label2"}, Collections.singletonMap("key", "value")), mapper.readValue(json, GraphDetachedNode.class));
     }
+
+    @Test
+    public void namesReadFromJsonShouldBeInterned() throws IOException {
+        String json = "{\"graphId\":0,\"properties\":{\"key\":\"value\"},\"labels\":[\"Label1\"]}";
+        GraphDetachedNode node = mapper.readValue(json, GraphDetachedNode.class);
+
+        assertSame(NameDictionary.getInstance().intern("Label1"), node.getLabels()[0]);
+        assertSame(NameDictionary.getInstance().intern("key"), node.getProperties().keySet().iterator().next());
+    }
+
+    @Test
+    public void lazyNodeShouldBeHydratedOnceWhenAccessed() throws IOException, ClassNotFoundException {
+        AtomicInteger hydrations = new AtomicInteger();
+        GraphDetachedNode lazy = GraphDetachedNode.lazy(5, node -> {
+            hydrations.incrementAndGet();
+            node.setLabels(new String[]{"Person"});
+            node.setProperties(Collections.singletonMap("name", "Michal"));
+        });
+
+        assertEquals(5L, lazy.getGraphId());
+        assertEquals(0, hydrations.get());
+
+        GraphDetachedNode expected = new GraphDetachedNode(5, new String[]{"Person"}, Collections.singletonMap("name", "Michal"));
+        assertEquals(expected, lazy);
+        assertEquals(expected.hashCode(), lazy.hashCode());
+        assertEquals("Michal", lazy.getProperty("name"));
+        assertEquals(1, hydrations.get());
+
+        GraphDetachedNode unread = GraphDetachedNode.lazy(5, node -> {
+            node.setLabels(new String[]{"Person"});
+            node.setProperties(Collections.singletonMap("name", "Michal"));
+        });
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(unread);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(expected, in.readObject());
+        }
+    }
 }
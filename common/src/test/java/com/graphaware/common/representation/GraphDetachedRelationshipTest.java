@@ -42,4 +42,11 @@ public class GraphDetachedRelationshipTest {
         String json = "{\"graphId\":0,\"properties\":{\"key\":\"value\"},\"startNodeGraphId\":1,\"endNodeGraphId\":2,\"type\":\"TYPE\"}";
         Assertions.assertEquals(new GraphDetachedRelationship(0, 1, 2, "TYPE", Collections.singletonMap("key", "value")), mapper.readValue(json, GraphDetachedRelationship.class));
     }
+
+    @Test
+    public void typeReadFromJsonShouldBeInterned() throws IOException {
+        String json = "{\"graphId\":0,\"properties\":{},\"startNodeGraphId\":1,\"endNodeGraphId\":2,\"type\":\"TYPE\"}";
+
+        Assertions.assertSame(NameDictionary.getInstance().intern("TYPE"), mapper.readValue(json, GraphDetachedRelationship.class).getType());
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.representation;
+
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+import static org.neo4j.graphdb.Label.label;
+import static org.neo4j.graphdb.RelationshipType.withName;
+
+/**
+ * Unit test for {@link NameDictionary}.
+ */
+@ExtendWith(Neo4jExtension.class)
+public class NameDictionaryTest {
+
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    @Test
+    public void equalNamesShouldBeInterned() {
+        NameDictionary dictionary = new NameDictionary(10);
+
+        String name = dictionary.intern(new String("name"));
+
+        assertSame(name, dictionary.intern(new String("name")));
+        assertNull(dictionary.intern((String) null));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    public void namesShouldHaveDenseCodes() {
+        NameDictionary dictionary = new NameDictionary(100);
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, dictionary.code("name" + i));
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, dictionary.code("name" + i));
+            assertEquals("name" + i, dictionary.name(i));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> dictionary.name(50));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.name(-1));
+    }
+
+    @Test
+    public void fullDictionaryShouldNotGrow() {
+        NameDictionary dictionary = new NameDictionary(2);
+
+        dictionary.intern("one");
+        dictionary.intern("two");
+
+        String three = new String("three");
+        assertSame(three, dictionary.intern(three));
+        assertEquals(NameDictionary.NO_CODE, dictionary.code(three));
+        assertEquals(2, dictionary.size());
+        assertEquals(1, dictionary.code("two"));
+    }
+
+    @Test
+    public void concurrentlyAddedNamesShouldGetUniqueCodes() {
+        NameDictionary dictionary = new NameDictionary(1000);
+
+        CompletableFuture.allOf(IntStream.range(0, 8).mapToObj(t -> CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 500; i++) {
+                dictionary.code("name" + i);
+            }
+        })).toArray(CompletableFuture[]::new)).join();
+
+        assertEquals(500, dictionary.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals("name" + i, dictionary.name(dictionary.code("name" + i)));
+        }
+    }
+
+    @Test
+    public void detachedEntitiesShouldShareNames() {
+        try (Transaction tx = database.beginTx()) {
+            Node first = tx.createNode(label("Person"));
+            first.setProperty("name", "Michal");
+            Node second = tx.createNode(label("Person"));
+            second.setProperty("name", "Daniela");
+            first.createRelationshipTo(second, withName("KNOWS"));
+            second.createRelationshipTo(first, withName("KNOWS"));
+
+            GraphDetachedNode detachedFirst = new GraphDetachedNode(first);
+            GraphDetachedNode detachedSecond = new GraphDetachedNode(second);
+            assertSame(detachedFirst.getLabels()[0], detachedSecond.getLabels()[0]);
+            assertSame(detachedFirst.getProperties().keySet().iterator().next(), detachedSecond.getProperties().keySet().iterator().next());
+
+            assertSame(new GraphDetachedRelationship(first.getSingleRelationship(withName("KNOWS"), OUTGOING)).getType(),
+                    new GraphDetachedRelationship(second.getSingleRelationship(withName("KNOWS"), OUTGOING)).getType());
+
+            tx.commit();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.representation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for {@link PropertyMap}.
+ */
+public class PropertyMapTest {
+
+    private static Map<String, Object> values() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("boolean", true);
+        values.put("byte", (byte) -3);
+        values.put("short", (short) 300);
+        values.put("char", 'ř');
+        values.put("int", -1);
+        values.put("long", Long.MIN_VALUE);
+        values.put("float", 1.5f);
+        values.put("double", Double.NaN);
+        values.put("string", "Michal");
+        values.put("longs", new long[]{1, 2});
+        values.put("strings", new String[]{"a", "b"});
+        values.put("doubles", new double[]{0.5});
+        return values;
+    }
+
+    @Test
+    public void valuesShouldBeReadBackWithTheirTypes() {
+        Map<String, Object> values = values();
+        PropertyMap map = new PropertyMap(values);
+
+        assertEquals(values.size(), map.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            assertTrue(map.containsKey(entry.getKey()));
+            assertSame(entry.getValue().getClass(), map.get(entry.getKey()).getClass());
+            if (!entry.getValue().getClass().isArray()) {
+                assertEquals(entry.getValue(), map.get(entry.getKey()));
+            }
+        }
+
+        assertEquals(Long.MIN_VALUE, map.getLong("long", 0));
+        assertEquals(-1, map.getLong("int", 0));
+        assertEquals(7, map.getLong("string", 7));
+        assertEquals(1.5, map.getDouble("float", 0));
+        assertNull(map.get("missing"));
+        assertFalse(map.containsKey("missing"));
+    }
+
+    @Test
+    public void mapsWithEqualArraysShouldBeEqual() {
+        PropertyMap map1 = new PropertyMap(values());
+        PropertyMap map2 = new PropertyMap(values());
+
+        assertEquals(map1, map2);
+        assertEquals(map1.hashCode(), map2.hashCode());
+
+        map2.put("longs", new long[]{1, 3});
+        assertNotEquals(map1, map2);
+
+        map2.put("longs", new long[]{1, 2});
+        map2.put("int", -1L);
+        assertNotEquals(map1, map2);
+    }
+
+    @Test
+    public void otherMapsShouldBeComparedAsPerMapContract() {
+        PropertyMap map = new PropertyMap(values());
+        Map<String, Object> other = values();
+
+        assertEquals(map, new PropertyMap(other));
+        assertEquals(map.hashCode(), new PropertyMap(other).hashCode());
+
+        //other maps compare arrays by reference, so equality is symmetric
+        assertNotEquals(map, other);
+        assertNotEquals(other, map);
+
+        Map<String, Object> sameArrays = new HashMap<>(map);
+        assertEquals(map, sameArrays);
+        assertEquals(sameArrays, map);
+    }
+
+    @Test
+    public void boxedValuesShouldBeReused() {
+        PropertyMap map = new PropertyMap(values());
+        map.put("big", 100_000L);
+
+        assertSame(map.get("big"), map.get("big"));
+        assertSame(map.get("double"), map.entrySet().stream().filter(e -> e.getKey().equals("double")).findFirst().get().getValue());
+
+        assertEquals(100_000L, map.put("big", 200_000L));
+        assertEquals(200_000L, map.get("big"));
+        assertEquals(200_000L, map.getLong("big", 0));
+    }
+
+    @Test
+    public void mapsWithoutArraysShouldBehaveLikeHashMaps() {
+        Map<String, Object> values = values();
+        values.remove("longs");
+        values.remove("strings");
+        values.remove("doubles");
+        PropertyMap map = new PropertyMap(values);
+
+        assertEquals(values, map);
+        assertEquals(map, values);
+        assertEquals(values.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void largeMapsShouldSupportUpdatesAndRemovals() {
+        PropertyMap map = new PropertyMap();
+        Map<String, Object> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put("key" + i, (long) i);
+            expected.put("key" + i, (long) i);
+        }
+
+        assertEquals(5L, map.put("key5", "five"));
+        expected.put("key5", "five");
+        assertEquals(10L, map.remove("key10"));
+        expected.remove("key10");
+
+        Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Object> entry = iterator.next();
+            if (entry.getValue() instanceof Long && (Long) entry.getValue() % 2 == 0) {
+                iterator.remove();
+                expected.remove(entry.getKey());
+            }
+        }
+
+        assertEquals(expected, map);
+        for (String key : expected.keySet()) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void mapShouldBeSerializable() throws IOException, ClassNotFoundException {
+        PropertyMap map = new PropertyMap(values());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(map);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(map, in.readObject());
+        }
+    }
+
+    @Test
+    public void detachedEntitiesShouldUsePropertyMapsAndSupportExpressions() {
+        GraphDetachedNode node = new GraphDetachedNode(1, new String[]{"Person"}, values());
+
+        assertTrue(node.getProperties() instanceof PropertyMap);
+        assertEquals(new GraphDetachedNode(1, new String[]{"Person"}, values()), node);
+        assertEquals(Boolean.TRUE, new SpelExpressionParser().parseExpression("getProperty('int') < 0 && getProperty('string') == 'Michal' && hasLabel('Person')").getValue(node));
+    }
+}
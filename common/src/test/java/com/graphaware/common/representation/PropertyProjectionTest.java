@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.representation;
+
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.json.LongIdJsonNode;
+import com.graphaware.common.junit.Neo4jExtension;
+import com.graphaware.common.transform.TrivialNodeTransformer;
+import com.graphaware.common.transform.TrivialRelationshipTransformer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for {@link PropertyProjection}.
+ */
+@ExtendWith(Neo4jExtension.class)
+public class PropertyProjectionTest {
+
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    @Test
+    public void shouldCompileKeys() {
+        assertSame(PropertyProjection.all(), PropertyProjection.of((String[]) null));
+        assertSame(PropertyProjection.none(), PropertyProjection.of());
+        assertTrue(PropertyProjection.all().includesAll());
+        assertNull(PropertyProjection.all().getKeys());
+
+        PropertyProjection projection = PropertyProjection.of("a", "b", "a", null);
+        assertArrayEquals(new String[]{"a", "b"}, projection.getKeys());
+        assertFalse(projection.includesAll());
+        assertEquals(projection, PropertyProjection.of("a", "b"));
+    }
+
+    @Test
+    public void shouldProjectProperties() {
+        try (Transaction tx = database.beginTx()) {
+            Node node = tx.createNode();
+            node.setProperty("a", 1);
+            node.setProperty("b", "two");
+            node.setProperty("c", new long[]{3});
+
+            Map<String, Object> ab = new HashMap<>();
+            ab.put("a", 1);
+            ab.put("b", "two");
+
+            assertEquals(3, PropertyProjection.all().project(node).size());
+            assertEquals(Collections.emptyMap(), PropertyProjection.none().project(node));
+            assertEquals(ab, PropertyProjection.of("a", "b", "d").project(node));
+            assertEquals(Collections.singletonMap("b", "two"), PropertyProjection.of("b").project(node));
+            assertEquals(Collections.emptyMap(), PropertyProjection.of("d").project(node));
+
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void specificationShouldBeCompiledOnce() {
+        SerializationSpecification specification = new SerializationSpecification(new String[]{"a"}, null);
+
+        assertSame(specification.getNodeProjection(), specification.getNodeProjection());
+        assertArrayEquals(new String[]{"a"}, specification.getNodeProjection().getKeys());
+        assertSame(PropertyProjection.all(), specification.getRelationshipProjection());
+
+        specification.setRelationshipProperties(new String[0]);
+        assertSame(PropertyProjection.none(), specification.getRelationshipProjection());
+    }
+
+    @Test
+    public void representationsShouldUseSpecificationProjections() {
+        SerializationSpecification specification = new SerializationSpecification(new String[]{"a", "d"}, new String[0]);
+
+        try (Transaction tx = database.beginTx()) {
+            Node node = tx.createNode();
+            node.setProperty("a", 1);
+            node.setProperty("b", "two");
+            Relationship relationship = node.createRelationshipTo(node, RelationshipType.withName("R"));
+            relationship.setProperty("a", 1);
+
+            assertEquals(Collections.singletonMap("a", 1), new GraphDetachedNode(specification.getNodeProjection(), node).getProperties());
+            assertEquals(Collections.singletonMap("a", 1), new LongIdJsonNode(specification.getNodeProjection(), node).getProperties());
+            assertEquals(Collections.singletonMap("a", 1), TrivialNodeTransformer.of(specification).transform(node).getProperties());
+            assertEquals(Collections.emptyMap(), new GraphDetachedRelationship(specification.getRelationshipProjection(), relationship).getProperties());
+            assertEquals(Collections.emptyMap(), TrivialRelationshipTransformer.of(specification).transform(relationship).getProperties());
+            assertSame(TrivialNodeTransformer.getInstance(), TrivialNodeTransformer.of(new SerializationSpecification()));
+
+            tx.commit();
+        }
+    }
+
+    @Test
+    public void propertyArraysShouldBeReadWithoutCompilation() {
+        try (Transaction tx = database.beginTx()) {
+            Node node = tx.createNode();
+            node.setProperty("a", 1);
+            node.setProperty("b", "two");
+
+            assertEquals(Collections.singletonMap("a", 1), new GraphDetachedNode(node, new String[]{"a", "c"}).getProperties());
+            assertEquals(Collections.singletonMap("a", 1), new GraphDetachedNode(node, new String[]{"a", null, "a"}).getProperties());
+            assertEquals(2, new GraphDetachedNode(node, (String[]) null).getProperties().size());
+
+            tx.commit();
+        }
+    }
+}
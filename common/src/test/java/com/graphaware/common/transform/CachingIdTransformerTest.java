@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.transform;
+
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListenerAdapter;
+import org.neo4j.harness.Neo4j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(Neo4jExtension.class)
+public class CachingIdTransformerTest {
+
+    private static final Label PERSON = Label.label("Person");
+    private static final String UUID = "uuid";
+
+    @InjectNeo4j
+    private Neo4j neo4j;
+
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    private UuidTransformer delegate;
+    private CachingNodeIdTransformer<String> transformer;
+    private long a, b;
+
+    @BeforeEach
+    public void setUp() {
+        try (Transaction tx = database.beginTx()) {
+            Node nodeA = tx.createNode(PERSON);
+            nodeA.setProperty(UUID, "a");
+            Node nodeB = tx.createNode(PERSON);
+            nodeB.setProperty(UUID, "b");
+
+            a = nodeA.getId();
+            b = nodeB.getId();
+
+            tx.commit();
+        }
+
+        delegate = new UuidTransformer();
+        transformer = new CachingNodeIdTransformer<>(delegate, UUID);
+        neo4j.databaseManagementService().registerTransactionEventListener(database.databaseName(), transformer);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        neo4j.databaseManagementService().unregisterTransactionEventListener(database.databaseName(), transformer);
+    }
+
+    @Test
+    public void shouldCacheMappingsInBothDirections() {
+        assertEquals(a, transformer.toGraphId("a"));
+        assertEquals(a, transformer.toGraphId("a"));
+        assertEquals("a", fromEntity(a));
+
+        assertEquals("b", fromEntity(b));
+        assertEquals("b", fromEntity(b));
+        assertEquals(b, transformer.toGraphId("b"));
+
+        assertEquals(-1, transformer.toGraphId(null));
+
+        assertEquals(2, delegate.calls.get());
+        assertEquals(2, transformer.size());
+        assertEquals(4, transformer.getHits());
+        assertEquals(2, transformer.getMisses());
+        assertEquals(2.0 / 3, transformer.getHitRatio(), 0.0001);
+    }
+
+    @Test
+    public void shouldNotCacheFailedLookups() {
+        assertThrows(NotFoundException.class, () -> transformer.toGraphId("c"));
+        assertThrows(NotFoundException.class, () -> transformer.toGraphId("c"));
+
+        assertEquals(2, delegate.calls.get());
+        assertEquals(0, transformer.size());
+    }
+
+    @Test
+    public void shouldInvalidateChangedIds() {
+        assertEquals(a, transformer.toGraphId("a"));
+        assertEquals("b", fromEntity(b));
+
+        try (Transaction tx = database.beginTx()) {
+            tx.getNodeById(a).setProperty(UUID, "c");
+            tx.getNodeById(b).setProperty("name", "Bob");
+            tx.commit();
+        }
+
+        assertEquals(1, transformer.size());
+        assertEquals("c", fromEntity(a));
+        assertEquals(a, transformer.toGraphId("c"));
+        assertThrows(NotFoundException.class, () -> transformer.toGraphId("a"));
+        assertEquals(b, transformer.toGraphId("b"));
+    }
+
+    @Test
+    public void shouldInvalidateDeletedEntities() {
+        assertEquals(a, transformer.toGraphId("a"));
+
+        try (Transaction tx = database.beginTx()) {
+            tx.getNodeById(a).delete();
+            tx.commit();
+        }
+
+        assertEquals(0, transformer.size());
+        assertThrows(NotFoundException.class, () -> transformer.toGraphId("a"));
+    }
+
+    @Test
+    public void shouldNotInvalidateOnRollback() {
+        assertEquals(a, transformer.toGraphId("a"));
+
+        try (Transaction tx = database.beginTx()) {
+            tx.getNodeById(a).setProperty(UUID, "c");
+            tx.rollback();
+        }
+
+        assertEquals(1, transformer.size());
+        assertEquals(a, transformer.toGraphId("a"));
+    }
+
+    @Test
+    public void shouldNotCacheMappingsReadInTransactionsWithChanges() {
+        try (Transaction tx = database.beginTx()) {
+            Node node = tx.createNode(PERSON);
+            node.setProperty(UUID, "c");
+            assertEquals("c", transformer.fromEntity(node));
+
+            tx.getNodeById(a).setProperty(UUID, "d");
+            assertEquals("d", transformer.fromEntity(tx.getNodeById(a)));
+
+            tx.rollback();
+        }
+
+        assertEquals(0, transformer.size());
+        assertEquals("a", fromEntity(a));
+        assertEquals(1, transformer.size());
+    }
+
+    @Test
+    public void shouldInvalidateMappingsWhenCommitFails() {
+        assertEquals(a, transformer.toGraphId("a"));
+
+        TransactionEventListenerAdapter<Object> failing = new TransactionEventListenerAdapter<>() {
+            @Override
+            public Object beforeCommit(TransactionData data, Transaction transaction, GraphDatabaseService databaseService) throws Exception {
+                throw new IllegalStateException("Deliberate failure");
+            }
+        };
+        neo4j.databaseManagementService().registerTransactionEventListener(database.databaseName(), failing);
+
+        try {
+            assertThrows(RuntimeException.class, () -> {
+                try (Transaction tx = database.beginTx()) {
+                    tx.getNodeById(a).setProperty(UUID, "c");
+                    tx.commit();
+                }
+            });
+        } finally {
+            neo4j.databaseManagementService().unregisterTransactionEventListener(database.databaseName(), failing);
+        }
+
+        assertEquals(0, transformer.size());
+        assertEquals(a, transformer.toGraphId("a"));
+    }
+
+    @Test
+    public void shouldNotCacheLookupsRacingCommits() {
+        delegate.afterRead = () -> {
+            try (Transaction tx = database.beginTx()) {
+                tx.getNodeById(a).setProperty(UUID, "c");
+                tx.commit();
+            }
+        };
+
+        assertEquals("a", fromEntity(a));
+        assertEquals(0, transformer.size());
+
+        delegate.afterRead = () -> {
+        };
+
+        assertEquals("c", fromEntity(a));
+        assertEquals(1, transformer.size());
+    }
+
+    @Test
+    public void shouldEvictOldestLiveMappingWhenFull() {
+        long c;
+        try (Transaction tx = database.beginTx()) {
+            Node node = tx.createNode(PERSON);
+            node.setProperty(UUID, "c");
+            c = node.getId();
+            tx.commit();
+        }
+
+        CachingNodeIdTransformer<String> small = new CachingNodeIdTransformer<>(delegate, UUID, 2);
+
+        assertEquals(a, small.toGraphId("a"));
+        assertEquals(b, small.toGraphId("b"));
+        small.invalidate(a);
+        assertEquals(a, small.toGraphId("a"));
+        assertEquals(c, small.toGraphId("c"));
+
+        assertEquals(2, small.size());
+        assertEquals(a, small.toGraphId("a"));
+        assertEquals(c, small.toGraphId("c"));
+        assertEquals(2, small.getHits());
+    }
+
+    @Test
+    public void shouldEvictOldestMappingsWhenFull() {
+        CachingNodeIdTransformer<String> small = new CachingNodeIdTransformer<>(delegate, UUID, 1);
+
+        assertEquals(a, small.toGraphId("a"));
+        assertEquals(b, small.toGraphId("b"));
+        assertEquals(1, small.size());
+
+        assertEquals(b, small.toGraphId("b"));
+        assertEquals(a, small.toGraphId("a"));
+        assertEquals(1, small.getHits());
+        assertEquals(3, small.getMisses());
+
+        small.invalidateAll();
+        assertEquals(0, small.size());
+    }
+
+    private String fromEntity(long id) {
+        try (Transaction tx = database.beginTx()) {
+            String result = transformer.fromEntity(tx.getNodeById(id));
+            tx.commit();
+            return result;
+        }
+    }
+
+    private class UuidTransformer extends BaseIdTransformer<String, Node> implements NodeIdTransformer<String> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile Runnable afterRead = () -> {
+        };
+
+        @Override
+        protected long toExistingGraphId(String id) {
+            calls.incrementAndGet();
+
+            try (Transaction tx = database.beginTx()) {
+                Node node = tx.findNode(PERSON, UUID, id);
+                if (node == null) {
+                    throw new NotFoundException("Node with UUID " + id + " does not exist");
+                }
+                return node.getId();
+            }
+        }
+
+        @Override
+        public String fromEntity(Node entity) {
+            calls.incrementAndGet();
+            String result = (String) entity.getProperty(UUID);
+            afterRead.run();
+            return result;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package com.graphaware.runtime.bootstrap;
 
 import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.common.policy.inclusion.InclusionPolicyRegistry;
 import com.graphaware.runtime.CommunityRuntime;
 import com.graphaware.runtime.GraphAwareRuntime;
 import com.graphaware.runtime.config.Neo4jConfigurationReader;
@@ -42,6 +43,7 @@ public class RuntimeKernelExtension implements Lifecycle {
     protected final GraphDatabaseService database;
     protected final RuntimeConfiguration runtimeConfiguration;
     protected GraphAwareRuntime runtime;
+    private InclusionPolicyRegistry policyRegistry;
 
     public RuntimeKernelExtension(Config neo4jConfig, DatabaseManagementService managementService, GraphDatabaseService database) {
         this.managementService = managementService;
@@ -70,6 +72,7 @@ public class RuntimeKernelExtension implements Lifecycle {
         LOG.info("GraphAware Runtime enabled for database " + database.databaseName() + ", bootstrapping...");
 
         runtime = createRuntime();
+        policyRegistry = new InclusionPolicyRegistry();
 
         registerModules(runtime);
 
@@ -86,7 +89,7 @@ public class RuntimeKernelExtension implements Lifecycle {
 
             try {
                 ModuleBootstrapper bootstrapper = (ModuleBootstrapper) Class.forName(entry.getValue().getBootstrapper()).getDeclaredConstructor().newInstance();
-                Module<?> module = bootstrapper.bootstrapModule(entry.getValue().getId(), entry.getValue().getConfig());
+                Module<?> module = bootstrapper.bootstrapModule(entry.getValue().getId(), entry.getValue().getConfig(), policyRegistry);
                 runtime.registerModule(module);
             } catch (Exception e) {
                 LOG.error("Unable to bootstrap module " + entry.getKey() + " for database " + database.databaseName(), e);
@@ -115,6 +118,7 @@ public class RuntimeKernelExtension implements Lifecycle {
     @Override
     public void stop() {
         runtime = null;
+        policyRegistry = null;
     }
 
     @Override
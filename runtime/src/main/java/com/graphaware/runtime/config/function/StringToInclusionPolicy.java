@@ -16,7 +16,10 @@
 
 package com.graphaware.runtime.config.function;
 
+import com.graphaware.common.log.LoggerFactory;
 import com.graphaware.common.policy.inclusion.InclusionPolicy;
+import com.graphaware.common.policy.inclusion.InclusionPolicyRegistry;
+import org.neo4j.logging.Log;
 
 import java.lang.reflect.Method;
 import java.util.Arrays;
@@ -29,9 +32,13 @@ import java.util.regex.Pattern;
  * A {@link Function} that converts String to {@link InclusionPolicy}.
  * <p/>
  * Converts a fully qualified class name to an instance of the class, or a SPEL expression to {@link InclusionPolicy}.
+ * When converting for a module (see {@link #apply(String, InclusionPolicyRegistry)}), simple SPEL expressions are
+ * translated to equivalent native policies, which don't need to evaluate any SPEL.
  */
 public abstract class StringToInclusionPolicy<T extends InclusionPolicy> implements Function<String, T> {
 
+    private static final Log LOG = LoggerFactory.getLogger(StringToInclusionPolicy.class);
+
     private static final Pattern CLASS_NAME_REGEX = Pattern.compile("([\\p{L}_$][\\p{L}\\p{N}_$]*\\.)*[\\p{L}_$][\\p{L}\\p{N}_$]*");
 
     private static final Set<String> ALL_BUSINESS_NODES_POLICY = new HashSet<>(Arrays.asList("true", "all"));
@@ -39,6 +46,29 @@ public abstract class StringToInclusionPolicy<T extends InclusionPolicy> impleme
 
     @Override
     public T apply(String s) {
+        return create(s, false);
+    }
+
+    /**
+     * Convert a String to an {@link InclusionPolicy}, interning policies created from SPEL expressions in the given
+     * registry, so that the same expression always results in the same instance, no matter which module asks for it.
+     * Policies instantiated from class names are always new instances, since they may keep state of their own.
+     * <p/>
+     * Unlike {@link #apply(String)}, simple SPEL expressions are translated to equivalent native policies.
+     *
+     * @param s        to convert.
+     * @param registry to intern policies in.
+     * @return policy.
+     */
+    public T apply(String s, InclusionPolicyRegistry registry) {
+        if (ALL_BUSINESS_NODES_POLICY.contains(s) || EXCLUDE_ALL_NODES_POLICY.contains(s) || CLASS_NAME_REGEX.matcher(s).matches()) {
+            return create(s, false);
+        }
+
+        return registry.intern(getClass(), s, expression -> create(expression, true));
+    }
+
+    private T create(String s, boolean translate) {
         if (ALL_BUSINESS_NODES_POLICY.contains(s)) {
             return all();
         }
@@ -69,6 +99,12 @@ public abstract class StringToInclusionPolicy<T extends InclusionPolicy> impleme
             }
         }
 
+        T nativePolicy = translate ? nativePolicy(s) : null;
+        if (nativePolicy != null) {
+            LOG.info("Translated SPEL expression " + s + " to " + nativePolicy + ".");
+            return compositePolicy(nativePolicy);
+        }
+
         return compositePolicy(spelPolicy(s));
     }
 
@@ -88,6 +124,16 @@ public abstract class StringToInclusionPolicy<T extends InclusionPolicy> impleme
      */
     protected abstract T spelPolicy(String spel);
 
+    /**
+     * Translate a SPEL expression to an equivalent native policy, if possible.
+     *
+     * @param spel expression.
+     * @return policy, <code>null</code> if the expression can't be translated.
+     */
+    protected T nativePolicy(String spel) {
+        return null;
+    }
+
     /**
      * @return an all-including policy.
      */
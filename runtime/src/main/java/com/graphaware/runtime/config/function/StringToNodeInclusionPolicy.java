@@ -20,6 +20,7 @@ import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
 import com.graphaware.common.policy.inclusion.composite.CompositeNodeInclusionPolicy;
 import com.graphaware.common.policy.inclusion.none.IncludeNoNodes;
 import com.graphaware.common.policy.inclusion.spel.SpelNodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.spel.SpelPolicyTranslator;
 import com.graphaware.runtime.policy.all.IncludeAllBusinessNodes;
 
 /**
@@ -43,6 +44,11 @@ public final class StringToNodeInclusionPolicy extends StringToInclusionPolicy<N
         return new SpelNodeInclusionPolicy(spel);
     }
 
+    @Override
+    protected NodeInclusionPolicy nativePolicy(String spel) {
+        return SpelPolicyTranslator.translateNodePolicy(spel);
+    }
+
     @Override
     protected NodeInclusionPolicy all() {
         return IncludeAllBusinessNodes.getInstance();
@@ -20,6 +20,7 @@ import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
 import com.graphaware.common.policy.inclusion.composite.CompositeRelationshipInclusionPolicy;
 import com.graphaware.common.policy.inclusion.none.IncludeNoRelationships;
 import com.graphaware.common.policy.inclusion.spel.SpelRelationshipInclusionPolicy;
+import com.graphaware.common.policy.inclusion.spel.SpelPolicyTranslator;
 import com.graphaware.runtime.policy.all.IncludeAllBusinessRelationships;
 
 /**
@@ -43,6 +44,11 @@ public final class StringToRelationshipInclusionPolicy extends StringToInclusion
         return new SpelRelationshipInclusionPolicy(spel);
     }
 
+    @Override
+    protected RelationshipInclusionPolicy nativePolicy(String spel) {
+        return SpelPolicyTranslator.translateRelationshipPolicy(spel);
+    }
+
     @Override
     protected RelationshipInclusionPolicy all() {
         return IncludeAllBusinessRelationships.getInstance();
@@ -51,34 +51,43 @@ public abstract class BaseModuleBootstrapper<C extends BaseModuleConfiguration<C
 
     @Override
     public Module<?> bootstrapModule(String moduleId, Configuration config) {
+        return bootstrapModule(moduleId, config, new InclusionPolicyRegistry());
+    }
+
+    @Override
+    public Module<?> bootstrapModule(String moduleId, Configuration config, InclusionPolicyRegistry registry) {
         C configuration = defaultConfiguration();
 
-        configuration = configureInclusionPolicies(config, configuration);
+        configuration = configureInclusionPolicies(config, configuration, registry);
 
         return doBootstrapModule(moduleId, config, configuration);
     }
 
     protected C configureInclusionPolicies(Configuration config, C configuration) {
+        return configureInclusionPolicies(config, configuration, new InclusionPolicyRegistry());
+    }
+
+    protected C configureInclusionPolicies(Configuration config, C configuration, InclusionPolicyRegistry registry) {
         if (configExists(config, NODE)) {
-            NodeInclusionPolicy policy = StringToNodeInclusionPolicy.getInstance().apply(config.getString(NODE));
+            NodeInclusionPolicy policy = StringToNodeInclusionPolicy.getInstance().apply(config.getString(NODE), registry);
             LOG.info("Node Inclusion Policy set to %s", policy);
             configuration = configuration.with(policy);
         }
 
         if (configExists(config, NODE_PROPERTY)) {
-            NodePropertyInclusionPolicy policy = StringToNodePropertyInclusionPolicy.getInstance().apply(config.getString(NODE_PROPERTY));
+            NodePropertyInclusionPolicy policy = StringToNodePropertyInclusionPolicy.getInstance().apply(config.getString(NODE_PROPERTY), registry);
             LOG.info("Node Property Inclusion Policy set to %s", policy);
             configuration = configuration.with(policy);
         }
 
         if (configExists(config, RELATIONSHIP)) {
-            RelationshipInclusionPolicy policy = StringToRelationshipInclusionPolicy.getInstance().apply(config.getString(RELATIONSHIP));
+            RelationshipInclusionPolicy policy = StringToRelationshipInclusionPolicy.getInstance().apply(config.getString(RELATIONSHIP), registry);
             LOG.info("Relationship Inclusion Policy set to %s", policy);
             configuration = configuration.with(policy);
         }
 
         if (configExists(config, RELATIONSHIP_PROPERTY)) {
-            RelationshipPropertyInclusionPolicy policy = StringToRelationshipPropertyInclusionPolicy.getInstance().apply(config.getString(RELATIONSHIP_PROPERTY));
+            RelationshipPropertyInclusionPolicy policy = StringToRelationshipPropertyInclusionPolicy.getInstance().apply(config.getString(RELATIONSHIP_PROPERTY), registry);
             LOG.info("Relationship Property Inclusion Policy set to %s", policy);
             configuration = configuration.with(policy);
         }
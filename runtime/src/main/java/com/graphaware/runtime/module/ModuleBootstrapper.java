@@ -16,6 +16,7 @@
 
 package com.graphaware.runtime.module;
 
+import com.graphaware.common.policy.inclusion.InclusionPolicyRegistry;
 import com.graphaware.runtime.GraphAwareRuntime;
 import org.apache.commons.configuration2.Configuration;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -49,4 +50,16 @@ public interface ModuleBootstrapper {
      * @return fully configured runtime module.
      */
     Module<?> bootstrapModule(String moduleId, Configuration config);
+
+    /**
+     * Create a new instance of a module, sharing inclusion policies with other modules of the same runtime.
+     *
+     * @param moduleId ID of the module.
+     * @param config   for this module.
+     * @param registry of inclusion policies, scoped to the runtime the module will be registered with.
+     * @return fully configured runtime module.
+     */
+    default Module<?> bootstrapModule(String moduleId, Configuration config, InclusionPolicyRegistry registry) {
+        return bootstrapModule(moduleId, config);
+    }
 }
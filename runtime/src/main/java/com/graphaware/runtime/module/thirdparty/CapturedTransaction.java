@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.module.thirdparty;
+
+import com.graphaware.common.representation.GraphDetachedNode;
+import com.graphaware.common.representation.GraphDetachedRelationship;
+import com.graphaware.common.util.Change;
+import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
+import com.graphaware.writer.thirdparty.NodeCreated;
+import com.graphaware.writer.thirdparty.NodeDeleted;
+import com.graphaware.writer.thirdparty.NodeUpdated;
+import com.graphaware.writer.thirdparty.RelationshipCreated;
+import com.graphaware.writer.thirdparty.RelationshipDeleted;
+import com.graphaware.writer.thirdparty.RelationshipDeltaUpdated;
+import com.graphaware.writer.thirdparty.RelationshipUpdated;
+import com.graphaware.writer.thirdparty.WriteOperation;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.graphaware.common.util.EntityUtils.labelNames;
+
+/**
+ * {@link WriteOperation}s of a single transaction, with lazily hydrated {@link GraphDetachedNode}s and
+ * {@link GraphDetachedRelationship}s as details, used by {@link DefaultThirdPartyIntegrationModule} with lazy capture.
+ * <p/>
+ * Only what can no longer be read once the transaction has committed is captured before commit: IDs, relationship
+ * types, labels, and the records of properties created, changed, and deleted by the transaction. Complete property maps
+ * are only read for state that these records don't contain: created entities (from the transaction state), the current
+ * state of updated entities when snapshots are required, and nodes at the ends of relationships that haven't been
+ * captured otherwise, each of them once. Properties of deleted entities come from the records Neo4j keeps of them.
+ * The previous state of updated entities is never read from snapshots; it is derived from the current state and the
+ * captured changes. When only deltas are required, nothing but the change records is captured for updated entities.
+ * <p/>
+ * Detached representations are populated from the captured state only when they are first accessed, so state that the
+ * writer never reads is never copied.
+ */
+final class CapturedTransaction {
+
+    private final ImprovedTransactionData transactionData;
+    private final boolean snapshots;
+    private final LongObjectHashMap<NodeRecord> currentNodes = new LongObjectHashMap<>();
+    private final LongObjectHashMap<NodeRecord> previousNodes = new LongObjectHashMap<>();
+
+    /**
+     * Capture a transaction.
+     *
+     * @param transactionData data about the about-to-be-committed transaction.
+     * @param snapshots       <code>true</code> to represent updated entities by snapshots of their previous and current
+     *                        state, <code>false</code> to only capture their changes.
+     * @return write operations representing all the changes in the transaction.
+     */
+    static Collection<WriteOperation<?>> capture(ImprovedTransactionData transactionData, boolean snapshots) {
+        return new CapturedTransaction(transactionData, snapshots).operations();
+    }
+
+    private CapturedTransaction(ImprovedTransactionData transactionData, boolean snapshots) {
+        this.transactionData = transactionData;
+        this.snapshots = snapshots;
+    }
+
+    private Collection<WriteOperation<?>> operations() {
+        List<WriteOperation<?>> result = new ArrayList<>();
+
+        for (Node node : transactionData.getAllCreatedNodes()) {
+            result.add(new NodeCreated<>(node(node, currentNodes)));
+        }
+        for (Change<Node> change : transactionData.getAllChangedNodes()) {
+            result.add(snapshots ? nodeUpdated(change) : ThirdPartyIntegrationModule.nodeDelta(change.getCurrent().getId(), change.getCurrent(), transactionData));
+        }
+        for (Node node : transactionData.getAllDeletedNodes()) {
+            result.add(new NodeDeleted<>(node(node, previousNodes)));
+        }
+        for (Relationship relationship : transactionData.getAllCreatedRelationships()) {
+            result.add(new RelationshipCreated<>(relationship(relationship, properties(relationship), currentNodes)));
+        }
+        for (Change<Relationship> change : transactionData.getAllChangedRelationships()) {
+            result.add(snapshots ? relationshipUpdated(change) : relationshipDelta(change.getCurrent()));
+        }
+        for (Relationship relationship : transactionData.getAllDeletedRelationships()) {
+            result.add(new RelationshipDeleted<>(relationship(relationship, properties(relationship), previousNodes)));
+        }
+
+        return result;
+    }
+
+    private RelationshipDeltaUpdated<Long> relationshipDelta(Relationship current) {
+        return ThirdPartyIntegrationModule.relationshipDelta(current.getId(), current.getStartNodeId(), current.getEndNodeId(), current, transactionData);
+    }
+
+    private NodeUpdated<Long> nodeUpdated(Change<Node> change) {
+        Node current = change.getCurrent();
+        NodeRecord currentRecord = record(current, currentNodes);
+
+        Map<String, Object> previousProperties = previous(currentRecord.properties,
+                transactionData.createdProperties(current),
+                transactionData.deletedProperties(current),
+                transactionData.changedProperties(current));
+
+        String[] previousLabels = currentRecord.labels;
+        Set<Label> assigned = transactionData.assignedLabels(current);
+        Set<Label> removed = transactionData.removedLabels(current);
+        if (!assigned.isEmpty() || !removed.isEmpty()) {
+            Set<String> labels = new LinkedHashSet<>(Arrays.asList(currentRecord.labels));
+            assigned.forEach(label -> labels.remove(label.name()));
+            removed.forEach(label -> labels.add(label.name()));
+            previousLabels = labels.toArray(new String[0]);
+        }
+
+        NodeRecord previousRecord = new NodeRecord(currentRecord.id, previousLabels, previousProperties);
+        if (!previousNodes.containsKey(previousRecord.id)) {
+            previousNodes.put(previousRecord.id, previousRecord);
+        }
+
+        return new NodeUpdated<>(previousRecord.detached(), currentRecord.detached());
+    }
+
+    private RelationshipUpdated<Long> relationshipUpdated(Change<Relationship> change) {
+        Relationship current = change.getCurrent();
+        Map<String, Object> currentProperties = properties(current);
+
+        Map<String, Object> previousProperties = previous(currentProperties,
+                transactionData.createdProperties(current),
+                transactionData.deletedProperties(current),
+                transactionData.changedProperties(current));
+
+        return new RelationshipUpdated<>(
+                relationship(change.getPrevious(), previousProperties, previousNodes),
+                relationship(current, currentProperties, currentNodes));
+    }
+
+    private GraphDetachedNode node(Node node, LongObjectHashMap<NodeRecord> records) {
+        return record(node, records).detached();
+    }
+
+    private NodeRecord record(Node node, LongObjectHashMap<NodeRecord> records) {
+        NodeRecord record = records.get(node.getId());
+        if (record == null) {
+            record = new NodeRecord(node.getId(), labelNames(node), properties(node));
+            records.put(node.getId(), record);
+        }
+        return record;
+    }
+
+    private GraphDetachedRelationship relationship(Relationship relationship, Map<String, Object> properties, LongObjectHashMap<NodeRecord> nodes) {
+        GraphDetachedNode startNode = endNode(relationship.getStartNodeId(), relationship, nodes);
+        GraphDetachedNode endNode = endNode(relationship.getEndNodeId(), relationship, nodes);
+
+        return GraphDetachedRelationship.lazy(relationship.getId(), startNode, endNode,
+                relationship.getType().name(),
+                detached -> detached.setProperties(properties));
+    }
+
+    private GraphDetachedNode endNode(long nodeId, Relationship relationship, LongObjectHashMap<NodeRecord> records) {
+        NodeRecord record = records.get(nodeId);
+        if (record == null) {
+            record = record(relationship.getStartNodeId() == nodeId ? relationship.getStartNode() : relationship.getEndNode(), records);
+        }
+        return record.detached();
+    }
+
+    private static Map<String, Object> previous(Map<String, Object> current, Map<String, Object> created, Map<String, Object> deleted, Map<String, Change<Object>> changed) {
+        if (created.isEmpty() && deleted.isEmpty() && changed.isEmpty()) {
+            return current;
+        }
+
+        Map<String, Object> previous = new HashMap<>(current);
+        previous.keySet().removeAll(created.keySet());
+        previous.putAll(deleted);
+        changed.forEach((key, change) -> previous.put(key, change.getPrevious()));
+        return previous;
+    }
+
+    private static Map<String, Object> properties(Entity entity) {
+        return entity.getAllProperties();
+    }
+
+    /**
+     * State of a node captured before commit.
+     */
+    private static final class NodeRecord {
+
+        private final long id;
+        private final String[] labels;
+        private final Map<String, Object> properties;
+
+        private NodeRecord(long id, String[] labels, Map<String, Object> properties) {
+            this.id = id;
+            this.labels = labels;
+            this.properties = properties;
+        }
+
+        private GraphDetachedNode detached() {
+            return GraphDetachedNode.lazy(id, node -> {
+                node.setLabels(labels.clone());
+                node.setProperties(properties);
+            });
+        }
+    }
+}
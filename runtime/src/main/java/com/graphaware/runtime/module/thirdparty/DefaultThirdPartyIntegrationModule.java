@@ -20,14 +20,63 @@ import com.graphaware.common.representation.DetachedNode;
 import com.graphaware.common.representation.DetachedRelationship;
 import com.graphaware.common.representation.GraphDetachedNode;
 import com.graphaware.common.representation.GraphDetachedRelationship;
+import com.graphaware.runtime.module.DeliberateTransactionRollbackException;
+import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
 import com.graphaware.writer.thirdparty.ThirdPartyWriter;
+import com.graphaware.writer.thirdparty.WriteOperation;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 
+import java.util.Collection;
+
+/**
+ * {@link WriterBasedThirdPartyIntegrationModule} that represents entities by their Neo4j IDs.
+ * <p/>
+ * By default, details of the {@link WriteOperation}s are built eagerly by {@link #nodeRepresentation(Node)} and
+ * {@link #relationshipRepresentation(Relationship)}, which sub-classes can override. When constructed with lazy capture
+ * enabled, the module instead captures what would otherwise be lost before commit and populates detached representations
+ * when the writer first reads them. The previous state of updated entities is then derived from the current state and
+ * the changes made in the transaction, rather than read from snapshots. Lazily captured representations are always
+ * {@link GraphDetachedNode}s and {@link GraphDetachedRelationship}s, so the representation methods are not used.
+ */
 public class DefaultThirdPartyIntegrationModule extends WriterBasedThirdPartyIntegrationModule<Long> {
 
+    private final boolean lazyCapture;
+
     public DefaultThirdPartyIntegrationModule(String moduleId, ThirdPartyWriter writer) {
+        this(moduleId, writer, false);
+    }
+
+    /**
+     * Construct a new module.
+     *
+     * @param moduleId    ID of this module. Must not be <code>null</code> or empty.
+     * @param writer      to use for integrating with third-party system. Must not be <code>null</code>.
+     * @param lazyCapture <code>true</code> to hydrate representations lazily, bypassing
+     *                    {@link #nodeRepresentation(Node)} and {@link #relationshipRepresentation(Relationship)}.
+     */
+    public DefaultThirdPartyIntegrationModule(String moduleId, ThirdPartyWriter writer, boolean lazyCapture) {
         super(moduleId, writer);
+        this.lazyCapture = lazyCapture;
+    }
+
+    @Override
+    public Collection<WriteOperation<?>> beforeCommit(ImprovedTransactionData transactionData) throws DeliberateTransactionRollbackException {
+        if (lazyCapture) {
+            return CapturedTransaction.capture(transactionData, requiresSnapshots());
+        }
+
+        return super.beforeCommit(transactionData);
+    }
+
+    @Override
+    protected Long nodeId(Node node) {
+        return node.getId();
+    }
+
+    @Override
+    protected Long relationshipId(Relationship relationship) {
+        return relationship.getId();
     }
 
     @Override
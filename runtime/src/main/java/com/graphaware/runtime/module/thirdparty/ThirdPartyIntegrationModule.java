@@ -18,15 +18,18 @@ package com.graphaware.runtime.module.thirdparty;
 
 import com.graphaware.common.representation.DetachedNode;
 import com.graphaware.common.representation.DetachedRelationship;
+import com.graphaware.common.util.Change;
 import com.graphaware.runtime.module.BaseModule;
 import com.graphaware.runtime.module.DeliberateTransactionRollbackException;
 import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
 import com.graphaware.writer.thirdparty.*;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -35,6 +38,12 @@ import java.util.stream.Collectors;
  * Before committing, a collection of {@link WriteOperation}s is built, representing all the about-to-be-committed changes
  * in a way that allows it to be sent over the wire (no dependency on Neo4j APIs).
  * <p/>
+ * Updated entities are represented by their complete previous and current state ({@link NodeUpdated},
+ * {@link RelationshipUpdated}), unless {@link #requiresSnapshots()} returns <code>false</code>, in which case only
+ * the changes are captured ({@link NodeDeltaUpdated}, {@link RelationshipDeltaUpdated}). Deltas carry the same IDs as
+ * the detached representations of entities in other operations, so they are only produced by modules that implement
+ * {@link #nodeId(Node)} and {@link #relationshipId(Relationship)}.
+ * <p/>
  * The collection of {@link WriteOperation}s is passed into the {@link BaseModule#afterCommit(Object)} method after the transaction
  * has successfully committed. The {@link BaseModule##afterCommit (Object)} should be overridden by sub-classes.
  */
@@ -53,15 +62,122 @@ public abstract class ThirdPartyIntegrationModule<ID> extends BaseModule<Collect
     public Collection<WriteOperation<?>> beforeCommit(ImprovedTransactionData transactionData) throws DeliberateTransactionRollbackException {
         Collection<WriteOperation<?>> result = transactionData.getAllCreatedNodes().stream().map(createdNode -> new NodeCreated<>(nodeRepresentation(createdNode))).collect(Collectors.toCollection(HashSet::new));
 
-        result.addAll(transactionData.getAllChangedNodes().stream().map(updatedNode -> new NodeUpdated<>(nodeRepresentation(updatedNode.getPrevious()), nodeRepresentation(updatedNode.getCurrent()))).collect(Collectors.toList()));
+        result.addAll(transactionData.getAllChangedNodes().stream().map(updatedNode -> nodeUpdated(updatedNode, transactionData)).collect(Collectors.toList()));
         result.addAll(transactionData.getAllDeletedNodes().stream().map(deletedNode -> new NodeDeleted<>(nodeRepresentation(deletedNode))).collect(Collectors.toList()));
         result.addAll(transactionData.getAllCreatedRelationships().stream().map(createdRelationship -> new RelationshipCreated<>(relationshipRepresentation(createdRelationship))).collect(Collectors.toList()));
-        result.addAll(transactionData.getAllChangedRelationships().stream().map(updatedRelationship -> new RelationshipUpdated<>(relationshipRepresentation(updatedRelationship.getPrevious()), relationshipRepresentation(updatedRelationship.getCurrent()))).collect(Collectors.toList()));
+        result.addAll(transactionData.getAllChangedRelationships().stream().map(updatedRelationship -> relationshipUpdated(updatedRelationship, transactionData)).collect(Collectors.toList()));
         result.addAll(transactionData.getAllDeletedRelationships().stream().map(deletedRelationship -> new RelationshipDeleted<>(relationshipRepresentation(deletedRelationship))).collect(Collectors.toList()));
 
         return result;
     }
 
+    /**
+     * Should updated entities be represented by their complete previous and current state, rather than just the
+     * changes?
+     *
+     * @return <code>true</code> iff snapshots are required. Defaults to <code>true</code>.
+     */
+    protected boolean requiresSnapshots() {
+        return true;
+    }
+
+    private WriteOperation<?> nodeUpdated(Change<Node> updatedNode, ImprovedTransactionData transactionData) {
+        if (!requiresSnapshots()) {
+            ID id = nodeId(updatedNode.getCurrent());
+            if (id != null) {
+                return nodeDelta(id, updatedNode.getCurrent(), transactionData);
+            }
+        }
+
+        return new NodeUpdated<>(nodeRepresentation(updatedNode.getPrevious()), nodeRepresentation(updatedNode.getCurrent()));
+    }
+
+    private WriteOperation<?> relationshipUpdated(Change<Relationship> updatedRelationship, ImprovedTransactionData transactionData) {
+        if (!requiresSnapshots()) {
+            Relationship current = updatedRelationship.getCurrent();
+            ID id = relationshipId(current);
+            ID startNodeId = nodeId(current.getStartNode());
+            ID endNodeId = nodeId(current.getEndNode());
+            if (id != null && startNodeId != null && endNodeId != null) {
+                return relationshipDelta(id, startNodeId, endNodeId, current, transactionData);
+            }
+        }
+
+        return new RelationshipUpdated<>(relationshipRepresentation(updatedRelationship.getPrevious()), relationshipRepresentation(updatedRelationship.getCurrent()));
+    }
+
+    /**
+     * Build an operation representing the changes made to a node.
+     *
+     * @param id              ID of the node, as in its detached representation.
+     * @param node            the current state of the changed node.
+     * @param transactionData data about the transaction.
+     * @param <ID>            type of the ID.
+     * @return operation.
+     */
+    static <ID> NodeDeltaUpdated<ID> nodeDelta(ID id, Node node, ImprovedTransactionData transactionData) {
+        return new NodeDeltaUpdated<>(new NodeDelta<>(id,
+                labelNames(transactionData.assignedLabels(node)),
+                labelNames(transactionData.removedLabels(node)),
+                transactionData.createdProperties(node),
+                transactionData.changedProperties(node),
+                transactionData.deletedProperties(node)));
+    }
+
+    /**
+     * Build an operation representing the changes made to a relationship.
+     *
+     * @param id              ID of the relationship, as in its detached representation.
+     * @param startNodeId     ID of the start node, as in its detached representation.
+     * @param endNodeId       ID of the end node, as in its detached representation.
+     * @param relationship    the current state of the changed relationship.
+     * @param transactionData data about the transaction.
+     * @param <ID>            type of the IDs.
+     * @return operation.
+     */
+    static <ID> RelationshipDeltaUpdated<ID> relationshipDelta(ID id, ID startNodeId, ID endNodeId, Relationship relationship, ImprovedTransactionData transactionData) {
+        return new RelationshipDeltaUpdated<>(new RelationshipDelta<>(id,
+                startNodeId,
+                endNodeId,
+                relationship.getType().name(),
+                transactionData.createdProperties(relationship),
+                transactionData.changedProperties(relationship),
+                transactionData.deletedProperties(relationship)));
+    }
+
+    private static String[] labelNames(Set<Label> labels) {
+        String[] names = new String[labels.size()];
+        int i = 0;
+        for (Label label : labels) {
+            names[i++] = label.name();
+        }
+        return names;
+    }
+
+    /**
+     * Get the ID of a node, used in {@link NodeDelta}s and {@link RelationshipDelta}s. It must be the same as the ID of
+     * the node's {@link #nodeRepresentation(Node)}, but obtained without building the representation.
+     *
+     * @param node to get the ID of.
+     * @return ID of the node. <code>null</code> by default, meaning that deltas aren't supported and updated entities
+     * are represented by their complete previous and current state even if snapshots aren't required.
+     */
+    protected ID nodeId(Node node) {
+        return null;
+    }
+
+    /**
+     * Get the ID of a relationship, used in {@link RelationshipDelta}s. It must be the same as the ID of the
+     * relationship's {@link #relationshipRepresentation(Relationship)}, but obtained without building the representation.
+     *
+     * @param relationship to get the ID of.
+     * @return ID of the relationship. <code>null</code> by default, meaning that deltas aren't supported and updated
+     * relationships are represented by their complete previous and current state even if snapshots aren't required.
+     */
+    protected ID relationshipId(Relationship relationship) {
+        return null;
+    }
+
     protected abstract DetachedRelationship<ID, ? extends DetachedNode<ID>> relationshipRepresentation(Relationship relationship);
 
     protected abstract DetachedNode<ID> nodeRepresentation(Node node);
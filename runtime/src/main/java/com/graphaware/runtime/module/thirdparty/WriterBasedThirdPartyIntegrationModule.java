@@ -49,6 +49,11 @@ public abstract class WriterBasedThirdPartyIntegrationModule<ID> extends ThirdPa
         writer.write(state, getId() + "-" + System.currentTimeMillis());
     }
 
+    @Override
+    protected boolean requiresSnapshots() {
+        return writer.requiresSnapshots();
+    }
+
     @Override
     public void start(GraphAwareRuntime runtime) {
         super.start(runtime);
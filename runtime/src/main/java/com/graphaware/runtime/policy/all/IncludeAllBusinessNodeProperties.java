@@ -18,6 +18,7 @@ package com.graphaware.runtime.policy.all;
 
 import com.graphaware.common.policy.inclusion.NodePropertyInclusionPolicy;
 import com.graphaware.common.policy.inclusion.PropertyInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import com.graphaware.runtime.GraphAwareRuntime;
 import com.graphaware.runtime.module.Module;
 import org.neo4j.graphdb.Node;
@@ -42,4 +43,9 @@ public final class IncludeAllBusinessNodeProperties implements NodePropertyInclu
     public boolean include(String key, Node node) {
         return !key.startsWith(GraphAwareRuntime.GA_PREFIX);
     }
+
+    @Override
+    public ReadSet getReadSet() {
+        return ReadSet.nothing();
+    }
 }
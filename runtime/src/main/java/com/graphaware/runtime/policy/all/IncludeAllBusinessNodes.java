@@ -17,9 +17,10 @@
 package com.graphaware.runtime.policy.all;
 
 import com.graphaware.common.policy.inclusion.BaseEntityInclusionPolicy;
+import com.graphaware.common.policy.inclusion.KernelTokens;
 import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import com.graphaware.runtime.GraphAwareRuntime;
-import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
 
@@ -31,6 +32,8 @@ public final class IncludeAllBusinessNodes extends BaseEntityInclusionPolicy<Nod
 
     private static final NodeInclusionPolicy INSTANCE = new IncludeAllBusinessNodes();
 
+    private final KernelTokens internalLabels = KernelTokens.labelsStartingWith(GraphAwareRuntime.GA_PREFIX);
+
     public static NodeInclusionPolicy getInstance() {
         return INSTANCE;
     }
@@ -40,13 +43,12 @@ public final class IncludeAllBusinessNodes extends BaseEntityInclusionPolicy<Nod
 
     @Override
     public boolean include(Node node) {
-        for (Label label : node.getLabels()) {
-            if (label.name().startsWith(GraphAwareRuntime.GA_PREFIX)) {
-                return false;
-            }
-        }
+        return !internalLabels.anyLabelOf(node);
+    }
 
-        return true;
+    @Override
+    public ReadSet getReadSet() {
+        return ReadSet.nothing().withAllLabels();
     }
 
     @Override
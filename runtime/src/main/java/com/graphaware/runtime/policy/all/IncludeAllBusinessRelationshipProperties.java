@@ -17,6 +17,7 @@
 package com.graphaware.runtime.policy.all;
 
 import com.graphaware.common.policy.inclusion.PropertyInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import com.graphaware.common.policy.inclusion.RelationshipPropertyInclusionPolicy;
 import com.graphaware.runtime.GraphAwareRuntime;
 import com.graphaware.runtime.module.Module;
@@ -46,4 +47,9 @@ public final class IncludeAllBusinessRelationshipProperties implements Relations
 
         return true;
     }
+
+    @Override
+    public ReadSet getReadSet() {
+        return ReadSet.nothing();
+    }
 }
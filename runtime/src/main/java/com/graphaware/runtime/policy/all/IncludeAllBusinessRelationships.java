@@ -16,6 +16,8 @@
 
 package com.graphaware.runtime.policy.all;
 
+import com.graphaware.common.policy.inclusion.KernelTokens;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
 import com.graphaware.runtime.GraphAwareRuntime;
 import org.neo4j.graphdb.Relationship;
@@ -29,6 +31,8 @@ public final class IncludeAllBusinessRelationships extends RelationshipInclusion
 
     private static final IncludeAllBusinessRelationships INSTANCE = new IncludeAllBusinessRelationships();
 
+    private final KernelTokens internalTypes = KernelTokens.relationshipTypesStartingWith(GraphAwareRuntime.GA_PREFIX);
+
     public static IncludeAllBusinessRelationships getInstance() {
         return INSTANCE;
     }
@@ -38,7 +42,12 @@ public final class IncludeAllBusinessRelationships extends RelationshipInclusion
 
     @Override
     public boolean include(Relationship relationship) {
-        return !relationship.getType().name().startsWith(GraphAwareRuntime.GA_PREFIX);
+        return !internalTypes.typeOf(relationship);
+    }
+
+    @Override
+    public ReadSet getReadSet() {
+        return ReadSet.nothing().withAllRelationshipTypes();
     }
 
     @Override
@@ -16,7 +16,9 @@
 
 package com.graphaware.runtime.config.function;
 
+import com.graphaware.common.policy.inclusion.InclusionPolicyRegistry;
 import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.fluent.IncludeNodes;
 import com.graphaware.common.policy.inclusion.none.IncludeNoNodes;
 import com.graphaware.common.policy.inclusion.spel.SpelNodeInclusionPolicy;
 import com.graphaware.runtime.policy.all.IncludeAllBusinessNodes;
@@ -86,6 +88,44 @@ public class StringToNodeInclusionPolicyTest {
         assertEquals(of(IncludeAllBusinessNodes.getInstance(), new SpelNodeInclusionPolicy("isType('R1')")), policy);
     }
 
+    @Test
+    public void shouldTranslateSimpleSpelPolicy() {
+        NodeInclusionPolicy policy = StringToNodeInclusionPolicy.getInstance().apply("hasLabel('Test')", new InclusionPolicyRegistry());
+
+        assertEquals(of(IncludeAllBusinessNodes.getInstance(), IncludeNodes.all().with("Test")), policy);
+    }
+
+    @Test
+    public void shouldNotTranslateComplexSpelPolicy() {
+        NodeInclusionPolicy policy = StringToNodeInclusionPolicy.getInstance().apply("hasLabel('Test') && getProperty('age', 0) > 18", new InclusionPolicyRegistry());
+
+        assertEquals(of(IncludeAllBusinessNodes.getInstance(), new SpelNodeInclusionPolicy("hasLabel('Test') && getProperty('age', 0) > 18")), policy);
+    }
+
+    @Test
+    public void sameExpressionsShouldResultInSamePolicy() {
+        InclusionPolicyRegistry registry = new InclusionPolicyRegistry();
+
+        NodeInclusionPolicy policy1 = StringToNodeInclusionPolicy.getInstance().apply("hasLabel('Test') && getProperty('age', 0) > 21", registry);
+        NodeInclusionPolicy policy2 = StringToNodeInclusionPolicy.getInstance().apply("hasLabel('Test')&&getProperty('age', 0) > 21", registry);
+
+        assertSame(policy1, policy2);
+        assertNotSame(policy1, StringToNodeInclusionPolicy.getInstance().apply("hasLabel('Test') && getProperty('age', 0) > 21", new InclusionPolicyRegistry()));
+        assertNotSame(policy1, StringToNodeInclusionPolicy.getInstance().apply("hasLabel('Test') && getProperty('age', 0) > 21"));
+    }
+
+    @Test
+    public void policiesFromClassNamesShouldNotBeShared() {
+        InclusionPolicyRegistry registry = new InclusionPolicyRegistry();
+
+        NodeInclusionPolicy policy1 = StringToNodeInclusionPolicy.getInstance().apply("com.graphaware.runtime.config.function.TestNodeInclusionPolicy", registry);
+        NodeInclusionPolicy policy2 = StringToNodeInclusionPolicy.getInstance().apply("com.graphaware.runtime.config.function.TestNodeInclusionPolicy", registry);
+
+        assertEquals(policy1, policy2);
+        assertNotSame(policy1, policy2);
+        assertEquals(0, registry.size());
+    }
+
     @Test
     public void uninstantiableClassCausesException() {
         assertThrows(RuntimeException.class, () -> {
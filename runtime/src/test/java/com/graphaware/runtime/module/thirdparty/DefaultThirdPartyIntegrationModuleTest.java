@@ -18,8 +18,10 @@ package com.graphaware.runtime.module.thirdparty;
 
 import com.graphaware.common.junit.InjectNeo4j;
 import com.graphaware.common.junit.Neo4jExtension;
+import com.graphaware.common.representation.DetachedNode;
 import com.graphaware.common.representation.GraphDetachedNode;
 import com.graphaware.common.representation.GraphDetachedRelationship;
+import com.graphaware.common.util.Change;
 import com.graphaware.runtime.CommunityRuntime;
 import com.graphaware.runtime.GraphAwareRuntime;
 import com.graphaware.runtime.module.Module;
@@ -52,7 +54,48 @@ public class DefaultThirdPartyIntegrationModuleTest {
     @Test
     public void modificationsShouldBeCorrectlyBuilt() throws InterruptedException {
         RememberingWriter writer = new RememberingWriter();
-        Module module = new DefaultThirdPartyIntegrationModule("test", writer);
+        modificationsShouldBeCorrectlyBuilt(new DefaultThirdPartyIntegrationModule("test", writer), writer);
+    }
+
+    @Test
+    public void modificationsShouldBeCorrectlyBuiltWhenCapturedLazily() throws InterruptedException {
+        RememberingWriter writer = new RememberingWriter();
+        modificationsShouldBeCorrectlyBuilt(new DefaultThirdPartyIntegrationModule("test", writer, true), writer);
+    }
+
+    @Test
+    public void overriddenRepresentationsShouldBeUsedByDefault() throws InterruptedException {
+        RememberingWriter writer = new RememberingWriter();
+        Module module = new DefaultThirdPartyIntegrationModule("test", writer) {
+            @Override
+            protected DetachedNode<Long> nodeRepresentation(Node node) {
+                return new GraphDetachedNode(node, new String[]{"name"});
+            }
+        };
+
+        GraphAwareRuntime runtime = new CommunityRuntime(database, neo4j.databaseManagementService());
+        runtime.registerModule(module);
+        runtime.start();
+
+        database.executeTransactionally("CREATE (p:Person {name:'Michal', age:30})");
+
+        Thread.sleep(1000);
+
+        long michalId;
+        try (Transaction tx = database.beginTx()) {
+            michalId = tx.findNode(Label.label("Person"), "name", "Michal").getId();
+            tx.commit();
+        }
+
+        List<Collection<WriteOperation<?>>> writeOperations = writer.getRemembered();
+        assertEquals(1, writeOperations.size());
+        assertTrue(writeOperations.get(0).contains(new NodeCreated<>(
+                new GraphDetachedNode(michalId, new String[]{"Person"}, MapUtil.map("name", "Michal")))));
+
+        runtime.stop();
+    }
+
+    private void modificationsShouldBeCorrectlyBuilt(Module module, RememberingWriter writer) throws InterruptedException {
 
         database.executeTransactionally("CREATE (p:Person {name:'Michal', age:30})-[:WORKS_FOR {since:2013, role:'MD'}]->(c:Company {name:'GraphAware', est: 2013})");
         database.executeTransactionally("MATCH (ga:Company {name:'GraphAware'}) CREATE (p:Person {name:'Adam'})-[:WORKS_FOR {since:2014}]->(ga)");
@@ -131,4 +174,111 @@ public class DefaultThirdPartyIntegrationModuleTest {
 
         runtime.stop();
     }
+
+    @Test
+    public void previousStateShouldBeDerivedFromChanges() throws InterruptedException {
+        RememberingWriter writer = new RememberingWriter();
+        Module module = new DefaultThirdPartyIntegrationModule("test", writer, true);
+
+        database.executeTransactionally("CREATE (p:Person:Employee {name:'Michal', age:30, role:'MD'})-[:WORKS_FOR {since:2013}]->(c:Company {name:'GraphAware'})");
+
+        long michalId, gaId, worksForId;
+        try (Transaction tx = database.beginTx()) {
+            Node michal = tx.findNode(Label.label("Person"), "name", "Michal");
+            michalId = michal.getId();
+            gaId = tx.findNode(Label.label("Company"), "name", "GraphAware").getId();
+            worksForId = michal.getSingleRelationship(RelationshipType.withName("WORKS_FOR"), Direction.OUTGOING).getId();
+            tx.commit();
+        }
+
+        GraphAwareRuntime runtime = new CommunityRuntime(database, neo4j.databaseManagementService());
+        runtime.registerModule(module);
+        runtime.start();
+
+        database.executeTransactionally("MATCH (p:Person {name:'Michal'})-[r:WORKS_FOR]->() SET p.age=31, p.nick='M', p:Director REMOVE p.role, p:Employee SET r.since=2014");
+
+        Thread.sleep(1000);
+
+        List<Collection<WriteOperation<?>>> writeOperations = writer.getRemembered();
+        assertEquals(1, writeOperations.size());
+        assertEquals(2, writeOperations.get(0).size());
+
+        assertTrue(writeOperations.get(0).contains(new NodeUpdated<>(
+                new GraphDetachedNode(michalId, new String[]{"Person", "Employee"}, MapUtil.map("name", "Michal", "age", 30L, "role", "MD")),
+                new GraphDetachedNode(michalId, new String[]{"Person", "Director"}, MapUtil.map("name", "Michal", "age", 31L, "nick", "M")))));
+
+        assertTrue(writeOperations.get(0).contains(new RelationshipUpdated<>(
+                new GraphDetachedRelationship(worksForId, michalId, gaId, "WORKS_FOR", MapUtil.map("since", 2013L)),
+                new GraphDetachedRelationship(worksForId, michalId, gaId, "WORKS_FOR", MapUtil.map("since", 2014L)))));
+
+        runtime.stop();
+    }
+
+    @Test
+    public void deltasShouldBeBuiltForWritersThatDontRequireSnapshots() throws InterruptedException {
+        RememberingWriter writer = new RememberingWriter(false);
+        deltasShouldBeBuiltForWritersThatDontRequireSnapshots(new DefaultThirdPartyIntegrationModule("test", writer), writer);
+    }
+
+    @Test
+    public void deltasShouldBeBuiltForWritersThatDontRequireSnapshotsWhenCapturedLazily() throws InterruptedException {
+        RememberingWriter writer = new RememberingWriter(false);
+        deltasShouldBeBuiltForWritersThatDontRequireSnapshots(new DefaultThirdPartyIntegrationModule("test", writer, true), writer);
+    }
+
+    @Test
+    public void snapshotsShouldBeBuiltWhenModuleDoesNotProvideIds() throws InterruptedException {
+        RememberingWriter writer = new RememberingWriter(false);
+        Module module = new DefaultThirdPartyIntegrationModule("test", writer) {
+            @Override
+            protected Long nodeId(Node node) {
+                return null;
+            }
+
+            @Override
+            protected Long relationshipId(Relationship relationship) {
+                return null;
+            }
+        };
+
+        modificationsShouldBeCorrectlyBuilt(module, writer);
+    }
+
+    private void deltasShouldBeBuiltForWritersThatDontRequireSnapshots(Module module, RememberingWriter writer) throws InterruptedException {
+        database.executeTransactionally("CREATE (p:Person:Employee {name:'Michal', age:30, role:'MD'})-[:WORKS_FOR {since:2013}]->(c:Company {name:'GraphAware'})");
+
+        long michalId, gaId, worksForId;
+        try (Transaction tx = database.beginTx()) {
+            Node michal = tx.findNode(Label.label("Person"), "name", "Michal");
+            michalId = michal.getId();
+            gaId = tx.findNode(Label.label("Company"), "name", "GraphAware").getId();
+            worksForId = michal.getSingleRelationship(RelationshipType.withName("WORKS_FOR"), Direction.OUTGOING).getId();
+            tx.commit();
+        }
+
+        GraphAwareRuntime runtime = new CommunityRuntime(database, neo4j.databaseManagementService());
+        runtime.registerModule(module);
+        runtime.start();
+
+        database.executeTransactionally("MATCH (p:Person {name:'Michal'})-[r:WORKS_FOR]->() SET p.age=31, p.nick='M', p:Director REMOVE p.role, p:Employee SET r.since=2014");
+
+        Thread.sleep(1000);
+
+        List<Collection<WriteOperation<?>>> writeOperations = writer.getRemembered();
+        assertEquals(1, writeOperations.size());
+        assertEquals(2, writeOperations.get(0).size());
+
+        assertTrue(writeOperations.get(0).contains(new NodeDeltaUpdated<>(new NodeDelta<>(michalId,
+                new String[]{"Director"}, new String[]{"Employee"},
+                Collections.singletonMap("nick", "M"),
+                Collections.singletonMap("age", new Change<>(30L, 31L)),
+                Collections.singletonMap("role", "MD")))));
+
+        assertTrue(writeOperations.get(0).contains(new RelationshipDeltaUpdated<>(new RelationshipDelta<>(worksForId, michalId, gaId, "WORKS_FOR",
+                Collections.emptyMap(),
+                Collections.singletonMap("since", new Change<>(2013L, 2014L)),
+                Collections.emptyMap()))));
+
+        runtime.stop();
+    }
 }
@@ -29,6 +29,20 @@ import java.util.List;
 class RememberingWriter extends BaseThirdPartyWriter {
 
     List<Collection<WriteOperation<?>>> remembered = new LinkedList<>();
+    private final boolean requiresSnapshots;
+
+    RememberingWriter() {
+        this(true);
+    }
+
+    RememberingWriter(boolean requiresSnapshots) {
+        this.requiresSnapshots = requiresSnapshots;
+    }
+
+    @Override
+    public boolean requiresSnapshots() {
+        return requiresSnapshots;
+    }
 
     @Override
     protected void processOperations(List<Collection<WriteOperation<?>>> operations) {
@@ -47,6 +47,16 @@ public class TestThirdPartyModule extends ThirdPartyIntegrationModule<Long> {
         return writeOperations;
     }
 
+    @Override
+    protected Long nodeId(Node node) {
+        return node.getId();
+    }
+
+    @Override
+    protected Long relationshipId(Relationship relationship) {
+        return relationship.getId();
+    }
+
     @Override
     protected DetachedRelationship<Long, ? extends DetachedNode<Long>> relationshipRepresentation(Relationship relationship) {
         return new GraphDetachedRelationship(relationship);
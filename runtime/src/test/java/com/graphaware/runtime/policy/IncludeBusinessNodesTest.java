@@ -88,4 +88,18 @@ public class IncludeBusinessNodesTest {
             tx.commit();
         }
     }
+
+    @Test
+    public void shouldExcludeNodesWithInternalLabelsCreatedAfterFirstUse() {
+        try (Transaction tx = database.beginTx()) {
+            assertTrue(IncludeAllBusinessNodes.getInstance().include(tx.createNode(label("Business"))));
+            tx.commit();
+        }
+
+        try (Transaction tx = database.beginTx()) {
+            assertFalse(IncludeAllBusinessNodes.getInstance().include(tx.createNode(label("Business"), label(GraphAwareRuntime.GA_PREFIX + "CreatedLater"))));
+            assertTrue(IncludeAllBusinessNodes.getInstance().include(tx.createNode(label("Business"))));
+            tx.commit();
+        }
+    }
 }
@@ -107,4 +107,18 @@ public class IncludeBusinessRelationshipsTest {
             tx.commit();
         }
     }
+
+    @Test
+    public void shouldExcludeRelationshipsWithInternalTypesCreatedAfterFirstUse() {
+        try (Transaction tx = database.beginTx()) {
+            assertTrue(IncludeAllBusinessRelationships.getInstance().include(tx.createNode().createRelationshipTo(tx.createNode(), withName("BUSINESS"))));
+            tx.commit();
+        }
+
+        try (Transaction tx = database.beginTx()) {
+            assertFalse(IncludeAllBusinessRelationships.getInstance().include(tx.createNode().createRelationshipTo(tx.createNode(), withName(GraphAwareRuntime.GA_PREFIX + "CREATED_LATER"))));
+            assertTrue(IncludeAllBusinessRelationships.getInstance().include(tx.createNode().createRelationshipTo(tx.createNode(), withName("BUSINESS"))));
+            tx.commit();
+        }
+    }
 }
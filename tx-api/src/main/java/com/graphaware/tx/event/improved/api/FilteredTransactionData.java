@@ -27,6 +27,7 @@ import com.graphaware.tx.event.improved.data.RelationshipTransactionData;
 import com.graphaware.tx.event.improved.data.TransactionDataContainer;
 import com.graphaware.tx.event.improved.data.filtered.FilteredNodeTransactionData;
 import com.graphaware.tx.event.improved.data.filtered.FilteredRelationshipTransactionData;
+import com.graphaware.tx.event.improved.data.filtered.InclusionDecisionCache;
 import org.neo4j.graphdb.Transaction;
 
 /**
@@ -43,10 +44,14 @@ import org.neo4j.graphdb.Transaction;
  * nodes, properties, and relationships not included by the {@link InclusionPolicies} will be excluded. The only exception
  * to this are relationship start and end nodes - they are returned even if they would normally be filtered out. This is
  * a design decision in order to honor the requirement that relationships must have start and end node.
+ * <p/>
+ * Decisions of the {@link InclusionPolicies} are cached for the duration of the transaction, see {@link InclusionDecisionCache}.
  */
 public class FilteredTransactionData extends BaseImprovedTransactionData implements ImprovedTransactionData, TransactionDataContainer {
 
+    private final TransactionDataContainer transactionDataContainer;
     private final InclusionPolicies inclusionPolicies;
+    private final InclusionDecisionCache inclusionDecisionCache = new InclusionDecisionCache();
     private final NodeTransactionData nodeTransactionData;
     private final RelationshipTransactionData relationshipTransactionData;
 
@@ -58,9 +63,11 @@ public class FilteredTransactionData extends BaseImprovedTransactionData impleme
      */
     public FilteredTransactionData(TransactionDataContainer transactionDataContainer, Transaction transaction, InclusionPolicies inclusionPolicies) {
         super(transactionDataContainer.getWrapped(), transaction);
+        this.transactionDataContainer = transactionDataContainer;
         this.inclusionPolicies = inclusionPolicies;
-        nodeTransactionData = new FilteredNodeTransactionData(transactionDataContainer.getNodeTransactionData(), inclusionPolicies);
-        relationshipTransactionData = new FilteredRelationshipTransactionData(transactionDataContainer.getRelationshipTransactionData(), inclusionPolicies);
+        InclusionPolicies cachedPolicies = inclusionDecisionCache.cached(inclusionPolicies);
+        nodeTransactionData = new FilteredNodeTransactionData(transactionDataContainer.getNodeTransactionData(), cachedPolicies);
+        relationshipTransactionData = new FilteredRelationshipTransactionData(transactionDataContainer.getRelationshipTransactionData(), cachedPolicies);
     }
 
     @Override
@@ -73,6 +80,26 @@ public class FilteredTransactionData extends BaseImprovedTransactionData impleme
         return relationshipTransactionData;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Delegates to the original unfiltered transaction data, so that the summary is shared among all filtered views of
+     * the same transaction. Note that it is thus not subject to the {@link InclusionPolicies} of this instance.
+     */
+    @Override
+    public TransactionSummary getTransactionSummary() {
+        return transactionDataContainer.getTransactionSummary();
+    }
+
+    /**
+     * Get the cache of decisions made by the inclusion policies in this transaction, mainly for monitoring purposes.
+     *
+     * @return decision cache.
+     */
+    public InclusionDecisionCache getInclusionDecisionCache() {
+        return inclusionDecisionCache;
+    }
+
     @Override
     public boolean mutationsOccurred() {
         //overridden for optimization - we don't want to load things (and especially properties) if we don't need to
@@ -389,4 +389,13 @@ public interface ImprovedTransactionData extends TransactionDataWrapper {
      * @return human-readable Strings.
      */
     Set<String> mutationsToStrings();
+
+    /**
+     * Get a summary of all mutations in the transaction (counts by label, relationship type, property key, and node
+     * degree deltas). The summary is computed at most once per transaction, without creating any snapshots, and is
+     * not subject to any filtering, i.e. it always reflects the full truth about the transaction.
+     *
+     * @return transaction summary.
+     */
+    TransactionSummary getTransactionSummary();
 }
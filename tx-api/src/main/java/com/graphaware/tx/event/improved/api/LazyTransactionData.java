@@ -33,6 +33,7 @@ public class LazyTransactionData extends BaseImprovedTransactionData implements
 
     private final NodeTransactionData nodeTransactionData;
     private final RelationshipTransactionData relationshipTransactionData;
+    private TransactionSummary transactionSummary;
 
     /**
      * Create an instance from Neo4j {@link org.neo4j.graphdb.event.TransactionData}.
@@ -54,4 +55,12 @@ public class LazyTransactionData extends BaseImprovedTransactionData implements
     public RelationshipTransactionData getRelationshipTransactionData() {
         return relationshipTransactionData;
     }
+
+    @Override
+    public TransactionSummary getTransactionSummary() {
+        if (transactionSummary == null) {
+            transactionSummary = new TransactionSummary(getWrapped());
+        }
+        return transactionSummary;
+    }
 }
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.event.improved.api;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Aggregate statistics about the mutations performed in a transaction, computed in a single pass over the raw Neo4j
+ * {@link TransactionData}. No snapshots are created and no properties of entities are loaded, which makes this much
+ * cheaper than walking the collections of {@link ImprovedTransactionData} when only counts are needed.
+ * <p/>
+ * The summary is computed at most once per transaction and shared by all modules, so it reflects all mutations that
+ * occurred in the transaction, irrespective of any inclusion policies. Like {@link ImprovedTransactionData}, it
+ * distinguishes created and deleted entities from changed ones: labels and properties of created nodes are counted as
+ * part of the created nodes, not as assigned labels/properties, and vice versa for deleted entities.
+ * <p/>
+ * Instances are immutable once constructed and must only be used within the context of the transaction.
+ */
+public class TransactionSummary {
+
+    private int createdNodes;
+    private int deletedNodes;
+    private int createdRelationships;
+    private int deletedRelationships;
+
+    private final ObjectIntHashMap<String> createdNodesByLabel = new ObjectIntHashMap<>();
+    private final ObjectIntHashMap<String> deletedNodesByLabel = new ObjectIntHashMap<>();
+    private final ObjectIntHashMap<String> assignedLabels = new ObjectIntHashMap<>();
+    private final ObjectIntHashMap<String> removedLabels = new ObjectIntHashMap<>();
+
+    private final ObjectIntHashMap<String> createdRelationshipsByType = new ObjectIntHashMap<>();
+    private final ObjectIntHashMap<String> deletedRelationshipsByType = new ObjectIntHashMap<>();
+
+    private final ObjectIntHashMap<String> assignedNodeProperties = new ObjectIntHashMap<>();
+    private final ObjectIntHashMap<String> removedNodeProperties = new ObjectIntHashMap<>();
+    private final ObjectIntHashMap<String> assignedRelationshipProperties = new ObjectIntHashMap<>();
+    private final ObjectIntHashMap<String> removedRelationshipProperties = new ObjectIntHashMap<>();
+
+    /**
+     * <node ID, degree delta>
+     */
+    private final LongIntHashMap degreeDeltas = new LongIntHashMap();
+
+    /**
+     * Compute a summary of the given transaction data.
+     *
+     * @param transactionData to summarize.
+     */
+    public TransactionSummary(TransactionData transactionData) {
+        MutableLongSet createdNodeIds = new LongHashSet();
+        MutableLongSet deletedNodeIds = new LongHashSet();
+        MutableLongSet createdRelationshipIds = new LongHashSet();
+        MutableLongSet deletedRelationshipIds = new LongHashSet();
+
+        for (Node node : transactionData.createdNodes()) {
+            createdNodeIds.add(node.getId());
+        }
+        createdNodes = createdNodeIds.size();
+
+        for (Node node : transactionData.deletedNodes()) {
+            deletedNodeIds.add(node.getId());
+        }
+        deletedNodes = deletedNodeIds.size();
+
+        for (LabelEntry entry : transactionData.assignedLabels()) {
+            if (createdNodeIds.contains(entry.node().getId())) {
+                createdNodesByLabel.addToValue(entry.label().name(), 1);
+            } else {
+                assignedLabels.addToValue(entry.label().name(), 1);
+            }
+        }
+
+        for (LabelEntry entry : transactionData.removedLabels()) {
+            if (deletedNodeIds.contains(entry.node().getId())) {
+                deletedNodesByLabel.addToValue(entry.label().name(), 1);
+            } else {
+                removedLabels.addToValue(entry.label().name(), 1);
+            }
+        }
+
+        for (Relationship relationship : transactionData.createdRelationships()) {
+            createdRelationshipIds.add(relationship.getId());
+            createdRelationshipsByType.addToValue(relationship.getType().name(), 1);
+            updateDegrees(relationship, 1);
+        }
+        createdRelationships = createdRelationshipIds.size();
+
+        for (Relationship relationship : transactionData.deletedRelationships()) {
+            deletedRelationshipIds.add(relationship.getId());
+            deletedRelationshipsByType.addToValue(relationship.getType().name(), 1);
+            updateDegrees(relationship, -1);
+        }
+        deletedRelationships = deletedRelationshipIds.size();
+
+        countProperties(transactionData.assignedNodeProperties(), createdNodeIds, assignedNodeProperties, true);
+        countProperties(transactionData.removedNodeProperties(), deletedNodeIds, removedNodeProperties, false);
+        countProperties(transactionData.assignedRelationshipProperties(), createdRelationshipIds, assignedRelationshipProperties, true);
+        countProperties(transactionData.removedRelationshipProperties(), deletedRelationshipIds, removedRelationshipProperties, false);
+    }
+
+    private void updateDegrees(Relationship relationship, int delta) {
+        long startNodeId = relationship.getStartNodeId();
+        long endNodeId = relationship.getEndNodeId();
+
+        degreeDeltas.addToValue(startNodeId, delta);
+        if (startNodeId != endNodeId) {
+            degreeDeltas.addToValue(endNodeId, delta);
+        }
+    }
+
+    private <T extends Entity> void countProperties(Iterable<PropertyEntry<T>> entries, MutableLongSet skippedEntityIds, ObjectIntHashMap<String> counts, boolean assigned) {
+        for (PropertyEntry<T> entry : entries) {
+            if (skippedEntityIds.contains(entry.entity().getId())) {
+                continue;
+            }
+
+            if (assigned && entry.previouslyCommittedValue() != null && entry.previouslyCommittedValue().equals(entry.value())) {
+                continue;
+            }
+
+            counts.addToValue(entry.key(), 1);
+        }
+    }
+
+    /**
+     * @return number of nodes created in the transaction.
+     */
+    public int createdNodeCount() {
+        return createdNodes;
+    }
+
+    /**
+     * @param label of the nodes.
+     * @return number of nodes created in the transaction with the given label.
+     */
+    public int createdNodeCount(String label) {
+        return createdNodesByLabel.get(label);
+    }
+
+    /**
+     * @return number of nodes deleted in the transaction.
+     */
+    public int deletedNodeCount() {
+        return deletedNodes;
+    }
+
+    /**
+     * @param label of the nodes.
+     * @return number of nodes deleted in the transaction that had the given label before the transaction started.
+     */
+    public int deletedNodeCount(String label) {
+        return deletedNodesByLabel.get(label);
+    }
+
+    /**
+     * @param label to count.
+     * @return number of nodes that existed before the transaction and have been assigned the given label.
+     */
+    public int assignedLabelCount(String label) {
+        return assignedLabels.get(label);
+    }
+
+    /**
+     * @param label to count.
+     * @return number of nodes that still exist after the transaction and have had the given label removed.
+     */
+    public int removedLabelCount(String label) {
+        return removedLabels.get(label);
+    }
+
+    /**
+     * @return number of relationships created in the transaction.
+     */
+    public int createdRelationshipCount() {
+        return createdRelationships;
+    }
+
+    /**
+     * @param type of the relationships.
+     * @return number of relationships of the given type created in the transaction.
+     */
+    public int createdRelationshipCount(String type) {
+        return createdRelationshipsByType.get(type);
+    }
+
+    /**
+     * @return number of relationships deleted in the transaction.
+     */
+    public int deletedRelationshipCount() {
+        return deletedRelationships;
+    }
+
+    /**
+     * @param type of the relationships.
+     * @return number of relationships of the given type deleted in the transaction.
+     */
+    public int deletedRelationshipCount(String type) {
+        return deletedRelationshipsByType.get(type);
+    }
+
+    /**
+     * @param key of the property.
+     * @return number of pre-existing nodes on which a property with the given key has been created or changed.
+     */
+    public int assignedNodePropertyCount(String key) {
+        return assignedNodeProperties.get(key);
+    }
+
+    /**
+     * @param key of the property.
+     * @return number of surviving nodes from which a property with the given key has been removed.
+     */
+    public int removedNodePropertyCount(String key) {
+        return removedNodeProperties.get(key);
+    }
+
+    /**
+     * @param key of the property.
+     * @return number of pre-existing relationships on which a property with the given key has been created or changed.
+     */
+    public int assignedRelationshipPropertyCount(String key) {
+        return assignedRelationshipProperties.get(key);
+    }
+
+    /**
+     * @param key of the property.
+     * @return number of surviving relationships from which a property with the given key has been removed.
+     */
+    public int removedRelationshipPropertyCount(String key) {
+        return removedRelationshipProperties.get(key);
+    }
+
+    /**
+     * Get labels that appear in any of the label counts of this summary.
+     *
+     * @return read-only set of label names.
+     */
+    public Set<String> labels() {
+        return keys(createdNodesByLabel, deletedNodesByLabel, assignedLabels, removedLabels);
+    }
+
+    /**
+     * Get relationship types that appear in any of the relationship counts of this summary.
+     *
+     * @return read-only set of relationship type names.
+     */
+    public Set<String> relationshipTypes() {
+        return keys(createdRelationshipsByType, deletedRelationshipsByType);
+    }
+
+    /**
+     * Get property keys that appear in any of the property counts of this summary.
+     *
+     * @return read-only set of property keys.
+     */
+    public Set<String> propertyKeys() {
+        return keys(assignedNodeProperties, removedNodeProperties, assignedRelationshipProperties, removedRelationshipProperties);
+    }
+
+    /**
+     * Get the net change of a node's degree in the transaction, i.e. the number of relationships created minus the
+     * number of relationships deleted that have the node on either end. A relationship to self is counted once.
+     *
+     * @param nodeId ID of the node.
+     * @return degree delta, 0 for nodes whose relationships have not been touched.
+     */
+    public int degreeDelta(long nodeId) {
+        return degreeDeltas.get(nodeId);
+    }
+
+    /**
+     * Get IDs of all nodes that had at least one relationship created or deleted in the transaction. Note that the net
+     * degree change of some of these nodes can be 0.
+     *
+     * @return node IDs.
+     */
+    public long[] nodesWithDegreeChange() {
+        return degreeDeltas.keySet().toArray();
+    }
+
+    @SafeVarargs
+    private static Set<String> keys(ObjectIntHashMap<String>... maps) {
+        Set<String> result = new HashSet<>();
+        for (ObjectIntHashMap<String> map : maps) {
+            map.forEachKey(result::add);
+        }
+        return Collections.unmodifiableSet(result);
+    }
+}
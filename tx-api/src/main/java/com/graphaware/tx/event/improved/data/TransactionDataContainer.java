@@ -16,6 +16,7 @@
 
 package com.graphaware.tx.event.improved.data;
 
+import com.graphaware.tx.event.improved.api.TransactionSummary;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.event.TransactionData;
 
@@ -39,4 +40,11 @@ public interface TransactionDataContainer extends TransactionDataWrapper {
      * @return relationship transaction data.
      */
     RelationshipTransactionData getRelationshipTransactionData();
+
+    /**
+     * Get the summary of the contained (unfiltered) transaction data.
+     *
+     * @return transaction summary, computed at most once.
+     */
+    TransactionSummary getTransactionSummary();
 }
@@ -19,6 +19,7 @@ package com.graphaware.tx.event.improved.data.filtered;
 import com.graphaware.common.policy.inclusion.InclusionPolicies;
 import com.graphaware.common.policy.inclusion.EntityInclusionPolicy;
 import com.graphaware.common.policy.inclusion.PropertyInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import com.graphaware.common.policy.inclusion.none.IncludeNoProperties;
 import com.graphaware.common.policy.inclusion.none.IncludeNone;
 import com.graphaware.common.util.Change;
@@ -277,17 +278,18 @@ public abstract class FilteredEntityTransactionData<T extends Entity> {
     }
 
     /**
-     * Filter entities according to provided {@link EntityInclusionPolicy}.
+     * Filter entities according to provided {@link EntityInclusionPolicy}. All entities are evaluated in a single batch.
      *
      * @param toFilter entities to filter.
      * @return filtered entities.
      */
     protected final Collection<T> filterEntities(Collection<T> toFilter) {
+        List<T> candidates = new ArrayList<>(toFilter);
+        BitSet included = getEntityInclusionPolicy().includeBatch(candidates);
+
         Collection<T> result = new HashSet<>();
-        for (T candidate : toFilter) {
-            if (getEntityInclusionPolicy().include(candidate)) {
-                result.add(filtered(candidate));
-            }
+        for (int i = included.nextSetBit(0); i >= 0; i = included.nextSetBit(i + 1)) {
+            result.add(filtered(candidates.get(i)));
         }
         return result;
     }
@@ -296,22 +298,50 @@ public abstract class FilteredEntityTransactionData<T extends Entity> {
      * Filter changed entities according to provided policies. Only those complying with the provided
      * {@link EntityInclusionPolicy} with at least one property created, deleted, or changed that complies
      * with the provided {@link PropertyInclusionPolicy} will be returned.
+     * <p/>
+     * Entities are included when the {@link EntityInclusionPolicy} includes either their previous or current state. The
+     * current state is only evaluated when the mutations of the entity intersect the {@link ReadSet} of the policy,
+     * otherwise the decision about the previous state is re-used.
      *
      * @param toFilter changed entities to filter.
      * @return filtered changed entities.
      */
     protected final Collection<Change<T>> filterChangedEntities(Collection<Change<T>> toFilter) {
         Collection<Change<T>> result = new HashSet<>();
+        ReadSet readSet = getEntityInclusionPolicy().getReadSet();
         for (Change<T> candidate : toFilter) {
-            if (include(candidate) && hasChanged(candidate)) {
+            if (include(candidate, readSet) && hasChanged(candidate)) {
                 result.add(filteredChange(candidate));
             }
         }
         return result;
     }
 
-    private boolean include(Change<T> candidate) {
-        return getEntityInclusionPolicy().include(candidate.getPrevious()) || getEntityInclusionPolicy().include(candidate.getCurrent());
+    private boolean include(Change<T> candidate, ReadSet readSet) {
+        if (getEntityInclusionPolicy().include(candidate.getPrevious())) {
+            return true;
+        }
+
+        return mutationsIntersect(candidate.getPrevious(), readSet) && getEntityInclusionPolicy().include(candidate.getCurrent());
+    }
+
+    /**
+     * Check whether the mutations of a changed entity intersect the given read set, i.e. whether a policy with the read
+     * set could have made a different decision about the entity before and after the transaction. No filtering is
+     * applied to the mutations.
+     *
+     * @param entity  changed entity.
+     * @param readSet of a policy.
+     * @return true iff the mutations and the read set intersect.
+     */
+    protected boolean mutationsIntersect(T entity, ReadSet readSet) {
+        if (readSet.readsRelatedEntities()) {
+            return true;
+        }
+
+        return readSet.readsAnyPropertyKey(getWrapped().createdProperties(entity).keySet())
+                || readSet.readsAnyPropertyKey(getWrapped().deletedProperties(entity).keySet())
+                || readSet.readsAnyPropertyKey(getWrapped().changedProperties(entity).keySet());
     }
 
     protected boolean hasChanged(Change<T> candidate) {
@@ -19,6 +19,7 @@ package com.graphaware.tx.event.improved.data.filtered;
 import com.graphaware.common.policy.inclusion.InclusionPolicies;
 import com.graphaware.common.policy.inclusion.EntityInclusionPolicy;
 import com.graphaware.common.policy.inclusion.PropertyInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
 import com.graphaware.common.util.Change;
 import com.graphaware.tx.event.improved.data.NodeTransactionData;
 import com.graphaware.tx.event.improved.entity.filtered.FilteredNode;
@@ -90,6 +91,27 @@ public class FilteredNodeTransactionData extends FilteredEntityTransactionData<N
         return getWrapped().labelsOfDeletedNode(node);
     }
 
+    @Override
+    protected boolean mutationsIntersect(Node node, ReadSet readSet) {
+        if (super.mutationsIntersect(node, readSet)) {
+            return true;
+        }
+
+        for (Label label : getWrapped().assignedLabels(node)) {
+            if (readSet.readsLabel(label.name())) {
+                return true;
+            }
+        }
+
+        for (Label label : getWrapped().removedLabels(node)) {
+            if (readSet.readsLabel(label.name())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     @Override
     protected boolean hasChanged(Change<Node> candidate) {
         return super.hasChanged(candidate) || !assignedLabels(candidate.getPrevious()).isEmpty() || !removedLabels(candidate.getPrevious()).isEmpty();
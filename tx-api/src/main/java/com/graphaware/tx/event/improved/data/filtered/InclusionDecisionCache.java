@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.event.improved.data.filtered;
+
+import com.graphaware.common.policy.inclusion.EntityInclusionPolicy;
+import com.graphaware.common.policy.inclusion.InclusionPolicies;
+import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.NodePropertyInclusionPolicy;
+import com.graphaware.common.policy.inclusion.PropertyInclusionPolicy;
+import com.graphaware.common.policy.inclusion.ReadSet;
+import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
+import com.graphaware.common.policy.inclusion.RelationshipPropertyInclusionPolicy;
+import com.graphaware.common.policy.inclusion.all.IncludeAllNodes;
+import com.graphaware.common.policy.inclusion.all.IncludeAllProperties;
+import com.graphaware.common.policy.inclusion.all.IncludeAllRelationships;
+import com.graphaware.common.policy.inclusion.none.IncludeNoProperties;
+import com.graphaware.common.policy.inclusion.none.IncludeNone;
+import com.graphaware.common.wrapper.Wrapper;
+import com.graphaware.tx.event.improved.entity.filtered.FilteredEntity;
+import com.graphaware.tx.event.improved.entity.snapshot.EntitySnapshot;
+import org.eclipse.collections.impl.map.mutable.primitive.LongByteHashMap;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of decisions made by {@link InclusionPolicies} about entities and properties participating in a single
+ * transaction, so that potentially expensive policies (such as SPEL-based or custom ones) are evaluated at most once
+ * per entity (and property key) per transaction, even though the filtering transaction data API asks the same
+ * questions many times.
+ * <p/>
+ * Decisions are keyed by the policy, the entity ID, the property key (for property inclusion policies), and the "view"
+ * of the entity, because a snapshot of an entity as it was before the transaction started and the current state of the
+ * same entity can well receive different decisions. A cache instance is owned by a
+ * {@link com.graphaware.tx.event.improved.api.FilteredTransactionData}, which only lives as long as the transaction, so
+ * the cache is discarded when the transaction ends. Decisions reflect the state of the entity at the time they were
+ * first made.
+ * <p/>
+ * This class is not thread-safe, just like the transaction it is used in.
+ */
+public class InclusionDecisionCache {
+
+    private static final byte INCLUDED = 1;
+    private static final byte EXCLUDED = 2;
+
+    private static final int SNAPSHOT = 1;
+    private static final int FILTERED = 2;
+    private static final int VIEWS = 4;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Decorate the given policies by ones that cache their decisions in this cache. Policies that make trivial
+     * decisions (include all / nothing) are not decorated, so that they can still be recognized.
+     *
+     * @param policies to decorate.
+     * @return decorated policies.
+     */
+    public InclusionPolicies cached(InclusionPolicies policies) {
+        return new InclusionPolicies(
+                isTrivial(policies.getNodeInclusionPolicy()) ? policies.getNodeInclusionPolicy() : new CachedNodeInclusionPolicy(policies.getNodeInclusionPolicy()),
+                isTrivial(policies.getNodePropertyInclusionPolicy()) ? policies.getNodePropertyInclusionPolicy() : new CachedNodePropertyInclusionPolicy(policies.getNodePropertyInclusionPolicy()),
+                isTrivial(policies.getRelationshipInclusionPolicy()) ? policies.getRelationshipInclusionPolicy() : new CachedRelationshipInclusionPolicy(policies.getRelationshipInclusionPolicy()),
+                isTrivial(policies.getRelationshipPropertyInclusionPolicy()) ? policies.getRelationshipPropertyInclusionPolicy() : new CachedRelationshipPropertyInclusionPolicy(policies.getRelationshipPropertyInclusionPolicy()));
+    }
+
+    /**
+     * @return number of decisions served from the cache.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return number of decisions that had to be made by the underlying policies.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public String toString() {
+        return "InclusionDecisionCache{hits=" + hits + ", misses=" + misses + "}";
+    }
+
+    private static boolean isTrivial(Object policy) {
+        return policy instanceof IncludeNone
+                || policy instanceof IncludeNoProperties
+                || policy instanceof IncludeAllProperties
+                || policy == IncludeAllNodes.getInstance()
+                || policy == IncludeAllRelationships.getInstance()
+                || policy instanceof CachedEntityInclusionPolicy
+                || policy instanceof CachedPropertyInclusionPolicy;
+    }
+
+    private static int view(Entity entity) {
+        int view = 0;
+        Object current = entity;
+        while (current instanceof Wrapper) {
+            if (current instanceof EntitySnapshot) {
+                view |= SNAPSHOT;
+            } else if (current instanceof FilteredEntity) {
+                view |= FILTERED;
+            }
+            current = ((Wrapper<?>) current).getWrapped();
+        }
+        return view;
+    }
+
+    private byte lookup(LongByteHashMap decisions, long id) {
+        byte decision = decisions.get(id);
+        if (decision != 0) {
+            hits++;
+        }
+        return decision;
+    }
+
+    private boolean record(LongByteHashMap decisions, long id, boolean include) {
+        misses++;
+        decisions.put(id, include ? INCLUDED : EXCLUDED);
+        return include;
+    }
+
+    private abstract class CachedEntityInclusionPolicy<T extends Entity, P extends EntityInclusionPolicy<T>> implements EntityInclusionPolicy<T> {
+
+        protected final P delegate;
+        private final LongByteHashMap[] decisions = new LongByteHashMap[VIEWS];
+
+        CachedEntityInclusionPolicy(P delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean include(T entity) {
+            int view = view(entity);
+            if (decisions[view] == null) {
+                decisions[view] = new LongByteHashMap();
+            }
+            long id = entity.getId();
+            byte decision = lookup(decisions[view], id);
+            if (decision != 0) {
+                return decision == INCLUDED;
+            }
+            return record(decisions[view], id, delegate.include(entity));
+        }
+
+        @Override
+        public BitSet includeBatch(List<? extends T> entities) {
+            BitSet result = new BitSet(entities.size());
+            List<T> misses = new ArrayList<>();
+            int[] missIndices = new int[entities.size()];
+
+            for (int i = 0; i < entities.size(); i++) {
+                T entity = entities.get(i);
+                int view = view(entity);
+                if (decisions[view] == null) {
+                    decisions[view] = new LongByteHashMap();
+                }
+                byte decision = lookup(decisions[view], entity.getId());
+                if (decision == INCLUDED) {
+                    result.set(i);
+                } else if (decision == 0) {
+                    missIndices[misses.size()] = i;
+                    misses.add(entity);
+                }
+            }
+
+            if (misses.isEmpty()) {
+                return result;
+            }
+
+            BitSet included = delegate.includeBatch(misses);
+            for (int i = 0; i < misses.size(); i++) {
+                T entity = misses.get(i);
+                //an entity may be in the batch more than once, the first decision wins, just like in include(T)
+                LongByteHashMap viewDecisions = decisions[view(entity)];
+                byte decision = viewDecisions.get(entity.getId());
+                boolean include = decision == 0 ? record(viewDecisions, entity.getId(), included.get(i)) : decision == INCLUDED;
+                if (include) {
+                    result.set(missIndices[i]);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Iterable<T> getAll(Transaction tx) {
+            return delegate.getAll(tx);
+        }
+
+        @Override
+        public ReadSet getReadSet() {
+            return delegate.getReadSet();
+        }
+    }
+
+    private abstract class CachedPropertyInclusionPolicy<T extends Entity, P extends PropertyInclusionPolicy<T>> implements PropertyInclusionPolicy<T> {
+
+        protected final P delegate;
+        private final Map<String, LongByteHashMap>[] decisions;
+
+        @SuppressWarnings("unchecked")
+        CachedPropertyInclusionPolicy(P delegate) {
+            this.delegate = delegate;
+            this.decisions = new Map[VIEWS];
+        }
+
+        @Override
+        public boolean include(String key, T entity) {
+            int view = view(entity);
+            if (decisions[view] == null) {
+                decisions[view] = new HashMap<>();
+            }
+            LongByteHashMap keyDecisions = decisions[view].get(key);
+            if (keyDecisions == null) {
+                keyDecisions = new LongByteHashMap();
+                decisions[view].put(key, keyDecisions);
+            }
+
+            long id = entity.getId();
+            byte decision = lookup(keyDecisions, id);
+            if (decision != 0) {
+                return decision == INCLUDED;
+            }
+            return record(keyDecisions, id, delegate.include(key, entity));
+        }
+
+        @Override
+        public ReadSet getReadSet() {
+            return delegate.getReadSet();
+        }
+    }
+
+    private class CachedNodeInclusionPolicy extends CachedEntityInclusionPolicy<Node, NodeInclusionPolicy> implements NodeInclusionPolicy {
+
+        CachedNodeInclusionPolicy(NodeInclusionPolicy delegate) {
+            super(delegate);
+        }
+    }
+
+    private class CachedRelationshipInclusionPolicy extends CachedEntityInclusionPolicy<Relationship, RelationshipInclusionPolicy> implements RelationshipInclusionPolicy {
+
+        CachedRelationshipInclusionPolicy(RelationshipInclusionPolicy delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public boolean include(Relationship relationship, Node pointOfView) {
+            //depends on the point of view, not worth caching
+            return delegate.include(relationship, pointOfView);
+        }
+    }
+
+    private class CachedNodePropertyInclusionPolicy extends CachedPropertyInclusionPolicy<Node, NodePropertyInclusionPolicy> implements NodePropertyInclusionPolicy {
+
+        CachedNodePropertyInclusionPolicy(NodePropertyInclusionPolicy delegate) {
+            super(delegate);
+        }
+    }
+
+    private class CachedRelationshipPropertyInclusionPolicy extends CachedPropertyInclusionPolicy<Relationship, RelationshipPropertyInclusionPolicy> implements RelationshipPropertyInclusionPolicy {
+
+        CachedRelationshipPropertyInclusionPolicy(RelationshipPropertyInclusionPolicy delegate) {
+            super(delegate);
+        }
+    }
+}
@@ -39,6 +39,7 @@ import org.neo4j.harness.Neo4j;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.graphaware.common.util.EntityUtils.*;
@@ -1656,6 +1657,50 @@ public class FilteredLazyTransactionDataIntegrationTest {
         }
     }
 
+    @Test
+    public void previousDecisionShouldBeReusedWhenMutationsDoNotIntersectReadSet() {
+        database.executeTransactionally("CREATE (:Person {name:'Michal', age:30}), (:Company {name:'GraphAware', age:7})");
+
+        final AtomicInteger evaluations = new AtomicInteger();
+        final AtomicInteger changed = new AtomicInteger();
+
+        NodeInclusionPolicy policy = new BaseNodeInclusionPolicy() {
+            @Override
+            public boolean include(Node node) {
+                evaluations.incrementAndGet();
+                return node.hasLabel(label("Person"));
+            }
+
+            @Override
+            public ReadSet getReadSet() {
+                return ReadSet.nothing().withLabels("Person");
+            }
+        };
+
+        TransactionEventListenerAdapter<Void> listener = new TransactionEventListenerAdapter<>() {
+            @Override
+            public Void beforeCommit(TransactionData data, Transaction transaction, GraphDatabaseService databaseService) {
+                changed.set(new FilteredTransactionData(new LazyTransactionData(data, transaction), transaction, InclusionPolicies.all().with(policy)).getAllChangedNodes().size());
+                return null;
+            }
+        };
+
+        neo4j.databaseManagementService().registerTransactionEventListener(database.databaseName(), listener);
+
+        database.executeTransactionally("MATCH (n) SET n.age = n.age + 1");
+
+        assertEquals(1, changed.get());
+        assertEquals(2, evaluations.get()); //previous state of both, current state of neither
+
+        evaluations.set(0);
+        database.executeTransactionally("MATCH (c:Company) SET c:Person");
+
+        assertEquals(1, changed.get());
+        assertEquals(2, evaluations.get()); //previous and current state of the company
+
+        neo4j.databaseManagementService().unregisterTransactionEventListener(database.databaseName(), listener);
+    }
+
     private Node getNodeById(Transaction tx, long id) {
         return tx.getNodeById(id);
     }
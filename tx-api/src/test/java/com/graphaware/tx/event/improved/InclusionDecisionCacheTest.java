@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.event.improved;
+
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import com.graphaware.common.policy.inclusion.BaseNodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.InclusionPolicies;
+import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.util.Change;
+import com.graphaware.tx.event.improved.api.FilteredTransactionData;
+import com.graphaware.tx.event.improved.api.LazyTransactionData;
+import com.graphaware.tx.event.improved.data.filtered.InclusionDecisionCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListenerAdapter;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.internal.helpers.collection.Iterables;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.neo4j.graphdb.Label.label;
+
+/**
+ * Test for {@link InclusionDecisionCache}.
+ */
+@ExtendWith(Neo4jExtension.class)
+public class InclusionDecisionCacheTest {
+
+    @InjectNeo4j
+    private Neo4j neo4j;
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    private final CountingNodeInclusionPolicy policy = new CountingNodeInclusionPolicy();
+    private CapturingTransactionEventHandler eventHandler;
+
+    @BeforeEach
+    public void setUp() {
+        eventHandler = new CapturingTransactionEventHandler();
+        neo4j.databaseManagementService().registerTransactionEventListener(neo4j.defaultDatabaseService().databaseName(), eventHandler);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        neo4j.databaseManagementService().unregisterTransactionEventListener(neo4j.defaultDatabaseService().databaseName(), eventHandler);
+    }
+
+    @Test
+    public void decisionsShouldBeMadeOncePerTransaction() {
+        database.executeTransactionally("CREATE (:Person {name:'Michal'}), (:Person {name:'Daniela'}), (:Company {name:'GraphAware'})");
+
+        assertEquals(2, eventHandler.getCreated());
+        assertEquals(3, policy.getInvocations());
+        assertEquals(3, eventHandler.getCache().getMisses());
+        assertTrue(eventHandler.getCache().getHits() >= 3);
+    }
+
+    @Test
+    public void snapshotAndCurrentStateShouldBeDecidedSeparately() {
+        database.executeTransactionally("CREATE (:Person {name:'Michal'}), (:Company {name:'GraphAware'})");
+
+        policy.reset();
+        database.executeTransactionally("MATCH (p:Person) REMOVE p:Person SET p:Company, p.name = 'Michal Bachman' WITH p MATCH (c:Company) SET c:Person");
+
+        assertEquals(2, eventHandler.getChanged());
+        assertEquals(2, eventHandler.getChangedIncludedBefore());
+        assertEquals(3, policy.getInvocations()); //Michal before, GraphAware before and after
+    }
+
+    @Test
+    public void cacheShouldNotOutliveTransaction() {
+        database.executeTransactionally("CREATE (:Person {name:'Michal'})");
+        InclusionDecisionCache first = eventHandler.getCache();
+
+        database.executeTransactionally("CREATE (:Person {name:'Daniela'})");
+
+        assertNotSame(first, eventHandler.getCache());
+        assertEquals(1, eventHandler.getCache().getMisses());
+    }
+
+    @Test
+    public void batchesShouldBeForwardedToDelegateAndCached() {
+        database.executeTransactionally("CREATE (:Person {name:'Michal'}), (:Company {name:'GraphAware'})");
+
+        try (Transaction tx = database.beginTx()) {
+            List<Node> nodes = Iterables.asList(tx.getAllNodes());
+            InclusionDecisionCache cache = new InclusionDecisionCache();
+            NodeInclusionPolicy cached = cache.cached(InclusionPolicies.all().with(policy)).getNodeInclusionPolicy();
+            policy.reset();
+
+            BitSet first = cached.includeBatch(nodes);
+            assertEquals(1, policy.getBatches());
+            assertEquals(2, policy.getInvocations());
+            assertEquals(1, first.cardinality());
+
+            List<Node> repeated = new ArrayList<>(nodes);
+            repeated.addAll(nodes);
+            BitSet second = cached.includeBatch(repeated);
+            assertEquals(1, policy.getBatches());
+            assertEquals(2, policy.getInvocations());
+            assertEquals(2, second.cardinality());
+            assertEquals(first.get(0), second.get(2));
+            assertEquals(first.get(1), second.get(3));
+            assertEquals(2, cache.getMisses());
+            assertEquals(4, cache.getHits());
+
+            tx.commit();
+        }
+    }
+
+    private class CapturingTransactionEventHandler extends TransactionEventListenerAdapter<Void> {
+
+        private InclusionDecisionCache cache;
+        private int created;
+        private int changed;
+        private int changedIncludedBefore;
+
+        @Override
+        public Void beforeCommit(TransactionData data, Transaction transaction, GraphDatabaseService databaseService) {
+            FilteredTransactionData transactionData = new FilteredTransactionData(new LazyTransactionData(data, transaction), transaction, InclusionPolicies.all().with(policy));
+
+            created = 0;
+            for (Node node : transactionData.getAllCreatedNodes()) {
+                if (transactionData.hasBeenCreated(node)) {
+                    created++;
+                }
+            }
+            assertEquals(created, transactionData.getAllCreatedNodes().size());
+
+            Collection<Change<Node>> changes = transactionData.getAllChangedNodes();
+            changed = changes.size();
+            changedIncludedBefore = 0;
+            for (Change<Node> change : changes) {
+                if (transactionData.hasBeenChanged(change.getPrevious())) {
+                    changedIncludedBefore++;
+                }
+            }
+
+            cache = transactionData.getInclusionDecisionCache();
+            return null;
+        }
+
+        public InclusionDecisionCache getCache() {
+            return cache;
+        }
+
+        public int getCreated() {
+            return created;
+        }
+
+        public int getChanged() {
+            return changed;
+        }
+
+        public int getChangedIncludedBefore() {
+            return changedIncludedBefore;
+        }
+    }
+
+    private static class CountingNodeInclusionPolicy extends BaseNodeInclusionPolicy {
+
+        private final AtomicInteger invocations = new AtomicInteger();
+        private final AtomicInteger batches = new AtomicInteger();
+
+        @Override
+        public boolean include(Node node) {
+            invocations.incrementAndGet();
+            return node.hasLabel(label("Person"));
+        }
+
+        @Override
+        public BitSet includeBatch(List<? extends Node> nodes) {
+            batches.incrementAndGet();
+            return super.includeBatch(nodes);
+        }
+
+        public int getInvocations() {
+            return invocations.get();
+        }
+
+        public int getBatches() {
+            return batches.get();
+        }
+
+        public void reset() {
+            invocations.set(0);
+            batches.set(0);
+        }
+    }
+}
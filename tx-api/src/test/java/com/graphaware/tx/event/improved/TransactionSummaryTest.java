@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.event.improved;
+
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import com.graphaware.common.policy.inclusion.InclusionPolicies;
+import com.graphaware.tx.event.improved.api.FilteredTransactionData;
+import com.graphaware.tx.event.improved.api.LazyTransactionData;
+import com.graphaware.tx.event.improved.api.TransactionSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListenerAdapter;
+import org.neo4j.harness.Neo4j;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.neo4j.graphdb.Label.label;
+
+/**
+ * Test for {@link TransactionSummary}.
+ */
+@ExtendWith(Neo4jExtension.class)
+public class TransactionSummaryTest {
+
+    @InjectNeo4j
+    private Neo4j neo4j;
+    @InjectNeo4j
+    private GraphDatabaseService database;
+
+    private CapturingTransactionEventHandler eventHandler;
+
+    @BeforeEach
+    public void setUp() {
+        eventHandler = new CapturingTransactionEventHandler();
+        neo4j.databaseManagementService().registerTransactionEventListener(neo4j.defaultDatabaseService().databaseName(), eventHandler);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        neo4j.databaseManagementService().unregisterTransactionEventListener(neo4j.defaultDatabaseService().databaseName(), eventHandler);
+    }
+
+    @Test
+    public void createdEntitiesShouldBeCounted() {
+        database.executeTransactionally("CREATE (p:Person:Employee {name:'Michal', age:30})-[:WORKS_FOR {since:2013}]->(c:Company {name:'GraphAware'}), (p)-[:LIVES_IN]->(:City)");
+
+        TransactionSummary summary = eventHandler.getSummary();
+
+        assertEquals(3, summary.createdNodeCount());
+        assertEquals(1, summary.createdNodeCount("Person"));
+        assertEquals(1, summary.createdNodeCount("Employee"));
+        assertEquals(1, summary.createdNodeCount("Company"));
+        assertEquals(0, summary.createdNodeCount("Unknown"));
+        assertEquals(0, summary.assignedLabelCount("Person"));
+        assertEquals(2, summary.createdRelationshipCount());
+        assertEquals(1, summary.createdRelationshipCount("WORKS_FOR"));
+        assertEquals(1, summary.createdRelationshipCount("LIVES_IN"));
+        assertEquals(0, summary.assignedNodePropertyCount("name"));
+        assertEquals(0, summary.assignedRelationshipPropertyCount("since"));
+        assertEquals(0, summary.deletedNodeCount());
+        assertEquals(3, summary.nodesWithDegreeChange().length);
+        assertEquals(new HashSet<>(Arrays.asList("Person", "Employee", "Company", "City")), summary.labels());
+        assertEquals(new HashSet<>(Arrays.asList("WORKS_FOR", "LIVES_IN")), summary.relationshipTypes());
+    }
+
+    @Test
+    public void changedEntitiesShouldBeCounted() {
+        database.executeTransactionally("CREATE (:Person {name:'Michal', age:30})-[:WORKS_FOR {since:2013}]->(:Company {name:'GraphAware'}), (:Person {name:'Daniela', age:30})");
+
+        database.executeTransactionally("MATCH (p:Person) SET p:Employee, p.age = 31, p.name = p.name REMOVE p.name");
+        TransactionSummary summary = eventHandler.getSummary();
+
+        assertEquals(0, summary.createdNodeCount());
+        assertEquals(2, summary.assignedLabelCount("Employee"));
+        assertEquals(0, summary.assignedLabelCount("Person"));
+        assertEquals(2, summary.assignedNodePropertyCount("age"));
+        assertEquals(0, summary.assignedNodePropertyCount("name"));
+        assertEquals(2, summary.removedNodePropertyCount("name"));
+
+        database.executeTransactionally("MATCH ()-[r:WORKS_FOR]->() SET r.since = 2013, r.role = 'CEO'");
+        summary = eventHandler.getSummary();
+
+        assertEquals(0, summary.assignedRelationshipPropertyCount("since"));
+        assertEquals(1, summary.assignedRelationshipPropertyCount("role"));
+        assertEquals(0, summary.createdRelationshipCount());
+        assertEquals(0, summary.nodesWithDegreeChange().length);
+    }
+
+    @Test
+    public void deletedEntitiesAndDegreeDeltasShouldBeCounted() {
+        database.executeTransactionally("CREATE (p:Person {name:'Michal'})-[:WORKS_FOR]->(c:Company {name:'GraphAware'}), (p)-[:LIVES_IN]->(l:City {name:'London'}), (p)-[:LIKES]->(p)");
+
+        long personId, companyId, cityId;
+        try (Transaction tx = database.beginTx()) {
+            personId = tx.findNode(label("Person"), "name", "Michal").getId();
+            companyId = tx.findNode(label("Company"), "name", "GraphAware").getId();
+            cityId = tx.findNode(label("City"), "name", "London").getId();
+        }
+
+        assertEquals(3, eventHandler.getSummary().degreeDelta(personId));
+
+        database.executeTransactionally("MATCH (p:Person)-[r:LIVES_IN]->(l:City), (p)-[s:LIKES]->(p) DELETE r, s, l WITH p MATCH (c:Company) CREATE (c)-[:EMPLOYS]->(p)");
+        TransactionSummary summary = eventHandler.getSummary();
+
+        assertEquals(1, summary.deletedNodeCount());
+        assertEquals(1, summary.deletedNodeCount("City"));
+        assertEquals(0, summary.removedLabelCount("City"));
+        assertEquals(0, summary.removedNodePropertyCount("name"));
+        assertEquals(2, summary.deletedRelationshipCount());
+        assertEquals(1, summary.deletedRelationshipCount("LIVES_IN"));
+        assertEquals(1, summary.deletedRelationshipCount("LIKES"));
+        assertEquals(1, summary.createdRelationshipCount("EMPLOYS"));
+        assertEquals(-1, summary.degreeDelta(personId));
+        assertEquals(1, summary.degreeDelta(companyId));
+        assertEquals(-1, summary.degreeDelta(cityId));
+        assertEquals(0, summary.degreeDelta(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void summaryShouldBeSharedByFilteredTransactionData() {
+        database.executeTransactionally("CREATE (:Person {name:'Michal'})");
+
+        assertTrue(eventHandler.isShared());
+        assertEquals(1, eventHandler.getSummary().createdNodeCount());
+    }
+
+    private class CapturingTransactionEventHandler extends TransactionEventListenerAdapter<Void> {
+
+        private TransactionSummary summary;
+        private boolean shared;
+
+        @Override
+        public Void beforeCommit(TransactionData data, Transaction transaction, GraphDatabaseService databaseService) {
+            LazyTransactionData transactionData = new LazyTransactionData(data, transaction);
+            FilteredTransactionData filteredTransactionData = new FilteredTransactionData(transactionData, transaction, InclusionPolicies.none());
+
+            summary = transactionData.getTransactionSummary();
+            shared = summary == filteredTransactionData.getTransactionSummary() && summary == transactionData.getTransactionSummary();
+
+            return null;
+        }
+
+        public TransactionSummary getSummary() {
+            return summary;
+        }
+
+        public boolean isShared() {
+            return shared;
+        }
+    }
+}
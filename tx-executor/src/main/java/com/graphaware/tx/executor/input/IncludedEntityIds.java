@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.input;
+
+import com.graphaware.common.policy.inclusion.ParallelScan;
+import com.graphaware.tx.executor.batch.BatchTransactionExecutor;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An {@link Iterable} of IDs of entities included by an inclusion policy, found by a {@link ParallelScan} running in
+ * the background. Intended to be used as input to implementations of {@link BatchTransactionExecutor} over large
+ * databases, where the units of work look the entities up by ID in their own transactions.
+ * <p/>
+ * Each call to {@link #iterator()} starts a new scan. The returned iterator also provides the IDs unboxed and must be
+ * closed when it is abandoned before all IDs have been consumed, see {@link ParallelScan#iterator(ForkJoinPool)}.
+ */
+public final class IncludedEntityIds implements Iterable<Long> {
+
+    private final ParallelScan<?> scan;
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a new input.
+     *
+     * @param scan to run.
+     * @param pool to run the scan in. Must not be the pool consuming this input.
+     */
+    public IncludedEntityIds(ParallelScan<?> scan, ForkJoinPool pool) {
+        this.scan = Objects.requireNonNull(scan);
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    @Override
+    public ParallelScan.ScanIterator iterator() {
+        return scan.iterator(pool);
+    }
+}
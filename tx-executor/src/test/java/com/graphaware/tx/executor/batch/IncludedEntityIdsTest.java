@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.batch;
+
+import com.graphaware.common.junit.InjectNeo4j;
+import com.graphaware.common.junit.Neo4jExtension;
+import com.graphaware.common.policy.inclusion.ParallelScan;
+import com.graphaware.common.policy.inclusion.fluent.IncludeNodes;
+import com.graphaware.tx.executor.input.IncludedEntityIds;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit test for {@link IncludedEntityIds}.
+ */
+@ExtendWith(Neo4jExtension.class)
+public class IncludedEntityIdsTest {
+
+    @InjectNeo4j
+    protected GraphDatabaseService database;
+
+    @Test
+    public void unitsOfWorkShouldBeExecutedForIncludedNodes() {
+        Set<Long> expected = new HashSet<>();
+        try (Transaction tx = database.beginTx()) {
+            for (int i = 0; i < 1000; i++) {
+                if (i % 3 == 0) {
+                    expected.add(tx.createNode(Label.label("Person")).getId());
+                } else {
+                    tx.createNode(Label.label("Company"));
+                }
+            }
+            tx.commit();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            IncludedEntityIds input = new IncludedEntityIds(ParallelScan.nodes(database, IncludeNodes.all().with("Person")).withRangeSize(64), pool);
+
+            BatchTransactionExecutor executor = new IterableInputBatchTransactionExecutor<>(database, 100, input,
+                    (tx, id, batchNumber, stepNumber) -> tx.getNodeById(id).setProperty("visited", true));
+
+            executor.execute();
+
+            Set<Long> visited = new HashSet<>();
+            try (Transaction tx = database.beginTx()) {
+                tx.findNodes(Label.label("Person"), "visited", true).forEachRemaining(node -> visited.add(node.getId()));
+                tx.commit();
+            }
+            assertEquals(expected, visited);
+
+            Set<Long> iteratedAgain = new HashSet<>();
+            try (ParallelScan.ScanIterator iterator = input.iterator()) {
+                while (iterator.hasNext()) {
+                    iteratedAgain.add(iterator.nextLong());
+                }
+            }
+            assertEquals(expected, iteratedAgain);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
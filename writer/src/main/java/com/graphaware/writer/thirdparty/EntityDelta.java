@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.thirdparty;
+
+import com.graphaware.common.util.Change;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * Changes made to the properties of an entity in a single transaction, a compact alternative to a {@link Change} of
+ * complete detached representations of the entity. Properties that haven't been touched are not included.
+ */
+public abstract class EntityDelta<ID> implements Serializable {
+
+    private final ID id;
+    private final Map<String, Object> createdProperties;
+    private final Map<String, Change<Object>> changedProperties;
+    private final Map<String, Object> deletedProperties;
+
+    /**
+     * Create a delta.
+     *
+     * @param id                ID of the entity, the same as the ID of its detached representations in other operations.
+     *                          Must not be <code>null</code>.
+     * @param createdProperties properties created in the transaction, keyed by key. Must not be <code>null</code>.
+     * @param changedProperties previous and current values of properties changed in the transaction, keyed by key.
+     *                          Must not be <code>null</code>.
+     * @param deletedProperties previous values of properties deleted in the transaction, keyed by key. Must not be
+     *                          <code>null</code>.
+     */
+    protected EntityDelta(ID id, Map<String, Object> createdProperties, Map<String, Change<Object>> changedProperties, Map<String, Object> deletedProperties) {
+        notNull(id, "ID must not be null");
+        notNull(createdProperties, "Created properties must not be null");
+        notNull(changedProperties, "Changed properties must not be null");
+        notNull(deletedProperties, "Deleted properties must not be null");
+
+        this.id = id;
+        this.createdProperties = createdProperties;
+        this.changedProperties = changedProperties;
+        this.deletedProperties = deletedProperties;
+    }
+
+    /**
+     * @return ID of the entity.
+     */
+    public ID getId() {
+        return id;
+    }
+
+    /**
+     * @return read-only properties created in the transaction, keyed by key.
+     */
+    public Map<String, Object> getCreatedProperties() {
+        return Collections.unmodifiableMap(createdProperties);
+    }
+
+    /**
+     * @return read-only previous and current values of properties changed in the transaction, keyed by key.
+     */
+    public Map<String, Change<Object>> getChangedProperties() {
+        return Collections.unmodifiableMap(changedProperties);
+    }
+
+    /**
+     * @return read-only previous values of properties deleted in the transaction, keyed by key.
+     */
+    public Map<String, Object> getDeletedProperties() {
+        return Collections.unmodifiableMap(deletedProperties);
+    }
+
+    /**
+     * @return <code>true</code> iff no properties have been created, changed, or deleted.
+     */
+    public boolean hasNoPropertyChanges() {
+        return createdProperties.isEmpty() && changedProperties.isEmpty() && deletedProperties.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        EntityDelta that = (EntityDelta) o;
+
+        if (!id.equals(that.id)) {
+            return false;
+        }
+        if (!createdProperties.equals(that.createdProperties)) {
+            return false;
+        }
+        if (!changedProperties.equals(that.changedProperties)) {
+            return false;
+        }
+        return deletedProperties.equals(that.deletedProperties);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = id.hashCode();
+        result = 31 * result + createdProperties.hashCode();
+        result = 31 * result + changedProperties.hashCode();
+        result = 31 * result + deletedProperties.hashCode();
+        return result;
+    }
+}
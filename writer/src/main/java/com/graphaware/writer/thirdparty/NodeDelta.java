@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.thirdparty;
+
+import com.graphaware.common.util.Change;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * {@link EntityDelta} of a node, including labels assigned and removed in the transaction.
+ */
+public class NodeDelta<ID> extends EntityDelta<ID> {
+
+    private final String[] assignedLabels;
+    private final String[] removedLabels;
+
+    /**
+     * Create a delta.
+     *
+     * @param id                ID of the node. Must not be <code>null</code>.
+     * @param assignedLabels    names of labels assigned to the node in the transaction. Must not be <code>null</code>.
+     * @param removedLabels     names of labels removed from the node in the transaction. Must not be <code>null</code>.
+     * @param createdProperties properties created in the transaction. Must not be <code>null</code>.
+     * @param changedProperties properties changed in the transaction. Must not be <code>null</code>.
+     * @param deletedProperties properties deleted in the transaction. Must not be <code>null</code>.
+     */
+    public NodeDelta(ID id, String[] assignedLabels, String[] removedLabels, Map<String, Object> createdProperties, Map<String, Change<Object>> changedProperties, Map<String, Object> deletedProperties) {
+        super(id, createdProperties, changedProperties, deletedProperties);
+
+        notNull(assignedLabels, "Assigned labels must not be null");
+        notNull(removedLabels, "Removed labels must not be null");
+
+        this.assignedLabels = assignedLabels;
+        this.removedLabels = removedLabels;
+    }
+
+    /**
+     * @return names of labels assigned to the node in the transaction.
+     */
+    public String[] getAssignedLabels() {
+        return assignedLabels;
+    }
+
+    /**
+     * @return names of labels removed from the node in the transaction.
+     */
+    public String[] getRemovedLabels() {
+        return removedLabels;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        if (!super.equals(o)) {
+            return false;
+        }
+
+        NodeDelta<?> that = (NodeDelta<?>) o;
+
+        if (!Arrays.equals(assignedLabels, that.assignedLabels)) {
+            return false;
+        }
+        return Arrays.equals(removedLabels, that.removedLabels);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + Arrays.hashCode(assignedLabels);
+        result = 31 * result + Arrays.hashCode(removedLabels);
+        return result;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.thirdparty;
+
+import org.neo4j.graphdb.Node;
+
+/**
+ * {@link WriteOperation} representing a {@link Node} being updated, carrying only what has changed. Produced instead
+ * of {@link NodeUpdated} for writers that don't {@link ThirdPartyWriter#requiresSnapshots() require snapshots}.
+ */
+public class NodeDeltaUpdated<ID> extends BaseWriteOperation<NodeDelta<ID>> {
+
+    /**
+     * Create the operation.
+     *
+     * @param delta changes made to the node. Must not be <code>null</code>.
+     */
+    public NodeDeltaUpdated(NodeDelta<ID> delta) {
+        super(delta);
+    }
+
+    @Override
+    public OperationType getType() {
+        return OperationType.NODE_DELTA_UPDATED;
+    }
+}
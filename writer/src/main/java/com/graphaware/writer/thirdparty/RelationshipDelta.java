@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.thirdparty;
+
+import com.graphaware.common.util.Change;
+
+import java.util.Map;
+
+import static org.springframework.util.Assert.hasLength;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * {@link EntityDelta} of a relationship, including its type and the IDs of its start and end nodes, which never change.
+ */
+public class RelationshipDelta<ID> extends EntityDelta<ID> {
+
+    private final ID startNodeId;
+    private final ID endNodeId;
+    private final String type;
+
+    /**
+     * Create a delta.
+     *
+     * @param id                ID of the relationship. Must not be <code>null</code>.
+     * @param startNodeId       ID of the start node. Must not be <code>null</code>.
+     * @param endNodeId         ID of the end node. Must not be <code>null</code>.
+     * @param type              of the relationship. Must not be <code>null</code> or empty.
+     * @param createdProperties properties created in the transaction. Must not be <code>null</code>.
+     * @param changedProperties properties changed in the transaction. Must not be <code>null</code>.
+     * @param deletedProperties properties deleted in the transaction. Must not be <code>null</code>.
+     */
+    public RelationshipDelta(ID id, ID startNodeId, ID endNodeId, String type, Map<String, Object> createdProperties, Map<String, Change<Object>> changedProperties, Map<String, Object> deletedProperties) {
+        super(id, createdProperties, changedProperties, deletedProperties);
+
+        notNull(startNodeId, "Start node ID must not be null");
+        notNull(endNodeId, "End node ID must not be null");
+        hasLength(type);
+
+        this.startNodeId = startNodeId;
+        this.endNodeId = endNodeId;
+        this.type = type;
+    }
+
+    /**
+     * @return ID of the start node.
+     */
+    public ID getStartNodeId() {
+        return startNodeId;
+    }
+
+    /**
+     * @return ID of the end node.
+     */
+    public ID getEndNodeId() {
+        return endNodeId;
+    }
+
+    /**
+     * @return type of the relationship.
+     */
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        if (!super.equals(o)) {
+            return false;
+        }
+
+        RelationshipDelta<?> that = (RelationshipDelta<?>) o;
+
+        if (!startNodeId.equals(that.startNodeId)) {
+            return false;
+        }
+        if (!endNodeId.equals(that.endNodeId)) {
+            return false;
+        }
+        return type.equals(that.type);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + startNodeId.hashCode();
+        result = 31 * result + endNodeId.hashCode();
+        result = 31 * result + type.hashCode();
+        return result;
+    }
+}
@@ -41,4 +41,16 @@ public interface ThirdPartyWriter extends Writer {
      */
     void write(Collection<WriteOperation<?>> operations, String id);
 
+    /**
+     * Does this writer require complete representations of the previous and current state of updated entities, i.e.
+     * {@link NodeUpdated} and {@link RelationshipUpdated} operations? Writers that only need to know what has changed
+     * should return <code>false</code>, in which case {@link NodeDeltaUpdated} and {@link RelationshipDeltaUpdated}
+     * are written instead, carrying only created, changed, and deleted properties, and label changes.
+     *
+     * @return <code>true</code> iff snapshots are required. Defaults to <code>true</code>.
+     */
+    default boolean requiresSnapshots() {
+        return true;
+    }
+
 }
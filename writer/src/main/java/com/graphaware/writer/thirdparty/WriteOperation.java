@@ -31,7 +31,9 @@ public interface WriteOperation<T> extends Serializable {
         NODE_DELETED,
         RELATIONSHIP_CREATED,
         RELATIONSHIP_UPDATED,
-        RELATIONSHIP_DELETED
+        RELATIONSHIP_DELETED,
+        NODE_DELTA_UPDATED,
+        RELATIONSHIP_DELTA_UPDATED
     }
 
     /**
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.thirdparty;
+
+import com.graphaware.common.representation.DetachedEntityDecoder;
+import com.graphaware.common.util.Change;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.graphaware.writer.thirdparty.WriteOperationEncoder.*;
+
+/**
+ * Decoder of {@link WriteOperation}s written by {@link WriteOperationEncoder}.
+ * <p/>
+ * This class is not thread-safe.
+ */
+public class WriteOperationDecoder implements Closeable {
+
+    private final DetachedEntityDecoder decoder;
+
+    /**
+     * Create a new decoder.
+     *
+     * @param inputStream to read from.
+     * @throws IOException in case of failure to read, or when the stream hasn't been written by
+     *                     {@link WriteOperationEncoder}.
+     */
+    public WriteOperationDecoder(InputStream inputStream) throws IOException {
+        this.decoder = new DetachedEntityDecoder(inputStream);
+    }
+
+    /**
+     * Create a new decoder.
+     *
+     * @param inputStream to read from.
+     * @param maxLength   maximum length of strings, arrays, and collections, see {@link DetachedEntityDecoder}.
+     * @param filter      of Java-serialized objects, including operations of classes not provided by the framework.
+     *                    Must not be <code>null</code>.
+     * @throws IOException in case of failure to read, or when the stream hasn't been written by
+     *                     {@link WriteOperationEncoder}.
+     */
+    public WriteOperationDecoder(InputStream inputStream, int maxLength, ObjectInputFilter filter) throws IOException {
+        this.decoder = new DetachedEntityDecoder(inputStream, maxLength, filter);
+    }
+
+    /**
+     * Read an operation.
+     *
+     * @return operation.
+     * @throws IOException in case of failure to read.
+     */
+    @SuppressWarnings("unchecked")
+    public WriteOperation<?> read() throws IOException {
+        byte code = decoder.readByte();
+
+        switch (code) {
+            case SERIALIZED:
+                return (WriteOperation<?>) decoder.readValue();
+            case NODE_CREATED:
+                return new NodeCreated<>(decoder.readNode());
+            case NODE_UPDATED:
+                return new NodeUpdated<>(decoder.readNode(), decoder.readNode());
+            case NODE_DELETED:
+                return new NodeDeleted<>(decoder.readNode());
+            case RELATIONSHIP_CREATED:
+                return new RelationshipCreated<>(decoder.readRelationship());
+            case RELATIONSHIP_UPDATED:
+                return new RelationshipUpdated<>(decoder.readRelationship(), decoder.readRelationship());
+            case RELATIONSHIP_DELETED:
+                return new RelationshipDeleted<>(decoder.readRelationship());
+            case NODE_DELTA_UPDATED:
+                return new NodeDeltaUpdated<>(new NodeDelta<>(decoder.readValue(), readLabels(), readLabels(), readProperties(), readChangedProperties(), readProperties()));
+            case RELATIONSHIP_DELTA_UPDATED:
+                return new RelationshipDeltaUpdated<>(new RelationshipDelta<>(decoder.readValue(), decoder.readValue(), decoder.readValue(), decoder.readSymbol(), readProperties(), readChangedProperties(), readProperties()));
+            default:
+                throw new IOException("Unknown operation type " + code);
+        }
+    }
+
+    /**
+     * Read a batch of operations written by {@link WriteOperationEncoder#writeBatch(java.util.Collection)}.
+     *
+     * @return operations in the order they were written, <code>null</code> when the end of the stream has been reached.
+     * @throws IOException in case of failure to read.
+     */
+    public List<WriteOperation<?>> readBatch() throws IOException {
+        if (!decoder.hasMore()) {
+            return null;
+        }
+
+        int size = decoder.readLength();
+        List<WriteOperation<?>> operations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            operations.add(read());
+        }
+        return operations;
+    }
+
+    private String[] readLabels() throws IOException {
+        String[] labels = new String[decoder.readLength()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = decoder.readSymbol();
+        }
+        return labels;
+    }
+
+    private Map<String, Object> readProperties() throws IOException {
+        int size = decoder.readLength();
+        Map<String, Object> properties = new HashMap<>((int) (size / 0.75f) + 1);
+        for (int i = 0; i < size; i++) {
+            properties.put(decoder.readSymbol(), decoder.readValue());
+        }
+        return properties;
+    }
+
+    private Map<String, Change<Object>> readChangedProperties() throws IOException {
+        int size = decoder.readLength();
+        Map<String, Change<Object>> properties = new HashMap<>((int) (size / 0.75f) + 1);
+        for (int i = 0; i < size; i++) {
+            properties.put(decoder.readSymbol(), new Change<>(decoder.readValue(), decoder.readValue()));
+        }
+        return properties;
+    }
+
+    @Override
+    public void close() throws IOException {
+        decoder.close();
+    }
+}
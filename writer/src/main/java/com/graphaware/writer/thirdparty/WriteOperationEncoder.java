@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.thirdparty;
+
+import com.graphaware.common.representation.DetachedEntityEncoder;
+import com.graphaware.common.representation.DetachedNode;
+import com.graphaware.common.representation.DetachedRelationship;
+import com.graphaware.common.util.Change;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Encoder of {@link WriteOperation}s into the compact binary format of {@link DetachedEntityEncoder}, a faster and
+ * smaller alternative to Java serialization for streaming changes to third-party systems. Decoded by
+ * {@link WriteOperationDecoder}.
+ * <p/>
+ * Operations are written as a code of their {@link WriteOperation.OperationType} followed by the detached entities or deltas they
+ * carry. Operations of classes other than the ones provided by the framework are Java-serialized.
+ * <p/>
+ * This class is not thread-safe.
+ */
+public class WriteOperationEncoder implements Flushable, Closeable {
+
+    //wire codes of operations, part of the format, so they must never change
+    static final byte SERIALIZED = 0;
+    static final byte NODE_CREATED = 1;
+    static final byte NODE_UPDATED = 2;
+    static final byte NODE_DELETED = 3;
+    static final byte RELATIONSHIP_CREATED = 4;
+    static final byte RELATIONSHIP_UPDATED = 5;
+    static final byte RELATIONSHIP_DELETED = 6;
+    static final byte NODE_DELTA_UPDATED = 7;
+    static final byte RELATIONSHIP_DELTA_UPDATED = 8;
+
+    private final DetachedEntityEncoder encoder;
+
+    /**
+     * Create a new encoder.
+     *
+     * @param outputStream to write to.
+     * @throws IOException in case of failure to write.
+     */
+    public WriteOperationEncoder(OutputStream outputStream) throws IOException {
+        this.encoder = new DetachedEntityEncoder(outputStream);
+    }
+
+    /**
+     * Write an operation.
+     *
+     * @param operation to write. Must not be <code>null</code>.
+     * @throws IOException in case of failure to write.
+     */
+    public void write(WriteOperation<?> operation) throws IOException {
+        if (!isKnown(operation)) {
+            encoder.writeByte(SERIALIZED);
+            encoder.writeValue(operation);
+            return;
+        }
+
+        switch (operation.getType()) {
+            case NODE_CREATED:
+                encoder.writeByte(NODE_CREATED);
+                encoder.writeNode((DetachedNode<?>) operation.getDetails());
+                break;
+            case NODE_DELETED:
+                encoder.writeByte(NODE_DELETED);
+                encoder.writeNode((DetachedNode<?>) operation.getDetails());
+                break;
+            case NODE_UPDATED:
+                encoder.writeByte(NODE_UPDATED);
+                Change<?> nodeChange = (Change<?>) operation.getDetails();
+                encoder.writeNode((DetachedNode<?>) nodeChange.getPrevious());
+                encoder.writeNode((DetachedNode<?>) nodeChange.getCurrent());
+                break;
+            case RELATIONSHIP_CREATED:
+                encoder.writeByte(RELATIONSHIP_CREATED);
+                encoder.writeRelationship((DetachedRelationship<?, ?>) operation.getDetails());
+                break;
+            case RELATIONSHIP_DELETED:
+                encoder.writeByte(RELATIONSHIP_DELETED);
+                encoder.writeRelationship((DetachedRelationship<?, ?>) operation.getDetails());
+                break;
+            case RELATIONSHIP_UPDATED:
+                encoder.writeByte(RELATIONSHIP_UPDATED);
+                Change<?> relationshipChange = (Change<?>) operation.getDetails();
+                encoder.writeRelationship((DetachedRelationship<?, ?>) relationshipChange.getPrevious());
+                encoder.writeRelationship((DetachedRelationship<?, ?>) relationshipChange.getCurrent());
+                break;
+            case NODE_DELTA_UPDATED:
+                encoder.writeByte(NODE_DELTA_UPDATED);
+                NodeDelta<?> nodeDelta = (NodeDelta<?>) operation.getDetails();
+                encoder.writeValue(nodeDelta.getId());
+                writeLabels(nodeDelta.getAssignedLabels());
+                writeLabels(nodeDelta.getRemovedLabels());
+                writeProperties(nodeDelta);
+                break;
+            case RELATIONSHIP_DELTA_UPDATED:
+                encoder.writeByte(RELATIONSHIP_DELTA_UPDATED);
+                RelationshipDelta<?> relationshipDelta = (RelationshipDelta<?>) operation.getDetails();
+                encoder.writeValue(relationshipDelta.getId());
+                encoder.writeValue(relationshipDelta.getStartNodeId());
+                encoder.writeValue(relationshipDelta.getEndNodeId());
+                encoder.writeSymbol(relationshipDelta.getType());
+                writeProperties(relationshipDelta);
+                break;
+            default:
+                throw new IllegalStateException("Unknown operation type " + operation.getType());
+        }
+    }
+
+    /**
+     * Write a batch of operations, to be read back by {@link WriteOperationDecoder#readBatch()}, and flush.
+     *
+     * @param operations to write. Must not be <code>null</code>.
+     * @throws IOException in case of failure to write.
+     */
+    public void writeBatch(Collection<WriteOperation<?>> operations) throws IOException {
+        encoder.writeVarInt(operations.size());
+        for (WriteOperation<?> operation : operations) {
+            write(operation);
+        }
+        flush();
+    }
+
+    private void writeLabels(String[] labels) throws IOException {
+        encoder.writeVarInt(labels.length);
+        for (String label : labels) {
+            encoder.writeSymbol(label);
+        }
+    }
+
+    private void writeProperties(EntityDelta<?> delta) throws IOException {
+        writeProperties(delta.getCreatedProperties());
+
+        encoder.writeVarInt(delta.getChangedProperties().size());
+        for (Map.Entry<String, Change<Object>> property : delta.getChangedProperties().entrySet()) {
+            encoder.writeSymbol(property.getKey());
+            encoder.writeValue(property.getValue().getPrevious());
+            encoder.writeValue(property.getValue().getCurrent());
+        }
+
+        writeProperties(delta.getDeletedProperties());
+    }
+
+    private void writeProperties(Map<String, Object> properties) throws IOException {
+        encoder.writeVarInt(properties.size());
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            encoder.writeSymbol(property.getKey());
+            encoder.writeValue(property.getValue());
+        }
+    }
+
+    private static boolean isKnown(WriteOperation<?> operation) {
+        Class<?> type = operation.getClass();
+        return type == NodeCreated.class || type == NodeUpdated.class || type == NodeDeleted.class
+                || type == RelationshipCreated.class || type == RelationshipUpdated.class || type == RelationshipDeleted.class
+                || type == NodeDeltaUpdated.class || type == RelationshipDeltaUpdated.class;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        encoder.flush();
+    }
+
+    /**
+     * Flush and close the encoder, including the underlying stream.
+     *
+     * @throws IOException in case of failure to write.
+     */
+    @Override
+    public void close() throws IOException {
+        encoder.close();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.thirdparty;
+
+import com.graphaware.common.junit.Benchmark;
+import com.graphaware.common.junit.BenchmarkReport;
+import com.graphaware.common.representation.GraphDetachedNode;
+import com.graphaware.common.representation.GraphDetachedRelationship;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.graphaware.common.junit.BenchmarkReport.measure;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmark of encoding and decoding batches of {@link WriteOperation}s with {@link WriteOperationEncoder} and
+ * {@link WriteOperationDecoder}, comparing throughput and size to Java serialization. Both must read back the written
+ * operations, and the codec must produce fewer bytes.
+ */
+@Benchmark
+public class WriteOperationCodecBenchmark {
+
+    private static final int BATCHES = 100;
+    private static final int BATCH_SIZE = 1000;
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 10;
+
+    private static final BenchmarkReport REPORT = new BenchmarkReport(WriteOperationCodecBenchmark.class);
+
+    @Test
+    public void benchmarkEncodingAndDecoding() throws Exception {
+        List<List<WriteOperation<?>>> batches = new ArrayList<>();
+        for (int i = 0; i < BATCHES; i++) {
+            List<WriteOperation<?>> batch = new ArrayList<>();
+            for (int j = 0; j < BATCH_SIZE; j++) {
+                long id = (long) i * BATCH_SIZE + j;
+                switch (j % 3) {
+                    case 0:
+                        batch.add(new NodeCreated<>(new GraphDetachedNode(id, new String[]{"Person", "Customer"}, properties(id))));
+                        break;
+                    case 1:
+                        batch.add(new NodeUpdated<>(new GraphDetachedNode(id, new String[]{"Person"}, properties(id)), new GraphDetachedNode(id, new String[]{"Person"}, properties(id + 1))));
+                        break;
+                    default:
+                        batch.add(new RelationshipCreated<>(new GraphDetachedRelationship(id, id - 1, id - 2, "PURCHASED", properties(id))));
+                }
+            }
+            batches.add(batch);
+        }
+
+        byte[] encoded = encode(batches);
+        byte[] serialized = serialize(batches);
+        assertEquals(batches, decode(encoded));
+        assertEquals(batches, deserialize(serialized));
+        assertTrue(encoded.length < serialized.length, encoded.length + " bytes encoded, " + serialized.length + " bytes serialized");
+
+        long encodeTime = measure(WARMUP, ROUNDS, unchecked(() -> encode(batches)));
+        long decodeTime = measure(WARMUP, ROUNDS, unchecked(() -> decode(encoded)));
+        long serializeTime = measure(WARMUP, ROUNDS, unchecked(() -> serialize(batches)));
+        long deserializeTime = measure(WARMUP, ROUNDS, unchecked(() -> deserialize(serialized)));
+
+        long operations = (long) BATCHES * BATCH_SIZE * ROUNDS;
+        REPORT.record("encode", "codec (" + encoded.length + " bytes)", operations, encodeTime);
+        REPORT.record("encode", "java serialization (" + serialized.length + " bytes)", operations, serializeTime);
+        REPORT.record("decode", "codec (" + encoded.length + " bytes)", operations, decodeTime);
+        REPORT.record("decode", "java serialization (" + serialized.length + " bytes)", operations, deserializeTime);
+    }
+
+    private Map<String, Object> properties(long id) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("name", "Customer " + id);
+        properties.put("email", "customer" + id + "@example.com");
+        properties.put("age", id % 80);
+        properties.put("score", id / 3.0);
+        properties.put("active", id % 2 == 0);
+        properties.put("tags", new String[]{"tag" + id % 10, "tag" + id % 7});
+        properties.put("history", new long[]{id, id + 1, id + 2});
+        return properties;
+    }
+
+    private byte[] encode(List<List<WriteOperation<?>>> batches) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (WriteOperationEncoder encoder = new WriteOperationEncoder(bytes)) {
+            for (List<WriteOperation<?>> batch : batches) {
+                encoder.writeBatch(batch);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<List<WriteOperation<?>>> decode(byte[] bytes) throws IOException {
+        List<List<WriteOperation<?>>> batches = new ArrayList<>();
+        try (WriteOperationDecoder decoder = new WriteOperationDecoder(new ByteArrayInputStream(bytes))) {
+            List<WriteOperation<?>> batch;
+            while ((batch = decoder.readBatch()) != null) {
+                batches.add(batch);
+            }
+        }
+        return batches;
+    }
+
+    private byte[] serialize(List<List<WriteOperation<?>>> batches) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            for (List<WriteOperation<?>> batch : batches) {
+                out.writeObject(new ArrayList<>(batch));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<WriteOperation<?>>> deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        List<List<WriteOperation<?>>> batches = new ArrayList<>();
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            for (int i = 0; i < BATCHES; i++) {
+                batches.add((List<WriteOperation<?>>) in.readObject());
+            }
+        }
+        return batches;
+    }
+
+    private static Runnable unchecked(Round round) {
+        return () -> {
+            try {
+                round.run();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    private interface Round {
+        void run() throws Exception;
+    }
+}
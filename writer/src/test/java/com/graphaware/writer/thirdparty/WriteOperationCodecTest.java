@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2013-2020 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.thirdparty;
+
+import com.graphaware.common.json.StringIdJsonNode;
+import com.graphaware.common.json.StringIdJsonRelationship;
+import com.graphaware.common.representation.GraphDetachedNode;
+import com.graphaware.common.representation.GraphDetachedRelationship;
+import com.graphaware.common.util.Change;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit test for {@link WriteOperationEncoder} and {@link WriteOperationDecoder}.
+ */
+public class WriteOperationCodecTest {
+
+    @Test
+    public void shouldRoundTripOperations() throws IOException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("name", "Michal");
+        properties.put("age", 35L);
+
+        List<WriteOperation<?>> batch1 = Arrays.asList(
+                new NodeCreated<>(new GraphDetachedNode(1, new String[]{"Person"}, properties)),
+                new NodeUpdated<>(new GraphDetachedNode(1, new String[]{"Person"}, properties), new GraphDetachedNode(1, new String[]{"Person", "Employee"}, Collections.singletonMap("name", "Michal"))),
+                new NodeDeleted<>(new StringIdJsonNode("n2", new String[0], Collections.emptyMap())),
+                new RelationshipCreated<>(new GraphDetachedRelationship(3, 1, 2, "KNOWS", properties))
+        );
+
+        List<WriteOperation<?>> batch2 = Arrays.asList(
+                new RelationshipUpdated<>(new GraphDetachedRelationship(3, 1, 2, "KNOWS", properties), new GraphDetachedRelationship(3, 1, 2, "KNOWS", Collections.emptyMap())),
+                new RelationshipDeleted<>(new StringIdJsonRelationship("r3", "n1", "n2", "KNOWS", properties)),
+                new CustomOperation("custom"),
+                new NodeDeltaUpdated<>(new NodeDelta<>(1L, new String[]{"Employee"}, new String[0], Collections.singletonMap("age", 35L), Collections.singletonMap("name", new Change<>("Mike", "Michal")), Collections.singletonMap("nick", "M"))),
+                new RelationshipDeltaUpdated<>(new RelationshipDelta<>(3L, 1L, 2L, "KNOWS", Collections.emptyMap(), Collections.emptyMap(), properties)),
+                new NodeDeltaUpdated<>(new NodeDelta<>("n1", new String[0], new String[]{"Employee"}, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap())),
+                new RelationshipDeltaUpdated<>(new RelationshipDelta<>("r3", "n1", "n2", "KNOWS", Collections.emptyMap(), Collections.emptyMap(), properties))
+        );
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (WriteOperationEncoder encoder = new WriteOperationEncoder(bytes)) {
+            encoder.writeBatch(batch1);
+            encoder.writeBatch(batch2);
+        }
+
+        try (WriteOperationDecoder decoder = new WriteOperationDecoder(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(batch1, decoder.readBatch());
+            assertEquals(batch2, decoder.readBatch());
+            assertNull(decoder.readBatch());
+        }
+    }
+
+    private static class CustomOperation extends BaseWriteOperation<String> {
+
+        private CustomOperation(String details) {
+            super(details);
+        }
+
+        @Override
+        public OperationType getType() {
+            return OperationType.NODE_CREATED;
+        }
+    }
+}